@@ -8,8 +8,11 @@ import javax.ws.rs.ApplicationPath;
 import org.glassfish.jersey.server.ResourceConfig;
 
 import edu.utexas.tacc.tapis.security.api.utils.TenantInit;
+import edu.utexas.tacc.tapis.security.authz.dao.SkAbstractDao;
 import edu.utexas.tacc.tapis.security.authz.impl.RoleImpl;
 import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.security.metrics.SkDbMetrics;
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
 import edu.utexas.tacc.tapis.security.secrets.VaultManager;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.security.TenantManager;
@@ -44,6 +47,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
         tags = {@Tag(name = "role", description = "manage roles and permissions"),
                 @Tag(name = "user", description = "assign roles and permissions to users"),
                 @Tag(name = "share", description = "share resources among users"),
+                @Tag(name = "authz", description = "track changes to authorization data"),
                 @Tag(name = "vault", description = "manage application and user secrets"),
                 @Tag(name = "general", description = "informational endpoints")},
         servers = {@Server(url = "http://localhost:8080/v3", description = "Local test environment")},
@@ -98,6 +102,13 @@ public class SecurityApplication
         // Initialize local error list.
         var errors = new ArrayList<String>(); // cumulative error count
         
+        // ------------------- Metrics Initialization ---------------
+        // Enable metrics before the daos and vault clients are created.
+        SkMetrics.setEnabled(parms.isMetricsEnabled());
+        if (parms.isMetricsEnabled()) SkAbstractDao.setDataSourceWrapper(SkDbMetrics::wrap);
+        System.out.println("**** SUCCESS:  Metrics " + 
+                           (parms.isMetricsEnabled() ? "enabled" : "disabled") + " ****");
+        
         // ---------------- Initialize Security Filter --------------
         // Required to process any requests.
         JWTValidateRequestFilter.setService(TapisConstants.SERVICE_NAME_SECURITY);
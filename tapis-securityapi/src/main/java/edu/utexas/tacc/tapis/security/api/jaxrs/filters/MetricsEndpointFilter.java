@@ -0,0 +1,61 @@
+package edu.utexas.tacc.tapis.security.api.jaxrs.filters;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.Provider;
+
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
+
+/** This jax-rs filter answers GET /security/metrics before authentication so
+ * that Prometheus can scrape SK without a Tapis JWT.  @PermitAll on the
+ * resource method only skips authorization; the shared JWT filter would still
+ * reject requests that don't carry a token.  Aborting the request here ends
+ * request filtering, so the JWT filter never sees the scrape.  Response
+ * filters still run, so scrapes are timed like other requests.
+ *
+ * The response is 404 when metrics are disabled.
+ */
+@Provider
+@PreMatching
+@Priority(2)
+public final class MetricsEndpointFilter
+ implements ContainerRequestFilter
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The metrics path relative to the application path.
+    public static final String METRICS_PATH = "metrics";
+
+    /* ********************************************************************** */
+    /*                            Public Methods                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* filter:                                                                */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void filter(ContainerRequestContext requestContext)
+    {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())) return;
+        String path = requestContext.getUriInfo().getPath();
+        if (path == null) return;
+        if (path.startsWith("/")) path = path.substring(1);
+        if (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        if (path.equals(METRICS_PATH)) requestContext.abortWith(scrape());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* scrape:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Return the metrics in Prometheus text format, or 404 when disabled. */
+    public static Response scrape()
+    {
+        if (!SkMetrics.isEnabled()) return Response.status(Status.NOT_FOUND).build();
+        return Response.ok(SkMetrics.scrape(), SkMetrics.CONTENT_TYPE).build();
+    }
+}
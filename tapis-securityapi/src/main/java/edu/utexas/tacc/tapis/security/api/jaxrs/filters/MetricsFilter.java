@@ -0,0 +1,107 @@
+package edu.utexas.tacc.tapis.security.api.jaxrs.filters;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
+import io.micrometer.core.instrument.Timer;
+
+/** This jax-rs filter times each request from before authentication until
+ * the response is ready to be written.  Requests are published by resource
+ * class, resource method and response status.  Requests that don't match a
+ * resource method, such as those rejected before matching, are published
+ * with "none" as their resource and method.
+ *
+ * The filter runs first on requests and last on responses.  Nothing is
+ * recorded unless metrics are enabled.
+ */
+@Provider
+@PreMatching
+@Priority(1)
+public final class MetricsFilter
+ implements ContainerRequestFilter, ContainerResponseFilter
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The request property that holds the start time.
+    private static final String START_NANOS = MetricsFilter.class.getName() + ".start";
+
+    // Used when no resource method was matched.
+    private static final String NONE = "none";
+
+    /* ********************************************************************** */
+    /*                                Fields                                  */
+    /* ********************************************************************** */
+    // Timers by resource method.
+    private static final ConcurrentHashMap<Method,EndpointTimers> _timers = new ConcurrentHashMap<>();
+    private static final EndpointTimers _unmatched = new EndpointTimers(NONE, NONE);
+
+    @Context
+    private ResourceInfo _resourceInfo;
+
+    /* ********************************************************************** */
+    /*                            Public Methods                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* filter:                                                                */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void filter(ContainerRequestContext requestContext)
+    {
+        if (SkMetrics.isEnabled()) requestContext.setProperty(START_NANOS, System.nanoTime());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* filter:                                                                */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void filter(ContainerRequestContext requestContext,
+                       ContainerResponseContext responseContext)
+    {
+        // Metrics were disabled when the request started.
+        Object start = requestContext.getProperty(START_NANOS);
+        if (start == null) return;
+        long nanos = System.nanoTime() - (Long) start;
+
+        // Find the timers for the matched resource method.
+        Method method = _resourceInfo == null ? null : _resourceInfo.getResourceMethod();
+        EndpointTimers timers = method == null ? _unmatched :
+            _timers.computeIfAbsent(method, m ->
+                new EndpointTimers(_resourceInfo.getResourceClass().getSimpleName(), m.getName()));
+        timers.get(responseContext.getStatus()).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /* ********************************************************************** */
+    /*                          EndpointTimers Class                          */
+    /* ********************************************************************** */
+    /** The timers of one resource method by response status. */
+    private static final class EndpointTimers
+    {
+        private final String resource;
+        private final String method;
+        private final ConcurrentHashMap<Integer,Timer> byStatus = new ConcurrentHashMap<>();
+
+        private EndpointTimers(String resource, String method)
+        {this.resource = resource; this.method = method;}
+
+        private Timer get(int status)
+        {
+            return byStatus.computeIfAbsent(status, s ->
+                SkMetrics.timer(SkMetrics.HTTP_REQUEST, "HTTP request processing time",
+                                SkMetrics.CALL_BUCKETS, "resource", resource,
+                                "method", method, "status", s.toString()));
+        }
+    }
+}
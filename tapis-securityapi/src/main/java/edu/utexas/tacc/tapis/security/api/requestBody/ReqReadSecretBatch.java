@@ -0,0 +1,71 @@
+package edu.utexas.tacc.tapis.security.api.requestBody;
+
+import org.apache.commons.lang3.StringUtils;
+
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Request body used to read many secrets in one call.  Each secret is
+ * described by the same path and query parameters used to read a single 
+ * secret.
+ */
+public final class ReqReadSecretBatch
+ implements IReqBody
+{
+    // Maximum number of secrets in one request.
+    public static final int MAX_BATCH_SECRETS = 100;
+    
+    public String            tenant;
+    public String            user;
+    public SecretDescriptor[] secrets;
+    
+    // A single secret in the request.
+    public static final class SecretDescriptor
+    {
+        public String secretType;
+        public String secretName;
+        public int    version;     // 0 means latest
+        
+        // Parameters used to construct the secret path in vault.
+        public String sysId;
+        public String sysUser;
+        public String keyType = "sshkey";
+        public String dbHost;
+        public String dbName;
+        public String dbService;
+    }
+    
+    /** Return a user-appropriate error message on failed validation
+     *  and return null if validation succeeds.
+     */ 
+    @Override
+    public String validate() 
+    {
+        // Final checks.
+        if (StringUtils.isBlank(tenant)) 
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "readSecretBatch", "tenant");
+        if (StringUtils.isBlank(user)) 
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "readSecretBatch", "user");
+        if (secrets == null || secrets.length == 0)
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "readSecretBatch", "secrets");
+        
+        // Check each secret.
+        for (SecretDescriptor desc : secrets) {
+            if (desc == null || StringUtils.isBlank(desc.secretType)) 
+                return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "readSecretBatch", "secretType");
+            if (StringUtils.isBlank(desc.secretName)) 
+                return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "readSecretBatch", "secretName");
+            if (desc.version < 0)
+                return MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "readSecretBatch", 
+                                       "version", desc.version);
+            if (StringUtils.isBlank(desc.keyType)) desc.keyType = "sshkey";
+        }
+        
+        // Limit the size of a single request.
+        if (secrets.length > MAX_BATCH_SECRETS)
+            return MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "readSecretBatch", 
+                                   "secrets", secrets.length + " > " + MAX_BATCH_SECRETS);
+        
+        // Success.
+        return null;
+    }
+}
@@ -0,0 +1,95 @@
+package edu.utexas.tacc.tapis.security.api.requestBody;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import edu.utexas.tacc.tapis.security.api.utils.SKApiUtils;
+import edu.utexas.tacc.tapis.security.authz.model.SkShare;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Request body used to share or unshare many resources with many grantees 
+ * in one call.  A share is created or deleted for every combination of 
+ * grantee and resource.
+ */
+public final class ReqShareResourceBulk
+ implements IReqBody
+{
+    // Maximum number of grantee/resource combinations in one request.
+    public static final int MAX_BULK_SHARES = 5000;
+    
+    public String        grantor;
+    public String        tenant;
+    public String        resourceType;
+    public String        privilege;
+    public String[]      grantees;
+    public ResourceIds[] resources;
+    
+    // A single resource in the request.
+    public static final class ResourceIds
+    {
+        public String resourceId1;
+        public String resourceId2;  // can be null
+    }
+    
+    /** Return a user-appropriate error message on failed validation
+     *  and return null if validation succeeds.
+     */ 
+    @Override
+    public String validate() 
+    {
+        // Final checks.
+        if (StringUtils.isBlank(grantor)) 
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResourceBulk", "grantor");
+        if (StringUtils.isBlank(tenant)) 
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResourceBulk", "tenant");
+        if (StringUtils.isBlank(resourceType)) 
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResourceBulk", "resourceType");
+        if (!SKApiUtils.isValidName(privilege))
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResourceBulk", "privilege");
+        if (grantees == null || grantees.length == 0)
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResourceBulk", "grantees");
+        if (resources == null || resources.length == 0)
+            return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResourceBulk", "resources");
+        
+        // Check each grantee and resource.
+        for (String grantee : grantees)
+            if (StringUtils.isBlank(grantee)) 
+                return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResourceBulk", "grantee");
+        for (ResourceIds ids : resources)
+            if (ids == null || StringUtils.isBlank(ids.resourceId1)) 
+                return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResourceBulk", "resourceId1");
+        
+        // Limit the size of a single request.
+        long count = (long) grantees.length * resources.length;
+        if (count > MAX_BULK_SHARES)
+            return MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "shareResourceBulk", 
+                                   "shares", count + " > " + MAX_BULK_SHARES);
+        
+        // Success.
+        return null;
+    }
+    
+    /** Expand the request into one share per grantee and resource combination.
+     * 
+     * @return the non-null list of shares
+     */
+    public List<SkShare> toShares()
+    {
+        var list = new ArrayList<SkShare>(grantees.length * resources.length);
+        for (ResourceIds ids : resources)
+            for (String grantee : grantees) {
+                var skShare = new SkShare();
+                skShare.setGrantor(grantor);
+                skShare.setGrantee(grantee);
+                skShare.setTenant(tenant);
+                skShare.setResourceType(resourceType);
+                skShare.setResourceId1(ids.resourceId1);
+                skShare.setResourceId2(StringUtils.isBlank(ids.resourceId2) ? null : ids.resourceId2);
+                skShare.setPrivilege(privilege);
+                list.add(skShare);
+            }
+        return list;
+    }
+}
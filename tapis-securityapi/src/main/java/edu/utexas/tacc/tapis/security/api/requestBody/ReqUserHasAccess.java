@@ -0,0 +1,52 @@
+package edu.utexas.tacc.tapis.security.api.requestBody;
+
+import org.apache.commons.lang3.StringUtils;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkAccessSelector;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+
+public final class ReqUserHasAccess
+ implements IReqBody
+{
+    public String  tenant;
+    public String  user;
+    public String  permSpec;
+    public String  resourceType;
+    public String  resourceId1;
+    public String  resourceId2;
+    public String  privilege;
+    public boolean excludePublic;
+    public boolean excludePublicNoAuthn;
+    public boolean orAdmin;
+
+    /** Return a user-appropriate error message on failed validation
+     *  and return null if validation succeeds.  The selector enforces the
+     *  rules so that they are the same for all callers.
+     */ 
+    @Override
+    public String validate() 
+    {
+        try {toSelector().validate();}
+            catch (TapisException e) {return e.getMessage();}
+        
+        // Success.
+        return null;
+    }
+    
+    /** Create the library selector from this request. */
+    public SkAccessSelector toSelector()
+    {
+        var sel = new SkAccessSelector();
+        sel.setTenant(tenant);
+        sel.setUser(user);
+        sel.setPermSpec(StringUtils.stripToNull(permSpec));
+        sel.setResourceType(StringUtils.stripToNull(resourceType));
+        sel.setResourceId1(StringUtils.stripToNull(resourceId1));
+        sel.setResourceId2(StringUtils.stripToNull(resourceId2));
+        sel.setPrivilege(StringUtils.stripToNull(privilege));
+        sel.setExcludePublic(excludePublic);
+        sel.setExcludePublicNoAuthn(excludePublicNoAuthn);
+        sel.setOrAdmin(orAdmin);
+        return sel;
+    }
+}
@@ -3,6 +3,9 @@ package edu.utexas.tacc.tapis.security.api.resources;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -14,6 +17,8 @@ import com.bettercloud.vault.VaultException;
 
 import edu.utexas.tacc.tapis.security.api.requestBody.IReqBody;
 import edu.utexas.tacc.tapis.security.api.utils.SKApiUtils;
+import edu.utexas.tacc.tapis.security.authz.impl.AccessImpl;
+import edu.utexas.tacc.tapis.security.authz.impl.AuthzChangeImpl;
 import edu.utexas.tacc.tapis.security.authz.impl.RoleImpl;
 import edu.utexas.tacc.tapis.security.authz.impl.ShareImpl;
 import edu.utexas.tacc.tapis.security.authz.impl.UserImpl;
@@ -114,6 +119,16 @@ class AbstractResource
     /* ---------------------------------------------------------------------------- */
     protected ShareImpl getShareImpl() {return ShareImpl.getInstance();}
     
+    /* ---------------------------------------------------------------------------- */
+    /* getAccessImpl:                                                               */
+    /* ---------------------------------------------------------------------------- */
+    protected AccessImpl getAccessImpl() {return AccessImpl.getInstance();}
+    
+    /* ---------------------------------------------------------------------------- */
+    /* getAuthzChangeImpl:                                                          */
+    /* ---------------------------------------------------------------------------- */
+    protected AuthzChangeImpl getAuthzChangeImpl() {return AuthzChangeImpl.getInstance();}
+    
     /* ---------------------------------------------------------------------------- */
     /* getRoleImpl:                                                                 */
     /* ---------------------------------------------------------------------------- */
@@ -161,6 +176,85 @@ class AbstractResource
         return null;
     }
     
+    /* ---------------------------------------------------------------------------- */
+    /* getAuthzEntityTag:                                                           */
+    /* ---------------------------------------------------------------------------- */
+    /** Get a strong entity tag for a response computed from the tenant's 
+     * authorization data.  The tag is the tenant's authorization version, which
+     * changes whenever any role, permission or role assignment in the tenant 
+     * changes, so it must be acquired before the response data is read.  Null
+     * is returned if the version cannot be determined, in which case the 
+     * response is simply not tagged.
+     * 
+     * @param tenant the tenant whose authorization data is returned
+     * @return the entity tag or null
+     */
+    protected EntityTag getAuthzEntityTag(String tenant)
+    {
+        try {
+            long version = getAuthzChangeImpl().getCachedVersion(tenant);
+            return new EntityTag(tenant + "-" + version);
+        }
+        catch (Exception e) {
+            _log.warn("Unable to get authorization version for tenant " + tenant + 
+                      ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* getNotModifiedResponse:                                                      */
+    /* ---------------------------------------------------------------------------- */
+    /** Evaluate the request's If-None-Match header against the entity tag.  
+     * A 304 response is returned if the client's copy is current, otherwise 
+     * null is returned and the request should be processed normally.
+     * 
+     * @param request the jaxrs request
+     * @param etag the current entity tag or null
+     * @return a 304 response or null
+     */
+    protected Response getNotModifiedResponse(Request request, EntityTag etag)
+    {
+        return getNotModifiedResponse(request, etag, getAuthzCacheControl());
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* getNotModifiedResponse:                                                      */
+    /* ---------------------------------------------------------------------------- */
+    /** Evaluate the request's If-None-Match header against the entity tag and 
+     * return a 304 response with the specified cache control if the client's 
+     * copy is current, otherwise return null.
+     * 
+     * @param request the jaxrs request
+     * @param etag the current entity tag or null
+     * @param cacheControl the cache control of the 304 response
+     * @return a 304 response or null
+     */
+    protected Response getNotModifiedResponse(Request request, EntityTag etag,
+                                              CacheControl cacheControl)
+    {
+        if (etag == null) return null;
+        var builder = request.evaluatePreconditions(etag);
+        if (builder == null) return null;
+        return builder.tag(etag).cacheControl(cacheControl).build();
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* getAuthzCacheControl:                                                        */
+    /* ---------------------------------------------------------------------------- */
+    /** Authorization listings may be stored by the requesting client but not by 
+     * shared caches, and must be revalidated before each use.  Revalidation is
+     * cheap because of the entity tag.
+     */
+    protected CacheControl getAuthzCacheControl()
+    {
+        var cc = new CacheControl();
+        cc.setPrivate(true);
+        cc.setNoCache(true);
+        cc.setNoTransform(false);
+        return cc;
+    }
+    
     /* ---------------------------------------------------------------------------- */
     /* getExceptionResponse:                                                        */
     /* ---------------------------------------------------------------------------- */
@@ -0,0 +1,173 @@
+package edu.utexas.tacc.tapis.security.api.resources;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.api.responses.RespAuthzChangeList;
+import edu.utexas.tacc.tapis.security.api.utils.SKCheckAuthz;
+import edu.utexas.tacc.tapis.security.authz.model.SkAuthzChangeList;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.sharedapi.utils.TapisRestUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+
+@Path("/authz")
+public class AuthzResource 
+  extends AbstractResource
+{
+   /* **************************************************************************** */
+   /*                                   Constants                                  */
+   /* **************************************************************************** */
+   // Local logger.
+   private static final Logger _log = LoggerFactory.getLogger(AuthzResource.class);
+   
+   /* **************************************************************************** */
+   /*                                    Fields                                    */
+   /* **************************************************************************** */
+   /* Jax-RS context dependency injection allows implementations of these abstract
+    * types to be injected (ch 9, jax-rs 2.0):
+    * 
+    *      javax.ws.rs.container.ResourceContext
+    *      javax.ws.rs.core.Application
+    *      javax.ws.rs.core.HttpHeaders
+    *      javax.ws.rs.core.Request
+    *      javax.ws.rs.core.SecurityContext
+    *      javax.ws.rs.core.UriInfo
+    *      javax.ws.rs.core.Configuration
+    *      javax.ws.rs.ext.Providers
+    * 
+    * In a servlet environment, Jersey context dependency injection can also 
+    * initialize these concrete types (ch 3.6, jersey spec):
+    * 
+    *      javax.servlet.HttpServletRequest
+    *      javax.servlet.HttpServletResponse
+    *      javax.servlet.ServletConfig
+    *      javax.servlet.ServletContext
+    *
+    * Inject takes place after constructor invocation, so fields initialized in this
+    * way can not be accessed in constructors.
+    */ 
+    @Context
+    private HttpHeaders        _httpHeaders;
+ 
+    @Context
+    private Application        _application;
+ 
+    @Context
+    private UriInfo            _uriInfo;
+ 
+    @Context
+    private SecurityContext    _securityContext;
+ 
+    @Context
+    private ServletContext     _servletContext;
+ 
+    @Context
+    private HttpServletRequest _request;
+   
+    /* **************************************************************************** */
+    /*                                Public Methods                                */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* getChanges:                                                                  */
+    /* ---------------------------------------------------------------------------- */
+    @GET
+    @Path("/changes")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            description = "Get the authorization changes recorded in a tenant after a "
+                          + "given version.  Every change to roles, role permissions, "
+                          + "child roles, user role assignments or shares increments the "
+                          + "tenant's authorization version and is recorded with its change "
+                          + "type and, when a single user is affected, the user's name.  "
+                          + "Clients that cache SK authorization data can poll this "
+                          + "endpoint and refresh only what changed.\n\n"
+                          + ""
+                          + "Set *since* to the last version processed, or 0 to start from "
+                          + "the beginning.  Changes are returned in version order, at most "
+                          + "*limit* at a time; *more* is true if additional changes are "
+                          + "available.  The result's *currentVersion* is the tenant's "
+                          + "version when the page was read.  If *resyncRequired* is true, "
+                          + "changes after *since* are no longer retained, so the client must "
+                          + "reload its cache and continue from *currentVersion*.\n\n"
+                          + ""
+                          + "This request is authorized if the requestor is a user that has "
+                          + "access to the specified tenant or if the requestor is a service."
+                          + "",
+            tags = "authz",
+            security = {@SecurityRequirement(name = "TapisJWT")},
+            responses = 
+                {@ApiResponse(responseCode = "200", description = "Changes returned.",
+                    content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.security.api.responses.RespAuthzChangeList.class))),
+                 @ApiResponse(responseCode = "400", description = "Input error.",
+                    content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "401", description = "Not authorized.",
+                    content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "500", description = "Server error.",
+                    content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+        )
+    public Response getChanges(@QueryParam("tenant") String tenant,
+                               @DefaultValue("0") @QueryParam("since") long since,
+                               @DefaultValue("1000") @QueryParam("limit") int limit,
+                               @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint)
+    {
+        // Trace this request.
+        if (_log.isTraceEnabled()) {
+            String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(), 
+                                         "getChanges", _request.getRequestURL());
+            _log.trace(msg);
+        }
+        
+        // ------------------------- Input Processing -------------------------
+        if (StringUtils.isBlank(tenant)) {
+            String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "tenant");
+            _log.error(msg);
+            return Response.status(Status.BAD_REQUEST).
+                    entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+        }
+        
+        // ------------------------- Check Authz ------------------------------
+        // Authorization passed if a null response is returned.
+        Response resp = SKCheckAuthz.configure(tenant, null).check(prettyPrint);
+        if (resp != null) return resp;
+        
+        // ------------------------ Request Processing ------------------------
+        SkAuthzChangeList changes = null;
+        try {changes = getAuthzChangeImpl().getChanges(tenant, since, limit);}
+            catch (Exception e) {
+                return getExceptionResponse(e, null, prettyPrint);
+            }
+        
+        // Populate response.
+        RespAuthzChangeList r = new RespAuthzChangeList(changes);
+        
+        // ---------------------------- Success ------------------------------- 
+        int cnt = changes.changes.size();
+        return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+            MsgUtils.getMsg("TAPIS_FOUND", "Changes", cnt + " changes"), prettyPrint, r)).build();
+    }
+}
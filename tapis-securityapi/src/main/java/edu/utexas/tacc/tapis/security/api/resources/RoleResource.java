@@ -17,8 +17,10 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.SecurityContext;
@@ -141,6 +143,9 @@ public final class RoleResource
   
      @Context
      private HttpServletRequest _request;
+
+     @Context
+     private Request            _jaxrsRequest;
     
      /* **************************************************************************** */
      /*                                Public Methods                                */
@@ -506,7 +511,9 @@ public final class RoleResource
                  + "tenant must be specified.\n\n"
                  + ""
                  + "This request is authorized if the requestor is a user that has "
-                 + "access to the specified tenant or if the requestor is a service."
+                 + "access to the specified tenant or if the requestor is a service.\n\n"
+                 + "Responses carry a strong ETag derived from the tenant's authorization "
+                 + "version.  Requests with a current If-None-Match tag receive 304."
                  + "",
          tags = "role",
          security = {@SecurityRequirement(name = "TapisJWT")},
@@ -514,6 +521,7 @@ public final class RoleResource
              {@ApiResponse(responseCode = "200", description = "Named role returned.",
                content = @Content(schema = @Schema(
                    implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespNameArray.class))),
+              @ApiResponse(responseCode = "304", description = "Not modified."),
               @ApiResponse(responseCode = "400", description = "Input error.",
                content = @Content(schema = @Schema(
                   implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
@@ -552,6 +560,12 @@ public final class RoleResource
          Response resp = SKCheckAuthz.configure(tenant, null).check(prettyPrint);
          if (resp != null) return resp;
          
+         // ------------------------ Conditional Request -----------------------
+         // Nothing to return if the client's copy is current.
+         EntityTag etag = getAuthzEntityTag(tenant);
+         Response notModified = getNotModifiedResponse(_jaxrsRequest, etag);
+         if (notModified != null) return notModified;
+         
          // ------------------------ Request Processing ------------------------
          // Create the role.
          List<String> list = null;
@@ -572,7 +586,8 @@ public final class RoleResource
          // ---------------------------- Success ------------------------------- 
          // Success means we found the role. 
          int cnt = names.names.length;
-         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+         return Response.status(Status.OK).tag(etag).cacheControl(getAuthzCacheControl()).
+             entity(TapisRestUtils.createSuccessResponse(
              MsgUtils.getMsg("TAPIS_FOUND", "Permissions", cnt + " permissions"), prettyPrint, r)).build();
      }
 
@@ -23,6 +23,7 @@ import javax.ws.rs.core.UriInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.api.jaxrs.filters.MetricsEndpointFilter;
 import edu.utexas.tacc.tapis.security.api.responses.RespProbe;
 import edu.utexas.tacc.tapis.security.secrets.VaultManager;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
@@ -283,6 +284,36 @@ public final class SecurityResource
           MsgUtils.getMsg("TAPIS_READY", "Security Kernel"), false, r)).build();
   }
 
+  /* ---------------------------------------------------------------------------- */
+  /* metrics:                                                                     */
+  /* ---------------------------------------------------------------------------- */
+  /** Return the SK metrics in Prometheus text format for scraping.  This method
+   * does no logging and returns 404 when metrics are disabled.
+   * 
+   * Note that no JWT is required on this call.  MetricsEndpointFilter answers
+   * the request before the JWT filter runs, so this method documents the 
+   * endpoint and only runs if the filter isn't installed.
+   * 
+   * @return the metrics
+   */
+  @GET
+  @Path("/metrics")
+  @Produces(MediaType.TEXT_PLAIN)
+  @PermitAll
+  @Operation(
+          description = "Prometheus metrics for database, vault and request latency. "
+                        + "No authorization required.",
+          tags = "general",
+          responses = 
+              {@ApiResponse(responseCode = "200", description = "Metrics in Prometheus text format.",
+                   content = @Content(mediaType = MediaType.TEXT_PLAIN)),
+               @ApiResponse(responseCode = "404", description = "Metrics disabled.")}
+      )
+  public Response metrics()
+  {
+      return MetricsEndpointFilter.scrape();
+  }
+
   /* **************************************************************************** */
   /*                               Private Methods                                */
   /* **************************************************************************** */
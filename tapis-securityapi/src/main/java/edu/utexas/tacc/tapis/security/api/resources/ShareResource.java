@@ -28,11 +28,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqShareResource;
+import edu.utexas.tacc.tapis.security.api.requestBody.ReqShareResourceBulk;
 import edu.utexas.tacc.tapis.security.api.responses.RespShare;
+import edu.utexas.tacc.tapis.security.api.responses.RespShareBulk;
 import edu.utexas.tacc.tapis.security.api.responses.RespShareList;
 import edu.utexas.tacc.tapis.security.api.utils.SKApiUtils;
 import edu.utexas.tacc.tapis.security.api.utils.SKCheckAuthz;
 import edu.utexas.tacc.tapis.security.authz.model.SkShare;
+import edu.utexas.tacc.tapis.security.authz.model.SkShareBulkResult;
 import edu.utexas.tacc.tapis.security.authz.model.SkShareDeleteSelector;
 import edu.utexas.tacc.tapis.security.authz.model.SkShareInputFilter;
 import edu.utexas.tacc.tapis.security.authz.model.SkShareList;
@@ -67,6 +70,8 @@ public class ShareResource
    // Json schema resource files.
    private static final String FILE_SK_SHARE_RESOURCE_REQUEST = 
        "/edu/utexas/tacc/tapis/security/api/jsonschema/ShareResourceRequest.json";
+   private static final String FILE_SK_SHARE_RESOURCE_BULK_REQUEST = 
+       "/edu/utexas/tacc/tapis/security/api/jsonschema/ShareResourceBulkRequest.json";
    
    /* **************************************************************************** */
    /*                                    Fields                                    */
@@ -255,6 +260,110 @@ public class ShareResource
                 MsgUtils.getMsg("TAPIS_CREATED", "Share", skShare.getId()), prettyPrint, r)).build();
     }
 
+    /* ---------------------------------------------------------------------------- */
+    /* shareResourceBulk:                                                           */
+    /* ---------------------------------------------------------------------------- */
+    @POST
+    @Path("/bulk")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            description = "Share one or more Tapis resources with one or more grantees "
+                          + "in a single request.  A share is created for every combination "
+                          + "of grantee in the *grantees* list and resource in the *resources* "
+                          + "list.  The *grantor*, *tenant*, *resourceType* and *privilege* "
+                          + "values apply to all shares.  Each resource requires a "
+                          + "*resourceId1* value and optionally a *resourceId2* value.\n\n"
+                          + ""
+                          + "All shares are inserted in a single database transaction.  Shares "
+                          + "that already exist are not changed.  The response contains the "
+                          + "number of shares created and an outcome for each distinct share, "
+                          + "either CREATED or EXISTED.\n\n"
+                          + ""
+                          + "At most " + ReqShareResourceBulk.MAX_BULK_SHARES + " shares "
+                          + "can be specified in one request. For the request to be authorized, "
+                          + "the requestor must be a Tapis service."
+                          + "",
+            tags = "share",
+            security = {@SecurityRequirement(name = "TapisJWT")},
+            requestBody = 
+                @RequestBody(
+                    required = true,
+                    content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.security.api.requestBody.ReqShareResourceBulk.class))),
+            responses = 
+                {@ApiResponse(responseCode = "200", description = "Shares processed.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.security.api.responses.RespShareBulk.class))),
+                 @ApiResponse(responseCode = "400", description = "Input error.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "401", description = "Not authorized.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "500", description = "Server error.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+        )
+    public Response shareResourceBulk(@DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                      InputStream payloadStream)
+    {
+        // Trace this request.
+        if (_log.isTraceEnabled()) {
+            String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(), 
+                                         "shareResourceBulk", _request.getRequestURL());
+            _log.trace(msg);
+        }
+        
+        // ------------------------- Input Processing -------------------------
+        // Parse and validate the json in the request payload, which must exist.
+        ReqShareResourceBulk payload = null;
+        try {payload = getPayload(payloadStream, FILE_SK_SHARE_RESOURCE_BULK_REQUEST, 
+                                  ReqShareResourceBulk.class);
+        } 
+        catch (Exception e) {
+            String msg = MsgUtils.getMsg("NET_REQUEST_PAYLOAD_ERROR", 
+                                         "shareResourceBulk", e.getMessage());
+            _log.error(msg, e);
+            return Response.status(Status.BAD_REQUEST).
+              entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+        }
+            
+        // Expand the request into individual shares.
+        var shares = payload.toShares();
+        
+        // See shareResource() for a discussion of the threadlocal values. 
+        var threadContext = TapisThreadLocal.tapisThreadContext.get();
+        var oboUser   = threadContext.getOboUser();
+        var oboTenant = threadContext.getOboTenantId();
+        var jwtTenant = threadContext.getJwtTenantId();
+        var jwtUser   = threadContext.getJwtUser();
+        
+        // ------------------------- Check Authz ------------------------------
+        // Authorization passed if a null response is returned.
+        Response resp = SKCheckAuthz.configure(oboTenant, oboUser)
+                            .setCheckIsService()
+                            .check(prettyPrint);
+        if (resp != null) return resp;
+        
+        // ------------------------ Request Processing ------------------------
+        // Create the shares in the database using a single call.
+        SkShareBulkResult result = null;
+        try {result = getShareImpl().shareResources(shares, jwtUser, jwtTenant);}
+        catch (Exception e) {
+            String msg = MsgUtils.getMsg("SK_SHARE_CREATE_ERROR", payload.grantor, payload.tenant,
+                            payload.grantees.length + " grantee(s)", payload.resourceType, 
+                            payload.resources.length + " resource(s)", payload.privilege);
+            return getExceptionResponse(e, msg, prettyPrint);
+        }
+        
+        // ---------------------------- Success ------------------------------- 
+        // Success means all shares exist now. 
+        RespShareBulk r = new RespShareBulk(result);
+        return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+            MsgUtils.getMsg("TAPIS_CREATED", "Shares", result.changes), prettyPrint, r)).build();
+    }
+
     /* ---------------------------------------------------------------------------- */
     /* getShares:                                                                   */
     /* ---------------------------------------------------------------------------- */
@@ -739,6 +848,109 @@ public class ShareResource
             MsgUtils.getMsg("TAPIS_FOUND", "deleteShare", grantee), prettyPrint, r)).build();
     }
 
+    /* ---------------------------------------------------------------------------- */
+    /* deleteShareBulk:                                                             */
+    /* ---------------------------------------------------------------------------- */
+    @POST
+    @Path("/bulk/delete")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            description = "Delete one or more shared resources in a single request. "
+                          + "The request body has the same format as the bulk share request. "
+                          + "A share is deleted for every combination of grantee in the "
+                          + "*grantees* list and resource in the *resources* list.\n\n"
+                          + ""
+                          + "Only shares originally granted by the calling service are deleted. "
+                          + "This call is idempotent.  The response contains the number "
+                          + "of shares deleted and an outcome for each distinct share, either "
+                          + "DELETED or NOT_FOUND.\n\n"
+                          + ""
+                          + "At most " + ReqShareResourceBulk.MAX_BULK_SHARES + " shares "
+                          + "can be specified in one request. For the request to be authorized, "
+                          + "the requestor must be the Tapis service that originally granted "
+                          + "the shares."
+                          + "",
+            tags = "share",
+            security = {@SecurityRequirement(name = "TapisJWT")},
+            requestBody = 
+                @RequestBody(
+                    required = true,
+                    content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.security.api.requestBody.ReqShareResourceBulk.class))),
+            responses = 
+                {@ApiResponse(responseCode = "200", description = "Shares deleted if they exist.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.security.api.responses.RespShareBulk.class))),
+                 @ApiResponse(responseCode = "400", description = "Input error.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "401", description = "Not authorized.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "500", description = "Server error.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+        )
+    public Response deleteShareBulk(@DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                    InputStream payloadStream)
+    {
+        // Trace this request.
+        if (_log.isTraceEnabled()) {
+            String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(), 
+                                         "deleteShareBulk", _request.getRequestURL());
+            _log.trace(msg);
+        }
+        
+        // ------------------------- Input Processing -------------------------
+        // Parse and validate the json in the request payload, which must exist.
+        ReqShareResourceBulk payload = null;
+        try {payload = getPayload(payloadStream, FILE_SK_SHARE_RESOURCE_BULK_REQUEST, 
+                                  ReqShareResourceBulk.class);
+        } 
+        catch (Exception e) {
+            String msg = MsgUtils.getMsg("NET_REQUEST_PAYLOAD_ERROR", 
+                                         "deleteShareBulk", e.getMessage());
+            _log.error(msg, e);
+            return Response.status(Status.BAD_REQUEST).
+              entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+        }
+            
+        // Expand the request into individual shares.
+        var shares = payload.toShares();
+        
+        // Get obo information.
+        var threadContext = TapisThreadLocal.tapisThreadContext.get();
+        var oboTenant = threadContext.getOboTenantId();
+        var oboUser   = threadContext.getOboUser();
+        var jwtTenant = threadContext.getJwtTenantId();
+        var jwtUser   = threadContext.getJwtUser();
+        
+        // ------------------------- Check Authz ------------------------------
+        // Authorization passed if a null response is returned.
+        Response resp = SKCheckAuthz.configure(oboTenant, oboUser)
+                            .setCheckIsService()
+                            .check(prettyPrint);
+        if (resp != null) return resp;
+        
+        // ------------------------ Request Processing ------------------------
+        // Delete the shares created by the calling service using a single call.
+        SkShareBulkResult result = null;
+        try {result = getShareImpl().deleteShares(shares, jwtUser, jwtTenant);}
+        catch (Exception e) {
+            String msg = MsgUtils.getMsg("SK_SHARE_DELETE_ERROR", oboTenant, oboUser,
+                                         jwtTenant, jwtUser, payload.grantees.length + " grantee(s)", 
+                                         payload.grantor, payload.tenant);
+            return getExceptionResponse(e, msg, prettyPrint);
+        }
+        
+        // ---------------------------- Success ------------------------------- 
+        // This call is idempotent, the outcomes indicate which shares were deleted. 
+        RespShareBulk r = new RespShareBulk(result);
+        return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+            MsgUtils.getMsg("TAPIS_DELETED", "Shares", result.changes), prettyPrint, r)).build();
+    }
+
     /* ---------------------------------------------------------------------------- */
     /* hasPrivilege:                                                                */
     /* ---------------------------------------------------------------------------- */
@@ -17,8 +17,10 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.SecurityContext;
@@ -35,14 +37,17 @@ import edu.utexas.tacc.tapis.security.api.requestBody.ReqGrantUserRoleWithPermis
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqRevokeAdminRole;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqRevokeUserPermission;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqRevokeUserRole;
+import edu.utexas.tacc.tapis.security.api.requestBody.ReqUserHasAccess;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqUserHasRole;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqUserHasRoleMulti;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqUserIsAdmin;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqUserIsPermitted;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqUserIsPermittedMulti;
+import edu.utexas.tacc.tapis.security.api.responses.RespAccess;
 import edu.utexas.tacc.tapis.security.api.utils.SKCheckAuthz;
 import edu.utexas.tacc.tapis.security.authz.impl.UserImpl;
 import edu.utexas.tacc.tapis.security.authz.impl.UserImpl.AuthOperation;
+import edu.utexas.tacc.tapis.security.authz.model.SkAccessResult;
 import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisNotFoundException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
@@ -100,6 +105,8 @@ public final class UserResource
             "/edu/utexas/tacc/tapis/security/api/jsonschema/RevokeAdminRoleRequest.json";
     private static final String FILE_SK_USER_IS_ADMIN_REQUEST = 
             "/edu/utexas/tacc/tapis/security/api/jsonschema/UserIsAdminRequest.json";
+    private static final String FILE_SK_USER_HAS_ACCESS_REQUEST = 
+            "/edu/utexas/tacc/tapis/security/api/jsonschema/UserHasAccessRequest.json";
     
     /* **************************************************************************** */
     /*                                    Fields                                    */
@@ -144,6 +151,9 @@ public final class UserResource
   
      @Context
      private HttpServletRequest _request;
+
+     @Context
+     private Request            _jaxrsRequest;
     
      /* **************************************************************************** */
      /*                                Public Methods                                */
@@ -230,7 +240,9 @@ public final class UserResource
                      + "including those assigned transively.\n\n"
                      + ""
             		 + "This request is authorized if the requestor is a user that has access "
-            		 + "to the specified tenant or if the requestor is a service."
+            		 + "to the specified tenant or if the requestor is a service.\n\n"
+                     + "Responses carry a strong ETag derived from the tenant's authorization "
+                     + "version.  Requests with a current If-None-Match tag receive 304."
                      + "",
              tags = "user",
              security = {@SecurityRequirement(name = "TapisJWT")},
@@ -238,6 +250,7 @@ public final class UserResource
                  {@ApiResponse(responseCode = "200", description = "List of roles names assigned to the user.",
                      content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespNameArray.class))),
+                  @ApiResponse(responseCode = "304", description = "Not modified."),
                   @ApiResponse(responseCode = "400", description = "Input error.",
                      content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
@@ -272,6 +285,12 @@ public final class UserResource
          Response resp = SKCheckAuthz.configure(tenant, null).check(prettyPrint);
          if (resp != null) return resp;
          
+         // ------------------------ Conditional Request -----------------------
+         // Nothing to return if the client's copy is current.
+         EntityTag etag = getAuthzEntityTag(tenant);
+         Response notModified = getNotModifiedResponse(_jaxrsRequest, etag);
+         if (notModified != null) return notModified;
+         
          // ------------------------ Request Processing ------------------------
          // Get the names.
          List<String> roles = null;
@@ -289,7 +308,8 @@ public final class UserResource
          // ---------------------------- Success ------------------------------- 
          // Success means we found the tenant's role names.
          int cnt = names.names.length;
-         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+         return Response.status(Status.OK).tag(etag).cacheControl(getAuthzCacheControl()).
+             entity(TapisRestUtils.createSuccessResponse(
              MsgUtils.getMsg("TAPIS_FOUND", "Roles", cnt + " roles"), prettyPrint, r)).build();
      }
 
@@ -335,7 +355,9 @@ public final class UserResource
                      + "    stream:dev:read,write,exec:project1\n\n"
                      + ""
             		 + "This request is authorized if the requestor is a user that has access "
-            		 + "to the specified tenant or if the requestor is a service."
+            		 + "to the specified tenant or if the requestor is a service.\n\n"
+                     + "Responses carry a strong ETag derived from the tenant's authorization "
+                     + "version.  Requests with a current If-None-Match tag receive 304."
                      + "",
              tags = "user",
              security = {@SecurityRequirement(name = "TapisJWT")},
@@ -343,6 +365,7 @@ public final class UserResource
                  {@ApiResponse(responseCode = "200", description = "List of permissions assigned to the user.",
                      content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespNameArray.class))),
+                  @ApiResponse(responseCode = "304", description = "Not modified."),
                   @ApiResponse(responseCode = "400", description = "Input error.",
                      content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
@@ -379,6 +402,12 @@ public final class UserResource
          Response resp = SKCheckAuthz.configure(tenant, null).check(prettyPrint);
          if (resp != null) return resp;
          
+         // ------------------------ Conditional Request -----------------------
+         // Nothing to return if the client's copy is current.
+         EntityTag etag = getAuthzEntityTag(tenant);
+         Response notModified = getNotModifiedResponse(_jaxrsRequest, etag);
+         if (notModified != null) return notModified;
+         
          // ------------------------ Request Processing ------------------------
          // Get the names.
          List<String> perms = null;
@@ -398,7 +427,8 @@ public final class UserResource
          // ---------------------------- Success ------------------------------- 
          // Success means we found the tenant's role names.
          int cnt = names.names.length;
-         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+         return Response.status(Status.OK).tag(etag).cacheControl(getAuthzCacheControl()).
+             entity(TapisRestUtils.createSuccessResponse(
              MsgUtils.getMsg("TAPIS_FOUND", "Permissions", cnt + " permissions"), prettyPrint, r)).build();
      }
 
@@ -1485,6 +1515,105 @@ public final class UserResource
          return isPermittedMulti(payloadStream, prettyPrint, AuthOperation.ANY, multi);
      }
 
+     /* ---------------------------------------------------------------------------- */
+     /* hasAccess:                                                                   */
+     /* ---------------------------------------------------------------------------- */
+     @POST
+     @Path("/hasAccess")
+     @Consumes(MediaType.APPLICATION_JSON)
+     @Produces(MediaType.APPLICATION_JSON)
+     @Operation(
+             description = "Check whether a user has effective access to a resource through "
+                           + "either a permission assigned to the user, directly or transitively, "
+                           + "or a share of the resource to the user.  The permSpec parameter "
+                           + "selects the role permission check; the resourceType, resourceId1, "
+                           + "resourceId2 and privilege parameters select the share check.  At "
+                           + "least one of the two checks must be specified.  When both are "
+                           + "specified they run concurrently and the first to grant access wins.  "
+                           + "If orAdmin is true, tenant administrators are also granted access.\n\n"
+                           + ""
+                           + "The result's source field indicates which of PERMISSION, SHARE or "
+                           + "ADMIN granted access, or NONE if access was denied.\n\n"
+                           + ""
+                           + "This request is authorized only if the requestor is a service."
+                           + "",
+             tags = "user",
+             security = {@SecurityRequirement(name = "TapisJWT")},
+             requestBody = 
+                 @RequestBody(
+                     required = true,
+                     content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.security.api.requestBody.ReqUserHasAccess.class))),
+             responses = 
+                 {@ApiResponse(responseCode = "200", description = "Check completed.",
+                     content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.security.api.responses.RespAccess.class))),
+                  @ApiResponse(responseCode = "400", description = "Input error.",
+                     content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "401", description = "Not authorized.",
+                     content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "500", description = "Server error.",
+                     content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+         )
+     public Response hasAccess(@DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                               InputStream payloadStream)
+     {
+         // Trace this request.
+         if (_log.isTraceEnabled()) {
+             String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(), 
+                                          "hasAccess", _request.getRequestURL());
+             _log.trace(msg);
+         }
+         
+         // ------------------------- Input Processing -------------------------
+         // Parse and validate the json in the request payload, which must exist.
+         ReqUserHasAccess payload = null;
+         try {payload = getPayload(payloadStream, FILE_SK_USER_HAS_ACCESS_REQUEST, 
+                                   ReqUserHasAccess.class);
+         } 
+         catch (Exception e) {
+             String msg = MsgUtils.getMsg("NET_REQUEST_PAYLOAD_ERROR", 
+                                          "hasAccess", e.getMessage());
+             _log.error(msg, e);
+             return Response.status(Status.BAD_REQUEST).
+               entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         
+         // ------------------------- Check Authz ------------------------------
+         // Authorization passed if a null response is returned.  Share lookups
+         // are restricted to services, so this combined check is too.
+         Response resp = SKCheckAuthz.configure(payload.tenant, null)
+                             .setCheckIsService()
+                             .check(prettyPrint);
+         if (resp != null) return resp;
+         
+         // ------------------------ Request Processing ------------------------
+         SkAccessResult result;
+         try {result = getAccessImpl().checkAccess(payload.toSelector());}
+             catch (Exception e) {
+                 String msg = MsgUtils.getMsg("SK_USER_GET_PERMISSIONS_ERROR", 
+                                              payload.tenant, payload.user, e.getMessage());
+                 return getExceptionResponse(e, msg, prettyPrint);
+             }
+         
+         // Set the result payload.
+         RespAccess r = new RespAccess(result);
+         
+         // Set the response message.
+         String resultCode;
+         if (result.isAuthorized()) resultCode = "TAPIS_AUTHORIZED"; 
+           else resultCode = "TAPIS_NOT_AUTHORIZED";
+         
+         // ---------------------------- Success ------------------------------- 
+         String respMsg = payload.user + " authorized: " + result.isAuthorized() + 
+                          " (" + result.getSource().name() + ")";
+         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+             MsgUtils.getMsg(resultCode, "User", respMsg), prettyPrint, r)).build();
+     }
+
      /* ---------------------------------------------------------------------------- */
      /* isPermittedAny:                                                              */
      /* ---------------------------------------------------------------------------- */
@@ -1592,7 +1721,9 @@ public final class UserResource
      @Operation(
              description = "Get all users assigned a role.  The role must exist in the tenant.\n\n"
             		 + "This request is authorized if the requestor is a user that has access "
-            		 + "to the specified tenant or if the requestor is a service."
+            		 + "to the specified tenant or if the requestor is a service.\n\n"
+                     + "Responses carry a strong ETag derived from the tenant's authorization "
+                     + "version.  Requests with a current If-None-Match tag receive 304."
              		+ "",
              tags = "user",
              security = {@SecurityRequirement(name = "TapisJWT")},
@@ -1600,6 +1731,7 @@ public final class UserResource
                  {@ApiResponse(responseCode = "200", description = "Sorted list of users assigned a role.",
                      content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespNameArray.class))),
+                  @ApiResponse(responseCode = "304", description = "Not modified."),
                   @ApiResponse(responseCode = "400", description = "Input error.",
                      content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
@@ -1637,6 +1769,12 @@ public final class UserResource
          Response resp = SKCheckAuthz.configure(tenant, null).check(prettyPrint);
          if (resp != null) return resp;
          
+         // ------------------------ Conditional Request -----------------------
+         // Nothing to return if the client's copy is current.
+         EntityTag etag = getAuthzEntityTag(tenant);
+         Response notModified = getNotModifiedResponse(_jaxrsRequest, etag);
+         if (notModified != null) return notModified;
+         
          // ------------------------ Request Processing ------------------------
          // Assign the role to the user.
          List<String> users = null;
@@ -1654,7 +1792,8 @@ public final class UserResource
          // ---------------------------- Success ------------------------------- 
          // Success means we found the tenant's role names.
          int cnt = names.names.length;
-         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+         return Response.status(Status.OK).tag(etag).cacheControl(getAuthzCacheControl()).
+             entity(TapisRestUtils.createSuccessResponse(
              MsgUtils.getMsg("TAPIS_FOUND", "Users", cnt + " items"), prettyPrint, r)).build();
      }
 
@@ -17,10 +17,15 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.SecurityContext;
@@ -30,18 +35,29 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.api.requestBody.ReqReadSecretBatch;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqValidateServicePwd;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqVersions;
 import edu.utexas.tacc.tapis.security.api.requestBody.ReqWriteSecret;
+import edu.utexas.tacc.tapis.security.api.responses.RespJwtPublicKey;
 import edu.utexas.tacc.tapis.security.api.responses.RespSecret;
+import edu.utexas.tacc.tapis.security.api.responses.RespSecretBatch;
 import edu.utexas.tacc.tapis.security.api.responses.RespSecretList;
+import edu.utexas.tacc.tapis.security.api.responses.RespSecretListPage;
 import edu.utexas.tacc.tapis.security.api.responses.RespSecretMeta;
+import edu.utexas.tacc.tapis.security.api.responses.RespSecretSubtree;
 import edu.utexas.tacc.tapis.security.api.responses.RespSecretVersionMetadata;
 import edu.utexas.tacc.tapis.security.api.responses.RespVersions;
+import edu.utexas.tacc.tapis.security.api.utils.SKBulkhead;
 import edu.utexas.tacc.tapis.security.api.utils.SKCheckAuthz;
+import edu.utexas.tacc.tapis.security.authz.model.SkJwtPublicKey;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecret;
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretBatchItem;
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretBatchResult;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecretList;
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretListPage;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecretMetadata;
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretSubtreeResult;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecretVersionMetadata;
 import edu.utexas.tacc.tapis.security.secrets.SecretPathMapper.SecretPathMapperParms;
 import edu.utexas.tacc.tapis.security.secrets.SecretType;
@@ -60,6 +76,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 
 /** Endpoints that communicate with Hashicorp Vault.
+ * 
+ * Each endpoint suspends its request and completes it on the vault bulkhead,
+ * which frees the container thread and caps the number of requests that can
+ * be waiting on vault at any time.
  * 
  *  Driver enhancements:
  *      1. Add secrets v2 options object to create (write).
@@ -86,6 +106,8 @@ public final class VaultResource
         "/edu/utexas/tacc/tapis/security/api/jsonschema/SecretVersionRequest.json";
     private static final String FILE_SK_VALIDATE_SERVICE_PWD_REQUEST = 
         "/edu/utexas/tacc/tapis/security/api/jsonschema/ValidateServicePwdRequest.json";
+    private static final String FILE_SK_READ_SECRET_BATCH_REQUEST = 
+        "/edu/utexas/tacc/tapis/security/api/jsonschema/ReadSecretBatchRequest.json";
     
     /* **************************************************************************** */
     /*                                    Fields                                    */
@@ -226,19 +248,20 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response readSecret(@PathParam("secretType") String secretType,
-                                @PathParam("secretName") String secretName,
-                                @QueryParam("tenant") String tenant,
-                                @QueryParam("user") String user,
-                                @DefaultValue("0") @QueryParam("version") int version,
-                                @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                                /* Query parameters used to construct the secret path in vault */
-                                @QueryParam("sysid")      String sysId,
-                                @QueryParam("sysuser")    String sysUser,
-                                @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
-                                @QueryParam("dbhost")     String dbHost,
-                                @QueryParam("dbname")     String dbName,
-                                @QueryParam("dbservice")  String dbService)
+     public void readSecret(@Suspended final AsyncResponse asyncResponse,
+                            @PathParam("secretType") String secretType,
+                            @PathParam("secretName") String secretName,
+                            @QueryParam("tenant") String tenant,
+                            @QueryParam("user") String user,
+                            @DefaultValue("0") @QueryParam("version") int version,
+                            @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                            /* Query parameters used to construct the secret path in vault */
+                            @QueryParam("sysid")      String sysId,
+                            @QueryParam("sysuser")    String sysUser,
+                            @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
+                            @QueryParam("dbhost")     String dbHost,
+                            @QueryParam("dbname")     String dbName,
+                            @QueryParam("dbservice")  String dbService)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -247,6 +270,20 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doReadSecret(secretType, secretName, tenant, user, version, prettyPrint,
+                          sysId, sysUser, keyType, dbHost, dbName, dbService));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doReadSecret:                                                                */
+     /* ---------------------------------------------------------------------------- */
+     private Response doReadSecret(String secretType, String secretName, String tenant,
+                                   String user, int version, boolean prettyPrint,
+                                   String sysId, String sysUser, String keyType,
+                                   String dbHost, String dbName, String dbService)
+     {
          // ------------------------- Input Processing -------------------------
          if (StringUtils.isBlank(tenant)) {
              String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "tenant");
@@ -298,6 +335,261 @@ public final class VaultResource
                                  prettyPrint, respSecret)).build();
      }
      
+     /* ---------------------------------------------------------------------------- */
+     /* readJwtPublicKey:                                                            */
+     /* ---------------------------------------------------------------------------- */
+     @GET
+     @Path("/secret/jwtsigning/publickey/{secretName}")
+     @Produces(MediaType.APPLICATION_JSON)
+     @Operation(
+             description = "Get the public key of the latest version of a tenant's JWT "
+                           + "signing secret.  Any authenticated caller in the tenant can "
+                           + "read public keys; private keys are never returned.\n\n"
+                           + ""
+                           + "The result contains the vault version of the secret and the "
+                           + "SHA-256 fingerprint of the key.  Keys are served from memory "
+                           + "and reread from vault only when the secret's version changes.\n\n"
+                           + ""
+                           + "Responses carry a strong ETag that identifies the key.  Requests "
+                           + "with a current If-None-Match tag receive 304.",
+             tags = "vault",
+             security = {@SecurityRequirement(name = "TapisJWT")},
+             responses = 
+                 {@ApiResponse(responseCode = "200", description = "Public key read.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.security.api.responses.RespJwtPublicKey.class))),
+                  @ApiResponse(responseCode = "304", description = "Not modified."),
+                  @ApiResponse(responseCode = "400", description = "Input error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "401", description = "Not authorized.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "404", description = "Not found.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "500", description = "Server error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+         )
+     public void readJwtPublicKey(@Suspended final AsyncResponse asyncResponse,
+                                  @Context Request jaxrsRequest,
+                                  @PathParam("secretName") String secretName,
+                                  @QueryParam("tenant") String tenant,
+                                  @QueryParam("user") String user,
+                                  @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint)
+     {
+         // Trace this request.
+         if (_log.isTraceEnabled()) {
+             String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(), 
+                                          "readJwtPublicKey", _request.getRequestURL());
+             _log.trace(msg);
+         }
+         
+         // Process the request on the vault bulkhead.  The injected request 
+         // parameter, unlike the request fields, can be used on any thread.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doReadJwtPublicKey(jaxrsRequest, secretName, tenant, user, prettyPrint));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doReadJwtPublicKey:                                                          */
+     /* ---------------------------------------------------------------------------- */
+     private Response doReadJwtPublicKey(Request jaxrsRequest, String secretName, 
+                                         String tenant, String user, boolean prettyPrint)
+     {
+         // ------------------------- Input Processing -------------------------
+         if (StringUtils.isBlank(tenant)) {
+             String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "tenant");
+             _log.error(msg);
+             return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         if (StringUtils.isBlank(user)) {
+             String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "user");
+             _log.error(msg);
+             return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         if (StringUtils.isBlank(secretName)) {
+             String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "secretName");
+             _log.error(msg);
+             return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         
+         // Translate the "+" sign into slashes to allow for vault subdirectories.
+         secretName = secretName.replace('+', '/');
+         
+         // ------------------------- Check Authz ------------------------------
+         // Public keys are available to anyone in the tenant.
+         Response resp = SKCheckAuthz.configure(tenant, user).check(prettyPrint);
+         if (resp != null) return resp;
+         
+         // ------------------------ Request Processing ------------------------
+         SkJwtPublicKey key = null;
+         try {key = getVaultImpl().jwtPublicKeyRead(tenant, user, secretName);}
+             catch (Exception e) {
+                 _log.error(e.getMessage(), e);
+                 return getExceptionResponse(e, e.getMessage(), prettyPrint);
+             }
+         
+         // ------------------------ Conditional Request -----------------------
+         // Nothing to return if the client's copy is current.
+         EntityTag etag = new EntityTag(key.version + "-" + key.fingerprint);
+         CacheControl cacheControl = getJwtPublicKeyCacheControl();
+         Response notModified = getNotModifiedResponse(jaxrsRequest, etag, cacheControl);
+         if (notModified != null) return notModified;
+         
+         // ------------------------ Request Output ----------------------------
+         var r = new RespJwtPublicKey(key);
+         return Response.status(Status.OK).tag(etag).cacheControl(cacheControl).
+                 entity(TapisRestUtils.createSuccessResponse(
+                 MsgUtils.getMsg("TAPIS_READ", "JWT public key", secretName), 
+                                 prettyPrint, r)).build();
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* readSecretBatch:                                                             */
+     /* ---------------------------------------------------------------------------- */
+     @POST
+     @Path("/secret/batch/read")
+     @Consumes(MediaType.APPLICATION_JSON)
+     @Produces(MediaType.APPLICATION_JSON)
+     @Operation(
+             description = "Read multiple versioned secrets in one request. "
+                           + "The JSON payload contains the tenant and user that would be "
+                           + "specified as query parameters on a single secret read, and a "
+                           + "list of secrets.  Each secret is described by its *secretType*, "
+                           + "*secretName*, optional *version* and the query parameters "
+                           + "that its type requires, as documented on the single secret read "
+                           + "endpoint.\n\n"
+                           + ""
+                           + "Each secret is authorized and read independently, so one "
+                           + "failure does not affect the other secrets.  The response contains "
+                           + "one item per requested secret in request order.  Each item's "
+                           + "*status* is OK when the secret was read; otherwise it is the "
+                           + "name of the http status a single read would have returned, such "
+                           + "as UNAUTHORIZED or NOT_FOUND, and *message* explains the "
+                           + "failure.  The secrets are read from vault concurrently.\n\n"
+                           + ""
+                           + "At most " + ReqReadSecretBatch.MAX_BATCH_SECRETS + " secrets "
+                           + "can be read in one request."
+                           + "",
+             tags = "vault",
+             security = {@SecurityRequirement(name = "TapisJWT")},
+             requestBody = 
+                 @RequestBody(
+                     required = true,
+                     content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.security.api.requestBody.ReqReadSecretBatch.class))),
+             responses = 
+                 {@ApiResponse(responseCode = "200", description = "Secrets read.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.security.api.responses.RespSecretBatch.class))),
+                  @ApiResponse(responseCode = "400", description = "Input error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "401", description = "Not authorized.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "500", description = "Server error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+         )
+     public void readSecretBatch(@Suspended final AsyncResponse asyncResponse,
+                                 @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                 InputStream payloadStream)
+     {
+         // Trace this request.
+         if (_log.isTraceEnabled()) {
+             String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(), 
+                                          "readSecretBatch", _request.getRequestURL());
+             _log.trace(msg);
+         }
+         
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doReadSecretBatch(prettyPrint, payloadStream));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doReadSecretBatch:                                                           */
+     /* ---------------------------------------------------------------------------- */
+     private Response doReadSecretBatch(boolean prettyPrint, InputStream payloadStream)
+     {
+         // ------------------------- Input Processing -------------------------
+         // Parse and validate the json in the request payload, which must exist.
+         ReqReadSecretBatch payload = null;
+         try {payload = getPayload(payloadStream, FILE_SK_READ_SECRET_BATCH_REQUEST, 
+                                   ReqReadSecretBatch.class);
+         } 
+         catch (Exception e) {
+             String msg = MsgUtils.getMsg("NET_REQUEST_PAYLOAD_ERROR", 
+                                          "readSecretBatch", e.getMessage());
+             _log.error(msg, e);
+             return Response.status(Status.BAD_REQUEST).
+               entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         
+         // Extract input values.
+         String tenant = payload.tenant;
+         String user   = payload.user;
+         
+         // ------------------- Path Processing and Authz ----------------------
+         // Each secret is mapped and authorized on this thread, which holds the 
+         // request's threadlocal context.  Failures are recorded in the secret's
+         // item and the remaining secrets are still processed.
+         var items = new ArrayList<SkSecretBatchItem>(payload.secrets.length);
+         var pathParmsList = new ArrayList<SecretPathMapperParms>(payload.secrets.length);
+         for (int i = 0; i < payload.secrets.length; i++) {
+             var desc = payload.secrets[i];
+             var item = new SkSecretBatchItem();
+             item.index      = i;
+             item.secretType = desc.secretType;
+             item.secretName = desc.secretName;
+             item.version    = desc.version;
+             items.add(item);
+             
+             // Map the secret type and parameters.
+             SecretPathMapperParms secretPathParms = null;
+             try {secretPathParms = getSecretPathParms(desc.secretType, desc.secretName, 
+                                                       desc.sysId, desc.sysUser, desc.keyType, 
+                                                       desc.dbHost, desc.dbName, desc.dbService);}
+                 catch (TapisImplException e) {
+                     item.status  = e.condition.name();
+                     item.message = e.getMessage();
+                 }
+             pathParmsList.add(secretPathParms);
+             if (secretPathParms == null) continue;
+             
+             // Authorization passed if a null message is returned.
+             var authz = SKCheckAuthz.configure(tenant, user, secretPathParms).setCheckSecrets();
+             String emsg = authz.checkMessage();
+             if (emsg != null) {
+                 item.status  = authz.getFailureStatus(emsg).name();
+                 item.message = emsg;
+             }
+         }
+         
+         // ------------------------ Request Processing ------------------------
+         // Read the authorized secrets concurrently.
+         SkSecretBatchResult result = null;
+         try {result = getVaultImpl().secretReadBatch(tenant, user, items, pathParmsList);}
+             catch (Exception e) {
+                 _log.error(e.getMessage(), e);
+                 return getExceptionResponse(e, e.getMessage(), prettyPrint);
+             }
+         
+         // ------------------------ Request Output ----------------------------
+         // Per-item failures are reported in the result.
+         var r = new RespSecretBatch(result);
+         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+                 MsgUtils.getMsg("TAPIS_READ", "Secrets", 
+                                 result.succeeded + " of " + result.items.size()), 
+                                 prettyPrint, r)).build();
+     }
+     
      /* ---------------------------------------------------------------------------- */
      /* writeSecret:                                                                */
      /* ---------------------------------------------------------------------------- */
@@ -395,6 +687,10 @@ public final class VaultResource
                            + ""
                            + "    key=\"privateKey\", value=\"<generate-secret>\"\n\n"
                            + ""
+                           + "Key pairs are 2048 bit RSA keys by default.  To generate an EC key pair "
+                           + "on the P-256 curve instead, use the value `<generate-ec-secret>` in "
+                           + "any secret type.  EC keys are much faster to generate and verify.\n\n"
+                           + ""
                            + "When the key pair is generated, the above key/value item is replaced by "
                            + "these two key/value pairs:\n\n"
                            + ""
@@ -437,17 +733,18 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response writeSecret(@PathParam("secretType") String secretType,
-                                 @PathParam("secretName") String secretName,
-                                 @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                                 /* Query parameters used to construct the secret path in vault */
-                                 @QueryParam("sysid")      String sysId,
-                                 @QueryParam("sysuser")    String sysUser,
-                                 @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
-                                 @QueryParam("dbhost")     String dbHost,
-                                 @QueryParam("dbname")     String dbName,
-                                 @QueryParam("dbservice")  String dbService,
-                                 InputStream payloadStream)
+     public void writeSecret(@Suspended final AsyncResponse asyncResponse,
+                             @PathParam("secretType") String secretType,
+                             @PathParam("secretName") String secretName,
+                             @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                             /* Query parameters used to construct the secret path in vault */
+                             @QueryParam("sysid")      String sysId,
+                             @QueryParam("sysuser")    String sysUser,
+                             @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
+                             @QueryParam("dbhost")     String dbHost,
+                             @QueryParam("dbname")     String dbName,
+                             @QueryParam("dbservice")  String dbService,
+                             InputStream payloadStream)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -456,6 +753,20 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doWriteSecret(secretType, secretName, prettyPrint, sysId, sysUser, keyType,
+                           dbHost, dbName, dbService, payloadStream));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doWriteSecret:                                                               */
+     /* ---------------------------------------------------------------------------- */
+     private Response doWriteSecret(String secretType, String secretName,
+                                    boolean prettyPrint, String sysId, String sysUser,
+                                    String keyType, String dbHost, String dbName,
+                                    String dbService, InputStream payloadStream)
+     {
          // ------------------------- Input Processing -------------------------
          // Parse and validate the json in the request payload, which must exist.
          // Note that the secret values in the payload will only be string values,
@@ -606,17 +917,18 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response deleteSecret(@PathParam("secretType") String secretType,
-                                  @PathParam("secretName") String secretName,
-                                  @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                                  /* Query parameters used to construct the secret path in vault */
-                                  @QueryParam("sysid")      String sysId,
-                                  @QueryParam("sysuser")    String sysUser,
-                                  @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
-                                  @QueryParam("dbhost")     String dbHost,
-                                  @QueryParam("dbname")     String dbName,
-                                  @QueryParam("dbservice")  String dbService,
-                                  InputStream payloadStream)
+     public void deleteSecret(@Suspended final AsyncResponse asyncResponse,
+                              @PathParam("secretType") String secretType,
+                              @PathParam("secretName") String secretName,
+                              @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                              /* Query parameters used to construct the secret path in vault */
+                              @QueryParam("sysid")      String sysId,
+                              @QueryParam("sysuser")    String sysUser,
+                              @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
+                              @QueryParam("dbhost")     String dbHost,
+                              @QueryParam("dbname")     String dbName,
+                              @QueryParam("dbservice")  String dbService,
+                              InputStream payloadStream)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -625,6 +937,20 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doDeleteSecret(secretType, secretName, prettyPrint, sysId, sysUser, keyType,
+                            dbHost, dbName, dbService, payloadStream));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doDeleteSecret:                                                              */
+     /* ---------------------------------------------------------------------------- */
+     private Response doDeleteSecret(String secretType, String secretName,
+                                     boolean prettyPrint, String sysId, String sysUser,
+                                     String keyType, String dbHost, String dbName,
+                                     String dbService, InputStream payloadStream)
+     {
          // ------------------------- Input Processing -------------------------
          // Parse and validate the json in the request payload, which must exist.
          ReqVersions payload = null;
@@ -772,17 +1098,18 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response undeleteSecret(@PathParam("secretType") String secretType,
-                                    @PathParam("secretName") String secretName,
-                                    @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                                    /* Query parameters used to construct the secret path in vault */
-                                    @QueryParam("sysid")      String sysId,
-                                    @QueryParam("sysuser")    String sysUser,
-                                    @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
-                                    @QueryParam("dbhost")     String dbHost,
-                                    @QueryParam("dbname")     String dbName,
-                                    @QueryParam("dbservice")  String dbService,
-                                    InputStream payloadStream)
+     public void undeleteSecret(@Suspended final AsyncResponse asyncResponse,
+                                @PathParam("secretType") String secretType,
+                                @PathParam("secretName") String secretName,
+                                @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                /* Query parameters used to construct the secret path in vault */
+                                @QueryParam("sysid")      String sysId,
+                                @QueryParam("sysuser")    String sysUser,
+                                @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
+                                @QueryParam("dbhost")     String dbHost,
+                                @QueryParam("dbname")     String dbName,
+                                @QueryParam("dbservice")  String dbService,
+                                InputStream payloadStream)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -791,6 +1118,20 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doUndeleteSecret(secretType, secretName, prettyPrint, sysId, sysUser, keyType,
+                              dbHost, dbName, dbService, payloadStream));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doUndeleteSecret:                                                            */
+     /* ---------------------------------------------------------------------------- */
+     private Response doUndeleteSecret(String secretType, String secretName,
+                                       boolean prettyPrint, String sysId, String sysUser,
+                                       String keyType, String dbHost, String dbName,
+                                       String dbService, InputStream payloadStream)
+     {
          // Parse and validate the json in the request payload, which must exist.
          ReqVersions payload = null;
          try {payload = getPayload(payloadStream, FILE_SK_SECRET_VERSION_REQUEST, 
@@ -937,17 +1278,18 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response destroySecret(@PathParam("secretType") String secretType,
-                                   @PathParam("secretName") String secretName,
-                                   @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                                   /* Query parameters used to construct the secret path in vault */
-                                   @QueryParam("sysid")      String sysId,
-                                   @QueryParam("sysuser")    String sysUser,
-                                   @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
-                                   @QueryParam("dbhost")     String dbHost,
-                                   @QueryParam("dbname")     String dbName,
-                                   @QueryParam("dbservice")  String dbService,
-                                   InputStream payloadStream)
+     public void destroySecret(@Suspended final AsyncResponse asyncResponse,
+                               @PathParam("secretType") String secretType,
+                               @PathParam("secretName") String secretName,
+                               @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                               /* Query parameters used to construct the secret path in vault */
+                               @QueryParam("sysid")      String sysId,
+                               @QueryParam("sysuser")    String sysUser,
+                               @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
+                               @QueryParam("dbhost")     String dbHost,
+                               @QueryParam("dbname")     String dbName,
+                               @QueryParam("dbservice")  String dbService,
+                               InputStream payloadStream)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -956,6 +1298,20 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doDestroySecret(secretType, secretName, prettyPrint, sysId, sysUser, keyType,
+                             dbHost, dbName, dbService, payloadStream));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doDestroySecret:                                                             */
+     /* ---------------------------------------------------------------------------- */
+     private Response doDestroySecret(String secretType, String secretName,
+                                      boolean prettyPrint, String sysId, String sysUser,
+                                      String keyType, String dbHost, String dbName,
+                                      String dbService, InputStream payloadStream)
+     {
          // ------------------------- Input Processing -------------------------
          // Parse and validate the json in the request payload, which must exist.
          ReqVersions payload = null;
@@ -1088,18 +1444,19 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response readSecretMeta(@PathParam("secretType") String secretType,
-                                    @PathParam("secretName") String secretName,
-                                    @QueryParam("tenant") String tenant,
-                                    @QueryParam("user")   String user,
-                                    @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                                    /* Query parameters used to construct the secret path in vault */
-                                    @QueryParam("sysid")      String sysId,
-                                    @QueryParam("sysuser")    String sysUser,
-                                    @DefaultValue("sshkey") @QueryParam("keytype")  String keyType,
-                                    @QueryParam("dbhost")     String dbHost,
-                                    @QueryParam("dbname")     String dbName,
-                                    @QueryParam("dbservice")  String dbService)
+     public void readSecretMeta(@Suspended final AsyncResponse asyncResponse,
+                                @PathParam("secretType") String secretType,
+                                @PathParam("secretName") String secretName,
+                                @QueryParam("tenant") String tenant,
+                                @QueryParam("user")   String user,
+                                @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                /* Query parameters used to construct the secret path in vault */
+                                @QueryParam("sysid")      String sysId,
+                                @QueryParam("sysuser")    String sysUser,
+                                @DefaultValue("sshkey") @QueryParam("keytype")  String keyType,
+                                @QueryParam("dbhost")     String dbHost,
+                                @QueryParam("dbname")     String dbName,
+                                @QueryParam("dbservice")  String dbService)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -1108,6 +1465,20 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doReadSecretMeta(secretType, secretName, tenant, user, prettyPrint, sysId,
+                              sysUser, keyType, dbHost, dbName, dbService));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doReadSecretMeta:                                                            */
+     /* ---------------------------------------------------------------------------- */
+     private Response doReadSecretMeta(String secretType, String secretName, String tenant,
+                                       String user, boolean prettyPrint, String sysId,
+                                       String sysUser, String keyType, String dbHost,
+                                       String dbName, String dbService)
+     {
          // ------------------------- Input Processing -------------------------
          if (StringUtils.isBlank(tenant)) {
              String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "tenant");
@@ -1234,17 +1605,18 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response listSecretMeta(@PathParam("secretType") String secretType,
-                                    @QueryParam("tenant") String tenant,
-                                    @QueryParam("user")   String user,
-                                    @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                                    /* Query parameters used to construct the secret path in vault */
-                                    @QueryParam("sysid")      String sysId,
-                                    @QueryParam("sysuser")    String sysUser,
-                                    @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
-                                    @QueryParam("dbhost")     String dbHost,
-                                    @QueryParam("dbname")     String dbName,
-                                    @QueryParam("dbservice")  String dbService)
+     public void listSecretMeta(@Suspended final AsyncResponse asyncResponse,
+                                @PathParam("secretType") String secretType,
+                                @QueryParam("tenant") String tenant,
+                                @QueryParam("user")   String user,
+                                @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                /* Query parameters used to construct the secret path in vault */
+                                @QueryParam("sysid")      String sysId,
+                                @QueryParam("sysuser")    String sysUser,
+                                @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
+                                @QueryParam("dbhost")     String dbHost,
+                                @QueryParam("dbname")     String dbName,
+                                @QueryParam("dbservice")  String dbService)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -1253,6 +1625,20 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doListSecretMeta(secretType, tenant, user, prettyPrint, sysId, sysUser,
+                              keyType, dbHost, dbName, dbService));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doListSecretMeta:                                                            */
+     /* ---------------------------------------------------------------------------- */
+     private Response doListSecretMeta(String secretType, String tenant, String user,
+                                       boolean prettyPrint, String sysId, String sysUser,
+                                       String keyType, String dbHost, String dbName,
+                                       String dbService)
+     {
          // ------------------------- Input Processing -------------------------
          if (StringUtils.isBlank(tenant)) {
              String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "tenant");
@@ -1300,6 +1686,150 @@ public final class VaultResource
                  MsgUtils.getMsg("TAPIS_READ", "Secret", info.secretPath), prettyPrint, r)).build();
      }
      
+     /* ---------------------------------------------------------------------------- */
+     /* listSecretMetaRecursive:                                                     */
+     /* ---------------------------------------------------------------------------- */
+     @GET
+     @Path("/secret/list/tree/{secretType}")
+     @Produces(MediaType.APPLICATION_JSON)
+     @Operation(
+             description = "List the secret names in a folder and all its subfolders. "
+                           + "The subfolders of each level are listed concurrently by the "
+                           + "server and the names found are returned one page at a time.\n\n"
+                           + ""
+                           + "A valid tenant and user must be specified as query parameters.\n\n"
+                           + ""
+                           + "### Folders\n"
+                           + ""
+                           + "For the **system** *secretType* the folder is the root of all "
+                           + "the system's secrets or, if *sysuser* is specified, the root of "
+                           + "that user's secrets on the system; *keytype* is ignored.  For "
+                           + "other secret types the folder is the one listed by the "
+                           + "*secret/list/meta* endpoint using the same query parameters.  "
+                           + "A folder that does not exist contains no secrets.\n\n"
+                           + ""
+                           + "### Paging\n"
+                           + ""
+                           + "Names are returned relative to the folder in lexicographic order. "
+                           + "The *depth* parameter limits the number of folder levels listed; "
+                           + "0, the default, lists the maximum of 16 levels.  Names ending "
+                           + "with a slash are subfolders at the depth limit.  The *limit* "
+                           + "parameter sets the maximum number of names returned, from 1 to "
+                           + "1000 with a default of 100.  When more names exist the result "
+                           + "contains a *nextCursor* value that is passed as the *cursor* "
+                           + "parameter to retrieve the next page.\n\n"
+                           + ""
+                           + "### Authorization\n"
+                           + ""
+                           + "Requestors are authorized as in the *secret/list/meta* endpoint."
+                           + "",
+             tags = "vault",
+             security = {@SecurityRequirement(name = "TapisJWT")},
+             responses = 
+                 {@ApiResponse(responseCode = "200", description = "Secrets listed.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.security.api.responses.RespSecretListPage.class))),
+                  @ApiResponse(responseCode = "400", description = "Input error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "401", description = "Not authorized.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "403", description = "Forbidden.",
+                  content = @Content(schema = @Schema(
+                     implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "500", description = "Server error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+         )
+     public void listSecretMetaRecursive(@Suspended final AsyncResponse asyncResponse,
+                                         @PathParam("secretType") String secretType,
+                                         @QueryParam("tenant") String tenant,
+                                         @QueryParam("user")   String user,
+                                         @DefaultValue("0")   @QueryParam("depth") int depth,
+                                         @DefaultValue("100") @QueryParam("limit") int limit,
+                                         @QueryParam("cursor") String cursor,
+                                         @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                         /* Query parameters used to construct the secret path in vault */
+                                         @QueryParam("sysid")      String sysId,
+                                         @QueryParam("sysuser")    String sysUser,
+                                         @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
+                                         @QueryParam("dbhost")     String dbHost,
+                                         @QueryParam("dbname")     String dbName,
+                                         @QueryParam("dbservice")  String dbService)
+     {
+         // Trace this request.
+         if (_log.isTraceEnabled()) {
+             String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(), 
+                                          "listSecretMetaRecursive", _request.getRequestURL());
+             _log.trace(msg);
+         }
+         
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doListSecretMetaRecursive(secretType, tenant, user, depth, limit, cursor,
+                                       prettyPrint, sysId, sysUser, keyType, dbHost,
+                                       dbName, dbService));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doListSecretMetaRecursive:                                                   */
+     /* ---------------------------------------------------------------------------- */
+     private Response doListSecretMetaRecursive(String secretType, String tenant,
+                                                String user, int depth, int limit,
+                                                String cursor, boolean prettyPrint,
+                                                String sysId, String sysUser,
+                                                String keyType, String dbHost,
+                                                String dbName, String dbService)
+     {
+         // ------------------------- Input Processing -------------------------
+         if (StringUtils.isBlank(tenant)) {
+             String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "tenant");
+             _log.error(msg);
+             return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         if (StringUtils.isBlank(user)) {
+             String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "user");
+             _log.error(msg);
+             return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         
+         // ------------------------- Path Processing --------------------------
+         // Null response means the secret type and its required parameters are present.
+         SecretPathMapperParms secretPathParms;
+         try {secretPathParms = getSecretPathParms(secretType, null, sysId, sysUser,
+                                                   keyType, dbHost, dbName, dbService);}
+             catch (Exception e) {
+                 _log.error(e.getMessage(), e);
+                 return getExceptionResponse(e, e.getMessage(), prettyPrint);
+             }
+         
+         // ------------------------- Check Authz ------------------------------
+         // Authorization passed if a null response is returned.
+         Response resp = SKCheckAuthz.configure(tenant, user, secretPathParms)
+                             .setCheckSecrets()
+                             .check(prettyPrint);
+         if (resp != null) return resp;
+         
+         // ------------------------ Request Processing ------------------------
+         // Issue the vault calls.
+         SkSecretListPage page = null;
+         try {
+             page = getVaultImpl().secretListMetaRecursive(tenant, user, secretPathParms,
+                                                           depth, limit, cursor);
+         } catch (Exception e) {                  
+             _log.error(e.getMessage(), e);
+             return getExceptionResponse(e, e.getMessage(), prettyPrint);
+         }
+         
+         // Return the page.
+         var r = new RespSecretListPage(page);
+         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+                 MsgUtils.getMsg("TAPIS_READ", "Secret", page.secretPath), prettyPrint, r)).build();
+     }
+     
      /* ---------------------------------------------------------------------------- */
      /* destroySecretMeta:                                                           */
      /* ---------------------------------------------------------------------------- */
@@ -1377,18 +1907,19 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response destroySecretMeta(@PathParam("secretType") String secretType,
-                                       @PathParam("secretName") String secretName,
-                                       @QueryParam("tenant") String tenant,
-                                       @QueryParam("user")   String user,
-                                       @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                                       /* Query parameters used to construct the secret path in vault */
-                                       @QueryParam("sysid")      String sysId,
-                                       @QueryParam("sysuser")    String sysUser,
-                                       @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
-                                       @QueryParam("dbhost")     String dbHost,
-                                       @QueryParam("dbname")     String dbName,
-                                       @QueryParam("dbservice")  String dbService)
+     public void destroySecretMeta(@Suspended final AsyncResponse asyncResponse,
+                                   @PathParam("secretType") String secretType,
+                                   @PathParam("secretName") String secretName,
+                                   @QueryParam("tenant") String tenant,
+                                   @QueryParam("user")   String user,
+                                   @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                   /* Query parameters used to construct the secret path in vault */
+                                   @QueryParam("sysid")      String sysId,
+                                   @QueryParam("sysuser")    String sysUser,
+                                   @DefaultValue("sshkey") @QueryParam("keytype") String keyType,
+                                   @QueryParam("dbhost")     String dbHost,
+                                   @QueryParam("dbname")     String dbName,
+                                   @QueryParam("dbservice")  String dbService)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -1397,6 +1928,20 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doDestroySecretMeta(secretType, secretName, tenant, user, prettyPrint, sysId,
+                                 sysUser, keyType, dbHost, dbName, dbService));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doDestroySecretMeta:                                                         */
+     /* ---------------------------------------------------------------------------- */
+     private Response doDestroySecretMeta(String secretType, String secretName,
+                                          String tenant, String user, boolean prettyPrint,
+                                          String sysId, String sysUser, String keyType,
+                                          String dbHost, String dbName, String dbService)
+     {
          // ------------------------- Input Processing -------------------------
          if (StringUtils.isBlank(tenant)) {
              String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "tenant");
@@ -1444,6 +1989,121 @@ public final class VaultResource
                                  prettyPrint, r)).build();
      }
      
+     /* ---------------------------------------------------------------------------- */
+     /* destroySystemSecrets:                                                        */
+     /* ---------------------------------------------------------------------------- */
+     @DELETE
+     @Path("/secret/destroy/subtree/system/{sysId}")
+     @Produces(MediaType.APPLICATION_JSON)
+     @Operation(
+             description = "Erase all traces of every secret of a system: their keys, all "
+                           + "versions of their values and all their metadata.  If the "
+                           + "*sysuser* query parameter is specified, only the secrets of "
+                           + "that user on the system are erased.  This request is typically "
+                           + "issued when a system is deleted.\n\n"
+                           + ""
+                           + "A valid tenant and user must be specified as query parameters.\n\n"
+                           + ""
+                           + "The secrets are erased concurrently and the response reports how "
+                           + "many secrets were found, erased and could not be erased.  The "
+                           + "request is idempotent:  a system without secrets is not an error, "
+                           + "so a request that failed or was interrupted can be repeated to "
+                           + "erase the secrets that remain.\n\n"
+                           + ""
+                           + "### Authorization\n"
+                           + ""
+                           + "Limited to the systems service."
+                           + "",
+             tags = "vault",
+             security = {@SecurityRequirement(name = "TapisJWT")},
+             responses = 
+                 {@ApiResponse(responseCode = "200", description = "Secrets removed.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.security.api.responses.RespSecretSubtree.class))),
+                  @ApiResponse(responseCode = "400", description = "Input error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "401", description = "Not authorized.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "500", description = "Server error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+         )
+     public void destroySystemSecrets(@Suspended final AsyncResponse asyncResponse,
+                                      @PathParam("sysId") String sysId,
+                                      @QueryParam("tenant") String tenant,
+                                      @QueryParam("user")   String user,
+                                      @QueryParam("sysuser") String sysUser,
+                                      @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint)
+     {
+         // Trace this request.
+         if (_log.isTraceEnabled()) {
+             String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(), 
+                                          "destroySystemSecrets", _request.getRequestURL());
+             _log.trace(msg);
+         }
+         
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doDestroySystemSecrets(sysId, tenant, user, sysUser, prettyPrint));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doDestroySystemSecrets:                                                      */
+     /* ---------------------------------------------------------------------------- */
+     private Response doDestroySystemSecrets(String sysId, String tenant, String user,
+                                             String sysUser, boolean prettyPrint)
+     {
+         // ------------------------- Input Processing -------------------------
+         if (StringUtils.isBlank(tenant)) {
+             String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "tenant");
+             _log.error(msg);
+             return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         if (StringUtils.isBlank(user)) {
+             String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "user");
+             _log.error(msg);
+             return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         
+         // ------------------------- Path Processing --------------------------
+         // The subtree path is constructed and validated by the implementation.
+         SecretPathMapperParms secretPathParms;
+         try {secretPathParms = new SecretPathMapperParms(SecretType.System);}
+             catch (Exception e) {
+                 _log.error(e.getMessage(), e);
+                 return getExceptionResponse(e, e.getMessage(), prettyPrint);
+             }
+         secretPathParms.setSysId(sysId);
+         secretPathParms.setSysUser(sysUser);
+         
+         // ------------------------- Check Authz ------------------------------
+         // Authorization passed if a null response is returned.
+         Response resp = SKCheckAuthz.configure(tenant, user, secretPathParms)
+                             .setCheckSecrets()
+                             .check(prettyPrint);
+         if (resp != null) return resp;
+         
+         // ------------------------ Request Processing ------------------------
+         // Issue the vault calls.
+         SkSecretSubtreeResult result = null;
+         try {
+             result = getVaultImpl().secretDestroySubtree(tenant, user, secretPathParms);
+         } catch (Exception e) {
+             _log.error(e.getMessage(), e);
+             return getExceptionResponse(e, e.getMessage(), prettyPrint);
+         }
+         
+         // Failures to erase individual secrets are reported in the result.
+         var r = new RespSecretSubtree(result);
+         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+                 MsgUtils.getMsg("TAPIS_DELETED", "Secrets", result.secretPath), 
+                                 prettyPrint, r)).build();
+     }
+     
      /* ---------------------------------------------------------------------------- */
      /* validateServicePassword:                                                     */
      /* ---------------------------------------------------------------------------- */
@@ -1493,9 +2153,10 @@ public final class VaultResource
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
          )
-     public Response validateServicePassword(@PathParam("secretName") String secretName,
-                         @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
-                         InputStream payloadStream)
+     public void validateServicePassword(@Suspended final AsyncResponse asyncResponse,
+                                         @PathParam("secretName") String secretName,
+                                         @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                         InputStream payloadStream)
      {
          // Trace this request.
          if (_log.isTraceEnabled()) {
@@ -1504,6 +2165,17 @@ public final class VaultResource
              _log.trace(msg);
          }
          
+         // Process the request on the vault bulkhead.
+         SKBulkhead.getVaultBulkhead().submit(asyncResponse, prettyPrint, () ->
+             doValidateServicePassword(secretName, prettyPrint, payloadStream));
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* doValidateServicePassword:                                                   */
+     /* ---------------------------------------------------------------------------- */
+     private Response doValidateServicePassword(String secretName, boolean prettyPrint,
+                                                InputStream payloadStream)
+     {
          // ------------------------- Input Processing -------------------------
          // Parse and validate the json in the request payload, which must exist.
          // Note that the secret values in the payload will only be string values,
@@ -1571,6 +2243,20 @@ public final class VaultResource
      /* **************************************************************************** */
      /*                               Private Methods                                */
      /* **************************************************************************** */
+     /* ---------------------------------------------------------------------------- */
+     /* getJwtPublicKeyCacheControl:                                                 */
+     /* ---------------------------------------------------------------------------- */
+     /** Public keys are not sensitive, so any cache may store them, but they must be
+      * revalidated before each use so that rotated keys are picked up immediately.
+      */
+     private CacheControl getJwtPublicKeyCacheControl()
+     {
+         var cc = new CacheControl();
+         cc.setNoCache(true);
+         cc.setNoTransform(false);
+         return cc;
+     }
+     
      /* ---------------------------------------------------------------------------- */
      /* getSecretPathParms:                                                          */
      /* ---------------------------------------------------------------------------- */
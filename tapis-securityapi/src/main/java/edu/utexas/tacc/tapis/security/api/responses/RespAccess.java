@@ -0,0 +1,12 @@
+package edu.utexas.tacc.tapis.security.api.responses;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkAccessResult;
+import edu.utexas.tacc.tapis.sharedapi.responses.RespAbstract;
+
+public final class RespAccess
+ extends RespAbstract
+{
+    public RespAccess(SkAccessResult result) {this.result = result;}
+    
+    public SkAccessResult result;
+}
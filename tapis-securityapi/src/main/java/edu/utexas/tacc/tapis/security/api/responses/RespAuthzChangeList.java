@@ -0,0 +1,12 @@
+package edu.utexas.tacc.tapis.security.api.responses;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkAuthzChangeList;
+import edu.utexas.tacc.tapis.sharedapi.responses.RespAbstract;
+
+public final class RespAuthzChangeList
+ extends RespAbstract
+{
+    public RespAuthzChangeList(SkAuthzChangeList result) {this.result = result;}
+    
+    public SkAuthzChangeList result;
+}
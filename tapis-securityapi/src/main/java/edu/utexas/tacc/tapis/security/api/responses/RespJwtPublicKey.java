@@ -0,0 +1,12 @@
+package edu.utexas.tacc.tapis.security.api.responses;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkJwtPublicKey;
+import edu.utexas.tacc.tapis.sharedapi.responses.RespAbstract;
+
+public final class RespJwtPublicKey
+ extends RespAbstract
+{
+    public RespJwtPublicKey(SkJwtPublicKey result) {this.result = result;}
+    
+    public SkJwtPublicKey result;
+}
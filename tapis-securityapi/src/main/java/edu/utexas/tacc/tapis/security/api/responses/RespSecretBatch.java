@@ -0,0 +1,12 @@
+package edu.utexas.tacc.tapis.security.api.responses;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretBatchResult;
+import edu.utexas.tacc.tapis.sharedapi.responses.RespAbstract;
+
+public final class RespSecretBatch
+ extends RespAbstract
+{
+    public RespSecretBatch(SkSecretBatchResult result) {this.result = result;}
+    
+    public SkSecretBatchResult result;
+}
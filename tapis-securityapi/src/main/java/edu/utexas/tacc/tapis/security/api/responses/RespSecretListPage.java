@@ -0,0 +1,12 @@
+package edu.utexas.tacc.tapis.security.api.responses;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretListPage;
+import edu.utexas.tacc.tapis.sharedapi.responses.RespAbstract;
+
+public final class RespSecretListPage
+ extends RespAbstract
+{
+    public RespSecretListPage(SkSecretListPage result) {this.result = result;}
+    
+    public SkSecretListPage result;
+}
@@ -0,0 +1,12 @@
+package edu.utexas.tacc.tapis.security.api.responses;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretSubtreeResult;
+import edu.utexas.tacc.tapis.sharedapi.responses.RespAbstract;
+
+public final class RespSecretSubtree
+ extends RespAbstract
+{
+    public RespSecretSubtree(SkSecretSubtreeResult result) {this.result = result;}
+    
+    public SkSecretSubtreeResult result;
+}
@@ -0,0 +1,12 @@
+package edu.utexas.tacc.tapis.security.api.responses;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkShareBulkResult;
+import edu.utexas.tacc.tapis.sharedapi.responses.RespAbstract;
+
+public final class RespShareBulk
+ extends RespAbstract
+{
+    public RespShareBulk(SkShareBulkResult result) {this.result = result;}
+    
+    public SkShareBulkResult result;
+}
@@ -0,0 +1,293 @@
+package edu.utexas.tacc.tapis.security.api.utils;
+
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
+import edu.utexas.tacc.tapis.shared.threadlocal.TapisThreadContext;
+import edu.utexas.tacc.tapis.shared.threadlocal.TapisThreadLocal;
+import edu.utexas.tacc.tapis.sharedapi.utils.TapisRestUtils;
+
+/** Process suspended requests on a dedicated pool so that slow backends do not
+ * tie up servlet container threads.  Requests that call vault run here, which
+ * keeps container threads available for endpoints that only use the database,
+ * such as permission checks, no matter how slowly vault responds.
+ *
+ * The bulkhead processes at most maxConcurrent requests at once and queues at
+ * most maxQueued more on a fixed pool of maxConcurrent threads.  Requests 
+ * beyond that are rejected immediately with a 503 status, as are requests that
+ * are still queued when the timeout expires.  Requests that have started are
+ * never timed out, since the client would see a failure while a write or a
+ * long operation such as a subtree destroy carries on, and its retries would
+ * run at the same time as the original request.
+ *
+ * The vault bulkhead's counts are published as metrics.
+ *
+ * The caller's Tapis thread context is installed on the thread that processes
+ * its request.
+ */
+public final class SKBulkhead
+{
+    /* **************************************************************************** */
+    /*                                   Constants                                  */
+    /* **************************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SKBulkhead.class);
+
+    // The name of the vault request bulkhead.
+    public static final String VAULT_BULKHEAD_NAME = "vault";
+
+    // Minimum time between rejection warnings.
+    private static final long REJECT_LOG_INTERVAL_MILLIS = 60000;
+
+    /* **************************************************************************** */
+    /*                                    Fields                                    */
+    /* **************************************************************************** */
+    // The vault request bulkhead.
+    private static volatile SKBulkhead _vaultBulkhead;
+
+    // Configuration.
+    private final String  _name;
+    private final int     _maxConcurrent;
+    private final int     _maxQueued;
+    private final int     _timeoutSeconds;
+
+    // Request processing.
+    private final ThreadPoolExecutor _executor;
+
+    // Requests admitted and not yet completed, and those being processed.
+    private final AtomicInteger _admitted = new AtomicInteger();
+    private final AtomicInteger _active   = new AtomicInteger();
+
+    // Metrics.
+    private final AtomicInteger _maxQueueDepth = new AtomicInteger();
+    private final AtomicLong _completed = new AtomicLong();
+    private final AtomicLong _rejected  = new AtomicLong();
+    private final AtomicLong _timeouts  = new AtomicLong();
+    private volatile long    _lastRejectLogMillis;
+
+    /* **************************************************************************** */
+    /*                                 Constructors                                 */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* constructor:                                                                 */
+    /* ---------------------------------------------------------------------------- */
+    public SKBulkhead(String name, int maxConcurrent, int maxQueued, int timeoutSeconds)
+    {
+        _name = name;
+        _maxConcurrent  = maxConcurrent;
+        _maxQueued      = maxQueued;
+        _timeoutSeconds = timeoutSeconds;
+
+        // The admission limit bounds the pool's queue.
+        var threadNum = new AtomicInteger();
+        _executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                                           new LinkedBlockingQueue<Runnable>(),
+                                           r -> {
+                                               var t = new Thread(r, "SkBulkhead-" + name + "-" +
+                                                                  threadNum.incrementAndGet());
+                                               t.setDaemon(true);
+                                               return t;
+                                           });
+        _executor.allowCoreThreadTimeOut(true);
+        _log.info("Created " + name + " bulkhead: maxConcurrent=" + maxConcurrent + 
+                  " maxQueued=" + maxQueued + " timeoutSeconds=" + timeoutSeconds);
+    }
+
+    /* **************************************************************************** */
+    /*                                Public Methods                                */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* getVaultBulkhead:                                                            */
+    /* ---------------------------------------------------------------------------- */
+    public static SKBulkhead getVaultBulkhead()
+    {
+        // Create the singleton instance if necessary.
+        if (_vaultBulkhead == null) {
+            synchronized (SKBulkhead.class) {
+                if (_vaultBulkhead == null) {
+                    var parms = RuntimeParameters.getInstance();
+                    _vaultBulkhead = new SKBulkhead(VAULT_BULKHEAD_NAME,
+                                                    parms.getVaultBulkheadMaxConcurrent(),
+                                                    parms.getVaultBulkheadMaxQueued(),
+                                                    parms.getVaultBulkheadTimeoutSeconds());
+                    _vaultBulkhead.bindMetrics();
+                }
+            }
+        }
+        return _vaultBulkhead;
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* submit:                                                                      */
+    /* ---------------------------------------------------------------------------- */
+    /** Process a request on the bulkhead and resume the suspended response with
+     * its result.  The calling thread returns immediately.
+     *
+     * @param asyncResponse the suspended response
+     * @param prettyPrint whether error responses should be pretty printed
+     * @param handler produces the response
+     */
+    public void submit(AsyncResponse asyncResponse, boolean prettyPrint,
+                       Supplier<Response> handler)
+    {
+        // Reject the request when the bulkhead is full.
+        int admitted = _admitted.incrementAndGet();
+        if (admitted > _maxConcurrent + _maxQueued) {
+            _admitted.decrementAndGet();
+            reject(asyncResponse, prettyPrint);
+            return;
+        }
+        _maxQueueDepth.accumulateAndGet(admitted - _active.get(), Math::max);
+
+        // Don't let a request wait in the queue forever.  Either the timeout 
+        // or the worker claims the request, whichever comes first.
+        var claimed = new AtomicBoolean();
+        asyncResponse.setTimeoutHandler(r -> {
+            if (!claimed.compareAndSet(false, true)) {
+                // The request started just before the timeout fired.
+                keepSuspended(r);
+                return;
+            }
+            _timeouts.incrementAndGet();
+            String msg = "The " + _name + " request was not started within " +
+                         _timeoutSeconds + " seconds.";
+            _log.error(msg);
+            r.resume(Response.status(Status.SERVICE_UNAVAILABLE).
+                       entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build());
+        });
+        asyncResponse.setTimeout(_timeoutSeconds, TimeUnit.SECONDS);
+
+        // Process the request with the caller's context.
+        TapisThreadContext threadContext = TapisThreadLocal.tapisThreadContext.get();
+        try {_executor.execute(() -> process(asyncResponse, prettyPrint, claimed, 
+                                             threadContext, handler));}
+            catch (RejectedExecutionException e) {
+                _admitted.decrementAndGet();
+                reject(asyncResponse, prettyPrint);
+            }
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* getStatistics:                                                               */
+    /* ---------------------------------------------------------------------------- */
+    public String getStatistics()
+    {
+        return String.format("bulkhead=%s maxConcurrent=%d maxQueued=%d active=%d "
+                             + "queueDepth=%d maxQueueDepth=%d completed=%d rejected=%d timeouts=%d",
+                             _name, _maxConcurrent, _maxQueued, getActiveCount(),
+                             getQueueDepth(), getMaxQueueDepth(), getCompletedCount(),
+                             getRejectedCount(), getTimeoutCount());
+    }
+
+    /* **************************************************************************** */
+    /*                                   Accessors                                  */
+    /* **************************************************************************** */
+    public String getName() {return _name;}
+    public int getMaxConcurrent() {return _maxConcurrent;}
+    public int getMaxQueued() {return _maxQueued;}
+    public int getActiveCount() {return _active.get();}
+    public int getQueueDepth() {return Math.max(0, _admitted.get() - _active.get());}
+    public int getMaxQueueDepth() {return _maxQueueDepth.get();}
+    public long getCompletedCount() {return _completed.get();}
+    public long getRejectedCount() {return _rejected.get();}
+    public long getTimeoutCount() {return _timeouts.get();}
+
+    /* **************************************************************************** */
+    /*                               Private Methods                                */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* process:                                                                     */
+    /* ---------------------------------------------------------------------------- */
+    private void process(AsyncResponse asyncResponse, boolean prettyPrint, AtomicBoolean claimed,
+                         TapisThreadContext threadContext, Supplier<Response> handler)
+    {
+        _active.incrementAndGet();
+        try {
+            // Skip requests that timed out while queued.  Started requests
+            // run to completion.
+            if (!claimed.compareAndSet(false, true)) return;
+            keepSuspended(asyncResponse);
+
+            // Produce the response.
+            TapisThreadLocal.tapisThreadContext.set(threadContext);
+            Response response;
+            try {response = handler.get();}
+                catch (Exception e) {
+                    String msg = "Unexpected " + _name + " request failure: " + e.getMessage();
+                    _log.error(msg, e);
+                    response = Response.status(Status.INTERNAL_SERVER_ERROR).
+                                 entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+                }
+            asyncResponse.resume(response);
+        }
+        finally {
+            TapisThreadLocal.tapisThreadContext.remove();
+            _active.decrementAndGet();
+            _admitted.decrementAndGet();
+            _completed.incrementAndGet();
+        }
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* keepSuspended:                                                               */
+    /* ---------------------------------------------------------------------------- */
+    /** Remove the timeout of a request that has started.  The response may 
+     * already have been resumed if the timeout fires as the request completes.
+     */
+    private void keepSuspended(AsyncResponse asyncResponse)
+    {
+        try {asyncResponse.setTimeout(AsyncResponse.NO_TIMEOUT, TimeUnit.SECONDS);}
+            catch (IllegalStateException e) {}
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* bindMetrics:                                                                 */
+    /* ---------------------------------------------------------------------------- */
+    private void bindMetrics()
+    {
+        SkMetrics.bindBulkhead(_name, this,
+            Map.of("active",        SKBulkhead::getActiveCount,
+                   "queued",        SKBulkhead::getQueueDepth,
+                   "maxqueued",     SKBulkhead::getMaxQueueDepth,
+                   "maxconcurrent", SKBulkhead::getMaxConcurrent,
+                   "queuelimit",    SKBulkhead::getMaxQueued),
+            Map.of("completed",     SKBulkhead::getCompletedCount,
+                   "rejected",      SKBulkhead::getRejectedCount,
+                   "timeout",       SKBulkhead::getTimeoutCount));
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* reject:                                                                      */
+    /* ---------------------------------------------------------------------------- */
+    private void reject(AsyncResponse asyncResponse, boolean prettyPrint)
+    {
+        _rejected.incrementAndGet();
+        String msg = "The " + _name + " request was rejected because " +
+                     (_maxConcurrent + _maxQueued) + " requests are already in progress.";
+
+        // Limit logging when overloaded.
+        long now = System.currentTimeMillis();
+        if (now - _lastRejectLogMillis >= REJECT_LOG_INTERVAL_MILLIS) {
+            _lastRejectLogMillis = now;
+            _log.warn(msg + " " + getStatistics());
+        }
+        asyncResponse.resume(Response.status(Status.SERVICE_UNAVAILABLE).
+                               entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build());
+    }
+}
@@ -163,22 +163,46 @@ public final class SKCheckAuthz
     public Response check(boolean prettyPrint)
     {
         // Perform the actual checks.
-        String emsg = checkMsg();              // At least 1 check must succeed.
-        if (emsg == null) emsg = preventMsg(); // All checks must succeed.
+        String emsg = checkMessage();
         if (emsg == null) return null;         // Success.
         
-        // Determine the http failure code.
-        Status status;
-        if (!_failedChecks.isEmpty()) status = Status.UNAUTHORIZED;
-        else if (emsg.startsWith("TAPIS_SECURITY_ALLOWABLE_TENANT_ERROR"))
-            status = Status.INTERNAL_SERVER_ERROR;
-        else status = Status.BAD_REQUEST;
-        
         // Return an error response.
-        return Response.status(status).
+        return Response.status(getFailureStatus(emsg)).
           entity(TapisRestUtils.createErrorResponse(emsg, prettyPrint)).build();
     }
     
+    /* ---------------------------------------------------------------------------- */
+    /* checkMessage:                                                                */
+    /* ---------------------------------------------------------------------------- */
+    /** Run the configured checks without creating a jaxrs response.  This method
+     * is used when a single request contains multiple independently authorized 
+     * items.  Call getFailureStatus() to determine the http status of a failure.
+     * 
+     * @return null for authorized, an error message for failed authorization
+     */
+    public String checkMessage()
+    {
+        String emsg = checkMsg();              // At least 1 check must succeed.
+        if (emsg == null) emsg = preventMsg(); // All checks must succeed.
+        return emsg;
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* getFailureStatus:                                                            */
+    /* ---------------------------------------------------------------------------- */
+    /** Determine the http failure code after a check has failed.
+     * 
+     * @param emsg the non-null message returned by checkMessage()
+     * @return the http status for the failure
+     */
+    public Status getFailureStatus(String emsg)
+    {
+        if (!_failedChecks.isEmpty()) return Status.UNAUTHORIZED;
+        else if (emsg.startsWith("TAPIS_SECURITY_ALLOWABLE_TENANT_ERROR"))
+            return Status.INTERNAL_SERVER_ERROR;
+        else return Status.BAD_REQUEST;
+    }
+    
     /* **************************************************************************** */
     /*                               Private Methods                                */
     /* **************************************************************************** */
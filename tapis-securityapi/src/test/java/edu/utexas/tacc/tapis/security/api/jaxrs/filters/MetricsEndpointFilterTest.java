@@ -0,0 +1,67 @@
+package edu.utexas.tacc.tapis.security.api.jaxrs.filters;
+
+import java.lang.reflect.Proxy;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
+
+@Test(groups= {"unit"})
+public class MetricsEndpointFilterTest
+{
+    @Test(enabled=true)
+    public void scrapeTest()
+    {
+        // Scrapes are answered without a token, before the JWT filter runs.
+        var filter = new MetricsEndpointFilter();
+        SkMetrics.setEnabled(true);
+        try {
+            for (String path : new String[] {"metrics", "/metrics", "metrics/"}) {
+                Response response = filter(filter, "GET", path);
+                Assert.assertNotNull(response);
+                Assert.assertEquals(response.getStatus(), Status.OK.getStatusCode());
+                Assert.assertTrue(response.getMediaType().isCompatible(MediaType.TEXT_PLAIN_TYPE));
+                Assert.assertTrue(response.getEntity() instanceof String);
+            }
+        }
+        finally {SkMetrics.setEnabled(false);}
+
+        // Disabled metrics aren't found.
+        Assert.assertEquals(filter(filter, "GET", "metrics").getStatus(), Status.NOT_FOUND.getStatusCode());
+
+        // Other requests continue to authentication.
+        Assert.assertNull(filter(filter, "POST", "metrics"));
+        Assert.assertNull(filter(filter, "GET", "healthcheck"));
+        Assert.assertNull(filter(filter, "GET", "user/metrics"));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* filter:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Return the response the filter aborted the request with or null. */
+    private static Response filter(MetricsEndpointFilter filter, String method, String path)
+    {
+        var loader = MetricsEndpointFilterTest.class.getClassLoader();
+        var uriInfo = (UriInfo) Proxy.newProxyInstance(loader, new Class<?>[] {UriInfo.class},
+            (p, m, a) -> m.getName().equals("getPath") ? path : null);
+        var aborted = new Response[1];
+        var context = (ContainerRequestContext) Proxy.newProxyInstance(loader,
+            new Class<?>[] {ContainerRequestContext.class}, (p, m, a) -> {
+                switch (m.getName()) {
+                    case "getMethod":  return method;
+                    case "getUriInfo": return uriInfo;
+                    case "abortWith":  aborted[0] = (Response) a[0]; return null;
+                    default:           return null;
+                }
+            });
+        filter.filter(context);
+        return aborted[0];
+    }
+}
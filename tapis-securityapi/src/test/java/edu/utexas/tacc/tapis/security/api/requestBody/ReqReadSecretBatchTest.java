@@ -0,0 +1,85 @@
+package edu.utexas.tacc.tapis.security.api.requestBody;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.utexas.tacc.tapis.security.api.requestBody.ReqReadSecretBatch.SecretDescriptor;
+
+@Test(groups= {"unit"})
+public class ReqReadSecretBatchTest
+{
+    // The schema that POST /vault/secret/batch/read payloads are checked against.
+    private static final String SCHEMA =
+        "/edu/utexas/tacc/tapis/security/api/jsonschema/ReadSecretBatchRequest.json";
+
+    @Test(enabled=true)
+    public void validateTest()
+    {
+        // A complete request is valid and defaults the key type.
+        var req = makeRequest(2);
+        req.secrets[1].keyType = " ";
+        Assert.assertNull(req.validate());
+        Assert.assertEquals(req.secrets[1].keyType, "sshkey");
+
+        // Each required field is checked.
+        req.tenant = null;
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(1);
+        req.user = " ";
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(0);
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(2);
+        req.secrets[1] = null;
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(2);
+        req.secrets[0].secretType = null;
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(2);
+        req.secrets[1].secretName = "";
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(2);
+        req.secrets[1].version = -1;
+        Assert.assertNotNull(req.validate());
+    }
+
+    @Test(enabled=true)
+    public void limitTest() throws Exception
+    {
+        // At most MAX_BATCH_SECRETS secrets per request.
+        Assert.assertNull(makeRequest(ReqReadSecretBatch.MAX_BATCH_SECRETS).validate());
+        Assert.assertNotNull(makeRequest(ReqReadSecretBatch.MAX_BATCH_SECRETS + 1).validate());
+
+        // The schema enforces the same limit.
+        try (var reader = new InputStreamReader(getClass().getResourceAsStream(SCHEMA),
+                                                StandardCharsets.UTF_8)) {
+            JsonObject schema = JsonParser.parseReader(reader).getAsJsonObject();
+            var secrets = schema.getAsJsonObject("properties").getAsJsonObject("secrets");
+            Assert.assertEquals(secrets.get("maxItems").getAsInt(), ReqReadSecretBatch.MAX_BATCH_SECRETS);
+            Assert.assertEquals(secrets.get("minItems").getAsInt(), 1);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeRequest:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private ReqReadSecretBatch makeRequest(int count)
+    {
+        var req = new ReqReadSecretBatch();
+        req.tenant = "dev";
+        req.user = "bud";
+        req.secrets = new SecretDescriptor[count];
+        for (int i = 0; i < count; i++) {
+            req.secrets[i] = new SecretDescriptor();
+            req.secrets[i].secretType = "user";
+            req.secrets[i].secretName = "s" + i;
+        }
+        return req;
+    }
+}
@@ -0,0 +1,90 @@
+package edu.utexas.tacc.tapis.security.api.requestBody;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.api.requestBody.ReqShareResourceBulk.ResourceIds;
+
+@Test(groups= {"unit"})
+public class ReqShareResourceBulkTest
+{
+    @Test(enabled=true)
+    public void validateTest()
+    {
+        // A complete request is valid.
+        var req = makeRequest(new String[] {"bud", "~public"}, "sys1", "sys2");
+        Assert.assertNull(req.validate());
+
+        // Each required field is checked.
+        req.grantor = null;
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(new String[] {"bud"}, "sys1");
+        req.privilege = "bad privilege";
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(new String[] {}, "sys1");
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(new String[] {"bud", " "}, "sys1");
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(new String[] {"bud"}, "sys1", " ");
+        Assert.assertNotNull(req.validate());
+        req = makeRequest(new String[] {"bud"});
+        Assert.assertNotNull(req.validate());
+    }
+
+    @Test(enabled=true)
+    public void limitTest()
+    {
+        // The limit applies to the number of combinations.
+        int resources = ReqShareResourceBulk.MAX_BULK_SHARES / 2;
+        var ids = new String[resources];
+        for (int i = 0; i < resources; i++) ids[i] = "sys" + i;
+        var req = makeRequest(new String[] {"bud", "jane"}, ids);
+        Assert.assertNull(req.validate());
+        req = makeRequest(new String[] {"bud", "jane", "joe"}, ids);
+        Assert.assertNotNull(req.validate());
+    }
+
+    @Test(enabled=true)
+    public void toSharesTest()
+    {
+        // One share per grantee and resource, grouped by resource.
+        var req = makeRequest(new String[] {"bud", "jane"}, "sys1", "sys2");
+        req.resources[1].resourceId2 = "/home";
+        var shares = req.toShares();
+        Assert.assertEquals(shares.size(), 4);
+        Assert.assertEquals(shares.get(0).getGrantee(), "bud");
+        Assert.assertEquals(shares.get(0).getResourceId1(), "sys1");
+        Assert.assertEquals(shares.get(1).getGrantee(), "jane");
+        Assert.assertEquals(shares.get(1).getResourceId1(), "sys1");
+        Assert.assertEquals(shares.get(3).getResourceId1(), "sys2");
+        Assert.assertEquals(shares.get(3).getResourceId2(), "/home");
+        for (var share : shares) {
+            Assert.assertEquals(share.getTenant(), "dev");
+            Assert.assertEquals(share.getGrantor(), "owner");
+            Assert.assertEquals(share.getPrivilege(), "READ");
+        }
+
+        // Blank secondary ids are null.
+        req.resources[0].resourceId2 = " ";
+        Assert.assertNull(req.toShares().get(0).getResourceId2());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeRequest:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private ReqShareResourceBulk makeRequest(String[] grantees, String... resourceIds)
+    {
+        var req = new ReqShareResourceBulk();
+        req.grantor = "owner";
+        req.tenant = "dev";
+        req.resourceType = "tapis/system";
+        req.privilege = "READ";
+        req.grantees = grantees;
+        req.resources = new ResourceIds[resourceIds.length];
+        for (int i = 0; i < resourceIds.length; i++) {
+            req.resources[i] = new ResourceIds();
+            req.resources[i].resourceId1 = resourceIds[i];
+        }
+        return req;
+    }
+}
@@ -0,0 +1,35 @@
+package edu.utexas.tacc.tapis.security.api.requestBody;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups= {"unit"})
+public class ReqUserHasAccessTest
+{
+    @Test(enabled=true)
+    public void validateTest()
+    {
+        // Either source alone is sufficient.
+        var req = new ReqUserHasAccess();
+        req.tenant = "dev";
+        req.user = "bud";
+        req.permSpec = "system:dev:read:sys1";
+        Assert.assertNull(req.validate());
+        req.permSpec = " ";
+        req.resourceType = "tapis/system";
+        req.resourceId1 = "sys1";
+        req.privilege = "READ";
+        Assert.assertNull(req.validate());
+
+        // Blank fields are treated as missing.
+        req.privilege = " ";
+        Assert.assertNotNull(req.validate());
+        req.resourceType = null;
+        req.resourceId1 = null;
+        Assert.assertNotNull(req.validate());
+        req.permSpec = "system:dev:read:sys1";
+        Assert.assertNull(req.validate());
+        req.user = null;
+        Assert.assertNotNull(req.validate());
+    }
+}
@@ -0,0 +1,193 @@
+package edu.utexas.tacc.tapis.security.api.utils;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups= {"unit"})
+public class SKBulkheadTest
+{
+    @Test(enabled=true)
+    public void admissionTest() throws Exception
+    {
+        // Two requests run, one waits and the next is rejected.
+        var bulkhead = new SKBulkhead("test", 2, 1, 60);
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(2);
+        var responses = new TestResponse[3];
+        for (int i = 0; i < 3; i++) {
+            responses[i] = new TestResponse();
+            bulkhead.submit(responses[i].proxy(), false, blockingHandler(started, release));
+        }
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(bulkhead.getActiveCount(), 2);
+        Assert.assertEquals(bulkhead.getQueueDepth(), 1);
+
+        var rejected = new TestResponse();
+        bulkhead.submit(rejected.proxy(), false, () -> Response.ok().build());
+        Assert.assertEquals(rejected.getStatus(), Status.SERVICE_UNAVAILABLE.getStatusCode());
+        Assert.assertEquals(bulkhead.getRejectedCount(), 1);
+
+        // All admitted requests complete once unblocked.
+        release.countDown();
+        for (var response : responses)
+            Assert.assertEquals(response.awaitStatus(), Status.OK.getStatusCode());
+        waitForCompleted(bulkhead, 3);
+        Assert.assertEquals(bulkhead.getActiveCount(), 0);
+        Assert.assertEquals(bulkhead.getQueueDepth(), 0);
+        // Requests are counted as queued until a worker picks them up.
+        Assert.assertTrue(bulkhead.getMaxQueueDepth() >= 1);
+
+        // Capacity is available again.
+        var again = new TestResponse();
+        bulkhead.submit(again.proxy(), false, () -> Response.ok().build());
+        Assert.assertEquals(again.awaitStatus(), Status.OK.getStatusCode());
+    }
+
+    @Test(enabled=true)
+    public void timeoutTest() throws Exception
+    {
+        // Requests get the configured timeout while queued and none once started.
+        var bulkhead = new SKBulkhead("test", 1, 1, 7);
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        var running = new TestResponse();
+        bulkhead.submit(running.proxy(), false, blockingHandler(started, release));
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(running.timeoutCalls, 2);
+        Assert.assertEquals(running.timeoutSeconds, AsyncResponse.NO_TIMEOUT);
+
+        // A started request that times out keeps running.
+        running.fireTimeout();
+        Assert.assertEquals(running.getStatus(), 0);
+        Assert.assertEquals(bulkhead.getTimeoutCount(), 0);
+
+        // A queued request that times out gets a 503 and is never processed.
+        var calls = new AtomicInteger();
+        var queued = new TestResponse();
+        bulkhead.submit(queued.proxy(), false, () -> {
+            calls.incrementAndGet();
+            return Response.ok().build();
+        });
+        Assert.assertEquals(queued.timeoutSeconds, 7);
+        queued.fireTimeout();
+        Assert.assertEquals(queued.getStatus(), Status.SERVICE_UNAVAILABLE.getStatusCode());
+        Assert.assertEquals(bulkhead.getTimeoutCount(), 1);
+
+        release.countDown();
+        Assert.assertEquals(running.awaitStatus(), Status.OK.getStatusCode());
+        waitForCompleted(bulkhead, 2);
+        Assert.assertEquals(calls.get(), 0);
+        Assert.assertEquals(bulkhead.getQueueDepth(), 0);
+    }
+
+    @Test(enabled=true)
+    public void failureTest() throws Exception
+    {
+        // Unexpected handler failures become server errors.
+        var bulkhead = new SKBulkhead("test", 1, 0, 60);
+        var response = new TestResponse();
+        bulkhead.submit(response.proxy(), false, () -> {throw new IllegalStateException("boom");});
+        Assert.assertEquals(response.awaitStatus(), Status.INTERNAL_SERVER_ERROR.getStatusCode());
+        waitForCompleted(bulkhead, 1);
+        Assert.assertEquals(bulkhead.getActiveCount(), 0);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* blockingHandler:                                                       */
+    /* ---------------------------------------------------------------------- */
+    private Supplier<Response> blockingHandler(CountDownLatch started, CountDownLatch release)
+    {
+        return () -> {
+            started.countDown();
+            try {release.await(10, TimeUnit.SECONDS);}
+                catch (InterruptedException e) {Thread.currentThread().interrupt();}
+            return Response.ok().build();
+        };
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* waitForCompleted:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Completion is counted after the response is resumed. */
+    private void waitForCompleted(SKBulkhead bulkhead, long count) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (bulkhead.getCompletedCount() < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        Assert.assertEquals(bulkhead.getCompletedCount(), count);
+    }
+
+    /* ********************************************************************** */
+    /*                           TestResponse Class                           */
+    /* ********************************************************************** */
+    /** Records what the bulkhead does with a suspended response.  The timeout
+     * handler only runs when the test fires it.
+     */
+    private static final class TestResponse
+    {
+        private final CountDownLatch _resumed = new CountDownLatch(1);
+        private volatile Response     _response;
+        private volatile boolean      _done;
+        private volatile TimeoutHandler _timeoutHandler;
+        private volatile long         timeoutSeconds;
+        private volatile int          timeoutCalls;
+        private AsyncResponse         _proxy;
+
+        private AsyncResponse proxy()
+        {
+            _proxy = (AsyncResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {AsyncResponse.class}, (p, m, a) -> {
+                    switch (m.getName()) {
+                        case "resume":
+                            if (_done) return false;
+                            _response = (Response) a[0];
+                            _done = true;
+                            _resumed.countDown();
+                            return true;
+                        case "cancel":
+                            _done = true;
+                            _resumed.countDown();
+                            return true;
+                        case "isDone":
+                            return _done;
+                        case "isSuspended":
+                            return !_done;
+                        case "isCancelled":
+                            return false;
+                        case "setTimeout":
+                            if (_done) throw new IllegalStateException("not suspended");
+                            timeoutSeconds = ((TimeUnit) a[1]).toSeconds((Long) a[0]);
+                            timeoutCalls++;
+                            return true;
+                        case "setTimeoutHandler":
+                            _timeoutHandler = (TimeoutHandler) a[0];
+                            return null;
+                        default:
+                            return m.getReturnType() == boolean.class ? false : null;
+                    }
+                });
+            return _proxy;
+        }
+
+        private void fireTimeout() {_timeoutHandler.handleTimeout(_proxy);}
+
+        private int getStatus() {return _response == null ? 0 : _response.getStatus();}
+
+        private int awaitStatus() throws InterruptedException
+        {
+            Assert.assertTrue(_resumed.await(10, TimeUnit.SECONDS), "not resumed");
+            return getStatus();
+        }
+    }
+}
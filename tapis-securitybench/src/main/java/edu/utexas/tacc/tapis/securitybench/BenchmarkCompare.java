@@ -0,0 +1,126 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/** Compare two JMH JSON result files and report the change in each benchmark's
+ * score.  Benchmarks are identified by their name and parameters.  A benchmark
+ * regresses when its score is worse than the baseline by more than the
+ * threshold percentage; higher is better for throughput and lower is better
+ * for every other mode.  The program exits with status 1 if any benchmark
+ * regressed so it can gate a build.
+ *
+ * Usage: BenchmarkCompare baseline.json current.json [thresholdPercent]
+ */
+public final class BenchmarkCompare
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The default allowed percentage change before a regression is reported.
+    private static final double DFT_THRESHOLD_PERCENT = 10.0;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private BenchmarkCompare() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* main:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkCompare baseline.json current.json [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DFT_THRESHOLD_PERCENT;
+
+        var baseline = readResults(Path.of(args[0]));
+        var current  = readResults(Path.of(args[1]));
+        int regressions = 0;
+        for (var entry : current.entrySet()) {
+            var cur  = entry.getValue();
+            var base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("NEW         %s  %.3f %s%n", entry.getKey(), cur.score, cur.unit);
+                continue;
+            }
+
+            // Positive changes are improvements.  Any change from a zero
+            // baseline exceeds the threshold.
+            double change;
+            if (base.score != 0) change = (cur.score - base.score) / base.score * 100.0;
+              else change = cur.score == 0 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, cur.score);
+            if (!cur.higherIsBetter) change = -change;
+            String status = "OK        ";
+            if (change < -threshold) {status = "REGRESSION"; regressions++;}
+              else if (change > threshold) status = "IMPROVED  ";
+            System.out.printf("%s  %s  %.3f -> %.3f %s  (%+.1f%%)%n", status, entry.getKey(),
+                              base.score, cur.score, cur.unit, change);
+        }
+        for (var key : baseline.keySet())
+            if (!current.containsKey(key)) System.out.println("MISSING     " + key);
+
+        System.out.println(regressions + " regression(s) at a " + threshold + "% threshold.");
+        if (regressions > 0) System.exit(1);
+    }
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* readResults:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Read a JMH JSON result file into a map keyed by benchmark and parameters.
+     *
+     * @param file the result file
+     * @return the scores in file order
+     * @throws IOException if the file can't be read
+     */
+    private static LinkedHashMap<String,Score> readResults(Path file) throws IOException
+    {
+        var results = new LinkedHashMap<String,Score>();
+        String json = Files.readString(file, StandardCharsets.UTF_8);
+        for (JsonElement element : JsonParser.parseString(json).getAsJsonArray()) {
+            JsonObject result = element.getAsJsonObject();
+            String key = result.get("benchmark").getAsString();
+            var params = result.getAsJsonObject("params");
+            if (params != null) {
+                var sorted = new TreeMap<String,String>();
+                for (var param : params.entrySet()) sorted.put(param.getKey(), param.getValue().getAsString());
+                key += sorted;
+            }
+            String mode = result.get("mode").getAsString();
+            var metric = result.getAsJsonObject("primaryMetric");
+            results.put(key + " " + mode, new Score(metric.get("score").getAsDouble(),
+                                                    metric.get("scoreUnit").getAsString(),
+                                                    "thrpt".equals(mode)));
+        }
+        return results;
+    }
+
+    /* ********************************************************************** */
+    /*                               Score Class                              */
+    /* ********************************************************************** */
+    private static final class Score
+    {
+        private final double  score;
+        private final String  unit;
+        private final boolean higherIsBetter;
+
+        private Score(double score, String unit, boolean higherIsBetter)
+        {this.score = score; this.unit = unit; this.higherIsBetter = higherIsBetter;}
+    }
+}
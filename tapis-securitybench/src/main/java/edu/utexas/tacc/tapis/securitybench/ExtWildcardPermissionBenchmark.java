@@ -0,0 +1,113 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.utexas.tacc.tapis.security.authz.permissions.ExtWildcardPermission;
+
+/** Measure the parsing and matching of single permissions.  The shiro schema
+ * uses standard Shiro matching on every part.  The files schema uses recursive
+ * path matching on its last part, so its permissions are parsed differently and
+ * a match requires a prefix comparison.
+ *
+ * The assigned permission is parsed once during setup for the implies
+ * benchmarks.  All permissions are case sensitive, as they are in UserImpl.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtWildcardPermissionBenchmark
+{
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    @Param({"shiro", "files"})
+    public String schema;
+
+    // Permission strings for the schema.
+    private String _assignedText;
+    private String _requestText;
+
+    // Parsed permissions.
+    private ExtWildcardPermission _assigned;
+    private ExtWildcardPermission _matchedRequest;
+    private ExtWildcardPermission _unmatchedRequest;
+
+    /* ********************************************************************** */
+    /*                                 Setup                                  */
+    /* ********************************************************************** */
+    @Setup
+    public void setup()
+    {
+        String unmatchedText;
+        if ("files".equals(schema)) {
+            _assignedText = "files:dev:read,modify:sys1:/home/bud/projects";
+            _requestText  = "files:dev:read:sys1:/home/bud/projects/p1/data/input.txt";
+            unmatchedText = "files:dev:read:sys1:/home/bud/projects2/p1/data/input.txt";
+        } else {
+            _assignedText = "stream:dev:read,write:project1:*";
+            _requestText  = "stream:dev:read:project1:site1";
+            unmatchedText = "stream:dev:exec:project1:site1";
+        }
+        _assigned         = new ExtWildcardPermission(_assignedText, true);
+        _matchedRequest   = new ExtWildcardPermission(_requestText, true);
+        _unmatchedRequest = new ExtWildcardPermission(unmatchedText, true);
+    }
+
+    /* ********************************************************************** */
+    /*                               Benchmarks                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* construct:                                                             */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public ExtWildcardPermission construct()
+    {
+        return new ExtWildcardPermission(_assignedText, true);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* impliesMatch:                                                          */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public boolean impliesMatch()
+    {
+        return _assigned.implies(_matchedRequest);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* impliesNoMatch:                                                        */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public boolean impliesNoMatch()
+    {
+        return _assigned.implies(_unmatchedRequest);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* constructAndImplies:                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Parse both permissions and match them, which is the cost of checking one
+     * assigned permission when no permission objects are reused.
+     */
+    @Benchmark
+    public boolean constructAndImplies()
+    {
+        var assigned = new ExtWildcardPermission(_assignedText, true);
+        return assigned.implies(new ExtWildcardPermission(_requestText, true));
+    }
+}
@@ -0,0 +1,154 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bettercloud.vault.rest.RestResponse;
+
+import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
+import edu.utexas.tacc.tapis.security.metrics.SkDbMetrics;
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
+import edu.utexas.tacc.tapis.security.secrets.ISkVaultClient;
+import edu.utexas.tacc.tapis.security.secrets.SkTimedVaultClient;
+import io.micrometer.core.instrument.Timer;
+
+/** Measure the cost metrics add to database statements and vault calls.  The
+ * datasource and vault client do no I/O, so each baseline/timed pair shows
+ * the absolute overhead per call, which should be compared with the tens of
+ * microseconds or more that a real database or vault round trip takes.  The
+ * timer benchmarks isolate the cost of a histogram recording, which is also
+ * what the http request filter adds to each request.
+ *
+ * Run with -t to see the effect of contention on the shared timers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    private static final String SQL = SqlStatements.ROLE_SELECT_BY_NAME;
+    private static final String VAULT_PATH = "secret/tapis/tenant/dev/user/bud/kv/s1";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    private DataSource     _dataSource;
+    private DataSource     _timedDataSource;
+    private ISkVaultClient _vaultClient;
+    private ISkVaultClient _timedVaultClient;
+    private Timer          _timer;
+    private long           _nanos;
+
+    /* ********************************************************************** */
+    /*                                 Setup                                  */
+    /* ********************************************************************** */
+    @Setup
+    public void setup()
+    {
+        SkMetrics.setEnabled(true);
+
+        // A datasource whose connections and statements do nothing.
+        var loader = getClass().getClassLoader();
+        var stmt = (PreparedStatement) Proxy.newProxyInstance(loader, new Class<?>[] {PreparedStatement.class},
+                                                              (p, m, a) -> m.getName().equals("execute") ? true : null);
+        var conn = (Connection) Proxy.newProxyInstance(loader, new Class<?>[] {Connection.class},
+                                                       (p, m, a) -> m.getName().equals("prepareStatement") ? stmt : null);
+        _dataSource = (DataSource) Proxy.newProxyInstance(loader, new Class<?>[] {DataSource.class},
+            (p, m, a) -> m.getName().equals("getConnection") ? conn : m.getName().equals("isWrapperFor") ? false : null);
+        _timedDataSource = SkDbMetrics.wrap(_dataSource);
+
+        // A vault client that always returns the same response.
+        var resp = new RestResponse(200, "application/json", "{}".getBytes());
+        _vaultClient = (ISkVaultClient) Proxy.newProxyInstance(loader, new Class<?>[] {ISkVaultClient.class},
+                                                               (p, m, a) -> resp);
+        _timedVaultClient = new SkTimedVaultClient(_vaultClient);
+
+        _timer = SkMetrics.timer("sk.bench.timer", "Benchmark timer", SkMetrics.DB_BUCKETS);
+        _nanos = TimeUnit.MICROSECONDS.toNanos(750);
+    }
+
+    /* ********************************************************************** */
+    /*                               Benchmarks                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* statement:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Get a connection, prepare a statement, execute it and close both. */
+    @Benchmark
+    public boolean statementBaseline() throws Exception
+    {
+        return execute(_dataSource);
+    }
+
+    @Benchmark
+    public boolean statementTimed() throws Exception
+    {
+        return execute(_timedDataSource);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* vaultRead:                                                             */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public RestResponse vaultReadBaseline() throws Exception
+    {
+        return _vaultClient.read(VAULT_PATH, 0);
+    }
+
+    @Benchmark
+    public RestResponse vaultReadTimed() throws Exception
+    {
+        return _timedVaultClient.read(VAULT_PATH, 0);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* timer:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Record a fixed duration in a histogram timer. */
+    @Benchmark
+    public void timerRecord()
+    {
+        _timer.record(_nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Read the clock twice and record the difference, as instrumented code does. */
+    @Benchmark
+    public void timerRecordElapsed()
+    {
+        long start = System.nanoTime();
+        _timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    private static boolean execute(DataSource ds) throws Exception
+    {
+        try (var conn = ds.getConnection(); var pstmt = conn.prepareStatement(SQL)) {
+            pstmt.setString(1, "dev");
+            pstmt.setString(2, "role");
+            return pstmt.execute();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.utexas.tacc.tapis.security.authz.permissions.ExtWildcardPermission;
+
+/** Measure UserImpl.isPermitted() style matching of one request permission
+ * against a user's assigned permissions as the number of assigned permissions
+ * grows.  The matching loop is the one in UserImpl.matchPermission() without
+ * its logging, since that method is private and UserImpl needs a database.
+ *
+ * Half of the assigned permissions use the files schema and half use standard
+ * Shiro schemas.  The request is either matched only by the last assigned
+ * permission or not matched at all, so every assigned permission is checked.
+ *
+ * The parse benchmark creates a permission object for each assigned permission
+ * on each check, which is what UserImpl does when a single permission spec is
+ * checked.  The cached benchmark reuses permission objects from a map the way
+ * UserImpl does when several specs are checked in one request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionMatchBenchmark
+{
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int permissions;
+
+    @Param({"last", "none"})
+    public String match;
+
+    // The user's assigned permissions and the request.
+    private List<String> _assignedPerms;
+    private String       _requestPerm;
+
+    // Permission objects reused across checks.
+    private HashMap<String,ExtWildcardPermission> _assignedPermMap;
+
+    /* ********************************************************************** */
+    /*                                 Setup                                  */
+    /* ********************************************************************** */
+    @Setup
+    public void setup()
+    {
+        // Create distinct permissions none of which match the request.
+        _assignedPerms = new ArrayList<>(permissions);
+        for (int i = 0; i < permissions - 1; i++)
+            if (i % 2 == 0) _assignedPerms.add("files:dev:read,modify:sys" + i + ":/home/bud/p" + i);
+              else _assignedPerms.add("app" + (i % 7) + ":dev:read,write:res" + i);
+
+        // The last permission matches the request if requested.
+        if ("last".equals(match)) _assignedPerms.add("files:dev:*:sysReq:/home/bud");
+          else _assignedPerms.add("files:dev:*:sysReq:/home/bud2");
+        _requestPerm = "files:dev:read:sysReq:/home/bud/data/input.txt";
+
+        _assignedPermMap = new HashMap<>(1 + 2 * _assignedPerms.size());
+        for (var perm : _assignedPerms) _assignedPermMap.put(perm, new ExtWildcardPermission(perm, true));
+    }
+
+    /* ********************************************************************** */
+    /*                               Benchmarks                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* parse:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public boolean parse()
+    {
+        return matchPermission(_requestPerm, _assignedPerms, null);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* cached:                                                                */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public boolean cached()
+    {
+        return matchPermission(_requestPerm, _assignedPerms, _assignedPermMap);
+    }
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* matchPermission:                                                       */
+    /* ---------------------------------------------------------------------- */
+    private static boolean matchPermission(String reqPermStr, List<String> assignedPermStrs,
+                                           HashMap<String,ExtWildcardPermission> assignedPermMap)
+    {
+        var reqPerm = new ExtWildcardPermission(reqPermStr, true);
+        for (String curAssignedPermStr : assignedPermStrs) {
+            ExtWildcardPermission curAssignedPerm;
+            if (assignedPermMap != null) {
+                curAssignedPerm = assignedPermMap.get(curAssignedPermStr);
+                if (curAssignedPerm == null) {
+                    curAssignedPerm = new ExtWildcardPermission(curAssignedPermStr, true);
+                    assignedPermMap.put(curAssignedPermStr, curAssignedPerm);
+                }
+            }
+            else curAssignedPerm = new ExtWildcardPermission(curAssignedPermStr, true);
+
+            if (curAssignedPerm.implies(reqPerm)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkRolePermissionShort;
+import edu.utexas.tacc.tapis.security.authz.permissions.PermissionTransformer;
+
+/** Measure the rewriting of files permissions when a system's path prefix
+ * changes, which is the in-memory part of transferring permissions between
+ * systems.  Each invocation transforms every permission in the batch with a
+ * new transformer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionTransformerBenchmark
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // files:tenant:op:system:path with the system at index 3.
+    private static final int    START_PART_INDEX = 3;
+    private static final String OLD_TEXT = "sys1:/home/bud";
+    private static final String NEW_TEXT = "sys2:/scratch/bud";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    @Param({"10", "1000", "100000"})
+    public int permissions;
+
+    private List<SkRolePermissionShort> _perms;
+
+    /* ********************************************************************** */
+    /*                                 Setup                                  */
+    /* ********************************************************************** */
+    @Setup
+    public void setup()
+    {
+        _perms = new ArrayList<>(permissions);
+        for (int i = 0; i < permissions; i++)
+            _perms.add(new SkRolePermissionShort(i, "dev", i % 50,
+                           "files:dev:read,modify:" + OLD_TEXT + "/projects/p" + i + "/data"));
+    }
+
+    /* ********************************************************************** */
+    /*                               Benchmarks                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* addTransformations:                                                    */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public List<PermissionTransformer.Transformation> addTransformations()
+    {
+        var transformer = new PermissionTransformer(START_PART_INDEX, OLD_TEXT, NEW_TEXT);
+        transformer.addTransformations(_perms);
+        return transformer.getTransformations();
+    }
+}
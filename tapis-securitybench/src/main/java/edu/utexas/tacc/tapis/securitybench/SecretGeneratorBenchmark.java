@@ -0,0 +1,97 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.security.KeyPair;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.utexas.tacc.tapis.security.secrets.SkSecretGenerator;
+import edu.utexas.tacc.tapis.security.secrets.SkSecretGenerator.KeyAlgorithm;
+
+/** Measure the throughput of the secret generation used by SkAdmin and by
+ * secrets written with generation directives.
+ *
+ * The single key pair and password benchmarks report operations per second on
+ * the calling thread.  The batch benchmark generates a batch of key pairs with
+ * SkSecretGenerator.generateKeyPairs() on a pool of the given number of
+ * threads, so its throughput is batches per second.  The pool never uses more
+ * threads than there are processors.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecretGeneratorBenchmark
+{
+    /* ********************************************************************** */
+    /*                                 State                                  */
+    /* ********************************************************************** */
+    @State(Scope.Benchmark)
+    public static class KeyPairState
+    {
+        @Param({"RSA", "EC"})
+        public KeyAlgorithm algorithm;
+    }
+
+    @State(Scope.Benchmark)
+    public static class BatchState
+    {
+        @Param({"RSA", "EC"})
+        public KeyAlgorithm algorithm;
+
+        @Param({"1", "4"})
+        public int threads;
+
+        @Param({"16"})
+        public int batchSize;
+
+        private List<KeyAlgorithm> batch;
+
+        @Setup
+        public void setup() {batch = Collections.nCopies(batchSize, algorithm);}
+    }
+
+    /* ********************************************************************** */
+    /*                               Benchmarks                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* keyPair:                                                               */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public KeyPair keyPair(KeyPairState state) throws Exception
+    {
+        return SkSecretGenerator.generateKeyPair(state.algorithm);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* keyPairBatch:                                                          */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public List<KeyPair> keyPairBatch(BatchState state) throws Exception
+    {
+        return SkSecretGenerator.generateKeyPairs(state.batch, state.threads);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* password:                                                              */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public String password()
+    {
+        // The size GenerateSecrets uses for generated passwords.
+        return SkSecretGenerator.generatePassword(16);
+    }
+}
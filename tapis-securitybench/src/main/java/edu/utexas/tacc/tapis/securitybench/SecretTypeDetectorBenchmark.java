@@ -0,0 +1,74 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.utexas.tacc.tapis.security.secrets.SecretType;
+import edu.utexas.tacc.tapis.security.secrets.SecretTypeDetector;
+
+/** Measure the classification of vault paths by secret type.  The detector
+ * tests the types in a fixed order, so paths of later types and paths that
+ * are not tapis secrets cost the most.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecretTypeDetectorBenchmark
+{
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    @Param({"ServicePwd", "DBCredential", "JWTSigning", "System", "User", "unknown"})
+    public String type;
+
+    private String _path;
+
+    /* ********************************************************************** */
+    /*                                 Setup                                  */
+    /* ********************************************************************** */
+    @Setup
+    public void setup()
+    {
+        switch (type) {
+            case "ServicePwd":
+                _path = "tapis/tenant/admin/service/files/kv/password"; break;
+            case "DBCredential":
+                _path = "tapis/service/postgres/dbhost/sk-postgres/dbname/tapissecdb/dbuser/tapis/credentials/passwords";
+                break;
+            case "JWTSigning":
+                _path = "tapis/tenant/dev/jwtkey/keys"; break;
+            case "System":
+                _path = "tapis/tenant/dev/system/sys1/user/bud/sshkey/default"; break;
+            case "User":
+                _path = "tapis/tenant/dev/user/bud/kv/mysecret"; break;
+            default:
+                _path = "tapis/tenant/dev/other/bud/kv/mysecret/extra"; break;
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                               Benchmarks                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* detectType:                                                            */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public SecretType detectType()
+    {
+        return SecretTypeDetector.detectType(_path);
+    }
+}
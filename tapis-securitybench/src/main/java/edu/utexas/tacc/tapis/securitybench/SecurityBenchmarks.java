@@ -0,0 +1,69 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** The benchmarks.jar entry point.  All arguments are passed to the JMH
+ * command line runner.  When neither a result format nor a result file is
+ * specified, the results are written as JSON to jmh-result.json in the
+ * current directory.
+ * Runs saved this way can be compared with BenchmarkCompare.
+ *
+ * Usage: java -jar benchmarks.jar [regexp] [jmh options]
+ */
+public final class SecurityBenchmarks
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The default machine-readable result file.
+    public static final String DFT_RESULT_FILE = "jmh-result.json";
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private SecurityBenchmarks() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* main:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    public static void main(String[] args) throws Exception
+    {
+        org.openjdk.jmh.Main.main(addResultOptions(args));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* addResultOptions:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Add the JSON result options unless the caller set either of them.  
+     * JMH's defaults apply to whichever option the caller left out.
+     *
+     * @param args the command line arguments
+     * @return the arguments passed to JMH
+     */
+    public static String[] addResultOptions(String[] args)
+    {
+        var list = new ArrayList<String>(List.of(args));
+        if (hasOption(list, "-rf") || hasOption(list, "-rff")) return args;
+        list.addAll(List.of("-rf", "json", "-rff", DFT_RESULT_FILE));
+        return list.toArray(new String[0]);
+    }
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* hasOption:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether an option is given as a separate argument or in the
+     * option=value form.
+     */
+    private static boolean hasOption(List<String> args, String option)
+    {
+        for (var arg : args) if (arg.equals(option) || arg.startsWith(option + "=")) return true;
+        return false;
+    }
+}
@@ -0,0 +1,87 @@
+package edu.utexas.tacc.tapis.securitybench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.utexas.tacc.tapis.security.secrets.SkServicePwdCache;
+import edu.utexas.tacc.tapis.security.secrets.SkServicePwdCache.PasswordLoader;
+
+/** Compare service password validation with vault in the loop on every call
+ * against validation from the hmac cache.  Vault is simulated by a loader
+ * that sleeps for the given round trip time, so the sampled latencies of the
+ * uncached benchmark are dominated by that time.
+ *
+ * Run with -t to validate from several threads at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicePwdValidationBenchmark
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    private static final String PATH = "secret/tapis/tenant/admin/service/files/kv/password";
+    private static final String PWD  = "aVeryLongServicePasswordThatIsNotReallySecret";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Simulated vault round trip time.
+    @Param({"0", "5"})
+    public int vaultMillis;
+
+    private SkServicePwdCache _uncached;
+    private SkServicePwdCache _cached;
+    private PasswordLoader    _loader;
+
+    /* ********************************************************************** */
+    /*                                 Setup                                  */
+    /* ********************************************************************** */
+    @Setup
+    public void setup() throws Exception
+    {
+        _uncached = new SkServicePwdCache(false, 300);
+        _cached   = new SkServicePwdCache(true, 300);
+        _loader   = () -> {
+            if (vaultMillis > 0)
+                try {Thread.sleep(vaultMillis);} catch (InterruptedException e) {}
+            return PWD;
+        };
+
+        // Load the cache so that the measurements only see hits.
+        _cached.validate(PATH, PWD, _loader);
+    }
+
+    /* ********************************************************************** */
+    /*                               Benchmarks                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* validate:                                                              */
+    /* ---------------------------------------------------------------------- */
+    @Benchmark
+    public boolean validateVault() throws Exception
+    {
+        return _uncached.validate(PATH, PWD, _loader);
+    }
+
+    @Benchmark
+    public boolean validateCached() throws Exception
+    {
+        return _cached.validate(PATH, PWD, _loader);
+    }
+}
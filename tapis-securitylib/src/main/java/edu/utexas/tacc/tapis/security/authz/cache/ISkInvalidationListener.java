@@ -0,0 +1,18 @@
+package edu.utexas.tacc.tapis.security.authz.cache;
+
+/** Implemented by in-process caches that hold authorization data and must 
+ * be kept coherent with changes made by any SK replica.
+ */
+public interface ISkInvalidationListener 
+{
+    /** Discard cached data affected by the change. 
+     * 
+     * @param change a non-null change
+     */
+    void invalidate(SkAuthzChange change);
+    
+    /** Discard all cached data.  Called whenever notifications may have been
+     * missed, such as after the listener connection is reestablished.
+     */
+    void flushAll();
+}
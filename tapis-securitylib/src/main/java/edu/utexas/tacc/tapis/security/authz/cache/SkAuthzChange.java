@@ -0,0 +1,170 @@
+package edu.utexas.tacc.tapis.security.authz.cache;
+
+import org.apache.commons.lang3.StringUtils;
+
+/** An authorization change event published by the DAO write paths and 
+ * delivered to every SK replica through Postgres notifications.  A null 
+ * user means the change potentially affects every user in the tenant; a 
+ * null tenant means the change affects all tenants.
+ * 
+ * The wire format is a single pipe-separated line:
+ * 
+ *      format|origin|sentMillis|version|type|tenant|user
+ * 
+ * Empty fields represent nulls.  The user field is last so that it may 
+ * contain any character.
+ */
+public final class SkAuthzChange 
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The kinds of authorization changes.
+    public enum ChangeType {ROLE, ROLE_PERMISSION, ROLE_TREE, USER_ROLE, SHARE, FLUSH}
+    
+    // Wire format.
+    private static final String FORMAT_VERSION = "1";
+    private static final char   SEP = '|';
+    private static final int    NUM_FIELDS = 7;
+    
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    private final ChangeType type;
+    private final String     tenant;
+    private final String     user;
+    
+    // Assigned when published or decoded.
+    private String origin;
+    private long   sentMillis;
+    private long   version;   // tenant authz version, 0 if unknown
+    
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private SkAuthzChange(ChangeType type, String tenant, String user)
+    {
+        this.type   = type;
+        this.tenant = StringUtils.stripToNull(tenant);
+        this.user   = StringUtils.stripToNull(user);
+    }
+    
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* forTenant:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** A change that affects potentially all users in a tenant. */
+    public static SkAuthzChange forTenant(ChangeType type, String tenant)
+    {
+        return new SkAuthzChange(type, tenant, null);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* forUser:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** A change that affects only one user in a tenant. */
+    public static SkAuthzChange forUser(ChangeType type, String tenant, String user)
+    {
+        return new SkAuthzChange(type, tenant, user);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* flushAll:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** A change that invalidates all cached authorization data. */
+    public static SkAuthzChange flushAll()
+    {
+        return new SkAuthzChange(ChangeType.FLUSH, null, null);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* encode:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Create the notification payload for this change. 
+     * 
+     * @param originId the publishing bus id
+     * @param nowMillis the publication time
+     * @return the payload string
+     */
+    public String encode(String originId, long nowMillis)
+    {
+        origin = originId;
+        sentMillis = nowMillis;
+        return new StringBuilder(96)
+            .append(FORMAT_VERSION).append(SEP)
+            .append(StringUtils.defaultString(origin)).append(SEP)
+            .append(sentMillis).append(SEP)
+            .append(version).append(SEP)
+            .append(type.name()).append(SEP)
+            .append(StringUtils.defaultString(tenant)).append(SEP)
+            .append(StringUtils.defaultString(user))
+            .toString();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* decode:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Parse a notification payload.  Unrecognized payloads are converted into
+     * a flush-all change so that a newer publisher can never leave an older 
+     * replica with stale data.
+     * 
+     * @param payload the notification payload
+     * @return a non-null change
+     */
+    public static SkAuthzChange decode(String payload)
+    {
+        // Split on the first NUM_FIELDS - 1 separators only.
+        String[] parts = payload == null ? null : payload.split("\\|", NUM_FIELDS);
+        if (parts == null || parts.length != NUM_FIELDS || !FORMAT_VERSION.equals(parts[0]))
+            return flushAll();
+        
+        // Parse the fields.
+        SkAuthzChange change;
+        try {
+            var type = ChangeType.valueOf(parts[4]);
+            change = new SkAuthzChange(type, parts[5], parts[6]);
+            change.origin = StringUtils.stripToNull(parts[1]);
+            change.sentMillis = Long.parseLong(parts[2]);
+            change.version = Long.parseLong(parts[3]);
+        }
+        catch (Exception e) {return flushAll();}
+        
+        return change;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* toString:                                                              */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public String toString() 
+    {
+        return type.name() + "(" + tenant + ", " + user + ")";
+    }
+    
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public ChangeType getType() {
+        return type;
+    }
+    public String getTenant() {
+        return tenant;
+    }
+    public String getUser() {
+        return user;
+    }
+    public String getOrigin() {
+        return origin;
+    }
+    public long getSentMillis() {
+        return sentMillis;
+    }
+    public long getVersion() {
+        return version;
+    }
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,145 @@
+package edu.utexas.tacc.tapis.security.authz.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** An in-process copy of each tenant's authorization version.  The version 
+ * is incremented by every committed role, permission, role tree, user-role 
+ * and share change, so it can serve as an entity tag for any response 
+ * computed from a tenant's authorization data.
+ * 
+ * Versions arrive with the change notifications on the SkInvalidationBus, 
+ * which delivers them in commit order.  A cached version is only trusted 
+ * while the bus is connected, since notifications can be missed otherwise; 
+ * callers fall back to reading the version from the database when this 
+ * cache returns null.  Database reads race with flushes, so callers capture 
+ * the generation before the read and the put is discarded if a flush 
+ * happened in the meantime.
+ * 
+ * This cache registers with the bus after the SkUserAuthzCache.  Listeners 
+ * are called in registration order, so a user cache entry is always 
+ * invalidated before the version that describes it advances.  A reader that 
+ * gets the version before computing a response therefore never pairs a new 
+ * version with stale data.
+ */
+public final class SkAuthzVersionCache
+ implements ISkInvalidationListener
+{
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance of this class.
+    private static SkAuthzVersionCache _instance;
+    
+    // The bus that keeps this cache current.
+    private final SkInvalidationBus _bus;
+    
+    // Latest known version by tenant.
+    private final ConcurrentHashMap<String,Long> _versions = new ConcurrentHashMap<>();
+    
+    // Incremented on every flush.
+    private final AtomicLong _generation = new AtomicLong();
+    
+    // Metrics.
+    private final AtomicLong _hits   = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+    
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public SkAuthzVersionCache(SkInvalidationBus bus)
+    {
+        _bus = bus;
+    }
+    
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Get the singleton cache.  The cache is registered with the invalidation
+     * bus after the user authorization cache and the bus listener is started. 
+     */
+    public static SkAuthzVersionCache getInstance()
+    {
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (SkAuthzVersionCache.class) {
+                if (_instance == null) {
+                    // Make sure the user cache listens first.
+                    SkUserAuthzCache.getInstance();
+                    var bus = SkInvalidationBus.getInstance();
+                    var cache = new SkAuthzVersionCache(bus);
+                    bus.addListener(cache);
+                    bus.start();
+                    _instance = cache;
+                }
+            }
+        }
+        return _instance;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getVersion:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Return the tenant's version or null if it's unknown or may be stale. */
+    public Long getVersion(String tenant)
+    {
+        var version = _bus.isConnected() ? _versions.get(tenant) : null;
+        if (version == null) _misses.incrementAndGet();
+          else _hits.incrementAndGet();
+        return version;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getGeneration:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Capture the generation before reading a version from the database. */
+    public long getGeneration() {return _generation.get();}
+    
+    /* ---------------------------------------------------------------------- */
+    /* putVersion:                                                            */
+    /* ---------------------------------------------------------------------- */
+    public void putVersion(String tenant, long version, long generation)
+    {
+        if (tenant == null || _generation.get() != generation) return;
+        _versions.merge(tenant, version, Math::max);
+        
+        // Close the window in which a flush slipped in after the check.
+        if (_generation.get() != generation) _versions.remove(tenant);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* invalidate:                                                            */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void invalidate(SkAuthzChange change)
+    {
+        // Unknown tenant affects everyone.
+        if (change.getTenant() == null) {flushAll(); return;}
+        
+        // Versions only move forward; drop the tenant if the version is unknown.
+        if (change.getVersion() > 0) _versions.merge(change.getTenant(), change.getVersion(), Math::max);
+          else _versions.remove(change.getTenant());
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* flushAll:                                                              */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void flushAll()
+    {
+        _generation.incrementAndGet();
+        _versions.clear();
+    }
+    
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public long getHitCount() {return _hits.get();}
+    public long getMissCount() {return _misses.get();}
+}
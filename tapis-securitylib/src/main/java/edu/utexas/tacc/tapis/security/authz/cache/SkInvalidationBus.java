@@ -0,0 +1,370 @@
+package edu.utexas.tacc.tapis.security.authz.cache;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Cross-replica cache coherence for SK authorization data.
+ * 
+ * Writers call publish() on the connection of the writing transaction, which
+ * issues a pg_notify() that Postgres delivers to every listening session only
+ * if and when the transaction commits.  Each SK process runs one listener 
+ * thread with a dedicated, unpooled connection that LISTENs on the channel 
+ * and forwards changes to the registered in-process caches.
+ * 
+ * Notifications are not queued for disconnected sessions, so every time the
+ * listener (re)connects it tells all caches to flush before processing new
+ * notifications.  Changes published by this process are applied locally 
+ * after commit and are ignored when they arrive through the listener.
+ * 
+ * Coherence lag is measured as the difference between the publisher's clock
+ * at publication and this process's clock at receipt, so it is only accurate
+ * to within the clock skew between hosts.
+ */
+public final class SkInvalidationBus
+  implements Thread.UncaughtExceptionHandler
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SkInvalidationBus.class);
+    
+    // The notification channel.
+    public static final String CHANNEL = "sk_authz_changes";
+    
+    // Statements.
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+    private static final String LISTEN_SQL = "LISTEN " + CHANNEL;
+    private static final String PID_SQL    = "SELECT pg_backend_pid()";
+    
+    // Listener thread settings.
+    private static final String LISTENER_THREAD_NAME = "SkAuthzListener";
+    private static final int    POLL_MILLIS = 5000;
+    private static final long   MIN_RECONNECT_MILLIS = 1000;
+    private static final long   MAX_RECONNECT_MILLIS = 30000;
+    
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance of this class.
+    private static SkInvalidationBus _instance;
+    
+    // Identifies changes published by this bus.
+    private final String _id = UUID.randomUUID().toString();
+    
+    // Listener connection parameters.
+    private final String _jdbcUrl;
+    private final String _dbUser;
+    private final String _dbPassword;
+    
+    // The in-process caches that receive changes.
+    private final CopyOnWriteArrayList<ISkInvalidationListener> _listeners = 
+        new CopyOnWriteArrayList<>();
+    
+    // The running listener or null.
+    private ListenerThread _listenerThread;
+    
+    // Metrics.
+    private final AtomicLong _published   = new AtomicLong();
+    private final AtomicLong _received    = new AtomicLong();
+    private final AtomicLong _connects    = new AtomicLong();
+    private final AtomicLong _fullFlushes = new AtomicLong();
+    private volatile long    _lastLagMillis;
+    private volatile long    _maxLagMillis;
+    private volatile boolean _connected;
+    private volatile int     _listenerBackendPid;
+    
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Create a bus that listens using the specified database credentials.
+     * Most code should use the singleton; independent instances are useful 
+     * for simulating multiple replicas in a single process.
+     */
+    public SkInvalidationBus(String jdbcUrl, String dbUser, String dbPassword)
+    {
+        _jdbcUrl    = jdbcUrl;
+        _dbUser     = dbUser;
+        _dbPassword = dbPassword;
+    }
+    
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static SkInvalidationBus getInstance()
+    {
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (SkInvalidationBus.class) {
+                if (_instance == null) {
+                    var parms = RuntimeParameters.getInstance();
+                    _instance = new SkInvalidationBus(parms.getJdbcURL(), parms.getDbUser(),
+                                                      parms.getDbPassword());
+                }
+            }
+        }
+        return _instance;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* addListener:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Register a cache.  Changes are applied to caches in registration order. */
+    public void addListener(ISkInvalidationListener listener) 
+    {
+        if (listener != null) _listeners.addIfAbsent(listener);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* removeListener:                                                        */
+    /* ---------------------------------------------------------------------- */
+    public void removeListener(ISkInvalidationListener listener) 
+    {
+        _listeners.remove(listener);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* start:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Start the listener thread if it's not already running. */
+    public synchronized void start()
+    {
+        if (_listenerThread != null) return;
+        _listenerThread = new ListenerThread(LISTENER_THREAD_NAME);
+        _listenerThread.setDaemon(true);
+        _listenerThread.setUncaughtExceptionHandler(this);
+        _listenerThread.start();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* stop:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Stop the listener thread and close its connection. */
+    public synchronized void stop()
+    {
+        if (_listenerThread == null) return;
+        _listenerThread.interrupt();
+        _listenerThread.closeConnection();
+        _listenerThread = null;
+        _connected = false;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* publish:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Queue a change notification in the caller's transaction.  Postgres 
+     * delivers the notification to all listeners only when the transaction
+     * commits, and duplicate payloads within a transaction are collapsed.
+     * 
+     * @param conn the connection of the writing transaction
+     * @param change the change to announce
+     * @throws SQLException on error
+     */
+    public void publish(Connection conn, SkAuthzChange change) throws SQLException
+    {
+        try (PreparedStatement pstmt = conn.prepareStatement(NOTIFY_SQL)) {
+            pstmt.setString(1, CHANNEL);
+            pstmt.setString(2, change.encode(_id, System.currentTimeMillis()));
+            pstmt.execute();
+        }
+        _published.incrementAndGet();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* applyLocal:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Apply a change published by this process after its transaction has 
+     * committed so that the writer immediately reads its own writes.
+     * 
+     * @param change the committed change
+     */
+    public void applyLocal(SkAuthzChange change)
+    {
+        dispatch(change);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* uncaughtException:                                                     */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void uncaughtException(Thread t, Throwable e) 
+    {
+        // Caches can no longer be trusted without notifications.
+        _log.error(MsgUtils.getMsg("TAPIS_THREAD_UNCAUGHT_EXCEPTION", 
+                                   t.getName(), e.toString()), e);
+        _connected = false;
+        flushListeners();
+        synchronized (this) {if (_listenerThread == t) _listenerThread = null;}
+    }
+    
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public String getId() {return _id;}
+    public boolean isConnected() {return _connected;}
+    public int getListenerBackendPid() {return _listenerBackendPid;}
+    public long getPublishedCount() {return _published.get();}
+    public long getReceivedCount() {return _received.get();}
+    public long getConnectCount() {return _connects.get();}
+    public long getFullFlushCount() {return _fullFlushes.get();}
+    public long getLastLagMillis() {return _lastLagMillis;}
+    public long getMaxLagMillis() {return _maxLagMillis;}
+    
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* received:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private void received(String payload)
+    {
+        // Record metrics.
+        _received.incrementAndGet();
+        var change = SkAuthzChange.decode(payload);
+        if (change.getSentMillis() > 0) {
+            long lag = Math.max(0, System.currentTimeMillis() - change.getSentMillis());
+            _lastLagMillis = lag;
+            if (lag > _maxLagMillis) _maxLagMillis = lag;
+        }
+        
+        // Our own changes were applied on commit.
+        if (_id.equals(change.getOrigin())) return;
+        dispatch(change);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* dispatch:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private void dispatch(SkAuthzChange change)
+    {
+        if (change.getType() == SkAuthzChange.ChangeType.FLUSH) {
+            flushListeners();
+            return;
+        }
+        
+        for (var listener : _listeners) 
+            try {listener.invalidate(change);}
+                catch (Exception e) {
+                    _log.error("Unable to apply authorization change " + change + ": " + 
+                               e.getMessage(), e);
+                }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* flushListeners:                                                        */
+    /* ---------------------------------------------------------------------- */
+    private void flushListeners()
+    {
+        _fullFlushes.incrementAndGet();
+        for (var listener : _listeners) 
+            try {listener.flushAll();}
+                catch (Exception e) {
+                    _log.error("Unable to flush authorization cache: " + e.getMessage(), e);
+                }
+    }
+    
+    /* ********************************************************************** */
+    /*                          ListenerThread Class                          */
+    /* ********************************************************************** */
+    /** Maintain a LISTEN session and forward notifications to the enclosing
+     * bus.  The connection is reestablished with exponential backoff whenever
+     * it fails, and caches are flushed after each successful connect.
+     */
+    private final class ListenerThread
+     extends Thread
+    {
+        // The listener session or null when disconnected.
+        private volatile Connection _conn;
+        
+        private ListenerThread(String threadName) {super(threadName);}
+        
+        @Override
+        public void run()
+        {
+            long backoffMillis = MIN_RECONNECT_MILLIS;
+            while (!isInterrupted()) {
+                // Establish the listener session.
+                if (_conn == null) {
+                    try {connect();}
+                    catch (Exception e) {
+                        _log.warn("Unable to connect authorization change listener, retrying in " +
+                                  backoffMillis + " ms: " + e.getMessage());
+                        closeConnection();
+                        try {Thread.sleep(backoffMillis);}
+                            catch (InterruptedException e1) {break;}
+                        backoffMillis = Math.min(backoffMillis * 2, MAX_RECONNECT_MILLIS);
+                        continue;
+                    }
+                    
+                    // Anything could have changed while we weren't listening.
+                    backoffMillis = MIN_RECONNECT_MILLIS;
+                    flushListeners();
+                    _connected = true;
+                }
+                
+                // Wait for notifications.
+                try {
+                    PGNotification[] notes = _conn.unwrap(PGConnection.class)
+                                                  .getNotifications(POLL_MILLIS);
+                    if (notes != null) 
+                        for (var note : notes) received(note.getParameter());
+                }
+                catch (Exception e) {
+                    if (isInterrupted()) break;
+                    _log.warn("Authorization change listener connection lost: " + e.getMessage());
+                    _connected = false;
+                    closeConnection();
+                }
+            }
+            
+            // Clean up.
+            _connected = false;
+            closeConnection();
+        }
+        
+        /** Open a dedicated session and subscribe to the channel. */
+        private void connect() throws SQLException
+        {
+            _conn = DriverManager.getConnection(_jdbcUrl, _dbUser, _dbPassword);
+            _conn.setAutoCommit(true);
+            try (Statement stmt = _conn.createStatement()) {
+                stmt.execute(LISTEN_SQL);
+                try (ResultSet rs = stmt.executeQuery(PID_SQL)) {
+                    if (rs.next()) _listenerBackendPid = rs.getInt(1);
+                }
+            }
+            _connects.incrementAndGet();
+            _log.info("Authorization change listener connected on channel " + CHANNEL + 
+                      " (backend pid " + _listenerBackendPid + ").");
+        }
+        
+        /** Close the session ignoring errors. */
+        private void closeConnection()
+        {
+            var conn = _conn;
+            _conn = null;
+            if (conn != null) try {conn.close();} catch (Exception e) {}
+        }
+    }
+}
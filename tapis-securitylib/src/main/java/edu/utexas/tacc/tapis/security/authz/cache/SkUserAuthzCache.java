@@ -0,0 +1,250 @@
+package edu.utexas.tacc.tapis.security.authz.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
+
+/** An in-process cache of the transitive role names and permissions assigned
+ * to users.  These lists are computed by recursive queries on every 
+ * isPermitted and hasRole call, so caching them removes most database 
+ * traffic from the authorization hot path.
+ * 
+ * The cache is coherent across SK replicas because it registers with the
+ * SkInvalidationBus.  Changes to a single user's role assignments evict only
+ * that user; role, role tree and role permission changes evict the whole 
+ * tenant since the set of affected users is not known without a query.  
+ * Entries also expire after a configurable ttl as a backstop.
+ * 
+ * Changes made on other replicas are missed while the bus is disconnected, 
+ * so the cache neither serves nor accepts entries until the bus reconnects.
+ * The bus flushes all listeners when it reconnects.
+ * 
+ * Loads race with invalidations, so callers capture the tenant generation
+ * before querying the database and the put is discarded if the generation
+ * changed in the meantime.
+ */
+public final class SkUserAuthzCache
+ implements ISkInvalidationListener
+{
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance of this class.
+    private static SkUserAuthzCache _instance;
+    
+    // Configuration.
+    private final boolean _enabled;
+    private final long    _ttlMillis;
+    
+    // Whether the invalidation bus is currently delivering changes.
+    private final BooleanSupplier _connected;
+    
+    // Cached data by tenant.
+    private final ConcurrentHashMap<String,TenantCache> _tenants = new ConcurrentHashMap<>();
+    
+    // Metrics.
+    private final AtomicLong _hits          = new AtomicLong();
+    private final AtomicLong _misses        = new AtomicLong();
+    private final AtomicLong _invalidations = new AtomicLong();
+    
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public SkUserAuthzCache(boolean enabled, int ttlSeconds, BooleanSupplier connected)
+    {
+        _enabled   = enabled;
+        _ttlMillis = ttlSeconds * 1000L;
+        _connected = connected;
+    }
+    
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Get the singleton cache.  When enabled, the cache is registered with 
+     * the invalidation bus and the bus listener is started. 
+     */
+    public static SkUserAuthzCache getInstance()
+    {
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (SkUserAuthzCache.class) {
+                if (_instance == null) {
+                    var parms = RuntimeParameters.getInstance();
+                    if (parms.isAuthzCacheEnabled()) {
+                        var bus = SkInvalidationBus.getInstance();
+                        var cache = new SkUserAuthzCache(true, parms.getAuthzCacheTtlSeconds(),
+                                                         bus::isConnected);
+                        bus.addListener(cache);
+                        bus.start();
+                        _instance = cache;
+                    }
+                    else _instance = new SkUserAuthzCache(false, 0, () -> false);
+                }
+            }
+        }
+        return _instance;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getGeneration:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Capture the tenant generation before loading data from the database. */
+    public long getGeneration(String tenant)
+    {
+        return getTenantCache(tenant).generation.get();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getPermissions:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Return a copy of the user's cached permissions or null. */
+    public List<String> getPermissions(String tenant, String user)
+    {
+        return get(getTenantCache(tenant).perms, user);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* putPermissions:                                                        */
+    /* ---------------------------------------------------------------------- */
+    public void putPermissions(String tenant, String user, List<String> perms, long generation)
+    {
+        var tc = getTenantCache(tenant);
+        put(tc, tc.perms, user, perms, generation);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getRoleNames:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Return a copy of the user's cached role names or null. */
+    public List<String> getRoleNames(String tenant, String user)
+    {
+        return get(getTenantCache(tenant).roleNames, user);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* putRoleNames:                                                          */
+    /* ---------------------------------------------------------------------- */
+    public void putRoleNames(String tenant, String user, List<String> roleNames, long generation)
+    {
+        var tc = getTenantCache(tenant);
+        put(tc, tc.roleNames, user, roleNames, generation);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* invalidate:                                                            */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void invalidate(SkAuthzChange change)
+    {
+        // Shares are not cached here.
+        if (change.getType() == SkAuthzChange.ChangeType.SHARE) return;
+        _invalidations.incrementAndGet();
+        
+        // Unknown tenant affects everyone.
+        if (change.getTenant() == null) {flushAll(); return;}
+        var tc = _tenants.get(change.getTenant());
+        if (tc == null) return;
+        
+        // Bump the generation first so in-flight loads are discarded.
+        tc.generation.incrementAndGet();
+        if (change.getType() == SkAuthzChange.ChangeType.USER_ROLE && change.getUser() != null) {
+            tc.perms.remove(change.getUser());
+            tc.roleNames.remove(change.getUser());
+        }
+        else {
+            tc.perms.clear();
+            tc.roleNames.clear();
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* flushAll:                                                              */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void flushAll()
+    {
+        for (var tc : _tenants.values()) {
+            tc.generation.incrementAndGet();
+            tc.perms.clear();
+            tc.roleNames.clear();
+        }
+    }
+    
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public boolean isEnabled() {return _enabled;}
+    public long getHitCount() {return _hits.get();}
+    public long getMissCount() {return _misses.get();}
+    public long getInvalidationCount() {return _invalidations.get();}
+    
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getTenantCache:                                                        */
+    /* ---------------------------------------------------------------------- */
+    private TenantCache getTenantCache(String tenant)
+    {
+        return _tenants.computeIfAbsent(tenant, k -> new TenantCache());
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* get:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    private List<String> get(ConcurrentHashMap<String,Entry> map, String user)
+    {
+        var entry = _connected.getAsBoolean() ? map.get(user) : null;
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            _misses.incrementAndGet();
+            return null;
+        }
+        _hits.incrementAndGet();
+        return new ArrayList<>(entry.values);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* put:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    private void put(TenantCache tc, ConcurrentHashMap<String,Entry> map, String user,
+                     List<String> values, long generation)
+    {
+        if (values == null || !_connected.getAsBoolean() || tc.generation.get() != generation) return;
+        map.put(user, new Entry(List.copyOf(values), System.currentTimeMillis() + _ttlMillis));
+        
+        // Close the window in which an invalidation slipped in after the check.
+        if (tc.generation.get() != generation) map.remove(user);
+    }
+    
+    /* ********************************************************************** */
+    /*                              Nested Classes                            */
+    /* ********************************************************************** */
+    private static final class TenantCache
+    {
+        private final AtomicLong generation = new AtomicLong();
+        private final ConcurrentHashMap<String,Entry> perms     = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String,Entry> roleNames = new ConcurrentHashMap<>();
+    }
+    
+    private static final class Entry
+    {
+        private final List<String> values;
+        private final long         expiresAt;
+        
+        private Entry(List<String> values, long expiresAt) 
+        {
+            this.values = values;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
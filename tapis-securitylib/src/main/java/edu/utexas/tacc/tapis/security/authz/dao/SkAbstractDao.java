@@ -1,13 +1,21 @@
 package edu.utexas.tacc.tapis.security.authz.dao;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.UnaryOperator;
 
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange;
+import edu.utexas.tacc.tapis.security.authz.cache.SkInvalidationBus;
+import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
 import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.recoverable.TapisDBConnectionException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
@@ -21,12 +29,19 @@ public abstract class SkAbstractDao
     // Tracing.
     private static final Logger _log = LoggerFactory.getLogger(SkAbstractDao.class);
     
+    // A tenant's old change log records are deleted each time its version 
+    // reaches a multiple of this interval.
+    private static final int AUTHZ_CHANGE_PRUNE_INTERVAL = 1000;
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
     // The database datasource provided by clients.
     protected final DataSource _ds;
     
+    // Optional wrapper applied to the datasource of each dao when it's created.
+    private static volatile UnaryOperator<DataSource> _dataSourceWrapper;
+    
     /* ********************************************************************** */
     /*                              Constructors                              */
     /* ********************************************************************** */
@@ -40,12 +55,28 @@ public abstract class SkAbstractDao
      */
     public SkAbstractDao() throws TapisException
     {
-      _ds = getDataSource();
+      var wrapper = _dataSourceWrapper;
+      _ds = wrapper == null ? getDataSource() : wrapper.apply(getDataSource());
     }
     
     /* ********************************************************************** */
     /*                             Public Methods                             */
     /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* setDataSourceWrapper:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Wrap the datasource used by daos created after this call, such as to
+     * time statements in the service or count database calls in tools.  Daos
+     * are cached by the impl classes, so the wrapper must be set before any
+     * dao is used.
+     * 
+     * @param wrapper the datasource wrapper or null to use the datasource as is
+     */
+    public static void setDataSourceWrapper(UnaryOperator<DataSource> wrapper)
+    {
+      _dataSourceWrapper = wrapper;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getDataSource:                                                         */
     /* ---------------------------------------------------------------------- */
@@ -88,6 +119,7 @@ public abstract class SkAbstractDao
     {
       // Get the connection.
       Connection conn = null;
+      long start = System.nanoTime();
       try {conn = _ds.getConnection();}
         catch (Exception e) {
           String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION");
@@ -95,6 +127,108 @@ public abstract class SkAbstractDao
           throw new TapisDBConnectionException(msg, e);
         }
       
+      // Record the time spent waiting for the pool.
+      SkMetrics.recordConnectionWait(System.nanoTime() - start);
       return conn;
     }
+    
+    /* ---------------------------------------------------------------------- */
+    /* commitAndNotify:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Commit the transaction and, if any rows changed, record the changes
+     * in the tenant change log and announce them to all SK replicas.  The 
+     * log records and notifications are written in the transaction being 
+     * committed so they exist if and only if the commit succeeds.  The 
+     * changes are then applied to this process's caches.
+     * 
+     * Recording a change increments the tenant's authorization version, 
+     * which locks the tenant's version row until commit.  Callers that 
+     * record changes for multiple tenants must order them consistently.
+     * 
+     * @param conn the connection of the writing transaction
+     * @param rows the number of rows changed by the transaction
+     * @param changes the authorization changes made by the transaction
+     * @throws SQLException on error
+     */
+    protected void commitAndNotify(Connection conn, int rows, SkAuthzChange... changes)
+      throws SQLException
+    {
+      // Nothing to announce.
+      if (rows <= 0 || changes == null || changes.length == 0) {
+          conn.commit();
+          return;
+      }
+      
+      // Log and notify within the transaction, then commit and apply locally.
+      var bus = SkInvalidationBus.getInstance();
+      for (var change : changes) {
+          if (change.getTenant() != null) change.setVersion(recordChange(conn, change));
+          bus.publish(conn, change);
+      }
+      conn.commit();
+      for (var change : changes) bus.applyLocal(change);
+    }
+    
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* recordChange:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Increment the tenant version and write the change log record.  Every
+     * AUTHZ_CHANGE_PRUNE_INTERVAL versions the tenant's records that fall 
+     * outside the configured retention window are deleted.  The delete runs
+     * while the writing transaction holds the tenant's version row lock, so
+     * it never races with another writer for the same tenant.
+     * 
+     * @param conn the connection of the writing transaction
+     * @param change a change with a non-null tenant
+     * @return the new tenant version
+     * @throws SQLException on error
+     */
+    private long recordChange(Connection conn, SkAuthzChange change)
+      throws SQLException
+    {
+      long version = 0;
+      try (PreparedStatement pstmt = conn.prepareStatement(SqlStatements.AUTHZ_CHANGE_INSERT)) {
+          pstmt.setString(1, change.getTenant());
+          pstmt.setString(2, change.getType().name());
+          pstmt.setString(3, change.getUser());
+          try (ResultSet rs = pstmt.executeQuery()) {
+              if (rs.next()) version = rs.getLong(1);
+          }
+      }
+      
+      // Periodically trim the tenant's log.
+      if (version > 0 && version % AUTHZ_CHANGE_PRUNE_INTERVAL == 0) 
+          pruneChanges(conn, change.getTenant(), version);
+      return version;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* pruneChanges:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Delete the tenant's change log records that are older than the 
+     * retention window ending at the specified version.  Feed clients whose 
+     * version precedes the oldest remaining record are told to resync.
+     * 
+     * @param conn the connection of the writing transaction
+     * @param tenant the tenant whose log is trimmed
+     * @param version the tenant's new version
+     * @throws SQLException on error
+     */
+    private void pruneChanges(Connection conn, String tenant, long version)
+      throws SQLException
+    {
+      long oldest = version - RuntimeParameters.getInstance().getAuthzChangeRetained();
+      if (oldest <= 0) return;
+      try (PreparedStatement pstmt = conn.prepareStatement(SqlStatements.AUTHZ_CHANGE_PRUNE)) {
+          pstmt.setString(1, tenant);
+          pstmt.setLong(2, oldest);
+          int rows = pstmt.executeUpdate();
+          if (_log.isDebugEnabled())
+              _log.debug("Pruned " + rows + " authorization change records of tenant " 
+                         + tenant + " at or below version " + oldest + ".");
+      }
+    }
 }
@@ -0,0 +1,214 @@
+package edu.utexas.tacc.tapis.security.authz.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
+import edu.utexas.tacc.tapis.security.authz.model.SkAuthzChangeList;
+import edu.utexas.tacc.tapis.security.authz.model.SkAuthzChangeRecord;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Read access to the per-tenant authorization change log.  Log records are
+ * written by SkAbstractDao.commitAndNotify() in the transactions that make
+ * the changes.
+ */
+public final class SkAuthzChangeDao
+ extends SkAbstractDao
+{
+  /* ********************************************************************** */
+  /*                               Constants                                */
+  /* ********************************************************************** */
+  // Tracing.
+  private static final Logger _log = LoggerFactory.getLogger(SkAuthzChangeDao.class);
+  
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  /* ---------------------------------------------------------------------- */
+  /* constructor:                                                           */
+  /* ---------------------------------------------------------------------- */
+  public SkAuthzChangeDao() throws TapisException {}
+  
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /* ---------------------------------------------------------------------- */
+  /* getVersion:                                                            */
+  /* ---------------------------------------------------------------------- */
+  /** Get the tenant's current authorization version.
+   * 
+   * @param tenant the tenant id
+   * @return the version or 0 if the tenant has no recorded changes
+   * @throws TapisException on error
+   */
+  public long getVersion(String tenant) throws TapisException
+  {
+      // ------------------------- Check Input -------------------------
+      if (StringUtils.isBlank(tenant)) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "getVersion", "tenant");
+          throw new TapisException(msg);
+      }
+      
+      // ------------------------- Call SQL ----------------------------
+      Connection conn = null;
+      long version = 0;
+      try
+      {
+          // Get a database connection.
+          conn = getConnection();
+          version = selectVersion(conn, tenant);
+          conn.commit();
+      }
+      catch (Exception e)
+      {
+          // Rollback transaction.
+          try {if (conn != null) conn.rollback();}
+          catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+          
+          String msg = MsgUtils.getMsg("DB_QUERY_ERROR", "sk_authz_version", e.getMessage());
+          _log.error(msg, e);
+          throw new TapisException(msg, e);
+      }
+      finally {
+          // Conditionally return the connection back to the connection pool.
+          if (conn != null)
+              try {conn.close();}
+              catch (Exception e)
+              {
+                  // If commit worked, we can swallow the exception.
+                  // If not, the commit exception will be thrown.
+                  String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                  _log.error(msg, e);
+              }
+      }
+      
+      return version;
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* getChanges:                                                            */
+  /* ---------------------------------------------------------------------- */
+  /** Get up to limit changes recorded after the since version in version 
+   * order.  The current version is read in the same transaction as the 
+   * changes so that a client that has processed all changes can safely 
+   * continue from it.
+   * 
+   * @param tenant the tenant id
+   * @param sinceVersion the last version processed by the client, 0 for all
+   * @param limit the maximum number of changes to return
+   * @return the non-null change page
+   * @throws TapisException on error
+   */
+  public SkAuthzChangeList getChanges(String tenant, long sinceVersion, int limit) 
+   throws TapisException
+  {
+      // ------------------------- Check Input -------------------------
+      if (StringUtils.isBlank(tenant)) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "getChanges", "tenant");
+          throw new TapisException(msg);
+      }
+      if (sinceVersion < 0) sinceVersion = 0;
+      if (limit < 1) limit = 1;
+      
+      // Initialize the result.
+      var result = new SkAuthzChangeList();
+      result.tenant = tenant;
+      result.sinceVersion = sinceVersion;
+      
+      // ------------------------- Call SQL ----------------------------
+      Connection conn = null;
+      try
+      {
+          // Get a database connection.
+          conn = getConnection();
+          
+          // Read the current version first; changes committed after this 
+          // point have higher versions and will be picked up next time.
+          result.currentVersion = selectVersion(conn, tenant);
+          
+          // Determine whether the log still covers the client's version.
+          PreparedStatement pstmt = conn.prepareStatement(SqlStatements.AUTHZ_CHANGE_MIN_VERSION);
+          pstmt.setString(1, tenant);
+          ResultSet rs = pstmt.executeQuery();
+          long minVersion = 0;
+          if (rs.next()) minVersion = rs.getLong(1);
+          rs.close();
+          pstmt.close();
+          // A client ahead of the database also has to start over.
+          if (sinceVersion > result.currentVersion) result.resyncRequired = true;
+          else if (sinceVersion < result.currentVersion && 
+                   (minVersion == 0 || sinceVersion + 1 < minVersion))
+              result.resyncRequired = true;
+          
+          // Get the changes, reading one extra to detect more.
+          pstmt = conn.prepareStatement(SqlStatements.AUTHZ_CHANGE_SELECT_SINCE);
+          pstmt.setString(1, tenant);
+          pstmt.setLong(2, sinceVersion);
+          pstmt.setInt(3, limit + 1);
+          rs = pstmt.executeQuery();
+          while (rs.next()) {
+              var rec = new SkAuthzChangeRecord();
+              rec.setVersion(rs.getLong(1));
+              if (rec.getVersion() > result.currentVersion) break;
+              rec.setChangeType(rs.getString(2));
+              rec.setUser(rs.getString(3));
+              var ts = rs.getTimestamp(4);
+              if (ts != null) rec.setCreated(ts.toInstant());
+              if (result.changes.size() == limit) {result.more = true; break;}
+              result.changes.add(rec);
+          }
+          
+          // Commit the transaction.
+          rs.close();
+          pstmt.close();
+          conn.commit();
+      }
+      catch (Exception e)
+      {
+          // Rollback transaction.
+          try {if (conn != null) conn.rollback();}
+          catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+          
+          String msg = MsgUtils.getMsg("DB_QUERY_ERROR", "sk_authz_change", e.getMessage());
+          _log.error(msg, e);
+          throw new TapisException(msg, e);
+      }
+      finally {
+          // Conditionally return the connection back to the connection pool.
+          if (conn != null)
+              try {conn.close();}
+              catch (Exception e)
+              {
+                  // If commit worked, we can swallow the exception.
+                  // If not, the commit exception will be thrown.
+                  String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                  _log.error(msg, e);
+              }
+      }
+      
+      return result;
+  }
+  
+  /* ********************************************************************** */
+  /*                            Private Methods                             */
+  /* ********************************************************************** */
+  /* ---------------------------------------------------------------------- */
+  /* selectVersion:                                                         */
+  /* ---------------------------------------------------------------------- */
+  private long selectVersion(Connection conn, String tenant) throws Exception
+  {
+      PreparedStatement pstmt = conn.prepareStatement(SqlStatements.AUTHZ_VERSION_SELECT);
+      pstmt.setString(1, tenant);
+      ResultSet rs = pstmt.executeQuery();
+      long version = rs.next() ? rs.getLong(1) : 0;
+      rs.close();
+      pstmt.close();
+      return version;
+  }
+}
@@ -0,0 +1,153 @@
+package edu.utexas.tacc.tapis.security.authz.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+/** Intercept the database round trips made through a datasource.  Each
+ * statement execution and each commit or rollback is handed to an interceptor,
+ * which can count, time or otherwise observe the call.  Datasource wrappers
+ * installed with SkAbstractDao.setDataSourceWrapper() use this class.
+ *
+ * The datasource, its connections and their statements are wrapped in
+ * dynamic proxies.  Unwrapping returns the underlying objects.
+ */
+public final class SkDataSourceProxy
+{
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private SkDataSourceProxy() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* wrap:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Return a datasource whose round trips pass through the interceptor.
+     *
+     * @param ds the datasource to wrap
+     * @param interceptor the interceptor of all round trips
+     * @return the intercepting datasource
+     */
+    public static <S> DataSource wrap(DataSource ds, Interceptor<S> interceptor)
+    {
+        return proxy(DataSource.class, ds, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Connection && method.getName().equals("getConnection"))
+                return wrapConnection((Connection) result, interceptor);
+            return result;
+        });
+    }
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* wrapConnection:                                                        */
+    /* ---------------------------------------------------------------------- */
+    private static <S> Connection wrapConnection(Connection conn, Interceptor<S> interceptor)
+    {
+        return proxy(Connection.class, conn, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("commit") || name.equals("rollback"))
+                return interceptor.complete(() -> invoke(target, method, args));
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement && (name.equals("createStatement") ||
+                name.startsWith("prepare")))
+            {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ?
+                             (String) args[0] : null;
+                return wrapStatement((Statement) result, method.getReturnType(),
+                                     interceptor, interceptor.prepare(sql));
+            }
+            return result;
+        });
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* wrapStatement:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Wrap a statement in a proxy of the type declared by the creating method,
+     * which is Statement, PreparedStatement or CallableStatement.
+     */
+    @SuppressWarnings("unchecked")
+    private static <S> Statement wrapStatement(Statement stmt, Class<?> type,
+                                               Interceptor<S> interceptor, S state)
+    {
+        return proxy((Class<Statement>) type, stmt, (target, method, args) -> {
+            if (!method.getName().startsWith("execute")) return invoke(target, method, args);
+            return interceptor.execute(state, () -> invoke(target, method, args));
+        });
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* proxy:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Create a proxy that hands each call and the wrapped target to a handler. */
+    private static <T> T proxy(Class<T> type, T target, TargetHandler handler)
+    {
+        InvocationHandler h = (proxy, method, args) -> handler.handle(target, method, args);
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, h));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* invoke:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Call the target and rethrow the exception it threw, if any. */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable
+    {
+        try {return method.invoke(target, args);}
+            catch (InvocationTargetException e) {throw e.getCause();}
+    }
+
+    /* ********************************************************************** */
+    /*                            Interceptor Class                           */
+    /* ********************************************************************** */
+    /** Observe round trips.  Each method must proceed with the call exactly
+     * once and return its result.
+     *
+     * @param <S> the state kept for each statement
+     */
+    public interface Interceptor<S>
+    {
+        /** Called when a statement is created.  The result is passed to each
+         * execution of the statement.
+         *
+         * @param sql the statement text or null if it's supplied on execution
+         * @return the statement's state
+         */
+        S prepare(String sql);
+
+        /** Called for each statement execution. */
+        default Object execute(S state, Call call) throws Throwable {return call.proceed();}
+
+        /** Called for each commit or rollback. */
+        default Object complete(Call call) throws Throwable {return call.proceed();}
+    }
+
+    /* ********************************************************************** */
+    /*                               Call Class                               */
+    /* ********************************************************************** */
+    /** An intercepted database call. */
+    @FunctionalInterface
+    public interface Call
+    {
+        Object proceed() throws Throwable;
+    }
+
+    /* ********************************************************************** */
+    /*                           TargetHandler Class                          */
+    /* ********************************************************************** */
+    @FunctionalInterface
+    private interface TargetHandler
+    {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
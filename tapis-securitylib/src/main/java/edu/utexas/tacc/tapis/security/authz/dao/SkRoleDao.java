@@ -12,6 +12,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange;
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange.ChangeType;
 import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
 import edu.utexas.tacc.tapis.security.authz.model.SkRole;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
@@ -516,9 +518,9 @@ public final class SkRoleDao
           // key conflict occurs--this is not considered an error.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.ROLE, roleTenant));
       }
       catch (Exception e)
       {
@@ -807,9 +809,9 @@ public final class SkRoleDao
           // Issue the call.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.ROLE, tenant));
       }
       catch (Exception e)
       {
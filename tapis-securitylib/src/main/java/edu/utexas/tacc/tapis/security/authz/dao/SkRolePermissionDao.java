@@ -10,6 +10,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange;
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange.ChangeType;
 import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
 import edu.utexas.tacc.tapis.security.authz.model.SkRolePermissionShort;
 import edu.utexas.tacc.tapis.security.authz.permissions.PermissionTransformer.Transformation;
@@ -220,9 +222,9 @@ public final class SkRolePermissionDao
           // key conflict occurs--this is not considered an error.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.ROLE_PERMISSION, roleTenant));
       }
       catch (Exception e)
       {
@@ -342,9 +344,9 @@ public final class SkRolePermissionDao
           // key conflict occurs--this is not considered an error.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.ROLE_PERMISSION, tenant));
       }
       catch (Exception e)
       {
@@ -414,9 +416,9 @@ public final class SkRolePermissionDao
           // key conflict occurs--this is not considered an error.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.ROLE_PERMISSION, tenant));
       }
       catch (Exception e)
       {
@@ -593,9 +595,9 @@ public final class SkRolePermissionDao
               rows += pstmt.executeUpdate();
           }
           
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.ROLE_PERMISSION, tenant));
       }
       catch (Exception e)
       {
@@ -10,6 +10,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange;
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange.ChangeType;
 import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
 import edu.utexas.tacc.tapis.security.authz.model.SkRoleTree;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
@@ -205,8 +207,8 @@ public final class SkRoleTreeDao
           // Set the parent's hasChildren indicator if it's not already set.
           if (!hadChildren) updateParentHasChildren(conn, tenant, parentRoleId, true);
 
-          // Commit the transaction.
-          conn.commit();
+          // Commit the transaction and announce the change.
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.ROLE_TREE, roleTenant));
       }
       catch (Exception e)
       {
@@ -346,8 +348,8 @@ public final class SkRoleTreeDao
           // and (2) at least one row was changed as a result of child removal.
           if (hadChildren && rows > 0) updateAfterChildRemoval(conn, tenant, parentRoleId);
           
-          // Commit the transaction.
-          conn.commit();
+          // Commit the transaction and announce the change.
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.ROLE_TREE, tenant));
       }
       catch (Exception e)
       {
@@ -3,19 +3,27 @@ package edu.utexas.tacc.tapis.security.authz.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange;
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange.ChangeType;
 import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
 import edu.utexas.tacc.tapis.security.authz.model.SkShare;
 import edu.utexas.tacc.tapis.security.authz.model.SkShareDeleteSelector;
 import edu.utexas.tacc.tapis.security.authz.model.SkShareInputFilter;
+import edu.utexas.tacc.tapis.security.authz.model.SkShareOutcome;
+import edu.utexas.tacc.tapis.security.authz.model.SkShareOutcome.Outcome;
 import edu.utexas.tacc.tapis.security.authz.model.SkSharePrivilegeSelector;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisJDBCException;
@@ -49,6 +57,9 @@ public final class SkShareDao
   // Interpret a trailing wildcard as an sql wildcard in LIKE clauses.  
   private static final String RESOURCE_WILDCARD = "%";
   
+  // Separator used to construct in-memory share keys in bulk operations.
+  private static final char KEY_SEP = '\0';
+  
   /* ********************************************************************** */
   /*                              Constructors                              */
   /* ********************************************************************** */
@@ -138,9 +149,10 @@ public final class SkShareDao
           // key conflict occurs--this is not considered an error.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forUser(ChangeType.SHARE, skshare.getTenant(), 
+                                                            skshare.getGrantee()));
       }
       catch (Exception e)
       {
@@ -433,9 +445,9 @@ public final class SkShareDao
           // Issue the call for the 1 row result set.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forTenant(ChangeType.SHARE, tenant));
       }
       catch (Exception e)
       {
@@ -509,9 +521,10 @@ public final class SkShareDao
           // Issue the call for the 1 row result set.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forUser(ChangeType.SHARE, sel.getTenant(), 
+                                                            sel.getGrantee()));
       }
       catch (Exception e)
       {
@@ -629,6 +642,234 @@ public final class SkShareDao
         else return true;
   }
 
+  /* ---------------------------------------------------------------------- */
+  /* shareResources:                                                        */
+  /* ---------------------------------------------------------------------- */
+  /** Insert many shares using a single set-based statement.  Each share's 
+   * unique key fields are bound as parallel arrays and shares that already
+   * exist are silently skipped.  The same statement returns the database 
+   * record for both new and pre-existing shares, so no follow-up query is
+   * issued per share.
+   * 
+   * The returned list contains one outcome for each distinct share in the
+   * input list in input order.  The whole batch is inserted in a single 
+   * transaction, so any database error causes no shares to be inserted.
+   * 
+   * @param shares the non-empty list of shares to insert
+   * @param createdBy the service creating the shares
+   * @param createdByTenant the tenant of the service creating the shares
+   * @return the non-null list of outcomes
+   * @throws TapisException on error
+   */
+  public List<SkShareOutcome> shareResources(List<SkShare> shares, String createdBy,
+                                             String createdByTenant) 
+   throws TapisException
+  {
+      // ------------------------- Check Input -------------------------
+      // Exceptions can be throw from here.
+      if (shares == null || shares.isEmpty()) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResources", "shares");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(createdBy)) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResources", "createdBy");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(createdByTenant)) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "shareResources", "createdByTenant");
+          throw new TapisException(msg);
+      }
+      for (var skshare : shares) validateBulkShare(skshare, "shareResources");
+      
+      // Assign one timestamp to all shares.
+      var created = Instant.now();
+      
+      // ------------------------- Call SQL ----------------------------
+      Connection conn = null;
+      var dbShares = new HashMap<String,SkShare>(1 + shares.size() * 2);
+      var createdKeys = new HashSet<String>();
+      try
+      {
+          // Get a database connection.
+          conn = getConnection();
+          
+          // Set the sql command.
+          String sql = SqlStatements.SHARE_INSERT_BULK;
+
+          // Prepare the statement and fill in the placeholders.
+          PreparedStatement pstmt = conn.prepareStatement(sql);
+          int index = bindShareArrays(conn, pstmt, shares);
+          pstmt.setTimestamp(index++, Timestamp.from(created));
+          pstmt.setString(index++, createdBy);
+          pstmt.setString(index, createdByTenant);
+
+          // Issue the call.  Each new share is returned with a true
+          // flag, each pre-existing share with a false flag.
+          ResultSet rs = pstmt.executeQuery();
+          SkShare obj = populateSkShare(rs);
+          while (obj != null) {
+              var key = makeShareKey(obj);
+              dbShares.put(key, obj);
+              if (rs.getBoolean(12)) createdKeys.add(key);
+              obj = populateSkShare(rs);
+          }
+
+          // Commit the transaction and announce the change.
+          rs.close();
+          pstmt.close();
+          commitAndNotify(conn, createdKeys.size(), getShareChanges(shares));
+      }
+      catch (Exception e)
+      {
+          // Rollback transaction.
+          try {if (conn != null) conn.rollback();}
+          catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+          
+          String msg = MsgUtils.getMsg("DB_INSERT_FAILURE", "sk_shared");
+          _log.error(msg, e);
+          throw new TapisException(msg, e);
+      }
+      finally {
+          // Conditionally return the connection back to the connection pool.
+          if (conn != null)
+              try {conn.close();}
+              catch (Exception e)
+              {
+                  // If commit worked, we can swallow the exception.
+                  // If not, the commit exception will be thrown.
+                  String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                  _log.error(msg, e);
+              }
+      }
+      
+      // ------------------------- Outcomes ----------------------------
+      // Create one outcome per distinct input share.  A share that was concurrently
+      // inserted by another transaction might not be visible to our statement, in 
+      // which case we report it as existing with no database information.
+      var outcomes = new ArrayList<SkShareOutcome>(shares.size());
+      var seen = new HashSet<String>(1 + shares.size() * 2);
+      for (var skshare : shares) {
+          var key = makeShareKey(skshare);
+          if (!seen.add(key)) continue;
+          var dbShare = dbShares.get(key);
+          if (dbShare == null) {
+              skshare.setCreated(created);
+              skshare.setCreatedBy(createdBy);
+              skshare.setCreatedByTenant(createdByTenant);
+              outcomes.add(new SkShareOutcome(skshare, Outcome.EXISTED));
+          } 
+          else if (createdKeys.contains(key)) 
+              outcomes.add(new SkShareOutcome(dbShare, Outcome.CREATED));
+          else outcomes.add(new SkShareOutcome(dbShare, Outcome.EXISTED));
+      }
+      
+      return outcomes;
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* deleteShares:                                                          */
+  /* ---------------------------------------------------------------------- */
+  /** Delete many shares using a single set-based statement.  Only shares 
+   * originally created by the specified service are deleted.  
+   * 
+   * The returned list contains one outcome for each distinct share in the
+   * input list in input order.  Deleted shares are returned with their 
+   * database information; shares that did not exist are returned as input.
+   * 
+   * @param shares the non-empty list of shares to delete
+   * @param createdBy the service that created the shares
+   * @param createdByTenant the tenant of the service that created the shares
+   * @return the non-null list of outcomes
+   * @throws TapisException on error
+   */
+  public List<SkShareOutcome> deleteShares(List<SkShare> shares, String createdBy,
+                                           String createdByTenant) 
+   throws TapisException
+  {
+      // ------------------------- Check Input -------------------------
+      // Exceptions can be throw from here.
+      if (shares == null || shares.isEmpty()) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "deleteShares", "shares");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(createdBy)) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "deleteShares", "createdBy");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(createdByTenant)) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "deleteShares", "createdByTenant");
+          throw new TapisException(msg);
+      }
+      for (var skshare : shares) validateBulkShare(skshare, "deleteShares");
+      
+      // ------------------------- Call SQL ----------------------------
+      Connection conn = null;
+      var dbShares = new HashMap<String,SkShare>(1 + shares.size() * 2);
+      try
+      {
+          // Get a database connection.
+          conn = getConnection();
+          
+          // Set the sql command.
+          String sql = SqlStatements.SHARE_DELETE_BULK;
+
+          // Prepare the statement and fill in the placeholders.
+          PreparedStatement pstmt = conn.prepareStatement(sql);
+          int index = bindShareArrays(conn, pstmt, shares);
+          pstmt.setString(index++, createdByTenant);
+          pstmt.setString(index, createdBy);
+
+          // Issue the call, which returns each deleted record.
+          ResultSet rs = pstmt.executeQuery();
+          SkShare obj = populateSkShare(rs);
+          while (obj != null) {
+              dbShares.put(makeShareKey(obj), obj);
+              obj = populateSkShare(rs);
+          }
+
+          // Commit the transaction and announce the change.
+          rs.close();
+          pstmt.close();
+          commitAndNotify(conn, dbShares.size(), getShareChanges(shares));
+      }
+      catch (Exception e)
+      {
+          // Rollback transaction.
+          try {if (conn != null) conn.rollback();}
+          catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+          
+          String msg = MsgUtils.getMsg("DB_DELETE_FAILURE", "sk_shared");
+          _log.error(msg, e);
+          throw new TapisException(msg, e);
+      }
+      finally {
+          // Conditionally return the connection back to the connection pool.
+          if (conn != null)
+              try {conn.close();}
+              catch (Exception e)
+              {
+                  // If commit worked, we can swallow the exception.
+                  // If not, the commit exception will be thrown.
+                  String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                  _log.error(msg, e);
+              }
+      }
+      
+      // ------------------------- Outcomes ----------------------------
+      // Create one outcome per distinct input share.
+      var outcomes = new ArrayList<SkShareOutcome>(shares.size());
+      var seen = new HashSet<String>(1 + shares.size() * 2);
+      for (var skshare : shares) {
+          var key = makeShareKey(skshare);
+          if (!seen.add(key)) continue;
+          var dbShare = dbShares.get(key);
+          if (dbShare == null) outcomes.add(new SkShareOutcome(skshare, Outcome.NOT_FOUND));
+            else outcomes.add(new SkShareOutcome(dbShare, Outcome.DELETED));
+      }
+      
+      return outcomes;
+  }
+
   /* ********************************************************************** */
   /*                             Private Methods                            */
   /* ********************************************************************** */
@@ -695,6 +936,135 @@ public final class SkShareDao
       }
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* validateBulkShare:                                                     */
+  /* ---------------------------------------------------------------------- */
+  /** Make sure all unique key fields except resourceId2 are assigned.
+   * 
+   * @param skshare the share to check
+   * @param method the calling method name
+   * @throws TapisException if a required field is missing
+   */
+  private void validateBulkShare(SkShare skshare, String method)
+   throws TapisException
+  {
+      if (skshare == null) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", method, "share");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(skshare.getTenant())) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", method, "tenant");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(skshare.getGrantor())) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", method, "grantor");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(skshare.getGrantee())) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", method, "grantee");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(skshare.getResourceType())) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", method, "resourceType");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(skshare.getResourceId1())) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", method, "resourceId1");
+          throw new TapisException(msg);
+      }
+      if (StringUtils.isBlank(skshare.getPrivilege())) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", method, "privilege");
+          throw new TapisException(msg);
+      }
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* getShareChanges:                                                       */
+  /* ---------------------------------------------------------------------- */
+  /** Create one tenant-wide change for each distinct tenant in a bulk request.
+   * Tenants are sorted so that version rows are always locked in the same order.
+   * 
+   * @param shares the validated bulk request shares
+   * @return the change events
+   */
+  private SkAuthzChange[] getShareChanges(List<SkShare> shares)
+  {
+      var tenants = new TreeSet<String>();
+      for (var skshare : shares) tenants.add(skshare.getTenant());
+      
+      var changes = new SkAuthzChange[tenants.size()];
+      int i = 0;
+      for (var tenant : tenants) changes[i++] = SkAuthzChange.forTenant(ChangeType.SHARE, tenant);
+      return changes;
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* bindShareArrays:                                                       */
+  /* ---------------------------------------------------------------------- */
+  /** Bind the seven unique key columns of the shares as parallel text arrays
+   * to the first seven placeholders of a bulk statement.  Our null substitute
+   * is used for null resourceId2 values.
+   * 
+   * @param conn the connection used to create the arrays
+   * @param pstmt the bulk statement
+   * @param shares the shares to bind
+   * @return the index of the next unbound placeholder
+   * @throws SQLException on error
+   */
+  private int bindShareArrays(Connection conn, PreparedStatement pstmt, List<SkShare> shares)
+   throws SQLException
+  {
+      // Transpose the shares into column arrays.
+      final int size = shares.size();
+      var tenants   = new String[size];
+      var grantors  = new String[size];
+      var grantees  = new String[size];
+      var types     = new String[size];
+      var ids1      = new String[size];
+      var ids2      = new String[size];
+      var privs     = new String[size];
+      for (int i = 0; i < size; i++) {
+          var skshare = shares.get(i);
+          tenants[i]  = skshare.getTenant();
+          grantors[i] = skshare.getGrantor();
+          grantees[i] = skshare.getGrantee();
+          types[i]    = skshare.getResourceType();
+          ids1[i]     = skshare.getResourceId1();
+          ids2[i]     = skshare.getResourceId2() == null ? TAPIS_NULL : skshare.getResourceId2();
+          privs[i]    = skshare.getPrivilege();
+      }
+      
+      // Bind the arrays in unnest column order.
+      int index = 1;
+      pstmt.setArray(index++, conn.createArrayOf("text", tenants));
+      pstmt.setArray(index++, conn.createArrayOf("text", grantors));
+      pstmt.setArray(index++, conn.createArrayOf("text", grantees));
+      pstmt.setArray(index++, conn.createArrayOf("text", types));
+      pstmt.setArray(index++, conn.createArrayOf("text", ids1));
+      pstmt.setArray(index++, conn.createArrayOf("text", ids2));
+      pstmt.setArray(index++, conn.createArrayOf("text", privs));
+      return index;
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* makeShareKey:                                                          */
+  /* ---------------------------------------------------------------------- */
+  /** Create a string that uniquely identifies a share by the same seven 
+   * fields that make up the unique index on sk_shared.  The NUL separator
+   * cannot appear in postgres text values.  Null and our null substitute 
+   * for resourceId2 generate the same key.
+   * 
+   * @param skshare a share
+   * @return the share's unique key
+   */
+  private String makeShareKey(SkShare skshare)
+  {
+      var id2 = skshare.getResourceId2() == null ? TAPIS_NULL : skshare.getResourceId2();
+      return skshare.getTenant() + KEY_SEP + skshare.getGrantor() + KEY_SEP + 
+             skshare.getGrantee() + KEY_SEP + skshare.getResourceType() + KEY_SEP +
+             skshare.getResourceId1() + KEY_SEP + id2 + KEY_SEP + skshare.getPrivilege();
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* populateSkShare:                                                       */
   /* ---------------------------------------------------------------------- */
@@ -14,6 +14,8 @@ import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange;
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange.ChangeType;
 import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
 import edu.utexas.tacc.tapis.security.authz.model.SkUserRole;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
@@ -278,9 +280,9 @@ public final class SkUserRoleDao
           // key conflict occurs--this is not considered an error.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forUser(ChangeType.USER_ROLE, assigneeTenant, assignee));
       }
       catch (Exception e)
       {
@@ -362,9 +364,9 @@ public final class SkUserRoleDao
           // key conflict occurs--this is not considered an error.
           rows = pstmt.executeUpdate();
 
-          // Commit the transaction.
+          // Commit the transaction and announce the change.
           pstmt.close();
-          conn.commit();
+          commitAndNotify(conn, rows, SkAuthzChange.forUser(ChangeType.USER_ROLE, tenant, user));
       }
       catch (Exception e)
       {
@@ -998,8 +1000,8 @@ public final class SkUserRoleDao
           // Close the statement.
           pstmt.close();
 
-          // Commit the transaction.
-          conn.commit();
+          // Commit the transaction and announce the change.
+          commitAndNotify(conn, rows, SkAuthzChange.forUser(ChangeType.USER_ROLE, granteeTenant, grantee));
       }
       catch (Exception e)
       {
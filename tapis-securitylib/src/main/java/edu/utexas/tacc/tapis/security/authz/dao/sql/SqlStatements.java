@@ -331,4 +331,60 @@ public class SqlStatements
       + " AND resource_type = ? AND resource_id1 = ? AND resource_id2 = ? "
       + " AND privilege = ? "
       + "LIMIT 1";
+  
+  // Bulk share statements bind one text array per unique key column and use
+  // unnest() to turn the arrays into a set of rows.  The insert returns both
+  // newly created shares and shares that already existed in a single call.
+  public static final String SHARE_INSERT_BULK =
+      "WITH input AS (SELECT DISTINCT * FROM unnest(?::text[], ?::text[], ?::text[], "
+      + "?::text[], ?::text[], ?::text[], ?::text[]) "
+      + "AS t(tenant, grantor, grantee, resource_type, resource_id1, resource_id2, privilege)), "
+      + "ins AS (INSERT INTO sk_shared (tenant, grantor, grantee, resource_type, resource_id1, "
+      + "resource_id2, privilege, created, createdby, createdby_tenant) "
+      + "SELECT tenant, grantor, grantee, resource_type, resource_id1, resource_id2, privilege, "
+      + "?::timestamp, ?::text, ?::text FROM input ON CONFLICT DO NOTHING "
+      + "RETURNING id, tenant, grantor, grantee, resource_type, resource_id1, "
+      + "resource_id2, privilege, created, createdby, createdby_tenant) "
+      + "SELECT id, tenant, grantor, grantee, resource_type, resource_id1, "
+      + "resource_id2, privilege, created, createdby, createdby_tenant, true FROM ins "
+      + "UNION ALL "
+      + "SELECT s.id, s.tenant, s.grantor, s.grantee, s.resource_type, s.resource_id1, "
+      + "s.resource_id2, s.privilege, s.created, s.createdby, s.createdby_tenant, false "
+      + "FROM sk_shared s JOIN input i ON s.tenant = i.tenant AND s.grantor = i.grantor "
+      + " AND s.grantee = i.grantee AND s.resource_type = i.resource_type "
+      + " AND s.resource_id1 = i.resource_id1 AND s.resource_id2 = i.resource_id2 "
+      + " AND s.privilege = i.privilege";
+  
+  public static final String SHARE_DELETE_BULK =
+      "DELETE FROM sk_shared s USING (SELECT DISTINCT * FROM unnest(?::text[], ?::text[], "
+      + "?::text[], ?::text[], ?::text[], ?::text[], ?::text[]) "
+      + "AS t(tenant, grantor, grantee, resource_type, resource_id1, resource_id2, privilege)) i "
+      + "WHERE s.tenant = i.tenant AND s.grantor = i.grantor "
+      + " AND s.grantee = i.grantee AND s.resource_type = i.resource_type "
+      + " AND s.resource_id1 = i.resource_id1 AND s.resource_id2 = i.resource_id2 "
+      + " AND s.privilege = i.privilege "
+      + " AND s.createdby_tenant = ? AND s.createdby = ? "
+      + "RETURNING s.id, s.tenant, s.grantor, s.grantee, s.resource_type, s.resource_id1, "
+      + "s.resource_id2, s.privilege, s.created, s.createdby, s.createdby_tenant";
+  
+  /* ---------------------------------------------------------------------- */
+  /* sk_authz_version, sk_authz_change:                                     */
+  /* ---------------------------------------------------------------------- */
+  // Increment the tenant version and log the change in one statement.  The 
+  // upsert locks the tenant's version row until the transaction ends.
+  public static final String AUTHZ_CHANGE_INSERT =
+      "WITH v AS (INSERT INTO sk_authz_version (tenant, version) VALUES (?, 1) "
+      + "ON CONFLICT (tenant) DO UPDATE SET version = sk_authz_version.version + 1, "
+      + "updated = (now() at time zone 'utc') RETURNING tenant, version) "
+      + "INSERT INTO sk_authz_change (tenant, version, change_type, user_name) "
+      + "SELECT tenant, version, ?, ? FROM v RETURNING version";
+  public static final String AUTHZ_VERSION_SELECT =
+      "SELECT version FROM sk_authz_version WHERE tenant = ?";
+  public static final String AUTHZ_CHANGE_SELECT_SINCE =
+      "SELECT version, change_type, user_name, created FROM sk_authz_change "
+      + "WHERE tenant = ? AND version > ? ORDER BY version LIMIT ?";
+  public static final String AUTHZ_CHANGE_MIN_VERSION =
+      "SELECT MIN(version) FROM sk_authz_change WHERE tenant = ?";
+  public static final String AUTHZ_CHANGE_PRUNE =
+      "DELETE FROM sk_authz_change WHERE tenant = ? AND version <= ?";
 }
@@ -0,0 +1,263 @@
+package edu.utexas.tacc.tapis.security.authz.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.authz.impl.UserImpl.AuthOperation;
+import edu.utexas.tacc.tapis.security.authz.model.SkAccessResult;
+import edu.utexas.tacc.tapis.security.authz.model.SkAccessResult.AccessSource;
+import edu.utexas.tacc.tapis.security.authz.model.SkAccessSelector;
+import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Evaluate a user's effective access to a resource by consulting both the
+ * permissions assigned through roles and the shares recorded in sk_shared.
+ * 
+ * When both sources are specified, the role permission lookup runs on a 
+ * small worker pool while the share lookup, which is a single indexed query,
+ * runs on the calling thread.  A grant from either source short-circuits the
+ * other.  When the pool is saturated the lookups simply run sequentially.
+ * 
+ * The lookups themselves are delegated to UserImpl and ShareImpl.  Tests 
+ * construct instances with their own lookups and worker count.
+ */
+public class AccessImpl
+  extends BaseImpl
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(AccessImpl.class);
+    
+    // Worker pool limits.  Each worker holds at most one db connection, so
+    // we never use more than half the connection pool for parallel lookups.
+    private static final int MIN_WORKERS  = 2;
+    private static final int QUEUE_SIZE   = 256;
+    private static final int KEEP_ALIVE_SECS = 60;
+
+    /* ********************************************************************** */
+    /*                                Fields                                  */
+    /* ********************************************************************** */
+    // Singleton instance of this class.
+    private static volatile AccessImpl _instance;
+    
+    // Lookup pool created on first use.
+    private final ThreadPoolExecutor _executor;
+    
+    // The source of permission, share and administrator information.
+    private final Lookups _lookups;
+    
+    /* ********************************************************************** */
+    /*                             Constructors                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private AccessImpl() 
+    {
+        this(Math.max(MIN_WORKERS, RuntimeParameters.getInstance().getDbConnectionPoolSize() / 2),
+             new ImplLookups());
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    AccessImpl(int workers, Lookups lookups) 
+    {
+        _lookups = lookups;
+        var threadNum = new AtomicInteger();
+        _executor = new ThreadPoolExecutor(workers, workers, KEEP_ALIVE_SECS, TimeUnit.SECONDS, 
+                                           new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+                                           r -> {
+                                               var t = new Thread(r, "SkAccess-" + threadNum.incrementAndGet());
+                                               t.setDaemon(true);
+                                               return t;
+                                           });
+        _executor.allowCoreThreadTimeOut(true);
+    }
+    
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static AccessImpl getInstance()
+    {
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (AccessImpl.class) {
+                if (_instance == null) _instance = new AccessImpl();
+            }
+        }
+        return _instance;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* checkAccess:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether the user has access through a role permission, a 
+     * share or, optionally, the tenant administrator role.  The first source
+     * that grants access is reported in the result.  An error from one source
+     * is only propagated if no other source grants access.
+     * 
+     * @param sel the validated access selector
+     * @return the access result, never null
+     * @throws TapisImplException if access cannot be determined
+     */
+    public SkAccessResult checkAccess(SkAccessSelector sel) throws TapisImplException
+    {
+        // Validate the selector.
+        if (sel == null) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "checkAccess", "sel");
+            _log.error(msg);
+            throw new TapisImplException(msg, Condition.BAD_REQUEST);
+        }
+        try {sel.validate();}
+            catch (Exception e) {
+                _log.error(e.getMessage());
+                throw new TapisImplException(e.getMessage(), e, Condition.BAD_REQUEST);
+            }
+        
+        // Evaluate the specified sources.
+        AccessSource source;
+        if (sel.hasPermissionSource() && sel.hasShareSource()) 
+            source = checkBoth(sel);
+        else if (sel.hasShareSource())
+            source = checkShare(sel) ? AccessSource.SHARE : AccessSource.NONE;
+        else 
+            source = checkPermission(sel) ? AccessSource.PERMISSION : AccessSource.NONE;
+        
+        // Fall back to the administrator role if requested.
+        if (source == AccessSource.NONE && sel.isOrAdmin())
+            if (_lookups.isAdmin(sel)) source = AccessSource.ADMIN;
+        
+        return new SkAccessResult(source);
+    }
+    
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* checkBoth:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Run the permission lookup asynchronously while checking shares on the
+     * calling thread.
+     * 
+     * @param sel the validated access selector
+     * @return the granting source or NONE
+     * @throws TapisImplException if neither source grants access and one failed
+     */
+    private AccessSource checkBoth(SkAccessSelector sel) throws TapisImplException
+    {
+        // Start the permission check if the pool has room.
+        Future<Boolean> permFuture = null;
+        try {permFuture = _executor.submit(() -> checkPermission(sel));}
+            catch (RejectedExecutionException e) {
+                if (_log.isDebugEnabled()) 
+                    _log.debug("Access check pool saturated, running sequentially.");
+            }
+        
+        // Check shares on this thread.
+        TapisImplException shareException = null;
+        try {
+            if (checkShare(sel)) {
+                if (permFuture != null) permFuture.cancel(false);
+                return AccessSource.SHARE;
+            }
+        }
+        catch (TapisImplException e) {shareException = e;}
+        
+        // Get the permission result.
+        boolean permitted;
+        if (permFuture == null) permitted = checkPermission(sel);
+        else {
+            try {permitted = permFuture.get();}
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                String msg = MsgUtils.getMsg("SK_USER_GET_ROLE_NAMES_ERROR", 
+                                             sel.getTenant(), sel.getUser(), e.getMessage());
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+            }
+            catch (ExecutionException e) {
+                // Unwrap the lookup exception.
+                if (e.getCause() instanceof TapisImplException) 
+                    throw (TapisImplException) e.getCause();
+                String msg = MsgUtils.getMsg("SK_USER_GET_ROLE_NAMES_ERROR", 
+                                             sel.getTenant(), sel.getUser(), e.getMessage());
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+            }
+        }
+        
+        // A permission grant overrides any share failure.
+        if (permitted) return AccessSource.PERMISSION;
+        if (shareException != null) throw shareException;
+        return AccessSource.NONE;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* checkPermission:                                                       */
+    /* ---------------------------------------------------------------------- */
+    private boolean checkPermission(SkAccessSelector sel) throws TapisImplException
+    {
+        return _lookups.isPermitted(sel);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* checkShare:                                                            */
+    /* ---------------------------------------------------------------------- */
+    private boolean checkShare(SkAccessSelector sel) throws TapisImplException
+    {
+        return _lookups.isShared(sel);
+    }
+    
+    /* ********************************************************************** */
+    /*                                Lookups                                 */
+    /* ********************************************************************** */
+    /** The individual authorization checks combined by an access check. */
+    interface Lookups
+    {
+        boolean isPermitted(SkAccessSelector sel) throws TapisImplException;
+        boolean isShared(SkAccessSelector sel) throws TapisImplException;
+        boolean isAdmin(SkAccessSelector sel) throws TapisImplException;
+    }
+    
+    /** Lookups that consult the role and share implementations. */
+    private static final class ImplLookups
+     implements Lookups
+    {
+        @Override
+        public boolean isPermitted(SkAccessSelector sel) throws TapisImplException
+        {
+            return UserImpl.getInstance().isPermitted(sel.getTenant(), sel.getUser(), 
+                                                      new String[] {sel.getPermSpec()}, 
+                                                      AuthOperation.ANY);
+        }
+        
+        @Override
+        public boolean isShared(SkAccessSelector sel) throws TapisImplException
+        {
+            return ShareImpl.getInstance().hasPrivilege(sel.toSharePrivilegeSelector());
+        }
+        
+        @Override
+        public boolean isAdmin(SkAccessSelector sel) throws TapisImplException
+        {
+            return UserImpl.getInstance().hasRole(sel.getTenant(), sel.getUser(), 
+                                                  new String[] {ADMIN_ROLE_NAME}, AuthOperation.ANY);
+        }
+    }
+}
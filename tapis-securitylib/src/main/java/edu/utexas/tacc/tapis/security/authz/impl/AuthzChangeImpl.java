@@ -0,0 +1,160 @@
+package edu.utexas.tacc.tapis.security.authz.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzVersionCache;
+import edu.utexas.tacc.tapis.security.authz.dao.SkAuthzChangeDao;
+import edu.utexas.tacc.tapis.security.authz.model.SkAuthzChangeList;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Access to the per-tenant authorization change feed.  Every role, 
+ * permission, role tree, user-role and share change increments its tenant's
+ * authorization version, so clients can cache authorization data and ask 
+ * only for what changed since the last version they saw.
+ */
+public class AuthzChangeImpl
+  extends BaseImpl
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(AuthzChangeImpl.class);
+    
+    // Page size limits.
+    public static final int DEFAULT_CHANGE_LIMIT = 1000;
+    public static final int MAX_CHANGE_LIMIT     = 10000;
+
+    /* ********************************************************************** */
+    /*                                Fields                                  */
+    /* ********************************************************************** */
+    // Singleton instance of this class.
+    private static AuthzChangeImpl _instance;
+    
+    /* ********************************************************************** */
+    /*                             Constructors                               */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private AuthzChangeImpl() {}
+    
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static AuthzChangeImpl getInstance()
+    {
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (AuthzChangeImpl.class) {
+                if (_instance == null) _instance = new AuthzChangeImpl();
+            }
+        }
+        return _instance;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getChanges:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Get the changes recorded after the since version.  The limit is 
+     * clamped to the range 1 to MAX_CHANGE_LIMIT.
+     * 
+     * @param tenant the tenant id
+     * @param sinceVersion the last version processed by the client
+     * @param limit the maximum number of changes to return
+     * @return the change page
+     * @throws TapisImplException on error
+     */
+    public SkAuthzChangeList getChanges(String tenant, long sinceVersion, int limit) 
+     throws TapisImplException
+    {
+        // Get the dao.
+        SkAuthzChangeDao dao = null;
+        try {dao = getSkAuthzChangeDao();}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("DB_DAO_ERROR", "authzChange");
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+            }
+        
+        // Clamp the page size.
+        if (limit < 1) limit = DEFAULT_CHANGE_LIMIT;
+        if (limit > MAX_CHANGE_LIMIT) limit = MAX_CHANGE_LIMIT;
+        
+        // Get the changes.
+        SkAuthzChangeList changes = null;
+        try {changes = dao.getChanges(tenant, sinceVersion, limit);}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("DB_QUERY_ERROR", "sk_authz_change", e.getMessage());
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.BAD_REQUEST);
+            }
+        
+        return changes;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getVersion:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Get the tenant's current authorization version, 0 if nothing has ever
+     * changed.
+     * 
+     * @param tenant the tenant id
+     * @return the current version
+     * @throws TapisImplException on error
+     */
+    public long getVersion(String tenant) throws TapisImplException
+    {
+        // Get the dao.
+        SkAuthzChangeDao dao = null;
+        try {dao = getSkAuthzChangeDao();}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("DB_DAO_ERROR", "authzChange");
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+            }
+        
+        // Get the version.
+        long version = 0;
+        try {version = dao.getVersion(tenant);}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("DB_QUERY_ERROR", "sk_authz_version", e.getMessage());
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.BAD_REQUEST);
+            }
+        
+        return version;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getCachedVersion:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Get the tenant's current authorization version from memory when it is
+     * known to be current, otherwise read it from the database and remember 
+     * it.  Callers that tag responses with the version must get it before 
+     * reading the data that the response describes.
+     * 
+     * @param tenant the tenant id
+     * @return the current version
+     * @throws TapisImplException on error
+     */
+    public long getCachedVersion(String tenant) throws TapisImplException
+    {
+        // Use the cached version if possible.
+        var cache = SkAuthzVersionCache.getInstance();
+        Long cached = cache.getVersion(tenant);
+        if (cached != null) return cached;
+        
+        // Read and remember the version.
+        long generation = cache.getGeneration();
+        long version = getVersion(tenant);
+        cache.putVersion(tenant, version, generation);
+        return version;
+    }
+}
@@ -3,6 +3,7 @@ package edu.utexas.tacc.tapis.security.authz.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.authz.dao.SkAuthzChangeDao;
 import edu.utexas.tacc.tapis.security.authz.dao.SkRoleDao;
 import edu.utexas.tacc.tapis.security.authz.dao.SkRolePermissionDao;
 import edu.utexas.tacc.tapis.security.authz.dao.SkRoleTreeDao;
@@ -31,6 +32,7 @@ abstract class BaseImpl
     private static SkRolePermissionDao _rolePermissionDao;
     private static SkUserRoleDao       _userRoleDao;
     private static SkShareDao          _shareDao;
+    private static SkAuthzChangeDao    _authzChangeDao;
     
     /* **************************************************************************** */
     /*                             Protected Methods                                */
@@ -115,6 +117,26 @@ abstract class BaseImpl
         return _userRoleDao;
     }
 
+    /* ---------------------------------------------------------------------------- */
+    /* getSkAuthzChangeDao:                                                         */
+    /* ---------------------------------------------------------------------------- */
+    /** Create the shared dao on first reference.
+     * 
+     * @return the dao
+     * @throws TapisException on error
+     */
+    protected static SkAuthzChangeDao getSkAuthzChangeDao() 
+     throws TapisException
+    {
+        // Avoid synchronizing exception for initialization.
+        if (_authzChangeDao == null) 
+            synchronized (BaseImpl.class) {
+                if (_authzChangeDao == null) _authzChangeDao = new SkAuthzChangeDao();
+           }
+            
+        return _authzChangeDao;
+    }
+
     /* ---------------------------------------------------------------------------- */
     /* getSkShareDao:                                                               */
     /* ---------------------------------------------------------------------------- */
@@ -7,8 +7,10 @@ import org.slf4j.LoggerFactory;
 
 import edu.utexas.tacc.tapis.security.authz.dao.SkShareDao;
 import edu.utexas.tacc.tapis.security.authz.model.SkShare;
+import edu.utexas.tacc.tapis.security.authz.model.SkShareBulkResult;
 import edu.utexas.tacc.tapis.security.authz.model.SkShareDeleteSelector;
 import edu.utexas.tacc.tapis.security.authz.model.SkShareInputFilter;
+import edu.utexas.tacc.tapis.security.authz.model.SkShareOutcome.Outcome;
 import edu.utexas.tacc.tapis.security.authz.model.SkSharePrivilegeSelector;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
@@ -90,6 +92,50 @@ public class ShareImpl
         return rows;
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* shareResources:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** This method inserts many shares into the share table in a single 
+     * database call.  Shares that already exist are not changed.  
+     * 
+     * The result contains one outcome per distinct share and the number of 
+     * rows actually inserted.
+     * 
+     * @param shares the new share objects
+     * @param createdBy the calling service
+     * @param createdByTenant the tenant of the calling service
+     * @return the bulk result
+     * @throws TapisImplException 
+     */
+    public SkShareBulkResult shareResources(List<SkShare> shares, String createdBy, 
+                                            String createdByTenant) 
+     throws TapisImplException
+    {
+        // Get the dao.
+        SkShareDao dao = null;
+        try {dao = getSkShareDao();}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("DB_DAO_ERROR", "share");
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+            }
+        
+        // Create the shares.
+        var result = new SkShareBulkResult();
+        try {result.outcomes = dao.shareResources(shares, createdBy, createdByTenant);}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("SK_SHARE_DB_INSERT_ERROR", getBulkDescription(shares));
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.BAD_REQUEST);         
+            }
+        
+        // Count the new rows.
+        for (var outcome : result.outcomes) 
+            if (outcome.getOutcome() == Outcome.CREATED) result.changes++;
+        
+        return result;
+    }
+
     /* ---------------------------------------------------------------------- */
     /* getShare:                                                              */
     /* ---------------------------------------------------------------------- */
@@ -233,6 +279,52 @@ public class ShareImpl
         return rows;
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* deleteShares:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** This method deletes many shares in a single database call.  Only shares
+     * created by the calling service are deleted.
+     * 
+     * The result contains one outcome per distinct share and the number of 
+     * rows actually deleted.
+     * 
+     * @param shares the shares to delete
+     * @param createdBy the calling service
+     * @param createdByTenant the tenant of the calling service
+     * @return the bulk result
+     * @throws TapisImplException 
+     */
+    public SkShareBulkResult deleteShares(List<SkShare> shares, String createdBy, 
+                                          String createdByTenant) 
+     throws TapisImplException
+    {
+        // Get the dao.
+        SkShareDao dao = null;
+        try {dao = getSkShareDao();}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("DB_DAO_ERROR", "share");
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+            }
+        
+        // Delete the shares.
+        var result = new SkShareBulkResult();
+        try {result.outcomes = dao.deleteShares(shares, createdBy, createdByTenant);}
+            catch (Exception e) {
+                var tenant = shares == null || shares.isEmpty() ? "" : shares.get(0).getTenant();
+                var type   = shares == null || shares.isEmpty() ? "" : shares.get(0).getResourceType();
+                String msg = MsgUtils.getMsg("SK_SHARE_DB_DELETE_ERROR", tenant, type);
+                _log.error(msg, e);
+                throw new TapisImplException(msg, e, Condition.BAD_REQUEST);         
+            }
+        
+        // Count the deleted rows.
+        for (var outcome : result.outcomes) 
+            if (outcome.getOutcome() == Outcome.DELETED) result.changes++;
+        
+        return result;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* hasPrivilege:                                                          */
     /* ---------------------------------------------------------------------- */
@@ -259,4 +351,25 @@ public class ShareImpl
         
         return hasPrivilege;
     }
+    
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getBulkDescription:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Describe a bulk request for error messages without dumping every share. 
+     * 
+     * @param shares the bulk request shares
+     * @return a short description
+     */
+    private String getBulkDescription(List<SkShare> shares)
+    {
+        if (shares == null || shares.isEmpty()) return "shares=0";
+        var first = shares.get(0);
+        return "shares=" + shares.size() + ", " +
+               "tenant=" + first.getTenant() + ", " +
+               "grantor=" + first.getGrantor() + ", " +
+               "resourceType=" + first.getResourceType();
+    }
 }
@@ -11,6 +11,7 @@ import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.security.authz.cache.SkUserAuthzCache;
 import edu.utexas.tacc.tapis.security.authz.dao.SkRolePermissionDao;
 import edu.utexas.tacc.tapis.security.authz.dao.SkUserRoleDao;
 import edu.utexas.tacc.tapis.security.authz.permissions.ExtWildcardPermission;
@@ -398,6 +399,15 @@ public final class UserImpl
     public List<String> getUserRoleNames(String tenant, String user) 
      throws TapisImplException
     {
+        // Use the cached value if possible.
+        var cache = SkUserAuthzCache.getInstance();
+        long generation = 0;
+        if (cache.isEnabled()) {
+            var cached = cache.getRoleNames(tenant, user);
+            if (cached != null) return cached;
+            generation = cache.getGeneration(tenant);
+        }
+        
         // Get the dao.
         SkUserRoleDao dao = null;
         try {dao = getSkUserRoleDao();}
@@ -415,6 +425,7 @@ public final class UserImpl
                 _log.error(msg, e);
                 throw new TapisImplException(msg, e, Condition.BAD_REQUEST);            }
         
+        if (cache.isEnabled()) cache.putRoleNames(tenant, user, roles, generation);
         return roles;
     }
     
@@ -564,6 +575,15 @@ public final class UserImpl
     public List<String> getUserPermissions(String tenant, String user) 
      throws TapisImplException
     {
+        // Use the cached value if possible.
+        var cache = SkUserAuthzCache.getInstance();
+        long generation = 0;
+        if (cache.isEnabled()) {
+            var cached = cache.getPermissions(tenant, user);
+            if (cached != null) return cached;
+            generation = cache.getGeneration(tenant);
+        }
+        
         // Get the dao.
         SkUserRoleDao dao = null;
         try {dao = getSkUserRoleDao();}
@@ -583,6 +603,7 @@ public final class UserImpl
                 throw new TapisImplException(msg, e, Condition.BAD_REQUEST);            
             }
         
+        if (cache.isEnabled()) cache.putPermissions(tenant, user, assignedPerms, generation);
         return assignedPerms;
     }
     
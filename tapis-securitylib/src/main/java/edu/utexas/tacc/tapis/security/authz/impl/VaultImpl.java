@@ -1,10 +1,19 @@
 package edu.utexas.tacc.tapis.security.authz.impl;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.apache.commons.io.FilenameUtils;
@@ -12,18 +21,27 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.bettercloud.vault.response.LogicalResponse;
+import com.bettercloud.vault.rest.RestResponse;
 import com.google.gson.JsonObject;
 
+import edu.utexas.tacc.tapis.security.authz.model.SkJwtPublicKey;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecret;
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretBatchItem;
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretBatchResult;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecretList;
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretListPage;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecretMetadata;
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretSubtreeResult;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecretVersion;
 import edu.utexas.tacc.tapis.security.authz.model.SkSecretVersionMetadata;
 import edu.utexas.tacc.tapis.security.authz.secrets.GenerateSecrets;
+import edu.utexas.tacc.tapis.security.secrets.SecretListPager;
 import edu.utexas.tacc.tapis.security.secrets.SecretPathMapper;
 import edu.utexas.tacc.tapis.security.secrets.SecretPathMapper.SecretPathMapperParms;
 import edu.utexas.tacc.tapis.security.secrets.SecretType;
+import edu.utexas.tacc.tapis.security.secrets.SkJwtKeyCache;
+import edu.utexas.tacc.tapis.security.secrets.SkSecretCache;
+import edu.utexas.tacc.tapis.security.secrets.SkServicePwdCache;
 import edu.utexas.tacc.tapis.security.secrets.VaultManager;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
@@ -42,6 +60,25 @@ public final class VaultImpl
    // Tracing.
    private static final Logger _log = LoggerFactory.getLogger(VaultImpl.class);
    
+   // The secret types read often enough to be worth caching.
+   private static final EnumSet<SecretType> CACHED_SECRET_TYPES = EnumSet.of(SecretType.System);
+   
+   // Batch read pool limits.  The pool never has more vault calls in flight
+   // than the pooled vault client allows, and a full queue causes reads to
+   // run on the requesting thread.
+   private static final int MAX_BATCH_WORKERS = 8;
+   private static final int BATCH_QUEUE_SIZE  = 256;
+   private static final int KEEP_ALIVE_SECS   = 60;
+   
+   // The public key item of JWT signing secrets.
+   private static final String JWT_PUBLIC_KEY_NAME = "publicKey";
+   
+   // Subtree destruction progress is logged after this many secrets.
+   private static final int SUBTREE_PROGRESS_INTERVAL = 500;
+   
+   // A pending subtree secret destruction and the path it destroys.
+   private record DestroyTask(String secretPath, Future<String> future) {}
+   
    /* ********************************************************************** */
    /*                                Fields                                  */
    /* ********************************************************************** */
@@ -51,6 +88,10 @@ public final class VaultImpl
    // A list that contains a single zero integer.
    private static final ArrayList<Integer> _zeroVersionList = initZeroVersionList();
    
+   // Pool that issues the vault calls of multi-secret requests concurrently,
+   // created on first use.
+   private volatile ThreadPoolExecutor _batchExecutor;
+   
    /* ********************************************************************** */
    /*                             Constructors                               */
    /* ********************************************************************** */
@@ -127,11 +168,23 @@ public final class VaultImpl
        // Calculate the secret path.  An exception can be thrown here.
        String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
        
+       // Use a cached copy if possible.  The generation is captured before
+       // the vault call so that concurrent changes prevent caching.
+       var cache = SkSecretCache.getInstance();
+       boolean cacheable = cache.isEnabled() && 
+                           CACHED_SECRET_TYPES.contains(pathParms.getSecretType());
+       long generation = cache.getGeneration();
+       if (cacheable) {
+           var cached = cache.get(secretPath, version);
+           if (cached != null) return cached;
+       }
+       
        // Issue the vault call.
-       LogicalResponse logicalResp = null;
+       RestResponse restResp = null;
+       long startNanos = System.nanoTime();
        try {
-           var logical = VaultManager.getInstance().getVault().logical();
-           logicalResp = logical.read(secretPath, Boolean.TRUE, version);
+           restResp = VaultManager.getInstance().getVaultClient().read(secretPath, version);
+           cache.recordVaultRead(System.nanoTime() - startNanos);
        } catch (Exception e) {
            String msg = MsgUtils.getMsg("SK_VAULT_READ_SECRET_ERROR", 
                                         tenant, user, secretPath, version, 
@@ -141,7 +194,6 @@ public final class VaultImpl
        }
        
        // The rest response field is non-null if we get here.
-       var restResp = logicalResp.getRestResponse();
        int vaultStatus = restResp.getStatus();
        String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
        
@@ -184,9 +236,106 @@ public final class VaultImpl
            throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
        }
        
+       // Save the secret for subsequent reads.
+       if (cacheable) cache.put(secretPath, version, skSecret, generation);
+       
        return skSecret;
    }
 
+   /* ---------------------------------------------------------------------- */
+   /* secretReadBatch:                                                       */
+   /* ---------------------------------------------------------------------- */
+   /** Read multiple secrets concurrently.  Each item describes one secret and
+    * the path parameters at the same position in the parms list are used to
+    * read it.  Items that already have a status, such as those that failed 
+    * authorization, are not read.  The outcome of each read is recorded in 
+    * its item so that one failure does not affect the other reads.
+    * 
+    * The reads are issued on a bounded pool shared by all batch requests.
+    * When the pool's queue is full the remaining reads run on the calling 
+    * thread, which throttles the caller rather than rejecting the request.
+    * 
+    * @param tenant caller's tenant id
+    * @param user the caller
+    * @param items the items in request order
+    * @param pathParmsList the path parameters of each item
+    * @return the result containing all items
+    * @throws TapisImplException if the inputs are invalid
+    */
+   public SkSecretBatchResult secretReadBatch(String tenant, String user,
+                                              List<SkSecretBatchItem> items,
+                                              List<SecretPathMapperParms> pathParmsList)
+    throws TapisImplException
+   {
+       // ------------------------ Input Checking ----------------------------
+       if (items == null) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "secretReadBatch", "items");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (pathParmsList == null || pathParmsList.size() != items.size()) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "secretReadBatch", "pathParmsList");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       
+       // ------------------------ Request Processing ------------------------
+       // Start all reads before waiting on any of them.
+       var futures = new ArrayList<Future<SkSecret>>(items.size());
+       for (int i = 0; i < items.size(); i++) {
+           var item = items.get(i);
+           var pathParms = pathParmsList.get(i);
+           if (item.status != null) {futures.add(null); continue;}
+           futures.add(getBatchExecutor().submit(() -> 
+                           secretRead(tenant, user, pathParms, item.version)));
+       }
+       
+       // Collect the outcomes in request order.
+       var result = new SkSecretBatchResult();
+       for (int i = 0; i < items.size(); i++) {
+           var item = items.get(i);
+           var future = futures.get(i);
+           if (future != null) {
+               try {
+                   item.secret = future.get();
+                   item.status = SkSecretBatchItem.STATUS_OK;
+               }
+               catch (InterruptedException e) {
+                   // Stop waiting and abandon the remaining reads.
+                   Thread.currentThread().interrupt();
+                   for (int j = i; j < futures.size(); j++) 
+                       if (futures.get(j) != null) futures.get(j).cancel(true);
+                   String msg = MsgUtils.getMsg("SK_VAULT_READ_SECRET_ERROR", 
+                                                tenant, user, item.secretName, item.version, 
+                                                e.getMessage());
+                   _log.error(msg, e);
+                   throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+               }
+               catch (ExecutionException e) {
+                   // Record the read's failure in its item.
+                   if (e.getCause() instanceof TapisImplException) {
+                       var cause = (TapisImplException) e.getCause();
+                       item.status  = cause.condition.name();
+                       item.message = cause.getMessage();
+                   } else {
+                       item.status  = Condition.INTERNAL_SERVER_ERROR.name();
+                       item.message = MsgUtils.getMsg("SK_VAULT_READ_SECRET_ERROR", 
+                                                      tenant, user, item.secretName, 
+                                                      item.version, e.getMessage());
+                       _log.error(item.message, e);
+                   }
+               }
+           }
+           
+           // Tally the outcomes.
+           if (SkSecretBatchItem.STATUS_OK.equals(item.status)) result.succeeded++;
+             else result.failed++;
+           result.items.add(item);
+       }
+       
+       return result;
+   }
+
    /* ---------------------------------------------------------------------- */
    /* secretWrite:                                                           */
    /* ---------------------------------------------------------------------- */
@@ -268,21 +417,22 @@ public final class VaultImpl
        String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
        
        // Issue the vault call.
-       LogicalResponse logicalResp = null;
+       RestResponse restResp = null;
        try {
            // If and when the underlying API supports the cas parameter
            // we should activate it in our code.
-           var logical = VaultManager.getInstance().getVault().logical();
-           logicalResp = logical.write(secretPath, secretMap);
+           restResp = VaultManager.getInstance().getVaultClient().write(secretPath, secretMap);
        } catch (Exception e) {
            String msg = MsgUtils.getMsg("SK_VAULT_WRITE_SECRET_ERROR", 
                                         tenant, user,secretPath, e.getMessage());
            _log.error(msg, e);
            throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       } finally {
+           // Cached copies may be stale whether or not the call succeeded.
+           invalidateCaches(secretPath);
        }
        
        // The rest response field is non-null if we get here.
-       var restResp = logicalResp.getRestResponse();
        int vaultStatus = restResp.getStatus();
        String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
        
@@ -370,20 +520,21 @@ public final class VaultImpl
        String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
        
        // Issue the vault call.
-       LogicalResponse logicalResp = null;
+       RestResponse restResp = null;
        try {
-           var logical = VaultManager.getInstance().getVault().logical();
-           logicalResp = logical.delete(secretPath, versionArray);
+           restResp = VaultManager.getInstance().getVaultClient().delete(secretPath, versionArray);
        } catch (Exception e) {
            String msg = MsgUtils.getMsg("SK_VAULT_DELETE_SECRET_VERSION_ERROR", 
                                         tenant, user, secretPath, 
                                         Arrays.toString(versionArray), e.getMessage());
            _log.error(msg, e);
            throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       } finally {
+           // Cached copies may be stale whether or not the call succeeded.
+           invalidateCaches(secretPath);
        }
        
        // The rest response field is non-null if we get here.
-       var restResp = logicalResp.getRestResponse();
        int vaultStatus = restResp.getStatus();
        String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
        
@@ -464,20 +615,21 @@ public final class VaultImpl
        String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
        
        // Issue the vault call.
-       LogicalResponse logicalResp = null;
+       RestResponse restResp = null;
        try {
-           var logical = VaultManager.getInstance().getVault().logical();
-           logicalResp = logical.unDelete(secretPath, versionArray);
+           restResp = VaultManager.getInstance().getVaultClient().unDelete(secretPath, versionArray);
        } catch (Exception e) {
            String msg = MsgUtils.getMsg("SK_VAULT_UNDELETE_SECRET_VERSION_ERROR", 
                                         tenant, user, secretPath, 
                                         Arrays.toString(versionArray), e.getMessage());
            _log.error(msg, e);
            throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       } finally {
+           // Cached copies may be stale whether or not the call succeeded.
+           invalidateCaches(secretPath);
        }
        
        // The rest response field is non-null if we get here.
-       var restResp = logicalResp.getRestResponse();
        int vaultStatus = restResp.getStatus();
        String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
        
@@ -556,20 +708,21 @@ public final class VaultImpl
        String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
        
        // Issue the vault call.
-       LogicalResponse logicalResp = null;
+       RestResponse restResp = null;
        try {
-           var logical = VaultManager.getInstance().getVault().logical();
-           logicalResp = logical.destroy(secretPath, versionArray);
+           restResp = VaultManager.getInstance().getVaultClient().destroy(secretPath, versionArray);
        } catch (Exception e) {
            String msg = MsgUtils.getMsg("SK_VAULT_DESTROY_SECRET_VERSION_ERROR", 
                                         tenant, user, secretPath, 
                                         Arrays.toString(versionArray), e.getMessage());
            _log.error(msg, e);
            throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       } finally {
+           // Cached copies may be stale whether or not the call succeeded.
+           invalidateCaches(secretPath);
        }
        
        // The rest response field is non-null if we get here.
-       var restResp = logicalResp.getRestResponse();
        int vaultStatus = restResp.getStatus();
        String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
        
@@ -631,10 +784,9 @@ public final class VaultImpl
        String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
        
        // Issue the vault call.
-       LogicalResponse logicalResp = null;
+       RestResponse restResp = null;
        try {
-           var logical = VaultManager.getInstance().getVault().logical();
-           logicalResp = logical.list(secretPath);
+           restResp = VaultManager.getInstance().getVaultClient().list(secretPath);
        } catch (Exception e) {
            String msg = MsgUtils.getMsg("SK_VAULT_READ_SECRET_METADATA_ERROR", 
                                         tenant, user, secretPath, e.getMessage());
@@ -643,7 +795,6 @@ public final class VaultImpl
        }
        
        // The rest response field is non-null if we get here.
-       var restResp = logicalResp.getRestResponse();
        int vaultStatus = restResp.getStatus();
        String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
        
@@ -755,10 +906,9 @@ public final class VaultImpl
        String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
        
        // Issue the vault call.
-       LogicalResponse logicalResp = null;
+       RestResponse restResp = null;
        try {
-           var logical = VaultManager.getInstance().getVault().logical();
-           logicalResp = logical.list(secretPath);
+           restResp = VaultManager.getInstance().getVaultClient().list(secretPath);
        } catch (Exception e) {
            String msg = MsgUtils.getMsg("SK_VAULT_LIST_SECRET_METADATA_ERROR", 
                                         tenant, user, secretPath, e.getMessage());
@@ -767,7 +917,6 @@ public final class VaultImpl
        }
        
        // The rest response field is non-null if we get here.
-       var restResp = logicalResp.getRestResponse();
        int vaultStatus = restResp.getStatus();
        String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
        
@@ -803,6 +952,122 @@ public final class VaultImpl
        return secretList;
    }
    
+   /* ---------------------------------------------------------------------- */
+   /* secretListMetaRecursive:                                               */
+   /* ---------------------------------------------------------------------- */
+   /** List one page of all the secret names under a folder, descending into
+    * subfolders up to the specified depth.  System secrets are listed from the
+    * root of the system's subtree or, if the system user is specified, from 
+    * the root of that user's subtree on the system.  Other secret types are 
+    * listed from the folder that secretListMeta would list.
+    * 
+    * The tree is listed one level at a time with the directories of each 
+    * level listed concurrently on the shared vault pool.  Keys are returned 
+    * relative to the root folder in lexicographic order.  Pages are stateless:
+    * the returned cursor encodes the last key of the page and each request 
+    * skips the directories that cannot contribute keys to its page.  Secrets
+    * added or removed between requests may therefore appear in or disappear
+    * from later pages, but no unchanged key is repeated or skipped.
+    * 
+    * A folder that does not exist contains no secrets.
+    * 
+    * @param tenant the callers tenant
+    * @param user the caller
+    * @param pathParms the secret folder parameters
+    * @param depth the number of levels to list, 0 for the maximum
+    * @param limit the maximum number of keys to return
+    * @param cursor the previous page's cursor or null for the first page
+    * @return the page of keys
+    * @throws TapisImplException on error
+    */
+   public SkSecretListPage secretListMetaRecursive(String tenant, String user, 
+                                                   SecretPathMapperParms pathParms,
+                                                   int depth, int limit, String cursor)
+    throws TapisImplException
+   {
+       // ------------------------ Input Checking ----------------------------
+       if (StringUtils.isBlank(tenant)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "secretListMetaRecursive", "tenant");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (StringUtils.isBlank(user)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "secretListMetaRecursive", "user");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (pathParms == null) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "secretListMetaRecursive", "pathParms");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (depth < 0 || depth > SkSecretListPage.MAX_DEPTH) {
+           String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "secretListMetaRecursive", 
+                                        "depth", depth);
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (limit > SkSecretListPage.MAX_LIMIT) {
+           String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "secretListMetaRecursive", 
+                                        "limit", limit);
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (depth == 0) depth = SkSecretListPage.MAX_DEPTH;
+       var pager = new SecretListPager(limit, cursor);
+       
+       // ------------------------ Request Processing ------------------------
+       // Construct the root folder's path.
+       String rootPath;
+       if (pathParms.getSecretType() == SecretType.System) 
+           rootPath = new SecretPathMapper(pathParms).getSystemSubtreePath(tenant);
+       else {
+           var secretName = pathParms.getSecretName();
+           if (secretName == null) pathParms.setSecretName("");
+            else if (!secretName.endsWith("/")) pathParms.setSecretName(secretName + "/");
+           rootPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
+       }
+       
+       // List each level concurrently.  Directory keys are relative to the root.
+       var page = new SkSecretListPage();
+       page.secretPath = rootPath;
+       page.depth = depth;
+       List<String> level = Collections.singletonList("");
+       for (int d = 1; d <= depth && !level.isEmpty(); d++) {
+           // Issue the listings of this level.
+           final boolean expand = d < depth;
+           var futures = new ArrayList<Future<List<String>>>(level.size());
+           for (String dirKey : level) {
+               if (pager.canSkipDirectory(dirKey)) continue;
+               futures.add(getBatchExecutor().submit(() -> 
+                   listPageDirectory(tenant, user, rootPath, dirKey, expand, pager)));
+           }
+           page.listings += futures.size();
+           
+           // Collect the next level's directories.
+           var nextLevel = new ArrayList<String>();
+           for (int i = 0; i < futures.size(); i++) {
+               try {nextLevel.addAll(futures.get(i).get());}
+               catch (Exception e) {
+                   for (int j = i + 1; j < futures.size(); j++) futures.get(j).cancel(true);
+                   if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                   if (e.getCause() instanceof TapisImplException) 
+                       throw (TapisImplException) e.getCause();
+                   String msg = MsgUtils.getMsg("SK_VAULT_LIST_SECRET_METADATA_ERROR", 
+                                                tenant, user, rootPath, e.getMessage());
+                   _log.error(msg, e);
+                   throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+               }
+           }
+           level = nextLevel;
+       }
+       
+       // ------------------------ Request Output ----------------------------
+       page.keys = pager.getKeys();
+       page.nextCursor = pager.getNextCursor();
+       return page;
+   }
+   
    /* ---------------------------------------------------------------------- */
    /* secretDestroyMeta:                                                     */
    /* ---------------------------------------------------------------------- */
@@ -843,19 +1108,20 @@ public final class VaultImpl
        String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
        
        // Issue the vault call.
-       LogicalResponse logicalResp = null;
+       RestResponse restResp = null;
        try {
-           var logical = VaultManager.getInstance().getVault().logical();
-           logicalResp = logical.delete(secretPath);
+           restResp = VaultManager.getInstance().getVaultClient().deleteMetadata(secretPath);
        } catch (Exception e) {
            String msg = MsgUtils.getMsg("SK_VAULT_DESTROY_SECRET_METADATA_ERROR", 
                                         tenant, user, secretPath, e.getMessage());
            _log.error(msg, e);
            throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       } finally {
+           // Cached copies may be stale whether or not the call succeeded.
+           invalidateCaches(secretPath);
        }
        
        // The rest response field is non-null if we get here.
-       var restResp = logicalResp.getRestResponse();
        int vaultStatus = restResp.getStatus();
        String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
        
@@ -868,11 +1134,114 @@ public final class VaultImpl
         }
    }
    
+   /* ---------------------------------------------------------------------- */
+   /* secretDestroySubtree:                                                  */
+   /* ---------------------------------------------------------------------- */
+   /** Destroy the metadata and all versions of every secret in a system's
+    * subtree or, if the system user is specified, in the subtree of that user
+    * on the system.  The subtree is scoped by SecretPathMapper so no secret 
+    * outside of it can be affected.
+    * 
+    * The subtree is walked depth-first on the calling thread and each secret
+    * found is destroyed on the shared vault pool, so destruction proceeds 
+    * while the walk continues.  When the pool's queue is full the caller 
+    * destroys secrets itself, which bounds the work in flight.  Progress is
+    * logged periodically.
+    * 
+    * The operation is idempotent: a missing subtree is not an error and a
+    * secret that was already destroyed is counted as destroyed.  A failed or
+    * interrupted request can therefore be restarted by repeating it, which
+    * only processes the secrets that remain.  A failure to list a directory
+    * aborts the request after in-flight destructions complete.
+    * 
+    * @param tenant caller's tenant id
+    * @param user the caller
+    * @param pathParms system secret parameters with sysId and optional sysUser
+    * @return counts of the secrets found and destroyed
+    * @throws TapisImplException on invalid input or listing failure
+    */
+   public SkSecretSubtreeResult secretDestroySubtree(String tenant, String user, 
+                                                     SecretPathMapperParms pathParms)
+    throws TapisImplException
+   {
+       // ------------------------ Input Checking ----------------------------
+       if (StringUtils.isBlank(tenant)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "secretDestroySubtree", "tenant");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (StringUtils.isBlank(user)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "secretDestroySubtree", "user");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (pathParms == null) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "secretDestroySubtree", "pathParms");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       
+       // ------------------------ Request Processing ------------------------
+       // Construct the subtree's directory path, which validates its components.
+       String rootPath = new SecretPathMapper(pathParms).getSystemSubtreePath(tenant);
+       
+       // Walk the tree while destroying secrets.
+       long startMillis = System.currentTimeMillis();
+       var result = new SkSecretSubtreeResult();
+       result.secretPath = rootPath;
+       var destroyed = new AtomicInteger();
+       var tasks = new ArrayList<DestroyTask>();
+       TapisImplException walkException = null;
+       try {walkSubtree(tenant, user, rootPath, result, destroyed, tasks);}
+           catch (TapisImplException e) {walkException = e;}
+       
+       // Wait for all destructions to complete.
+       for (int i = 0; i < tasks.size(); i++) {
+           var task = tasks.get(i);
+           String failedPath;
+           try {failedPath = task.future().get();}
+           catch (InterruptedException e) {
+               // Abandon the remaining destructions; the request can be repeated.
+               Thread.currentThread().interrupt();
+               for (int j = i; j < tasks.size(); j++) tasks.get(j).future().cancel(true);
+               String msg = MsgUtils.getMsg("SK_VAULT_DESTROY_SECRET_METADATA_ERROR", 
+                                            tenant, user, rootPath, e.getMessage());
+               _log.error(msg, e);
+               throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+           }
+           catch (ExecutionException e) {
+               // The task failed unexpectedly, so report the path it was given.
+               failedPath = task.secretPath();
+               String msg = MsgUtils.getMsg("SK_VAULT_DESTROY_SECRET_METADATA_ERROR", 
+                                            tenant, user, failedPath, e.getMessage());
+               _log.error(msg, e);
+           }
+           
+           // Record failures.
+           if (failedPath == null) result.destroyed++;
+           else {
+               result.failed++;
+               if (result.failedPaths.size() < SkSecretSubtreeResult.MAX_FAILED_PATHS)
+                   result.failedPaths.add(failedPath);
+           }
+       }
+       result.elapsedMillis = System.currentTimeMillis() - startMillis;
+       
+       // Summarize.
+       _log.info("Destroyed " + result.destroyed + " of " + result.found + " secrets in " + 
+                 rootPath + " with " + result.failed + " failures and " + result.listings + 
+                 " listings in " + result.elapsedMillis + " ms.");
+       if (walkException != null) throw walkException;
+       
+       return result;
+   }
+   
    /* ---------------------------------------------------------------------------- */
    /* validateServicePwd:                                                          */
    /* ---------------------------------------------------------------------------- */
    /** Return true only if the password parameter exactly matches the service's 
-    * password in vault.  Otherwise, false is returned.
+    * password in vault.  Otherwise, false is returned.  When the service password
+    * cache is enabled, a valid password is usually confirmed without a vault call.
     * 
     * @param tenant the service's tenant
     * @param serviceName the service name
@@ -887,7 +1256,16 @@ public final class VaultImpl
     throws TapisImplException
    {
        // ------------------------ Input Checking ----------------------------
-       // The read method will check the first two parameters.
+       if (StringUtils.isBlank(tenant)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "validateServicePwd", "tenant");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (StringUtils.isBlank(serviceName)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "validateServicePwd", "serviceName");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
        if (StringUtils.isBlank(password)) {
            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "validateServicePwd", "password");
            _log.error(msg);
@@ -904,6 +1282,133 @@ public final class VaultImpl
        var pathParms = new SecretPathMapperParms(SecretType.ServicePwd);
        pathParms.setSecretName(secretName);
        
+       // Check the cached password hash first if possible.
+       var pwdCache = SkServicePwdCache.getInstance();
+       if (pwdCache.isEnabled()) {
+           String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, serviceName);
+           return pwdCache.validate(secretPath, password, 
+                       () -> readServicePwd(tenant, serviceName, secretName, pathParms));
+       }
+       
+       // Compare to the password in vault.
+       String vaultPassword = readServicePwd(tenant, serviceName, secretName, pathParms);
+       if (vaultPassword == null) return false;
+       return MessageDigest.isEqual(vaultPassword.getBytes(StandardCharsets.UTF_8), 
+                                    password.getBytes(StandardCharsets.UTF_8));
+   }
+
+   /* ---------------------------------------------------------------------------- */
+   /* jwtPublicKeyRead:                                                            */
+   /* ---------------------------------------------------------------------------- */
+   /** Return the public key of the latest version of a tenant's JWT signing 
+    * secret.  Keys are served from memory and reread from vault only when the 
+    * secret's version changes.
+    * 
+    * @param tenant the signing secret's tenant
+    * @param user the caller
+    * @param secretName the signing secret name
+    * @return the public key
+    * @throws TapisImplException on error or if the secret has no public key
+    */
+   public SkJwtPublicKey jwtPublicKeyRead(String tenant, String user, String secretName)
+    throws TapisImplException
+   {
+       // ------------------------ Input Checking ----------------------------
+       if (StringUtils.isBlank(tenant)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "jwtPublicKeyRead", "tenant");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (StringUtils.isBlank(user)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "jwtPublicKeyRead", "user");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       if (StringUtils.isBlank(secretName)) {
+           String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "jwtPublicKeyRead", "secretName");
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.BAD_REQUEST);
+       }
+       
+       // ------------------------ Request Processing ------------------------
+       var pathParms = new SecretPathMapperParms(SecretType.JWTSigning);
+       pathParms.setSecretName(secretName);
+       String secretPath = new SecretPathMapper(pathParms).getSecretPath(tenant, user);
+       
+       return SkJwtKeyCache.getInstance().get(secretPath, new SkJwtKeyCache.KeyLoader() {
+           @Override
+           public int getCurrentVersion() throws TapisImplException 
+           {return readCurrentVersion(tenant, user, secretPath);}
+           
+           @Override
+           public SkJwtPublicKey load() throws TapisImplException 
+           {return readJwtPublicKey(tenant, user, secretName, pathParms);}
+       });
+   }
+
+   /* **************************************************************************** */
+   /*                                   Accessors                                  */
+   /* **************************************************************************** */
+   // Multi-secret request pool metrics, zero until the pool is first used.
+   public int getBatchActiveCount() 
+   {var e = _batchExecutor; return e == null ? 0 : e.getActiveCount();}
+   public int getBatchQueueDepth() 
+   {var e = _batchExecutor; return e == null ? 0 : e.getQueue().size();}
+   public int getBatchLargestPoolSize() 
+   {var e = _batchExecutor; return e == null ? 0 : e.getLargestPoolSize();}
+   public long getBatchCompletedCount() 
+   {var e = _batchExecutor; return e == null ? 0 : e.getCompletedTaskCount();}
+
+   /* **************************************************************************** */
+   /*                               Private Methods                                */
+   /* **************************************************************************** */
+   /* ---------------------------------------------------------------------------- */
+   /* getBatchExecutor:                                                            */
+   /* ---------------------------------------------------------------------------- */
+   /** Get the multi-secret request pool, creating it on first use.  The pool is
+    * sized from the vault manager's configuration, which is set up before any
+    * vault call is made, so VaultImpl can be used in processes that have no
+    * service runtime parameters.
+    * 
+    * @return the pool
+    */
+   private ThreadPoolExecutor getBatchExecutor()
+   {
+       var executor = _batchExecutor;
+       if (executor != null) return executor;
+       synchronized (this) {
+           if (_batchExecutor == null) {
+               var vaultMgr = VaultManager.getInstance(true);
+               int maxConcurrent = vaultMgr == null ? MAX_BATCH_WORKERS : 
+                                                      vaultMgr.getVaultClientMaxConcurrent();
+               int workers = Math.max(1, Math.min(MAX_BATCH_WORKERS, maxConcurrent));
+               var threadNum = new AtomicInteger();
+               executor = new ThreadPoolExecutor(workers, workers, KEEP_ALIVE_SECS, TimeUnit.SECONDS,
+                                                 new ArrayBlockingQueue<Runnable>(BATCH_QUEUE_SIZE),
+                                                 r -> {
+                                                     var t = new Thread(r, "SkVaultBatch-" + threadNum.incrementAndGet());
+                                                     t.setDaemon(true);
+                                                     return t;
+                                                 },
+                                                 new ThreadPoolExecutor.CallerRunsPolicy());
+               executor.allowCoreThreadTimeOut(true);
+               _batchExecutor = executor;
+           }
+           return _batchExecutor;
+       }
+   }
+   
+   /* ---------------------------------------------------------------------------- */
+   /* readServicePwd:                                                              */
+   /* ---------------------------------------------------------------------------- */
+   /** Read the latest version of a service password from vault.
+    * 
+    * @return the password or null if it's not set
+    */
+   private String readServicePwd(String tenant, String serviceName, String secretName,
+                                 SecretPathMapperParms pathParms)
+    throws TapisImplException
+   {
        // Let the read method do the heavy lifting by reading the 
        // latest version of the secret.
        SkSecret secret;
@@ -919,16 +1424,254 @@ public final class VaultImpl
        // will list passwords as the last element in a path.
        String key = FilenameUtils.getName(secretName);
        String vaultPassword = secret.secretMap.get(key);
-       if (StringUtils.isBlank(vaultPassword)) return false;
-       if (!vaultPassword.equals(password))    return false;
+       return StringUtils.isBlank(vaultPassword) ? null : vaultPassword;
+   }
+   
+   /* ---------------------------------------------------------------------------- */
+   /* readJwtPublicKey:                                                            */
+   /* ---------------------------------------------------------------------------- */
+   /** Read the public key of the latest version of a JWT signing secret. */
+   private SkJwtPublicKey readJwtPublicKey(String tenant, String user, String secretName,
+                                           SecretPathMapperParms pathParms)
+    throws TapisImplException
+   {
+       // Read the whole secret, but only the public key leaves this method.
+       SkSecret secret = secretRead(tenant, user, pathParms, 0);
+       String publicKey = secret.secretMap.get(JWT_PUBLIC_KEY_NAME);
+       if (StringUtils.isBlank(publicKey) || secret.metadata == null) {
+           String msg = MsgUtils.getMsg("TAPIS_NOT_FOUND", "JWT public key", secretName);
+           _log.error(msg);
+           throw new TapisImplException(msg, Condition.NOT_FOUND);
+       }
        
-       // A match.
-       return true;
+       // Identify the key by its digest.
+       var key = new SkJwtPublicKey();
+       key.tenant = tenant;
+       key.secretName = secretName;
+       key.version = secret.metadata.version;
+       key.publicKey = publicKey;
+       try {
+           byte[] digest = MessageDigest.getInstance("SHA-256").
+                               digest(publicKey.getBytes(StandardCharsets.UTF_8));
+           var buf = new StringBuilder(digest.length * 2);
+           for (byte b : digest) buf.append(Character.forDigit((b >> 4) & 0xf, 16)).
+                                     append(Character.forDigit(b & 0xf, 16));
+           key.fingerprint = buf.toString();
+       } catch (Exception e) {
+           // Every JRE provides SHA-256.
+           String msg = MsgUtils.getMsg("TAPIS_RUNTIME_EXCEPTION", e.getMessage());
+           _log.error(msg, e);
+           throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       }
+       return key;
+   }
+   
+   /* ---------------------------------------------------------------------------- */
+   /* readCurrentVersion:                                                          */
+   /* ---------------------------------------------------------------------------- */
+   /** Read a secret's current version from its metadata.
+    * 
+    * @return the current version or 0 if the secret does not exist
+    */
+   private int readCurrentVersion(String tenant, String user, String secretPath)
+    throws TapisImplException
+   {
+       // Read the metadata.
+       RestResponse restResp = null;
+       try {
+           restResp = VaultManager.getInstance().getVaultClient().list(secretPath);
+       } catch (Exception e) {
+           String msg = MsgUtils.getMsg("SK_VAULT_READ_SECRET_METADATA_ERROR", 
+                                        tenant, user, secretPath, e.getMessage());
+           _log.error(msg, e);
+           throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       }
+       
+       // Check the result.
+       int vaultStatus = restResp.getStatus();
+       if (vaultStatus == 404) return 0;
+       String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
+       if (vaultStatus >= 400) {
+           String msg = MsgUtils.getMsg("SK_VAULT_READ_SECRET_METADATA_ERROR", 
+                                        tenant, user, secretPath, vaultBody); // this is never a secret
+           _log.error(msg);
+           throw new TapisImplException(msg, vaultStatus);       
+       }
+       
+       // Extract the version.
+       try {
+           var bodyJson = TapisGsonUtils.getGson().fromJson(vaultBody, JsonObject.class);
+           JsonObject dataObj = (JsonObject) bodyJson.get("data");
+           return dataObj == null ? 0 : dataObj.get("current_version").getAsInt();
+       } catch (Exception e) {
+           String msg = MsgUtils.getMsg("SK_VAULT_READ_SECRET_METADATA_ERROR", 
+                                        tenant, user, secretPath, e.getMessage());
+           _log.error(msg, e);
+           throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       }
+   }
+   
+   /* ---------------------------------------------------------------------------- */
+   /* walkSubtree:                                                                 */
+   /* ---------------------------------------------------------------------------- */
+   /** List a directory and recursively process its contents.  Keys that end 
+    * with a slash are subdirectories, all others are secrets to be destroyed.
+    */
+   private void walkSubtree(String tenant, String user, String dirPath,
+                            SkSecretSubtreeResult result, AtomicInteger destroyed,
+                            List<DestroyTask> tasks)
+    throws TapisImplException
+   {
+       // A missing directory has already been removed.
+       result.listings++;
+       SkSecretList secretList = listDirectory(tenant, user, dirPath);
+       if (secretList == null) return;
+       
+       // Destroy secrets and descend into subdirectories.
+       for (String key : secretList.keys) {
+           if (key.endsWith("/")) {
+               walkSubtree(tenant, user, dirPath + key, result, destroyed, tasks);
+               continue;
+           }
+           String secretPath = dirPath + key;
+           result.found++;
+           tasks.add(new DestroyTask(secretPath, getBatchExecutor().submit(() -> 
+                         destroySubtreeSecret(tenant, user, secretPath, destroyed))));
+       }
+   }
+   
+   /* ---------------------------------------------------------------------------- */
+   /* listDirectory:                                                               */
+   /* ---------------------------------------------------------------------------- */
+   /** List the immediate contents of a vault directory.  Keys that end with a 
+    * slash are subdirectories.
+    * 
+    * @return the directory's keys or null if the directory does not exist
+    */
+   private SkSecretList listDirectory(String tenant, String user, String dirPath)
+    throws TapisImplException
+   {
+       // List the directory.
+       RestResponse restResp = null;
+       try {
+           restResp = VaultManager.getInstance().getVaultClient().list(dirPath);
+       } catch (Exception e) {
+           String msg = MsgUtils.getMsg("SK_VAULT_LIST_SECRET_METADATA_ERROR", 
+                                        tenant, user, dirPath, e.getMessage());
+           _log.error(msg, e);
+           throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       }
+       
+       // Check the result.
+       int vaultStatus = restResp.getStatus();
+       if (vaultStatus == 404) return null;
+       String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
+       if (vaultStatus >= 400) {
+           String msg = MsgUtils.getMsg("SK_VAULT_LIST_SECRET_METADATA_ERROR", 
+                                        tenant, user, dirPath, vaultBody); // this is never a secret
+           _log.error(msg);
+           throw new TapisImplException(msg, vaultStatus);       
+       }
+       
+       // Extract the keys.
+       SkSecretList secretList;
+       try {
+           var bodyJson = TapisGsonUtils.getGson().fromJson(vaultBody, JsonObject.class);
+           JsonObject dataObj = (JsonObject) bodyJson.get("data");
+           secretList = dataObj == null ? new SkSecretList() :
+                            TapisGsonUtils.getGson().fromJson(dataObj, SkSecretList.class);
+       } catch (Exception e) {
+           String msg = MsgUtils.getMsg("SK_VAULT_LIST_SECRET_METADATA_ERROR", 
+                                        tenant, user, dirPath, e.getMessage());
+           _log.error(msg, e);
+           throw new TapisImplException(msg, Condition.INTERNAL_SERVER_ERROR);
+       }
+       if (secretList.keys == null) secretList.keys = new ArrayList<>();
+       secretList.secretPath = dirPath;
+       
+       return secretList;
+   }
+   
+   /* ---------------------------------------------------------------------------- */
+   /* listPageDirectory:                                                           */
+   /* ---------------------------------------------------------------------------- */
+   /** List a directory on behalf of a paged listing.  Secrets are offered to the
+    * pager as are subdirectories that will not be expanded.
+    * 
+    * @return the keys of the subdirectories to be listed at the next level
+    */
+   private List<String> listPageDirectory(String tenant, String user, String rootPath,
+                                          String dirKey, boolean expand, 
+                                          SecretListPager pager)
+    throws TapisImplException
+   {
+       // A directory removed since its parent was listed is empty.
+       SkSecretList secretList = listDirectory(tenant, user, rootPath + dirKey);
+       if (secretList == null) return Collections.emptyList();
+       
+       var subdirs = new ArrayList<String>();
+       for (String key : secretList.keys) {
+           String relKey = dirKey + key;
+           if (expand && key.endsWith("/")) {
+               if (!pager.canSkipDirectory(relKey)) subdirs.add(relKey);
+           }
+           else pager.offer(relKey);
+       }
+       return subdirs;
+   }
+   
+   /* ---------------------------------------------------------------------------- */
+   /* destroySubtreeSecret:                                                        */
+   /* ---------------------------------------------------------------------------- */
+   /** Destroy a secret's metadata and versions.
+    * 
+    * @return null on success, the secret path on failure
+    */
+   private String destroySubtreeSecret(String tenant, String user, String secretPath,
+                                       AtomicInteger destroyed)
+   {
+       // Issue the vault call.
+       RestResponse restResp = null;
+       try {
+           restResp = VaultManager.getInstance().getVaultClient().deleteMetadata(secretPath);
+       } catch (Exception e) {
+           String msg = MsgUtils.getMsg("SK_VAULT_DESTROY_SECRET_METADATA_ERROR", 
+                                        tenant, user, secretPath, e.getMessage());
+           _log.error(msg, e);
+           return secretPath;
+       } finally {
+           // Cached copies may be stale whether or not the call succeeded.
+           invalidateCaches(secretPath);
+       }
+       
+       // A secret that no longer exists counts as destroyed.
+       int vaultStatus = restResp.getStatus();
+       if (vaultStatus >= 400 && vaultStatus != 404) {
+           String vaultBody = restResp.getBody() == null ? "{}" : new String(restResp.getBody());
+           String msg = MsgUtils.getMsg("SK_VAULT_DESTROY_SECRET_METADATA_ERROR", 
+                                        tenant, user, secretPath, vaultBody);
+           _log.error(msg);
+           return secretPath;
+       }
+       
+       // Report progress.
+       int count = destroyed.incrementAndGet();
+       if (count % SUBTREE_PROGRESS_INTERVAL == 0)
+           _log.info("Destroyed " + count + " secrets, most recently " + secretPath + ".");
+       return null;
+   }
+   
+   /* ---------------------------------------------------------------------------- */
+   /* invalidateCaches:                                                            */
+   /* ---------------------------------------------------------------------------- */
+   /** Discard cached information about a secret after it may have changed. */
+   private void invalidateCaches(String secretPath)
+   {
+       SkSecretCache.getInstance().invalidate(secretPath);
+       SkServicePwdCache.getInstance().invalidate(secretPath);
+       SkJwtKeyCache.getInstance().invalidate(secretPath);
    }
    
-   /* **************************************************************************** */
-   /*                               Private Methods                                */
-   /* **************************************************************************** */
    /* ---------------------------------------------------------------------------- */
    /* getSecretLatestVersionNumber:                                                */
    /* ---------------------------------------------------------------------------- */
@@ -0,0 +1,34 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+/** The result of an effective access check.  When access is granted, the 
+ * source indicates which authorization mechanism granted it.
+ */
+public final class SkAccessResult 
+{
+    // The authorization mechanism that granted access.
+    public enum AccessSource {PERMISSION, SHARE, ADMIN, NONE}
+    
+    private boolean      authorized;
+    private AccessSource source = AccessSource.NONE;
+    
+    public SkAccessResult() {}
+    public SkAccessResult(AccessSource source) 
+    {
+        this.source = source;
+        this.authorized = source != AccessSource.NONE;
+    }
+    
+    // Accessors.
+    public boolean isAuthorized() {
+        return authorized;
+    }
+    public void setAuthorized(boolean authorized) {
+        this.authorized = authorized;
+    }
+    public AccessSource getSource() {
+        return source;
+    }
+    public void setSource(AccessSource source) {
+        this.source = source;
+    }
+}
@@ -0,0 +1,155 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+import org.apache.commons.lang3.StringUtils;
+
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Selection criteria for an effective access check that considers both the
+ * permissions a user is assigned through roles and the resources shared with
+ * the user.  The permission specification and the share fields are each 
+ * optional, but at least one of the two sources must be specified.
+ */
+public final class SkAccessSelector 
+{
+    private String  tenant;
+    private String  user;
+    private String  permSpec;           // role permission source
+    private String  resourceType;       // share source
+    private String  resourceId1;     
+    private String  resourceId2;     
+    private String  privilege;    
+    private boolean excludePublic;
+    private boolean excludePublicNoAuthn;
+    private boolean orAdmin;
+    
+    /** Check that the tenant and user are specified along with at least one
+     * complete access source.  This is the only place these rules are
+     * enforced, so request bodies that produce selectors validate them here.
+     * 
+     * @throws TapisException on the first missing field
+     */
+    public void validate() throws TapisException
+    {
+        // Exceptions can be throw from here.
+        if (StringUtils.isBlank(tenant)) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "hasAccess", "tenant");
+            throw new TapisException(msg);
+        }
+        if (StringUtils.isBlank(user)) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "hasAccess", "user");
+            throw new TapisException(msg);
+        }
+        
+        // Any share field requires all mandatory share fields.
+        if (!StringUtils.isBlank(resourceType) || !StringUtils.isBlank(resourceId1) || 
+            !StringUtils.isBlank(privilege)) 
+        {
+            if (StringUtils.isBlank(resourceType)) {
+                String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "hasAccess", "resourceType");
+                throw new TapisException(msg);
+            }
+            if (StringUtils.isBlank(resourceId1)) {
+                String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "hasAccess", "resourceId1");
+                throw new TapisException(msg);
+            }
+            if (StringUtils.isBlank(privilege)) {
+                String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "hasAccess", "privilege");
+                throw new TapisException(msg);
+            }
+        }
+        
+        // At least one source must be specified.
+        if (!hasPermissionSource() && !hasShareSource()) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "hasAccess", "permSpec");
+            throw new TapisException(msg);
+        }
+    }
+    
+    // Is the role permission source specified?
+    public boolean hasPermissionSource() {
+        return !StringUtils.isBlank(permSpec);
+    }
+    
+    // Is the share source specified?
+    public boolean hasShareSource() {
+        return !StringUtils.isBlank(resourceType) && !StringUtils.isBlank(resourceId1) &&
+               !StringUtils.isBlank(privilege);
+    }
+    
+    // Create the share selector for this access check.
+    public SkSharePrivilegeSelector toSharePrivilegeSelector() {
+        var sel = new SkSharePrivilegeSelector();
+        sel.setTenant(tenant);
+        sel.setGrantee(user);
+        sel.setResourceType(resourceType);
+        sel.setResourceId1(resourceId1);
+        sel.setResourceId2(resourceId2);
+        sel.setPrivilege(privilege);
+        sel.setExcludePublic(excludePublic);
+        sel.setExcludePublicNoAuthn(excludePublicNoAuthn);
+        return sel;
+    }
+    
+    // Accessors.
+    public String getTenant() {
+        return tenant;
+    }
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+    public String getUser() {
+        return user;
+    }
+    public void setUser(String user) {
+        this.user = user;
+    }
+    public String getPermSpec() {
+        return permSpec;
+    }
+    public void setPermSpec(String permSpec) {
+        this.permSpec = permSpec;
+    }
+    public String getResourceType() {
+        return resourceType;
+    }
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+    public String getResourceId1() {
+        return resourceId1;
+    }
+    public void setResourceId1(String resourceId1) {
+        this.resourceId1 = resourceId1;
+    }
+    public String getResourceId2() {
+        return resourceId2;
+    }
+    public void setResourceId2(String resourceId2) {
+        this.resourceId2 = resourceId2;
+    }
+    public String getPrivilege() {
+        return privilege;
+    }
+    public void setPrivilege(String privilege) {
+        this.privilege = privilege;
+    }
+    public boolean isExcludePublic() {
+        return excludePublic;
+    }
+    public void setExcludePublic(boolean excludePublic) {
+        this.excludePublic = excludePublic;
+    }
+    public boolean isExcludePublicNoAuthn() {
+        return excludePublicNoAuthn;
+    }
+    public void setExcludePublicNoAuthn(boolean excludePublicNoAuthn) {
+        this.excludePublicNoAuthn = excludePublicNoAuthn;
+    }
+    public boolean isOrAdmin() {
+        return orAdmin;
+    }
+    public void setOrAdmin(boolean orAdmin) {
+        this.orAdmin = orAdmin;
+    }
+}
@@ -0,0 +1,20 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** A page of a tenant's authorization change log.  Clients pass the version 
+ * of the last change they processed and receive the changes that follow it.
+ * When resyncRequired is true, changes after the client's version are no 
+ * longer retained and the client must reload its cache from scratch, then
+ * continue from currentVersion.
+ */
+public final class SkAuthzChangeList 
+{
+    public String  tenant;
+    public long    sinceVersion;
+    public long    currentVersion;
+    public boolean more;
+    public boolean resyncRequired;
+    public List<SkAuthzChangeRecord> changes = new ArrayList<>();
+}
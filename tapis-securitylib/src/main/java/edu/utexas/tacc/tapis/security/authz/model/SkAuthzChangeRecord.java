@@ -0,0 +1,41 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+import java.time.Instant;
+
+/** One entry in a tenant's authorization change log.  The change type names
+ * the kind of data that changed; a null user means any user in the tenant 
+ * may be affected.
+ */
+public final class SkAuthzChangeRecord 
+{
+    private long    version;
+    private String  changeType;
+    private String  user;
+    private Instant created;
+    
+    // Accessors.
+    public long getVersion() {
+        return version;
+    }
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    public String getChangeType() {
+        return changeType;
+    }
+    public void setChangeType(String changeType) {
+        this.changeType = changeType;
+    }
+    public String getUser() {
+        return user;
+    }
+    public void setUser(String user) {
+        this.user = user;
+    }
+    public Instant getCreated() {
+        return created;
+    }
+    public void setCreated(Instant created) {
+        this.created = created;
+    }
+}
@@ -0,0 +1,15 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+/** The public key of a tenant's JWT signing key pair.  The version is the
+ * vault version of the signing secret and the fingerprint is the hex encoded
+ * SHA-256 digest of the public key.  Together they identify the key, even if
+ * the secret is destroyed and recreated with the same version number.
+ */
+public final class SkJwtPublicKey 
+{
+    public String tenant;
+    public String secretName;
+    public int    version;
+    public String publicKey;
+    public String fingerprint;
+}
@@ -0,0 +1,19 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+/** The outcome of reading one secret in a batch request.  The status is
+ * OK when the secret was read, otherwise it is the name of the http status
+ * that a single read would have returned and the message explains why.
+ */
+public final class SkSecretBatchItem 
+{
+    // The status of a successful read.
+    public static final String STATUS_OK = "OK";
+    
+    public int      index;       // position in the request
+    public String   secretType;  // secret type as it appears in urls
+    public String   secretName;
+    public int      version;     // requested version, 0 for latest
+    public String   status;      // OK or an http status name
+    public String   message;     // set on failure
+    public SkSecret secret;      // set on success
+}
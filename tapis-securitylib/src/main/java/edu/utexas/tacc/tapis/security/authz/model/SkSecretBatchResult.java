@@ -0,0 +1,15 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class SkSecretBatchResult 
+{
+    // The number of secrets read and not read.
+    public int succeeded;
+    public int failed;
+    
+    // Initialize the list to be non-null.  There is one
+    // item for each secret in the request, in request order.
+    public List<SkSecretBatchItem> items = new ArrayList<>();
+}
@@ -0,0 +1,33 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** One page of the keys found by recursively listing a vault directory.  Keys
+ * are relative to the directory and returned in lexicographic order.  Keys 
+ * that end with a slash are directories at the depth limit that were not 
+ * listed.  When more keys exist, nextCursor is passed on the next request to
+ * retrieve the following page.
+ */
+public final class SkSecretListPage 
+{
+    // Page size and depth limits.
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT     = 1000;
+    public static final int MAX_DEPTH     = 16;
+    
+    // The directory that was listed.
+    public String secretPath;
+    
+    // The number of directory levels that could be listed.
+    public int depth;
+    
+    // The number of directories listed to produce this page.
+    public int listings;
+    
+    // Null when this is the last page.
+    public String nextCursor;
+    
+    // Initialize the list to be non-null.
+    public List<String> keys = new ArrayList<>();
+}
@@ -0,0 +1,28 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** The outcome of destroying all secrets in a vault subtree.  A subtree that
+ * does not exist is reported as having no secrets, so repeating a completed 
+ * or interrupted request is safe and only processes the secrets that remain.
+ */
+public final class SkSecretSubtreeResult 
+{
+    // Maximum number of failed paths reported.
+    public static final int MAX_FAILED_PATHS = 100;
+    
+    // The subtree's directory path.
+    public String secretPath;
+    
+    // Processing counts.
+    public int  listings;       // directories listed
+    public int  found;          // secrets found
+    public int  destroyed;      // secrets whose metadata and versions were destroyed
+    public int  failed;         // secrets that could not be destroyed
+    public long elapsedMillis;
+    
+    // Initialize the list to be non-null.  At most MAX_FAILED_PATHS 
+    // of the secrets that could not be destroyed are listed.
+    public List<String> failedPaths = new ArrayList<>();
+}
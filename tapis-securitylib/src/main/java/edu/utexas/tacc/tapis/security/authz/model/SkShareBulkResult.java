@@ -0,0 +1,14 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class SkShareBulkResult 
+{
+    // The number of rows inserted or deleted.
+    public int changes;
+    
+    // Initialize the list to be non-null. There is one
+    // outcome for each distinct share in the request.
+    public List<SkShareOutcome> outcomes = new ArrayList<>();
+}
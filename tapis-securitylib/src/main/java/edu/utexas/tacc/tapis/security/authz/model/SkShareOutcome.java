@@ -0,0 +1,35 @@
+package edu.utexas.tacc.tapis.security.authz.model;
+
+/** The result of applying one share or unshare request in a bulk operation. 
+ * The share object contains the database id and creation information when
+ * the share exists or existed in the database. 
+ */
+public final class SkShareOutcome 
+{
+    // The possible results of a single bulk operation item.
+    public enum Outcome {CREATED, EXISTED, DELETED, NOT_FOUND}
+    
+    private SkShare share;
+    private Outcome outcome;
+    
+    public SkShareOutcome() {}
+    public SkShareOutcome(SkShare share, Outcome outcome) 
+    {
+        this.share = share;
+        this.outcome = outcome;
+    }
+    
+    // Accessors.
+    public SkShare getShare() {
+        return share;
+    }
+    public void setShare(SkShare share) {
+        this.share = share;
+    }
+    public Outcome getOutcome() {
+        return outcome;
+    }
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+}
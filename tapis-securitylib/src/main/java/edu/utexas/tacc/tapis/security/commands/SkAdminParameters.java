@@ -31,6 +31,10 @@ public class SkAdminParameters
     private static final int DFT_PASSWORD_BYTES = 16;
     private static final int MIN_PASSWORD_BYTES = 8;
     
+    // Concurrency limits.
+    private static final int DFT_WORKERS = 1;
+    public  static final int MAX_WORKERS = 256;
+    
     // Output choices.
     public static final String OUTPUT_TEXT = "text";
     public static final String OUTPUT_JSON = "json";
@@ -93,6 +97,10 @@ public class SkAdminParameters
             usage = "validate SSL connection to kubernetes")
     public boolean kubeValidateSSL = false;
     
+    @Option(name = "-kp", required = false, aliases = {"-kubePatch"}, 
+            usage = "update existing kubernetes secrets in place instead of deleting and recreating them")
+    public boolean kubePatch;
+    
     // --------- SK Parameters -------------
     // SK or Vault parameters are always required, but not both.
     @Option(name = "-j", required = false, aliases = {"-jwtenv"}, 
@@ -117,6 +125,18 @@ public class SkAdminParameters
             usage = "number of random bytes in generated passwords")
     public int passwordLength = DFT_PASSWORD_BYTES;
     
+    @Option(name = "-workers", required = false, 
+            usage = "number of concurrent vault and kubernetes requests, 1 for serial processing")
+    public int workers = DFT_WORKERS;
+    
+    @Option(name = "-diff", required = false, 
+            usage = "only write secrets whose values differ from those in vault or kubernetes")
+    public boolean diff;
+    
+    @Option(name = "-plan", required = false, 
+            usage = "report the changes -diff would make without making them")
+    public boolean plan;
+    
     @Option(name = "-o", required = false, aliases = {"-output"}, 
             usage = "'text' (default), 'json' or 'yaml'")
     public String output = OUTPUT_TEXT;
@@ -216,7 +236,12 @@ public class SkAdminParameters
              "\nto access the secrets using the Security Kernel or the {-vr, -vs} options " +
              "\nto accress the secrets by going directly to Vault. Set the baseurl to " +
              "\nmatch the access method.  Set the {-kn, -kt, -ku} options when deploying " +
-             "\nsecrets to Kubernetes.\n";
+             "\nsecrets to Kubernetes." +
+             "\n\nUse the -diff option to first read the current Vault and Kubernetes " +
+             "\nsecrets and then write only those that differ from the input. Use the " +
+             "\n-plan option to report those differences without writing anything." +
+             "\n\nUse the -kp option to update existing Kubernetes secrets with a single " +
+             "\nrequest each rather than deleting and recreating them.\n";
          System.out.println(s);
          System.exit(0);
         }
@@ -242,6 +267,16 @@ public class SkAdminParameters
             throw new TapisException(msg);
         }
         
+        // Check the concurrency limit.
+        if (workers < 1 || workers > MAX_WORKERS) {
+            String msg = "The -workers parameter must be between 1 and " + MAX_WORKERS + ".";
+            _log.error(msg);
+            throw new TapisException(msg);
+        }
+        
+        // Planning always computes differences.
+        if (plan) diff = true;
+        
         // Make sure password length exceeds minimum.
         if (passwordLength < MIN_PASSWORD_BYTES) {
             String msg = "The minumum password length is " + MIN_PASSWORD_BYTES + ".";
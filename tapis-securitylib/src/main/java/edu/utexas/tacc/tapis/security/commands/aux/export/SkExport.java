@@ -1,13 +1,24 @@
 package edu.utexas.tacc.tapis.security.commands.aux.export;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import com.google.gson.JsonObject;
@@ -19,6 +30,18 @@ import edu.utexas.tacc.tapis.security.secrets.SecretTypeDetector;
 import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
 
 /** Export secrets from Vault in either raw or deployment ready formats.
+ * 
+ * Secrets are written to standard output as they are read, so memory use does
+ * not depend on the size of Vault.  Statistics and progress messages are written
+ * to standard error when requested.
+ * 
+ * The Vault tree is walked depth-first on a single thread by default.  When
+ * more than one worker is requested, listings and reads are issued concurrently
+ * by at most that many workers sharing one http client.  Workers prefetch a 
+ * bounded number of paths ahead of the path being written, which is always the
+ * next one in depth-first order, so the parallel walk produces exactly the same
+ * output as the serial walk.  Requests that fail with transient errors are 
+ * retried with exponential backoff in both modes.
  * 
  * @author rcardone
  */
@@ -32,7 +55,6 @@ public class SkExport
     
     // Initial output string.
     private static final String START_SECRETS = "[";
-    private static final int    START_SECRETS_LEN = START_SECRETS.length();
     private static final String END_SECRETS  = "\n]";
     private static final int    OUTPUT_BUFLEN = 8192;
     
@@ -41,6 +63,17 @@ public class SkExport
     
     // We sanitize by removing all characters not in this character class.
     private static final Pattern SANITIZER = Pattern.compile("[^a-zA-Z0-9_]");
+    
+    // Retry backoff limits.
+    private static final long RETRY_INITIAL_BACKOFF_MILLIS = 500;
+    private static final long RETRY_MAX_BACKOFF_MILLIS     = 30000;
+    
+    // Parallel walk progress is reported at this interval.
+    private static final long PROGRESS_INTERVAL_SECONDS = 10;
+    
+    // The number of paths each parallel walk worker may process ahead of the
+    // path being written.
+    private static final int LOOKAHEAD_PER_WORKER = 16;
 
     /* ********************************************************************** */
     /*                                 Fields                                 */
@@ -51,13 +84,15 @@ public class SkExport
     // The client used for all http calls.
     private final HttpClient           _httpClient;
     
-    // Raw secrets information.
-    private final ArrayList<SecretInfo> _secretRecs;
+    // Progress counters, which are updated concurrently by the parallel walk.
+    private final AtomicInteger        _numListings     = new AtomicInteger();
+    private final AtomicInteger        _numReads        = new AtomicInteger();
+    private final AtomicInteger        _numWrites       = new AtomicInteger();
+    private final AtomicInteger        _numUnknownPaths = new AtomicInteger();
+    private final AtomicInteger        _numRetries      = new AtomicInteger();
     
-    // Progress counters.
-    private int                        _numListings;
-    private int                        _numReads;
-    private int                        _numUnknownPaths;
+    // The most paths processed by the parallel walk but not yet written.
+    private volatile int               _maxBufferedPaths;
     
     // Result reporting lists.
     private final TreeSet<String>      _failedReads;   // Number of secrets paths that could not be read.
@@ -89,7 +124,6 @@ public class SkExport
         _parms = parms;
         _httpClient  = HttpClient.newHttpClient();
         _failedReads = new TreeSet<String>();
-        _secretRecs  = new ArrayList<>(256);
     }
 
     /* ********************************************************************** */
@@ -123,23 +157,30 @@ public class SkExport
         // Check status of Vault.
         checkVaultStatus();
         
-        // Walk the Vault source tree and discover all tapis secrets.
-        processSourceTree(TAPIS_SECRET_ROOT);
-        
-        // Put all secrets into a list of records.
-        var outputRecs = calculateOutputRecs();
+        // Walk the Vault source tree and write each tapis secret as it's
+        // discovered in the user-specified output format.
+        var writer = new SecretsWriter();
+        if (_parms.workers > 1) processSourceTreeParallel(TAPIS_SECRET_ROOT, writer);
+          else processSourceTree(TAPIS_SECRET_ROOT, writer);
+        writer.close();
         
-        // Put the raw data into the user-specified output format.
-        writeResults(outputRecs);
+        // Summarize the export.
+        writeSummary();
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* getMaxBufferedPaths:                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** The most paths held in memory at once by the parallel walk. */
+    int getMaxBufferedPaths() {return _maxBufferedPaths;}
+    
     /* ********************************************************************** */
     /*                             Private Methods                            */
     /* ********************************************************************** */
     /* ---------------------------------------------------------------------- */
     /* out:                                                                   */
     /* ---------------------------------------------------------------------- */
-    private void out(String s) {if (_parms.verbose) System.out.println(s);}
+    private void out(String s) {if (_parms.verbose) System.err.println(s);}
     
     /* ---------------------------------------------------------------------- */
     /* processSourceTree:                                                     */
@@ -148,11 +189,96 @@ public class SkExport
      * hierarchy in Vault. 
      * 
      * @param curpath the path to explore depth-first
+     * @param writer the secrets output
      */
-    private void processSourceTree(String curpath) throws Exception
+    private void processSourceTree(String curpath, SecretsWriter writer) throws Exception
+    {
+        // List the curpath.
+        var keys = listSourcePath(curpath);
+        if (keys == null) {
+            // We probably discovered a secret (i.e., leaf node).
+            var r = copySecret(curpath);
+            if (r == null) return;
+            writeSecret(r, writer);
+            
+            // Accumulate the secrets written.
+            if (_numReads.get() % 500 == 0) 
+                out("->Listings = " + _numListings 
+                    + ",\tReads = "  + _numReads);
+            return;
+        }
+        
+        // Intermediate node.
+        for (String key : keys) processSourceTree(curpath + key, writer);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* processSourceTreeParallel:                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Walk the tree rooted at the path using the configured number of workers.
+     * This thread visits paths in depth-first order and writes each secret
+     * once it's read.  Meanwhile, workers list and read the paths that follow
+     * the one being visited, including those in other subtrees, but never more
+     * than the lookahead limit allows.  Memory is therefore bounded by the 
+     * lookahead rather than by the size of the tree.
+     * 
+     * @param rootpath the root of the tree to walk
+     * @param writer the secrets output
+     */
+    private void processSourceTreeParallel(String rootpath, SecretsWriter writer) 
+     throws Exception
+    {
+        // The pool size limits the vault requests in flight.
+        int workers = _parms.workers;
+        var threadNum = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            var t = new Thread(r, "SkExport-" + threadNum.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        int lookahead = workers * LOOKAHEAD_PER_WORKER;
+        out("Walking " + rootpath + " with " + workers + " workers and a lookahead of " +
+            lookahead + " paths.");
+        
+        // Report progress periodically.
+        var walk = new ParallelWalk(executor, lookahead);
+        var reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            var t = new Thread(r, "SkExportProgress");
+            t.setDaemon(true);
+            return t;
+        });
+        if (_parms.verbose)
+            reporter.scheduleAtFixedRate(() -> out("->Listings = " + _numListings 
+                                                   + ",\tReads = "  + _numReads
+                                                   + ",\tWrites = " + _numWrites
+                                                   + ",\tBuffered = " + walk.buffered.get()
+                                                   + ",\tRetries = " + _numRetries
+                                                   + ",\tFailed = " + getFailedReadCount()),
+                                         PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, 
+                                         TimeUnit.SECONDS);
+        
+        // Visit every path in order.
+        try {walk.visit(new PathNode(rootpath), writer);}
+        finally {
+            reporter.shutdownNow();
+            executor.shutdownNow();
+            _maxBufferedPaths = walk.maxBuffered;
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* listSourcePath:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** List a path in the source vault.
+     * 
+     * @param curpath the path to list
+     * @return the keys at the path, null if the path is a secret, or an empty 
+     *         list if the listing failed
+     */
+    private List<String> listSourcePath(String curpath) throws Exception
     {
         // Increment listing counter.
-        _numListings++;
+        _numListings.incrementAndGet();
         
         // Make the request to list the curpath.
         HttpRequest request;
@@ -164,27 +290,26 @@ public class SkExport
                          "Content-Type", "application/json")
                 .method("LIST", BodyPublishers.noBody())
                 .build();
-            resp = _httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            resp = send(request);
         } catch (Exception e) {
             // Record read failure and display error message.
             recordFailedRead(_parms.vurl + "v1/secret/metadata/" + curpath);
             out(e.getClass().getSimpleName() + ": " + e.getMessage());
-            return;
+            return Collections.emptyList();
         }
         
         // Check return code.
         int rc = resp.statusCode();
         if (rc == 404) {
             // We probably discovered a secret (i.e., leaf node).
-            copySecret(curpath);
-            return;
+            return null;
         }
         else if (rc >= 300) {
             // Looks like an error.
             recordFailedRead(_parms.vurl + "v1/secret/metadata/" + curpath);
             out("Received http status code " + rc + " on LIST request to " + 
                 "source vault: " + request.uri().toString() + ".");
-            return;
+            return Collections.emptyList();
         } else {
             // Intermediate node. Parse the response body that looks something like this:
             // {"data": {"keys": ["foo", "foo/"]}}
@@ -192,35 +317,29 @@ public class SkExport
             var data    = jsonObj.get("data").getAsJsonObject();
             var keys    = data.get("keys").getAsJsonArray();
             int numKeys = keys.size();
-            for (int i = 0; i < numKeys; i++) {         
-               String key = keys.get(i).getAsString();
-               processSourceTree(curpath + key);
-            }
+            var list    = new ArrayList<String>(numKeys);
+            for (int i = 0; i < numKeys; i++) list.add(keys.get(i).getAsString());
+            return list;
         }
     }
     
     /* ---------------------------------------------------------------------- */
     /* copySecret:                                                            */
     /* ---------------------------------------------------------------------- */
-    private void copySecret(String curpath)
+    /** Read a secret and return its record or null if it is skipped. */
+    private SecretInfo copySecret(String curpath)
     {
         // Get the secret from the source vault.
         var secretText = readSecret(curpath);
-        if (secretText == null) return;
+        if (secretText == null) return null;
         
         // Do we care about this path?
         // We may not need to export all secrets.
         var typeWrapper = new SecretTypeWrapper(); 
-        if (skipStore(curpath, typeWrapper)) return;
+        if (skipStore(curpath, typeWrapper)) return null;
         
         // Collect the path and secret.
-        var r = new SecretInfo(typeWrapper._secretType, curpath, secretText);
-        _secretRecs.add(r);
-        
-        // Accumulate the secrets written.
-        if (_numReads % 500 == 0) 
-            out("->Listings = " + _numListings 
-                + ",\tReads = "  + _numReads);
+        return new SecretInfo(typeWrapper._secretType, curpath, secretText);
     }
     
     /* ---------------------------------------------------------------------- */
@@ -229,7 +348,7 @@ public class SkExport
     private String readSecret(String secretPath)
     {
         // Increment listing counter.
-        _numReads++;
+        _numReads.incrementAndGet();
         
         // Make the request.
         HttpRequest request;
@@ -240,7 +359,7 @@ public class SkExport
                 .headers("X-Vault-Token", _parms.vtok, "Accept", "application/json", 
                          "Content-Type", "application/json")
                 .build();
-            resp = _httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            resp = send(request);
         } catch (Exception e) {
             // Record read failure and display error message.
             recordFailedRead(_parms.vurl + "v1/secret/data/" + secretPath);
@@ -266,6 +385,46 @@ public class SkExport
           else return dataObj.get("data").toString();
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* send:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Send a request, retrying connection failures and transient vault errors
+     * with exponential backoff and jitter.  The last response or exception is
+     * returned or thrown once the retries are exhausted.
+     */
+    private HttpResponse<String> send(HttpRequest request) throws Exception
+    {
+        long backoffMillis = RETRY_INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                var resp = _httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (!isRetryable(resp.statusCode()) || attempt >= _parms.retries) return resp;
+                out("Retrying " + request.method() + " " + request.uri() + 
+                    " after http status code " + resp.statusCode() + ".");
+            } catch (IOException e) {
+                if (attempt >= _parms.retries) throw e;
+                out("Retrying " + request.method() + " " + request.uri() + 
+                    " after " + e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+            
+            // Wait before trying again.
+            _numRetries.incrementAndGet();
+            Thread.sleep(backoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis / 4 + 1));
+            backoffMillis = Math.min(backoffMillis * 2, RETRY_MAX_BACKOFF_MILLIS);
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* isRetryable:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Vault returns these codes when it is rate limiting, unavailable or on
+     * standby, all of which may clear up on their own.
+     */
+    private static boolean isRetryable(int rc)
+    {
+        return rc == 429 || rc == 500 || rc == 502 || rc == 503 || rc == 504;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* skipStore:                                                             */
     /* ---------------------------------------------------------------------- */
@@ -280,7 +439,7 @@ public class SkExport
         // Always parse the path.
         var secretType = SecretTypeDetector.detectType(secretPath);
         if (secretType == null) {
-            _numUnknownPaths++;
+            _numUnknownPaths.incrementAndGet();
             return true; // skip
         }
         
@@ -299,41 +458,40 @@ public class SkExport
     }
 
     /* ---------------------------------------------------------------------- */
-    /* calculateOutputRecs:                                                   */
+    /* writeSecret:                                                           */
     /* ---------------------------------------------------------------------- */
-    private List<SecretOutput> calculateOutputRecs()
+    /** Transform a raw secret into one or more output records and write them.
+     * 
+     * @param srec the raw secret
+     * @param writer the secrets output
+     */
+    private void writeSecret(SecretInfo srec, SecretsWriter writer)
     {
-        // Estimate the output list size based on the number of raw secrets.
-        var olist = new ArrayList<SecretOutput>(2*_secretRecs.size());
-        
-        // Each raw record can create one or more output records.
-        for (var srec : _secretRecs) {
-            // The easy case is when we return Vault's output as is.
-            if (_parms.format != OutputFormat.ENV) {
-                olist.add(getRawDumpOutputRec(srec));
-                continue;
-            }
-            
-            // Parse json record and add record(s) to output list in preparation
-            // for ENV output.  By default the key are sanitized.
-            switch (srec.type) {
-                case ServicePwd:   getServicePwdOutputRec(srec, olist); break;
-                case DBCredential: getDBCredentialOutputRec(srec, olist); break;
-                case JWTSigning:   getJWTSigningOutputRec(srec, olist); break;
-                case System:       getSystemOutputRec(srec, olist); break;
-                case User:         getUserOutputRec(srec, olist); break;
-                default:
-            }
+        // Count the secret whether or not it produces output.
+        _numWrites.incrementAndGet();
+        
+        // The easy case is when we return Vault's output as is.
+        if (_parms.format != OutputFormat.ENV) {
+            writer.write(getRawDumpOutputRec(srec));
+            return;
         }
         
-        // Return the list.
-        return olist;
+        // Parse json record and write record(s) in ENV format.  By default 
+        // the keys are sanitized.
+        switch (srec.type) {
+            case ServicePwd:   getServicePwdOutputRec(srec, writer); break;
+            case DBCredential: getDBCredentialOutputRec(srec, writer); break;
+            case JWTSigning:   getJWTSigningOutputRec(srec, writer); break;
+            case System:       getSystemOutputRec(srec, writer); break;
+            case User:         getUserOutputRec(srec, writer); break;
+            default:
+        }
     }
     
     /* ---------------------------------------------------------------------- */
     /* getServicePwdOutputRec:                                                */
     /* ---------------------------------------------------------------------- */
-    private void getServicePwdOutputRec(SecretInfo srec, List<SecretOutput> olist)
+    private void getServicePwdOutputRec(SecretInfo srec, SecretsWriter writer)
     {
         // Construct the key string based on the user-selected output format.
         // Split the path into segments.  We know the split is valid since it 
@@ -342,13 +500,13 @@ public class SkExport
         var parts = SPLIT_PATTERN.split(srec.path(), 0);
         String keyPrefix = SecretType.ServicePwd.name().toUpperCase() + "_" +
                            parts[4].toUpperCase(); 
-        addDynamicSecrets(keyPrefix, srec.secret(), olist);
+        addDynamicSecrets(keyPrefix, srec.secret(), writer);
     }
     
     /* ---------------------------------------------------------------------- */
     /* getDBCredentialOutputRec:                                              */
     /* ---------------------------------------------------------------------- */
-    private void getDBCredentialOutputRec(SecretInfo srec, List<SecretOutput> olist)
+    private void getDBCredentialOutputRec(SecretInfo srec, SecretsWriter writer)
     {
         // Construct the key string based on the user-selected output format.
         // Split the path into segments.  We know the split is valid since it 
@@ -360,13 +518,13 @@ public class SkExport
                            parts[4].toUpperCase() + "_" +
                            parts[6].toUpperCase() + "_" +
                            parts[8].toUpperCase(); 
-        addDynamicSecrets(keyPrefix, srec.secret(), olist);
+        addDynamicSecrets(keyPrefix, srec.secret(), writer);
     }
     
     /* ---------------------------------------------------------------------- */
     /* getJWTSigningOutputRec:                                                */
     /* ---------------------------------------------------------------------- */
-    private void getJWTSigningOutputRec(SecretInfo srec, List<SecretOutput> olist)
+    private void getJWTSigningOutputRec(SecretInfo srec, SecretsWriter writer)
     {
         // Construct the key string based on the user-selected output format.
         // Split the path into segments.  We know the split is valid since it 
@@ -377,13 +535,13 @@ public class SkExport
         // Process both public and private keys.
         String keyPrefix = SecretType.JWTSigning.name().toUpperCase() + "_" +
                            parts[2].toUpperCase(); 
-        addKeyPair(keyPrefix, srec.secret(), olist);
+        addKeyPair(keyPrefix, srec.secret(), writer);
     }
     
     /* ---------------------------------------------------------------------- */
     /* getSystemOutputRec:                                                    */
     /* ---------------------------------------------------------------------- */
-    private void getSystemOutputRec(SecretInfo srec, List<SecretOutput> olist)
+    private void getSystemOutputRec(SecretInfo srec, SecretsWriter writer)
     {
         // Construct the key string based on the user-selected output format.
         // Split the path into segments.  We know the split is valid since it 
@@ -420,12 +578,12 @@ public class SkExport
         switch (keyTypeEnum) {
             case sshkey:
             case cert:
-                addKeyPair(key, srec.secret(), olist);
+                addKeyPair(key, srec.secret(), writer);
             break;
             
             case password:
             case accesskey:
-                addDynamicSecrets(key, srec.secret(), olist);
+                addDynamicSecrets(key, srec.secret(), writer);
             break;
         }
     }
@@ -433,7 +591,7 @@ public class SkExport
     /* ---------------------------------------------------------------------- */
     /* getUserOutputRec:                                                      */
     /* ---------------------------------------------------------------------- */
-    private void getUserOutputRec(SecretInfo srec, List<SecretOutput> olist)
+    private void getUserOutputRec(SecretInfo srec, SecretsWriter writer)
     {
         // Construct the key string based on the user-selected output format.
         // Split the path into segments.  We know the split is valid since it 
@@ -444,7 +602,7 @@ public class SkExport
                            parts[2].toUpperCase() + "_" +
                            parts[4].toUpperCase() + "_" +
                            parts[6].toUpperCase();
-        addDynamicSecrets(keyPrefix, srec.secret(), olist);
+        addDynamicSecrets(keyPrefix, srec.secret(), writer);
     }
     
     /* ---------------------------------------------------------------------- */
@@ -455,9 +613,9 @@ public class SkExport
      * 
      * @param keyPrefix the prefix of the attribute we'll create
      * @param rawSecret the Vault secret value as json text
-     * @param olist the result accumulator
+     * @param writer the secrets output
      */
-    private void addDynamicSecrets(String keyPrefix, String rawSecret, List<SecretOutput> olist)
+    private void addDynamicSecrets(String keyPrefix, String rawSecret, SecretsWriter writer)
     {
         // Replace env unfriendly character in the prefix.
         if (!_parms.noSanitizeName) keyPrefix = sanitize(keyPrefix);
@@ -467,7 +625,7 @@ public class SkExport
         // them to avoid illegal characters in target context (e.g., env variables).
         // First let's see if there's any secret.
         if (rawSecret == null) {
-            olist.add(new SecretOutput(keyPrefix, ""));
+            writer.write(new SecretOutput(keyPrefix, ""));
             return;
         }
         
@@ -479,7 +637,7 @@ public class SkExport
             if (!_parms.noSanitizeName) key = sanitize(key); 
             var val = entry.getValue().getAsString();
             if (val == null) val = "";
-            olist.add(new SecretOutput(keyPrefix + "_" + key.toUpperCase(), val));
+            writer.write(new SecretOutput(keyPrefix + "_" + key.toUpperCase(), val));
         }
     }
     
@@ -493,9 +651,9 @@ public class SkExport
      * 
      * @param keyPrefix the prefix of the attribute we'll create
      * @param rawSecret the Vault secret value as json text
-     * @param olist the result accumulator
+     * @param writer the secrets output
      */
-    private void addKeyPair(String keyPrefix, String rawSecret, List<SecretOutput> olist)
+    private void addKeyPair(String keyPrefix, String rawSecret, SecretsWriter writer)
     {
         // Replace env unfriendly character in the prefix.
         if (!_parms.noSanitizeName) keyPrefix = sanitize(keyPrefix);
@@ -518,7 +676,7 @@ public class SkExport
          }
         
         // Construct the record.
-        olist.add(new SecretOutput(keyPrefix + "_PRIVATEKEY", value));
+        writer.write(new SecretOutput(keyPrefix + "_PRIVATEKEY", value));
         
         // Next process the public key.
         if (jsonObj != null) value = jsonObj.get("publicKey").toString();
@@ -530,7 +688,7 @@ public class SkExport
         }
         
         // Construct the record.
-        olist.add(new SecretOutput(keyPrefix + "_PUBLICKEY", value));
+        writer.write(new SecretOutput(keyPrefix + "_PUBLICKEY", value));
     }
     
     /* ---------------------------------------------------------------------- */
@@ -564,10 +722,18 @@ public class SkExport
      */
     private void recordFailedRead(String path)
     {
-        try {
-            URI uri = new URI(path);
-            _failedReads.add(uri.toString());
-        } catch (Exception e1) {_failedReads.add(path);}
+        String s;
+        try {s = new URI(path).toString();}
+            catch (Exception e1) {s = path;}
+        synchronized (_failedReads) {_failedReads.add(s);}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getFailedReadCount:                                                    */
+    /* ---------------------------------------------------------------------- */
+    private int getFailedReadCount()
+    {
+        synchronized (_failedReads) {return _failedReads.size();}
     }
     
     /* ---------------------------------------------------------------------- */
@@ -614,45 +780,73 @@ public class SkExport
     }
 
     /* ---------------------------------------------------------------------- */
-    /* writeResults:                                                          */
+    /* writeSummary:                                                          */
     /* ---------------------------------------------------------------------- */
-    private void writeResults(List<SecretOutput> olist)
+    private void writeSummary()
     {
-        // Populate a json object will all the secrets
-        // in the user-specified format.
-        String secrets = _parms.format == OutputFormat.JSON ? 
-                               writeJsonOutput(olist) : writeEnvOutput(olist);
-        
         // Did we encounter unknown paths?
-        var unknownPathMsg = _numUnknownPaths == 0 ? "" : " <-- INVESTIGATE";
+        var unknownPathMsg = _numUnknownPaths.get() == 0 ? "" : " <-- INVESTIGATE";
         
         // Print summary information.
-        var numWrites = _secretRecs.size();
+        var numWrites = _numWrites.get();
         out("\n-------------------------------------------------");
         out("Attempted listings = " + _numListings + ", attempted reads = " + _numReads);
         out("Unknown paths encountered = " + _numUnknownPaths + unknownPathMsg);
-        out("Secrets written = " + numWrites + ", secrets skipped = " + (_numReads - numWrites));
+        out("Secrets written = " + numWrites + ", secrets skipped = " + (_numReads.get() - numWrites));
+        if (_numRetries.get() > 0) out("Retried requests = " + _numRetries);
+        if (_maxBufferedPaths > 0) out("Most paths buffered = " + _maxBufferedPaths);
         if (!_failedReads.isEmpty()) {
             out("\n-------------------------------------------------");
             out("Failed secret reads: " + _failedReads.size() + "\n");
             var it = _failedReads.iterator();
             while (it.hasNext()) out("  " + it.next());
         }
-        
-        // Print secrets.
-        out("\n-------------------------------------------------");
-        out("****** SECRETS ******");
-        System.out.println(secrets); // Always write the secrets.
     }
 
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    // Temporary holder for a secret type.
+    private static final class SecretTypeWrapper {
+        private SecretType _secretType;
+    }
+    
     /* ---------------------------------------------------------------------- */
-    /* writeJsonOutput:                                                       */
+    /* SecretsWriter:                                                         */
     /* ---------------------------------------------------------------------- */
-    private String writeJsonOutput(List<SecretOutput> olist)
+    // Writes output records to standard output in the user-specified format as
+    // they are produced.  Output is buffered in chunks of about OUTPUT_BUFLEN
+    // characters.
+    private final class SecretsWriter
     {
-        // Initialize result json string.
-        var secrets = new StringBuilder(OUTPUT_BUFLEN);
-        secrets.append(START_SECRETS);
+        private final StringBuilder buf = new StringBuilder(OUTPUT_BUFLEN);
+        private int numRecs;
+        
+        private SecretsWriter()
+        {
+            if (_parms.format == OutputFormat.JSON) buf.append(START_SECRETS);
+        }
+        
+        // Write one output record.
+        private void write(SecretOutput rec)
+        {
+            if (_parms.format == OutputFormat.JSON) writeJson(rec);
+              else writeEnv(rec);
+            numRecs++;
+            if (buf.length() >= OUTPUT_BUFLEN) {
+                System.out.print(buf);
+                buf.setLength(0);
+            }
+        }
+        
+        // Write the remaining output.
+        private void close()
+        {
+            // Close the secrets outer json array.
+            if (_parms.format == OutputFormat.JSON) buf.append(END_SECRETS);
+            System.out.println(buf); // Always write the secrets.
+            buf.setLength(0);
+        }
         
         // Write each path/secret pair as json. The secret is itself a json object 
         // so the result is that secret is nested in the result object. When raw 
@@ -665,54 +859,156 @@ public class SkExport
         //
         // When raw output is not requested, the key is converted into a string derived 
         // from the raw path and appropriate for use as an environment variable name. 
-        for (var rec: olist) {
-            // Format the json payload.
-            if (secrets.length() != START_SECRETS_LEN) secrets.append(",");
-            secrets.append("\n{\"key\": \"");
-            secrets.append(rec.key());
-            secrets.append("\",\"value\":");
-            secrets.append(rec.value());
-            secrets.append("}");
+        private void writeJson(SecretOutput rec)
+        {
+            if (numRecs > 0) buf.append(",");
+            buf.append("\n{\"key\": \"");
+            buf.append(rec.key());
+            buf.append("\",\"value\":");
+            buf.append(rec.value());
+            buf.append("}");
         }
         
-        // Close the secrets outer json object and return.
-        secrets.append(END_SECRETS);
-        return secrets.toString();
-    }
-
-    /* ---------------------------------------------------------------------- */
-    /* writeEnvOutput:                                                        */
-    /* ---------------------------------------------------------------------- */
-    private String writeEnvOutput(List<SecretOutput> olist)
-    {
-        // Initialize result json string.
-        var secrets = new StringBuilder(OUTPUT_BUFLEN);
-        
         // Write each path/secret pair in environment variable format. The secret 
         // key is a name derived from the secret's Vault path and the value is 
         // the secret itself. The result lines end up looking like this:
         //
         //    SOME_ENV_NAME='abcdefg'
         //
-        for (var rec: olist) {
-            // Format the json payload.
-            secrets.append(rec.key());
-            secrets.append("=");
-            if (_parms.quoteEnvValues) secrets.append("'");
-            secrets.append(rec.value());
-            if (_parms.quoteEnvValues) secrets.append("'");
-            secrets.append("\n");
+        private void writeEnv(SecretOutput rec)
+        {
+            buf.append(rec.key());
+            buf.append("=");
+            if (_parms.quoteEnvValues) buf.append("'");
+            buf.append(rec.value());
+            if (_parms.quoteEnvValues) buf.append("'");
+            buf.append("\n");
         }
-        
-        // Close the secrets outer json object and return.
-        return secrets.toString();
     }
-
-    /* ********************************************************************** */
-    /*                             Private Methods                            */
-    /* ********************************************************************** */
-    // Temporary holder for a secret type.
-    private static final class SecretTypeWrapper {
-        private SecretType _secretType;
+    
+    /* ---------------------------------------------------------------------- */
+    /* PathNode:                                                              */
+    /* ---------------------------------------------------------------------- */
+    // A path visited by the parallel walk.  Once processed, a node holds either
+    // its children or its secret, which is null if the secret was skipped.
+    private static final class PathNode
+    {
+        private final String path;
+        private final AtomicBoolean submitted = new AtomicBoolean();
+        private final CompletableFuture<PathNode> processed = new CompletableFuture<>();
+        private boolean    reserved;  // holds a lookahead permit
+        private PathNode[] children;  // null for secrets
+        private SecretInfo secret;
+        
+        private PathNode(String path) {this.path = path;}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* ParallelWalk:                                                          */
+    /* ---------------------------------------------------------------------- */
+    // The state of one parallel walk.
+    private final class ParallelWalk
+    {
+        private final ExecutorService executor;
+        
+        // Workers only prefetch paths when a lookahead permit is available.
+        // Each permit is held until its path has been visited.
+        private final int             lookaheadLimit;
+        private final Semaphore       lookahead;
+        
+        // Paths processed but not yet visited.
+        private final AtomicInteger   buffered = new AtomicInteger();
+        private volatile int          maxBuffered;
+        
+        private ParallelWalk(ExecutorService executor, int lookaheadLimit)
+        {
+            this.executor = executor;
+            this.lookaheadLimit = lookaheadLimit;
+            this.lookahead = new Semaphore(lookaheadLimit);
+        }
+        
+        // Visit a path after it's processed, writing its secret or visiting 
+        // its children in order.
+        private void visit(PathNode node, SecretsWriter writer) throws Exception
+        {
+            // Process the path now if no worker has prefetched it.
+            if (node.submitted.compareAndSet(false, true)) submit(node);
+            try {node.processed.get();}
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+                    throw e;
+                }
+            buffered.decrementAndGet();
+            if (node.reserved) lookahead.release();
+            
+            // Write the secret.
+            if (node.children == null) {
+                if (node.secret != null) writeSecret(node.secret, writer);
+                return;
+            }
+            
+            // Visit the children, releasing each one once visited.  Children
+            // before the next index have already been submitted.
+            var children = node.children;
+            int next = 0;
+            for (int i = 0; i < children.length; i++) {
+                next = prefetch(children, Math.max(i, next), i + lookaheadLimit);
+                visit(children[i], writer);
+                children[i] = null;
+            }
+        }
+        
+        // Submit paths that follow the one about to be visited while lookahead
+        // permits are available.  Return the index of the first path that
+        // could not be submitted.
+        private int prefetch(PathNode[] nodes, int from, int to)
+        {
+            int end = Math.min(nodes.length, to);
+            for (int i = from; i < end; i++) {
+                var node = nodes[i];
+                if (node == null || node.submitted.get()) continue;
+                if (!lookahead.tryAcquire()) return i;
+                if (!node.submitted.compareAndSet(false, true)) {
+                    lookahead.release();
+                    continue;
+                }
+                node.reserved = true;
+                submit(node);
+            }
+            return end;
+        }
+        
+        // Process a path on a worker.
+        private void submit(PathNode node)
+        {
+            executor.execute(() -> {
+                try {process(node);}
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    node.processed.completeExceptionally(e);
+                } 
+                catch (Exception e) {node.processed.completeExceptionally(e);}
+            });
+        }
+        
+        // List the path and either read its secret or record its children, 
+        // then start prefetching the children.
+        private void process(PathNode node) throws Exception
+        {
+            var keys = listSourcePath(node.path);
+            if (keys == null) node.secret = copySecret(node.path);
+              else {
+                  var children = new PathNode[keys.size()];
+                  for (int i = 0; i < children.length; i++) 
+                      children[i] = new PathNode(node.path + keys.get(i));
+                  node.children = children;
+              }
+            
+            // Track memory use and hand the node to the visitor.
+            int n = buffered.incrementAndGet();
+            if (n > maxBuffered) maxBuffered = n;
+            node.processed.complete(node);
+            if (node.children != null) prefetch(node.children, 0, lookaheadLimit);
+        }
     }
 }
@@ -33,6 +33,10 @@ import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
  *  
  *      -skip -q -format=ENV
  *      
+ *  Set -workers to walk large vaults with concurrent requests.  The output is 
+ *  the same as when vault is walked serially.  Secrets are written as they are
+ *  read in either case, so the size of vault does not affect memory use.
+ *      
  * @author rcardone
  */
 public class SkExportParameters 
@@ -48,6 +52,9 @@ public class SkExportParameters
     // "name=value" strings suitable for assigning environment variables.
     public enum OutputFormat {JSON, ENV}
     
+    // Parallel walk limits.
+    public static final int MAX_WORKERS = 256;
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
@@ -75,8 +82,16 @@ public class SkExportParameters
             usage = "enclose secret values in single quotes when -format=ENV")
     public boolean quoteEnvValues = false;
     
+    @Option(name = "-workers", required = false, aliases = {"--workers"}, 
+            usage = "number of concurrent vault requests, 1 walks vault serially")
+    public int workers = 1;
+    
+    @Option(name = "-retries", required = false, aliases = {"--retries"}, 
+            usage = "retries of each vault request that fails with a transient error")
+    public int retries = 3;
+    
     @Option(name = "-v", required = false, aliases = {"--verbose"}, 
-            usage = "output statistics in addtion to secrets")
+            usage = "output statistics to stderr in addtion to secrets")
     public boolean verbose = false;
     
     @Option(name = "-help", aliases = {"--help"}, 
@@ -169,5 +184,17 @@ public class SkExportParameters
     {
         // Make sure there's a trailing slash in the url.
         if (!vurl.endsWith("/")) vurl += "/";
+        
+        // Check the limits.
+        if (workers < 1 || workers > MAX_WORKERS) {
+            String msg = "The -workers parameter must be between 1 and " + MAX_WORKERS + ".";
+            _log.error(msg);
+            throw new TapisException(msg);
+        }
+        if (retries < 0) {
+            String msg = "The -retries parameter cannot be negative.";
+            _log.error(msg);
+            throw new TapisException(msg);
+        }
     }
 }
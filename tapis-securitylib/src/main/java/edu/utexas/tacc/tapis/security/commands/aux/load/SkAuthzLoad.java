@@ -0,0 +1,383 @@
+package edu.utexas.tacc.tapis.security.commands.aux.load;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.utexas.tacc.tapis.security.authz.dao.SkAbstractDao;
+import edu.utexas.tacc.tapis.security.authz.impl.ShareImpl;
+import edu.utexas.tacc.tapis.security.authz.impl.UserImpl;
+import edu.utexas.tacc.tapis.security.authz.impl.UserImpl.AuthOperation;
+import edu.utexas.tacc.tapis.security.authz.model.SkSharePrivilegeSelector;
+import edu.utexas.tacc.tapis.security.commands.aux.load.SkAuthzLoadParms.LoadOperation;
+
+/** This program reproduces authorization load on a local SK database.  It
+ * populates a synthetic tenant through the SK daos and then calls the same
+ * UserImpl and ShareImpl methods the SK endpoints call, at a target rate with
+ * a configurable mix of operations.
+ *
+ * Operations are scheduled at fixed intervals and handed to a pool of worker
+ * threads, so a slow operation doesn't delay the ones scheduled after it.  The
+ * latency of each operation is measured from its scheduled start time, which
+ * includes any time spent waiting for a free worker when the database can't
+ * keep up.  Operations scheduled during the warmup period are not measured.
+ *
+ * The daos' datasource is wrapped so that every statement execution, commit
+ * and rollback is counted.  Each operation runs on one worker thread, so the
+ * database round trips it made are attributed to it.  Round trips made on
+ * other threads, such as by the authz cache invalidation listener, are not.
+ *
+ * Requests are generated from the synthetic tenant.  About half the permission
+ * checks and privilege checks are for permissions or shares the user has and
+ * about half the role checks are for roles directly assigned to the user.  The
+ * rest are random and usually denied.
+ *
+ * The results are written to standard out.
+ */
+public class SkAuthzLoad
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Percentiles reported for each operation.
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    // Time allowed for operations in progress to finish after the last one is scheduled.
+    private static final long DRAIN_SECONDS = 60;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // User input.
+    private final SkAuthzLoadParms  _parms;
+
+    // Database round trip counter installed on all daos.
+    private final SkDbCallCounter   _dbCounter = new SkDbCallCounter();
+
+    // Results by operation.
+    private final EnumMap<LoadOperation,OpStats> _stats = new EnumMap<>(LoadOperation.class);
+    
+    // The length of the measured period.
+    private long                    _measuredNanos;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public SkAuthzLoad(SkAuthzLoadParms parms)
+    {
+        // Parameters cannot be null.
+        if (parms == null) {
+          String msg = "SkAuthzLoad requires a parameter object.";
+          throw new IllegalArgumentException(msg);
+        }
+        _parms = parms;
+        for (var op : LoadOperation.values()) _stats.put(op, new OpStats());
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* main:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** No logging necessary in this method since the called methods log errors.
+     *
+     * @param args the command line parameters
+     * @throws Exception on error
+     */
+    public static void main(String[] args) throws Exception
+    {
+        // Parse the command line parameters.
+        SkAuthzLoadParms parms = new SkAuthzLoadParms(args);
+
+        // Populate and/or drive load.
+        new SkAuthzLoad(parms).run();
+        System.exit(0);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* run:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    public void run() throws Exception
+    {
+        // Count round trips on every dao, which must be done before any dao is created.
+        SkAbstractDao.setDataSourceWrapper(_dbCounter::wrap);
+
+        // Generate the tenant.
+        var tenant = new SkSyntheticTenant(_parms);
+        System.out.println(tenant);
+
+        // Write it and then exercise it.
+        if (_parms.populate) tenant.populate();
+        if (_parms.load) {
+            drive(tenant);
+            writeResults();
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* drive:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Schedule operations at the target rate through the warmup and measured
+     * periods and wait for them to finish.
+     *
+     * @param tenant the synthetic tenant
+     * @throws InterruptedException if interrupted
+     */
+    private void drive(SkSyntheticTenant tenant) throws InterruptedException
+    {
+        // Requests are generated on this thread only.
+        var rand = new Random(_parms.seed + 1);
+        var ops = getOperationTable();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / _parms.rate;
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(_parms.warmup);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(_parms.duration);
+        System.out.println("Driving " + _parms.rate + " operations per second for " + _parms.warmup +
+                           " warmup and " + _parms.duration + " measured seconds on " +
+                           _parms.workers + " workers.");
+
+        var threadNum = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(_parms.workers, r -> {
+            var t = new Thread(r, "SkAuthzLoad-" + threadNum.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            // Schedule each operation at its start time.
+            for (long scheduled = start; scheduled < end; scheduled += intervalNanos) {
+                long waitNanos = scheduled - System.nanoTime();
+                if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+                var op = ops[rand.nextInt(ops.length)];
+                var call = newCall(tenant, op, rand);
+                var stats = scheduled >= measureStart ? _stats.get(op) : null;
+                final long opScheduled = scheduled;
+                executor.execute(() -> execute(call, stats, opScheduled));
+            }
+            _measuredNanos = end - measureStart;
+        }
+        finally {
+            // Let the scheduled operations finish.
+            executor.shutdown();
+            if (!executor.awaitTermination(DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                System.out.println("Operations still running after " + DRAIN_SECONDS +
+                                   " seconds were abandoned.");
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* execute:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Run one operation on a worker thread and record its outcome.
+     *
+     * @param call the operation
+     * @param stats the operation's statistics or null during warmup
+     * @param scheduled the nano time the operation was scheduled to start
+     */
+    private void execute(AuthzCall call, OpStats stats, long scheduled)
+    {
+        long dbCalls = _dbCounter.getThreadCount();
+        boolean granted = false, failed = false;
+        try {granted = call.call();}
+            catch (Exception e) {failed = true;}
+        long latency = System.nanoTime() - scheduled;
+        if (stats != null) stats.record(latency, _dbCounter.getThreadCount() - dbCalls, granted, failed);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* newCall:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Generate an operation's request and return the call that issues it.
+     *
+     * @param tenant the synthetic tenant
+     * @param op the operation
+     * @param rand the request generator
+     * @return the call
+     */
+    private AuthzCall newCall(SkSyntheticTenant tenant, LoadOperation op, Random rand)
+    {
+        String tenantId = tenant.getTenant();
+        int userIndex = rand.nextInt(tenant.getUsers().size());
+        String user = tenant.getUsers().get(userIndex);
+        switch (op) {
+            case isPermitted: {
+                String[] perm = {getPermissionRequest(tenant, userIndex, rand)};
+                return () -> UserImpl.getInstance().isPermitted(tenantId, user, perm, AuthOperation.ANY);
+            }
+            case hasRole: {
+                var userRoles = tenant.getUserRoles(userIndex);
+                int role = rand.nextBoolean() && userRoles.length > 0 ?
+                           userRoles[rand.nextInt(userRoles.length)] : rand.nextInt(tenant.getRoles().size());
+                String[] roles = {tenant.getRoles().get(role)};
+                return () -> UserImpl.getInstance().hasRole(tenantId, user, roles, AuthOperation.ANY);
+            }
+            case getUsersWithRole: {
+                String role = tenant.getRoles().get(rand.nextInt(tenant.getRoles().size()));
+                return () -> !UserImpl.getInstance().getUsersWithRole(tenantId, role).isEmpty();
+            }
+            default: {
+                var sel = getPrivilegeRequest(tenant, user, rand);
+                return () -> ShareImpl.getInstance().hasPrivilege(sel);
+            }
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getPermissionRequest:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Half the time, derive a request from one of the user's permissions by
+     * choosing one of its operations and, for files, a path below its path.
+     * Otherwise, generate a random permission.
+     */
+    private String getPermissionRequest(SkSyntheticTenant tenant, int user, Random rand)
+    {
+        List<String> perms = rand.nextBoolean() ? tenant.getEffectivePermissions(user) : List.of();
+        String perm = perms.isEmpty() ? tenant.newPermission(rand) : perms.get(rand.nextInt(perms.size()));
+
+        // Request a single operation.
+        var parts = perm.split(":", 5);
+        if (parts[2].equals("*")) parts[2] = "read";
+          else parts[2] = parts[2].split(",")[0];
+        if (parts.length == 5) parts[4] += "/f" + rand.nextInt(100) + ".txt";
+        return String.join(":", parts);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getPrivilegeRequest:                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Half the time, ask for the privilege of a share granted to the user.
+     * Otherwise, ask for a random resource.
+     */
+    private SkSharePrivilegeSelector getPrivilegeRequest(SkSyntheticTenant tenant, String user, Random rand)
+    {
+        var sel = new SkSharePrivilegeSelector();
+        sel.setTenant(tenant.getTenant());
+        sel.setGrantee(user);
+        var shares = tenant.getShares();
+        if (rand.nextBoolean() && !shares.isEmpty()) {
+            var share = shares.get(rand.nextInt(shares.size()));
+            sel.setResourceType(share.getResourceType());
+            sel.setResourceId1(share.getResourceId1());
+            sel.setResourceId2(share.getResourceId2());
+            sel.setPrivilege(share.getPrivilege());
+            if (!SkSyntheticTenant.PUBLIC_GRANTEE.equals(share.getGrantee())) sel.setGrantee(share.getGrantee());
+        }
+        else {
+            sel.setResourceType(SkSyntheticTenant.FILE_RESOURCE);
+            sel.setResourceId1(tenant.chooseSystem(rand));
+            sel.setResourceId2(tenant.newPath(rand));
+            sel.setPrivilege("READ");
+        }
+        return sel;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getOperationTable:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Return a 100 element table in which each operation appears as many
+     * times as its mix percentage. */
+    private LoadOperation[] getOperationTable()
+    {
+        var table = new LoadOperation[100];
+        int i = 0;
+        for (var entry : _parms.mixPct.entrySet())
+            for (int n = 0; n < entry.getValue(); n++) table[i++] = entry.getKey();
+        return table;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* writeResults:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private void writeResults()
+    {
+        var buf = new StringBuilder(1024);
+        buf.append(String.format("%n%-17s %8s %7s %8s", "Operation", "Count", "Errors", "Granted"));
+        for (double pct : PERCENTILES) buf.append(String.format(" %9s", "p" + formatPct(pct) + " ms"));
+        buf.append(String.format(" %9s %11s%n", "max ms", "DB trips/op"));
+
+        long total = 0;
+        for (var entry : _stats.entrySet()) {
+            var stats = entry.getValue();
+            if (stats.count == 0) continue;
+            total += stats.count;
+            buf.append(stats.format(entry.getKey().name()));
+        }
+
+        double seconds = _measuredNanos / 1e9;
+        buf.append(String.format("%nCompleted %d measured operations, %.1f per second (target %d), " +
+                                 "%d database round trips in total.%n", total,
+                                 seconds > 0 ? total / seconds : 0, _parms.rate, _dbCounter.getTotalCount()));
+        System.out.println(buf);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* formatPct:                                                             */
+    /* ---------------------------------------------------------------------- */
+    private static String formatPct(double pct)
+    {
+        return pct == Math.rint(pct) ? Integer.toString((int) pct) : Double.toString(pct);
+    }
+
+    /* ********************************************************************** */
+    /*                            AuthzCall Class                             */
+    /* ********************************************************************** */
+    // An authorization call that returns true if access, a role or a user was found.
+    @FunctionalInterface
+    private interface AuthzCall
+    {
+        boolean call() throws Exception;
+    }
+
+    /* ********************************************************************** */
+    /*                             OpStats Class                              */
+    /* ********************************************************************** */
+    // The outcomes of one operation, recorded concurrently by the workers.
+    private static final class OpStats
+    {
+        private long[] latencies = new long[1024];
+        private int    count;
+        private int    errors;
+        private int    granted;
+        private long   dbCalls;
+
+        private synchronized void record(long latency, long calls, boolean grant, boolean failed)
+        {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = latency;
+            dbCalls += calls;
+            if (grant) granted++;
+            if (failed) errors++;
+        }
+
+        private synchronized String format(String name)
+        {
+            var sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            var buf = new StringBuilder();
+            buf.append(String.format("%-17s %8d %7d %7.1f%%", name, count, errors, 100.0 * granted / count));
+            for (double pct : PERCENTILES) buf.append(String.format(" %9.3f", percentile(sorted, pct) / 1e6));
+            buf.append(String.format(" %9.3f %11.2f%n", sorted[count - 1] / 1e6, (double) dbCalls / count));
+            return buf.toString();
+        }
+
+        // Nearest rank percentile of sorted values.
+        private static long percentile(long[] sorted, double pct)
+        {
+            int rank = (int) Math.ceil(pct / 100 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+        }
+    }
+}
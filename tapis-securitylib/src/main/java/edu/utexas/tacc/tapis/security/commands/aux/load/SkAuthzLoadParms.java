@@ -0,0 +1,274 @@
+package edu.utexas.tacc.tapis.security.commands.aux.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.EnumMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+
+public class SkAuthzLoadParms
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Limits.
+    public static final int MAX_WORKERS = 256;
+    public static final int MAX_DEPTH   = 20;
+
+    // The default operation mix in percent.
+    public static final String DFT_MIX = "isPermitted:50,hasRole:20,getUsersWithRole:10,hasPrivilege:20";
+
+    /* ********************************************************************** */
+    /*                                 Enums                                  */
+    /* ********************************************************************** */
+    // The authorization calls issued by the load driver.
+    public enum LoadOperation {isPermitted, hasRole, getUsersWithRole, hasPrivilege}
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // ------------------------- Tenant Shape ------------------------------
+    @Option(name = "-tenant", required = false, aliases = {"--tenant"},
+            usage = "the synthetic tenant's id")
+    public String tenant = "synthetic";
+
+    @Option(name = "-users", required = false, aliases = {"--users"},
+            usage = "number of users")
+    public int users = 1000;
+
+    @Option(name = "-roles", required = false, aliases = {"--roles"},
+            usage = "number of roles")
+    public int roles = 200;
+
+    @Option(name = "-depth", required = false, aliases = {"--depth"},
+            usage = "number of levels in the role DAG")
+    public int depth = 4;
+
+    @Option(name = "-fanout", required = false, aliases = {"--fanout"},
+            usage = "child roles assigned to each role above the bottom level")
+    public int fanout = 3;
+
+    @Option(name = "-userroles", required = false, aliases = {"--userroles"},
+            usage = "roles assigned directly to each user")
+    public int userRoles = 2;
+
+    @Option(name = "-perms", required = false, aliases = {"--perms"},
+            usage = "permissions assigned directly to each role")
+    public int perms = 20;
+
+    @Option(name = "-filespct", required = false, aliases = {"--filespct"},
+            usage = "percentage of permissions using the files schema, the rest use system")
+    public int filesPct = 70;
+
+    @Option(name = "-systems", required = false, aliases = {"--systems"},
+            usage = "number of systems referenced by permissions and shares")
+    public int systems = 50;
+
+    @Option(name = "-shares", required = false, aliases = {"--shares"},
+            usage = "shares granted to each user")
+    public int shares = 5;
+
+    @Option(name = "-seed", required = false, aliases = {"--seed"},
+            usage = "random seed, the same seed always generates the same tenant")
+    public long seed = 1;
+
+    // ------------------------- Actions -----------------------------------
+    @Option(name = "-populate", required = false, aliases = {"--populate"},
+            usage = "write the synthetic tenant to the database")
+    public boolean populate = false;
+
+    @Option(name = "-load", required = false, aliases = {"--load"},
+            usage = "issue authorization calls against the synthetic tenant")
+    public boolean load = false;
+
+    // ------------------------- Load Driver -------------------------------
+    @Option(name = "-rate", required = false, aliases = {"--rate"},
+            usage = "target operations per second")
+    public int rate = 100;
+
+    @Option(name = "-duration", required = false, aliases = {"--duration"},
+            usage = "measured load duration in seconds")
+    public int duration = 60;
+
+    @Option(name = "-warmup", required = false, aliases = {"--warmup"},
+            usage = "unmeasured load duration in seconds before measurement starts")
+    public int warmup = 10;
+
+    @Option(name = "-workers", required = false, aliases = {"--workers"},
+            usage = "number of threads issuing operations")
+    public int workers = 16;
+
+    @Option(name = "-mix", required = false, aliases = {"--mix"},
+            usage = "operation percentages as op:pct,... using isPermitted, hasRole, getUsersWithRole, hasPrivilege")
+    public String mix = DFT_MIX;
+
+    @Option(name = "-help", aliases = {"--help"},
+            usage = "display help information")
+    public boolean help;
+
+    // The parsed mix.
+    public EnumMap<LoadOperation,Integer> mixPct;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public SkAuthzLoadParms(String[] args)
+     throws TapisException
+    {
+      initializeParms(args);
+      validateParms();
+    }
+
+    /* **************************************************************************** */
+    /*                               Private Methods                                */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* initializeParms:                                                             */
+    /* ---------------------------------------------------------------------------- */
+    /** Parse the input arguments. */
+    private void initializeParms(String[] args)
+        throws TapisException
+    {
+      // Get a command line parser to verify input.
+      CmdLineParser parser = new CmdLineParser(this);
+      parser.getProperties().withUsageWidth(120);
+
+      try {
+         // Parse the arguments.
+         parser.parseArgument(args);
+        }
+       catch (CmdLineException e)
+        {
+         if (!help)
+           {
+            // Create message buffer of sufficient size.
+            final int initialCapacity = 1024;
+            StringWriter writer = new StringWriter(initialCapacity);
+
+            // Write parser error message.
+            writer.write("\n******* Input Parameter Error *******\n");
+            writer.write(e.getMessage());
+            writer.write("\n\n");
+
+            // Write usage information--unfortunately we need an output stream.
+            writer.write("SkAuthzLoad [options...]\n");
+            ByteArrayOutputStream ostream = new ByteArrayOutputStream(initialCapacity);
+            parser.printUsage(ostream);
+            try {writer.write(ostream.toString("UTF-8"));}
+              catch (Exception e1) {}
+            writer.write("\n");
+
+            // Throw exception.
+            throw new TapisException(writer.toString());
+           }
+        }
+
+      // Display help and exit program.
+      if (help)
+        {
+         String s = "\nSkAuthzLoad for populating a synthetic tenant and issuing authorization load.";
+         System.out.println(s);
+         System.out.println("\nSkAuthzLoad [options...]\n");
+         parser.printUsage(System.out);
+
+         // Add a usage blurb.
+         s = "\n\nThe database connection is configured with the same environment variables " +
+             "\nor properties used by SK.  Use a local database, never a shared one." +
+             "\n\nThe same shape parameters and seed always generate the same tenant, so run " +
+             "\nonce with -populate and then any number of times with -load using the same " +
+             "\nshape parameters.  Both actions can be specified in one run.  Populating is " +
+             "\nidempotent." +
+             "\n\nRoles are arranged in -depth levels.  Each role above the bottom level is " +
+             "\nassigned -fanout child roles from the level below, so a role can have more " +
+             "\nthan one parent.  Users are assigned roles from all levels." +
+             "\n\nThe load driver issues operations at a fixed rate regardless of how long " +
+             "\nearlier operations take.  Latency is measured from each operation's scheduled " +
+             "\nstart time, so time spent waiting for a worker is included.\n";
+         System.out.println(s);
+         System.exit(0);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* validateParms:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Check the semantic integrity of the input parameters.
+     *
+     * @throws TapisException on invalid input
+     */
+    private void validateParms()
+     throws TapisException
+    {
+        // Something has to be done.
+        if (!populate && !load)
+            throw new TapisException("At least one of -populate or -load must be specified.");
+        if (StringUtils.isBlank(tenant))
+            throw new TapisException("The -tenant parameter cannot be blank.");
+
+        // Check the tenant shape.
+        if (users < 1) throw new TapisException("The -users parameter must be positive.");
+        if (depth < 1 || depth > MAX_DEPTH)
+            throw new TapisException("The -depth parameter must be between 1 and " + MAX_DEPTH + ".");
+        if (roles < depth)
+            throw new TapisException("The -roles parameter must be at least the -depth parameter.");
+        if (fanout < 0) throw new TapisException("The -fanout parameter cannot be negative.");
+        if (userRoles < 0 || userRoles > roles)
+            throw new TapisException("The -userroles parameter must be between 0 and -roles.");
+        if (perms < 0) throw new TapisException("The -perms parameter cannot be negative.");
+        if (filesPct < 0 || filesPct > 100)
+            throw new TapisException("The -filespct parameter must be between 0 and 100.");
+        if (systems < 1) throw new TapisException("The -systems parameter must be positive.");
+        if (shares < 0) throw new TapisException("The -shares parameter cannot be negative.");
+
+        // Check the load.
+        if (rate < 1) throw new TapisException("The -rate parameter must be positive.");
+        if (duration < 1) throw new TapisException("The -duration parameter must be positive.");
+        if (warmup < 0) throw new TapisException("The -warmup parameter cannot be negative.");
+        if (workers < 1 || workers > MAX_WORKERS)
+            throw new TapisException("The -workers parameter must be between 1 and " + MAX_WORKERS + ".");
+        mixPct = parseMix(mix);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* parseMix:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Parse the operation mix, whose percentages must add up to 100.
+     *
+     * @param mix the op:pct list
+     * @return the percentage of each operation in the mix
+     * @throws TapisException on invalid input
+     */
+    private static EnumMap<LoadOperation,Integer> parseMix(String mix)
+     throws TapisException
+    {
+        var mixPct = new EnumMap<LoadOperation,Integer>(LoadOperation.class);
+        if (StringUtils.isBlank(mix)) throw new TapisException("The -mix parameter cannot be blank.");
+        int total = 0;
+        for (var item : mix.split(",")) {
+            var parts = item.trim().split(":");
+            try {
+                if (parts.length != 2) throw new IllegalArgumentException();
+                var op  = LoadOperation.valueOf(parts[0].trim());
+                int pct = Integer.parseInt(parts[1].trim());
+                if (pct < 0) throw new IllegalArgumentException();
+                mixPct.merge(op, pct, Integer::sum);
+                total += pct;
+            }
+            catch (Exception e) {
+                throw new TapisException("Invalid -mix item \"" + item + "\".  Use op:pct with op one of " +
+                                         Arrays.toString(LoadOperation.values()) + ".");
+            }
+        }
+        if (total != 100) throw new TapisException("The -mix percentages must add up to 100.");
+        return mixPct;
+    }
+}
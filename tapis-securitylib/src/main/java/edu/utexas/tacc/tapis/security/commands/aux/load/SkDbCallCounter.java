@@ -0,0 +1,81 @@
+package edu.utexas.tacc.tapis.security.commands.aux.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import edu.utexas.tacc.tapis.security.authz.dao.SkDataSourceProxy;
+
+/** Count the database round trips made through a datasource.  Each statement
+ * execution and each commit or rollback is counted.  Counts are kept for the
+ * calling thread as well as in total, so a caller that runs an operation on
+ * one thread can attribute the round trips it made to that operation.
+ */
+public final class SkDbCallCounter
+{
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Round trips made by all threads.
+    private final AtomicLong _total = new AtomicLong();
+
+    // Round trips made by each thread.
+    private final ThreadLocal<long[]> _thread = ThreadLocal.withInitial(() -> new long[1]);
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* wrap:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Return a datasource whose connections count their round trips.
+     *
+     * @param ds the datasource to wrap
+     * @return the counting datasource
+     */
+    public DataSource wrap(DataSource ds)
+    {
+        return SkDataSourceProxy.wrap(ds, new SkDataSourceProxy.Interceptor<Void>() {
+            @Override
+            public Void prepare(String sql) {return null;}
+
+            @Override
+            public Object execute(Void state, SkDataSourceProxy.Call call) throws Throwable
+            {
+                increment();
+                return call.proceed();
+            }
+
+            @Override
+            public Object complete(SkDataSourceProxy.Call call) throws Throwable
+            {
+                increment();
+                return call.proceed();
+            }
+        });
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getThreadCount:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Return the number of round trips made by the calling thread. */
+    public long getThreadCount() {return _thread.get()[0];}
+
+    /* ---------------------------------------------------------------------- */
+    /* getTotalCount:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Return the number of round trips made by all threads. */
+    public long getTotalCount() {return _total.get();}
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* increment:                                                             */
+    /* ---------------------------------------------------------------------- */
+    private void increment()
+    {
+        _thread.get()[0]++;
+        _total.incrementAndGet();
+    }
+}
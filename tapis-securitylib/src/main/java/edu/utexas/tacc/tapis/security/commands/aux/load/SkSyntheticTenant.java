@@ -0,0 +1,423 @@
+package edu.utexas.tacc.tapis.security.commands.aux.load;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.utexas.tacc.tapis.security.authz.dao.SkRoleDao;
+import edu.utexas.tacc.tapis.security.authz.dao.SkRolePermissionDao;
+import edu.utexas.tacc.tapis.security.authz.dao.SkRoleTreeDao;
+import edu.utexas.tacc.tapis.security.authz.dao.SkShareDao;
+import edu.utexas.tacc.tapis.security.authz.dao.SkUserRoleDao;
+import edu.utexas.tacc.tapis.security.authz.model.SkShare;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+
+/** A synthetic tenant whose users, roles, role hierarchy, permissions and
+ * shares are generated from a seed.  The same parameters always generate the
+ * same tenant, so the load driver can regenerate the tenant that a previous
+ * run wrote to the database instead of reading it back.
+ *
+ * Roles are arranged in levels whose sizes grow by the fan-out from the top
+ * level down.  Each role above the bottom level is assigned fan-out distinct
+ * child roles chosen from the level below, so the hierarchy is a DAG in which
+ * roles can have more than one parent.  A role's effective permissions are its
+ * own and those of all its descendants.
+ *
+ * Permissions use the files and system schemas.  Systems are chosen with a
+ * skew toward low numbered systems and files paths are 1 to 4 segments deep
+ * below user home or project directories.  A few percent of permissions use
+ * wildcard operations.  Shares grant file or system privileges to users and
+ * occasionally to ~public.
+ */
+public final class SkSyntheticTenant
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The synthetic tenant's administrator, who owns and assigns everything.
+    public static final String ADMIN_USER = "skauthzload";
+
+    // Shares are inserted in batches of this size.
+    private static final int SHARE_BATCH_SIZE = 1000;
+
+    // Resource types and privileges.
+    public static final String FILE_RESOURCE   = "file";
+    public static final String SYSTEM_RESOURCE = "system";
+    private static final String[] PRIVILEGES   = {"READ", "READ", "READ", "MODIFY"};
+
+    // The public grantee and the chance a share uses it.
+    static final String PUBLIC_GRANTEE = SkShareDao.PUBLIC_GRANTEE;
+    private static final int    PUBLIC_SHARE_PCT = 5;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Input.
+    private final SkAuthzLoadParms _parms;
+
+    // Generated names.
+    private final List<String>       _users;
+    private final List<String>       _roles;
+    private final List<String>       _systems;
+
+    // The first role index of each level followed by the number of roles.
+    private final int[]              _levelStart;
+
+    // Generated assignments by role or user index.
+    private final List<int[]>        _children;
+    private final List<List<String>> _rolePerms;
+    private final List<int[]>        _userRoles;
+    private final List<SkShare>      _shares;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public SkSyntheticTenant(SkAuthzLoadParms parms)
+    {
+        _parms = parms;
+        var rand = new Random(parms.seed);
+
+        // Names.
+        _users = new ArrayList<>(parms.users);
+        for (int i = 0; i < parms.users; i++) _users.add(String.format("user%06d", i));
+        _systems = new ArrayList<>(parms.systems);
+        for (int i = 0; i < parms.systems; i++) _systems.add("sys" + i);
+        _levelStart = getLevelStarts(parms.roles, parms.depth, parms.fanout);
+        _roles = new ArrayList<>(parms.roles);
+        for (int level = 0; level < parms.depth; level++)
+            for (int i = _levelStart[level]; i < _levelStart[level + 1]; i++)
+                _roles.add("syn_L" + level + "_" + i);
+
+        // Role hierarchy.
+        _children = new ArrayList<>(parms.roles);
+        for (int level = 0; level < parms.depth; level++)
+            for (int i = _levelStart[level]; i < _levelStart[level + 1]; i++)
+                if (level == parms.depth - 1) _children.add(new int[0]);
+                  else _children.add(choose(rand, _levelStart[level + 1], _levelStart[level + 2],
+                                            parms.fanout));
+
+        // Role permissions.
+        _rolePerms = new ArrayList<>(parms.roles);
+        for (int i = 0; i < parms.roles; i++) {
+            var perms = new LinkedHashSet<String>();
+            for (int p = 0; p < parms.perms; p++) perms.add(newPermission(rand));
+            _rolePerms.add(new ArrayList<>(perms));
+        }
+
+        // User roles.
+        _userRoles = new ArrayList<>(parms.users);
+        for (int i = 0; i < parms.users; i++) _userRoles.add(choose(rand, 0, parms.roles, parms.userRoles));
+
+        // Shares.
+        _shares = new ArrayList<>(parms.users * parms.shares);
+        for (int i = 0; i < parms.users; i++)
+            for (int s = 0; s < parms.shares; s++) _shares.add(newShare(rand, i));
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* populate:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Write the tenant to the database using the SK daos.  Records that
+     * already exist are skipped by the daos, so populating is idempotent.
+     *
+     * @throws TapisException on error
+     */
+    public void populate() throws TapisException
+    {
+        String tenant = _parms.tenant;
+        var roleDao = new SkRoleDao();
+
+        // Create the roles and get their ids.
+        long start = System.currentTimeMillis();
+        runAll("roles", _roles.size(), i ->
+            roleDao.createRole(_roles.get(i), tenant, "Synthetic load role", ADMIN_USER, tenant));
+        var roleIds = new int[_roles.size()];
+        for (int i = 0; i < roleIds.length; i++) {
+            Integer id = roleDao.getRoleId(tenant, _roles.get(i));
+            if (id == null) throw new TapisException("Role " + _roles.get(i) + " was not created.");
+            roleIds[i] = id;
+        }
+
+        // Assign child roles.
+        var treeDao = new SkRoleTreeDao();
+        var edges = new ArrayList<int[]>();
+        for (int i = 0; i < _children.size(); i++)
+            for (int child : _children.get(i)) edges.add(new int[] {i, child});
+        runAll("child role assignments", edges.size(), i ->
+            treeDao.assignChildRole(tenant, ADMIN_USER, tenant, _roles.get(edges.get(i)[0]),
+                                    _roles.get(edges.get(i)[1])));
+
+        // Assign role permissions.
+        var permDao = new SkRolePermissionDao();
+        var rolePerms = new ArrayList<int[]>();
+        for (int i = 0; i < _rolePerms.size(); i++)
+            for (int p = 0; p < _rolePerms.get(i).size(); p++) rolePerms.add(new int[] {i, p});
+        runAll("role permissions", rolePerms.size(), i -> {
+            int role = rolePerms.get(i)[0];
+            return permDao.assignPermission(tenant, roleIds[role], _rolePerms.get(role).get(rolePerms.get(i)[1]),
+                                            ADMIN_USER, tenant);
+        });
+
+        // Assign user roles.
+        var userRoleDao = new SkUserRoleDao();
+        var userRoles = new ArrayList<int[]>();
+        for (int i = 0; i < _userRoles.size(); i++)
+            for (int role : _userRoles.get(i)) userRoles.add(new int[] {i, role});
+        runAll("user role assignments", userRoles.size(), i ->
+            userRoleDao.assignUserRole(_users.get(userRoles.get(i)[0]), tenant, roleIds[userRoles.get(i)[1]],
+                                       ADMIN_USER, tenant));
+
+        // Insert the shares in batches.
+        var shareDao = new SkShareDao();
+        int batches = (_shares.size() + SHARE_BATCH_SIZE - 1) / SHARE_BATCH_SIZE;
+        runAll("share batches", batches, i ->
+            shareDao.shareResources(_shares.subList(i * SHARE_BATCH_SIZE,
+                                         Math.min(_shares.size(), (i + 1) * SHARE_BATCH_SIZE)),
+                                    ADMIN_USER, tenant).size());
+
+        System.out.println("Populated tenant " + tenant + " in " +
+                           (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getEffectivePermissions:                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Return the permissions of a user's roles and their descendants.
+     *
+     * @param user the user index
+     * @return the user's permissions
+     */
+    public List<String> getEffectivePermissions(int user)
+    {
+        // Walk the DAG from each of the user's roles.
+        var visited = new BitSet(_roles.size());
+        var stack = new ArrayList<Integer>();
+        for (int role : _userRoles.get(user)) stack.add(role);
+        var perms = new LinkedHashSet<String>();
+        while (!stack.isEmpty()) {
+            int role = stack.remove(stack.size() - 1);
+            if (visited.get(role)) continue;
+            visited.set(role);
+            perms.addAll(_rolePerms.get(role));
+            for (int child : _children.get(role)) stack.add(child);
+        }
+        return new ArrayList<>(perms);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* newPermission:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Generate a permission with the tenant's distributions.
+     *
+     * @param rand the random generator
+     * @return the permission
+     */
+    public String newPermission(Random rand)
+    {
+        String system = chooseSystem(rand);
+        if (rand.nextInt(100) < _parms.filesPct) {
+            int r = rand.nextInt(100);
+            String op = r < 65 ? "read" : r < 95 ? "modify" : "*";
+            return "files:" + _parms.tenant + ":" + op + ":" + system + ":" + newPath(rand);
+        }
+        int r = rand.nextInt(100);
+        String ops = r < 50 ? "read" : r < 80 ? "read,execute" : r < 95 ? "read,modify,execute" : "*";
+        return "system:" + _parms.tenant + ":" + ops + ":" + system;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* newPath:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Generate a files path 1 to 4 segments deep.
+     *
+     * @param rand the random generator
+     * @return the absolute path
+     */
+    public String newPath(Random rand)
+    {
+        var buf = new StringBuilder();
+        if (rand.nextBoolean()) buf.append("/home/").append(_users.get(rand.nextInt(_users.size())));
+          else buf.append("/projects/p").append(rand.nextInt(100));
+        int segments = rand.nextInt(4);
+        for (int i = 0; i < segments; i++) buf.append("/d").append(rand.nextInt(10));
+        return buf.toString();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* chooseSystem:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Choose a system with a skew toward low numbered systems. */
+    public String chooseSystem(Random rand)
+    {
+        double r = rand.nextDouble();
+        return _systems.get((int) (r * r * _systems.size()));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* accessors:                                                             */
+    /* ---------------------------------------------------------------------- */
+    public String getTenant() {return _parms.tenant;}
+    public List<String> getUsers() {return Collections.unmodifiableList(_users);}
+    public List<String> getRoles() {return Collections.unmodifiableList(_roles);}
+    public List<SkShare> getShares() {return Collections.unmodifiableList(_shares);}
+    public int[] getChildren(int role) {return _children.get(role).clone();}
+    public int[] getUserRoles(int user) {return _userRoles.get(user).clone();}
+    public List<String> getRolePermissions(int role) {return Collections.unmodifiableList(_rolePerms.get(role));}
+
+    /** Return the index of the first role in a level, or the number of roles
+     * when the level is the depth. */
+    public int getLevelStart(int level) {return _levelStart[level];}
+
+    /* ---------------------------------------------------------------------- */
+    /* toString:                                                              */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public String toString()
+    {
+        int edges = 0, perms = 0, userRoles = 0;
+        for (var children : _children) edges += children.length;
+        for (var rolePerms : _rolePerms) perms += rolePerms.size();
+        for (var roles : _userRoles) userRoles += roles.length;
+        var levels = new StringBuilder();
+        for (int level = 0; level < _parms.depth; level++)
+            levels.append(level == 0 ? "" : "/").append(_levelStart[level + 1] - _levelStart[level]);
+        return "Tenant " + _parms.tenant + ": " + _users.size() + " users, " + _roles.size() +
+               " roles (" + levels + " per level), " + edges + " child role assignments, " +
+               perms + " role permissions, " + userRoles + " user role assignments, " +
+               _shares.size() + " shares.";
+    }
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getLevelStarts:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Divide the roles into levels whose sizes grow geometrically by the
+     * fan-out, with at least one role per level.
+     *
+     * @return the first role index of each level followed by the number of roles
+     */
+    private static int[] getLevelStarts(int roles, int depth, int fanout)
+    {
+        // Relative level weights.
+        double growth = Math.max(1, fanout);
+        double total = 0;
+        var weights = new double[depth];
+        for (int level = 0; level < depth; level++) total += weights[level] = Math.pow(growth, level);
+
+        // Size each level and give the remainder to the bottom level.
+        var sizes = new int[depth];
+        int assigned = 0;
+        for (int level = 0; level < depth; level++) {
+            sizes[level] = Math.max(1, (int) (roles * weights[level] / total));
+            assigned += sizes[level];
+        }
+        sizes[depth - 1] += roles - assigned;
+
+        // Rounding up small levels can overcommit, so take back from the largest.
+        for (int level = depth - 1; sizes[depth - 1] < 1 && level >= 0; level--)
+            while (sizes[level] > 1 && sizes[depth - 1] < 1) {sizes[level]--; sizes[depth - 1]++;}
+
+        var starts = new int[depth + 1];
+        for (int level = 0; level < depth; level++) starts[level + 1] = starts[level] + sizes[level];
+        return starts;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* choose:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Choose up to count distinct indexes in [from, to). */
+    private static int[] choose(Random rand, int from, int to, int count)
+    {
+        var indexes = new ArrayList<Integer>(to - from);
+        for (int i = from; i < to; i++) indexes.add(i);
+        Collections.shuffle(indexes, rand);
+        int n = Math.min(count, indexes.size());
+        var chosen = new int[n];
+        for (int i = 0; i < n; i++) chosen[i] = indexes.get(i);
+        return chosen;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* newShare:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private SkShare newShare(Random rand, int user)
+    {
+        var share = new SkShare();
+        share.setTenant(_parms.tenant);
+        share.setGrantor(_users.get(rand.nextInt(_users.size())));
+        share.setGrantee(rand.nextInt(100) < PUBLIC_SHARE_PCT ? PUBLIC_GRANTEE : _users.get(user));
+        share.setResourceId1(chooseSystem(rand));
+        if (rand.nextInt(100) < _parms.filesPct) {
+            share.setResourceType(FILE_RESOURCE);
+            share.setResourceId2(newPath(rand));
+        }
+        else share.setResourceType(SYSTEM_RESOURCE);
+        share.setPrivilege(PRIVILEGES[rand.nextInt(PRIVILEGES.length)]);
+        return share;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* runAll:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Run a dao call for each index on the worker threads and report the
+     * number of rows inserted.
+     *
+     * @param label the name of the records being inserted
+     * @param count the number of calls
+     * @param call the dao call for an index, which returns the rows inserted
+     * @throws TapisException if any call fails
+     */
+    private void runAll(String label, int count, IndexedCall call) throws TapisException
+    {
+        long start = System.currentTimeMillis();
+        var rows = new AtomicInteger();
+        var tasks = new ArrayList<Callable<Void>>(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            tasks.add(() -> {rows.addAndGet(call.call(index)); return null;});
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(_parms.workers, count)));
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) future.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof TapisException) throw (TapisException) e.getCause();
+            throw new TapisException(e.getCause().getMessage(), e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TapisException("Populating " + label + " was interrupted.", e);
+        }
+        finally {executor.shutdownNow();}
+
+        System.out.println("  " + label + ": " + count + " calls, " + rows.get() + " rows inserted in " +
+                           (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /* ********************************************************************** */
+    /*                           IndexedCall Class                            */
+    /* ********************************************************************** */
+    @FunctionalInterface
+    private interface IndexedCall
+    {
+        int call(int index) throws TapisException;
+    }
+}
@@ -1,11 +1,30 @@
 package edu.utexas.tacc.tapis.security.commands.aux.transfer;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.gson.JsonObject;
 
@@ -20,6 +39,25 @@ import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
  * token should be the same token that SK would use during normal execution.  The
  * target token should be an AppRole generated token using the "sk" role-id.  
  * 
+ * By default, the source tree is walked and each secret is copied on a single
+ * thread.  When more than one worker is requested, listings, reads and writes
+ * are issued concurrently.  Reading and writing are separate stages, each limited
+ * to that many concurrent requests, so reads continue while writes wait on the 
+ * optional target write rate limit.  At most twice that many secrets are held
+ * in memory between their read and write.
+ * 
+ * When a checkpoint file is given, the path of each secret successfully written
+ * is appended to it.  A transfer that is interrupted can be rerun with the same
+ * checkpoint file and the secrets already copied will be skipped.
+ * 
+ * In delta mode, the metadata of each source secret is compared to that of the
+ * same path in the target.  Only secrets that are missing from the target or 
+ * were updated in the source after the target was last written are copied, so
+ * rerunning a transfer doesn't create new versions of unchanged secrets.  The
+ * source and target version numbers are independent and not compared.  Target
+ * secrets that are not in the source can also be pruned, which is not attempted
+ * if any part of the source could not be read.
+ * 
  * @author rcardone
  */
 public class TransferSecrets 
@@ -29,12 +67,21 @@ public class TransferSecrets
     /* ********************************************************************** */
     // Root of the tapis secrets subtree.
     private static final String TAPIS_SECRET_ROOT = "tapis/";
+    
+    // Progress is reported each time this many more secrets have been read.
+    private static final int PROGRESS_READS = 500;
 
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
     private enum VaultInstance {source, target}
     
+    /* ********************************************************************** */
+    /*                                 Records                                */
+    /* ********************************************************************** */
+    // The KV metadata used to detect changed secrets.
+    private record SecretMetadata(int currentVersion, Instant updatedTime) {}
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
@@ -44,15 +91,32 @@ public class TransferSecrets
     // The client used for all http calls.
     private final HttpClient           _httpClient;
     
-    // Progress counters.
-    private int                        _numListings;
-    private int                        _numReads;
+    // Progress counters, which are updated concurrently by the parallel walk.
+    private final AtomicInteger        _numListings = new AtomicInteger();
+    private final AtomicInteger        _numReads    = new AtomicInteger();
+    private final AtomicInteger        _numSkipped  = new AtomicInteger();
+    private final AtomicInteger        _numUnchanged = new AtomicInteger();
     
-    // Result reporting lists.
+    // Result reporting lists, which are accessed under their own locks.
     private final TreeSet<String>      _successWrites; // Number of secrets written to target.
     private final TreeSet<String>      _failedWrites;  // Number of secrets that failed write to target.
     private final TreeSet<String>      _failedReads;   // Number of secrets paths that could not be read.
     
+    // Delta mode results, which are accessed under their own locks.
+    private final TreeSet<String>      _newPaths;      // Source secrets not in the target.
+    private final TreeSet<String>      _changedPaths;  // Source secrets updated since copied.
+    private final TreeSet<String>      _prunedPaths;   // Target secrets not in the source.
+    
+    // All source secret paths, only collected when pruning.
+    private final Set<String>          _sourcePaths;
+    
+    // Target write pacing, null when writes are not limited.
+    private final RateLimiter          _writeLimiter;
+    
+    // Source paths already copied and the checkpoint file that records them.
+    private final Set<String>          _copiedPaths;
+    private BufferedWriter             _checkpoint;
+    
     /* ********************************************************************** */
     /*                              Constructors                              */
     /* ********************************************************************** */
@@ -73,6 +137,12 @@ public class TransferSecrets
         _successWrites = new TreeSet<String>();
         _failedWrites  = new TreeSet<String>();
         _failedReads   = new TreeSet<String>();
+        _writeLimiter  = parms.writeRate > 0 ? new RateLimiter(parms.writeRate) : null;
+        _copiedPaths   = new HashSet<String>();
+        _newPaths      = new TreeSet<String>();
+        _changedPaths  = new TreeSet<String>();
+        _prunedPaths   = new TreeSet<String>();
+        _sourcePaths   = parms.prune ? Collections.synchronizedSet(new HashSet<String>()) : null;
     }
 
     /* ********************************************************************** */
@@ -106,11 +176,22 @@ public class TransferSecrets
         checkStatus(VaultInstance.source);
         checkStatus(VaultInstance.target);
         
-        // Walk the source tree and discover all tapis secrets.
-        processSourceTree(TAPIS_SECRET_ROOT);
+        // Skip the secrets copied by previous runs.
+        openCheckpoint();
+        
+        // Walk the source tree and copy all tapis secrets.
+        long startMillis = System.currentTimeMillis();
+        try {
+            if (_parms.workers > 1) processTreeParallel(TAPIS_SECRET_ROOT, VaultInstance.source);
+              else processSourceTree(TAPIS_SECRET_ROOT);
+        }
+        finally {closeCheckpoint();}
+        
+        // Remove target secrets that are no longer in the source.
+        if (_parms.prune) pruneTarget();
         
         // Output.
-        writeResults();
+        writeResults(System.currentTimeMillis() - startMillis);
     }
 
     /* ********************************************************************** */
@@ -119,47 +200,135 @@ public class TransferSecrets
     /* ---------------------------------------------------------------------- */
     /* processSourceTree:                                                     */
     /* ---------------------------------------------------------------------- */
-    /** The first call to this method
+    /** The first call to this recursive method starts at the root of the tapis
+     * hierarchy in Vault. 
      * 
-     * @param curpath
-     * @return
+     * @param curpath the path to explore depth-first
      */
     private void processSourceTree(String curpath) throws Exception
+    {
+        // List the curpath.
+        var keys = listPath(VaultInstance.source, curpath);
+        if (keys == null) {
+            // We probably discovered a secret (i.e., leaf node).
+            copySecret(curpath);
+            return;
+        }
+        
+        // Intermediate node.
+        for (String key : keys) processSourceTree(curpath + key);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* processTargetTree:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Walk the target tree depth-first and prune secrets not in the source.
+     * 
+     * @param curpath the path to explore depth-first
+     */
+    private void processTargetTree(String curpath) throws Exception
+    {
+        var keys = listPath(VaultInstance.target, curpath);
+        if (keys == null) {pruneSecret(curpath); return;}
+        for (String key : keys) processTargetTree(curpath + key);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* processTreeParallel:                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Walk the tree rooted at the path using the configured number of workers.
+     * Source secrets are copied and target secrets not in the source are pruned.
+     * Every path is a separate task, so busy subtrees are shared among all 
+     * workers.
+     * 
+     * @param rootpath the root of the tree to walk
+     * @param vaultInstance the vault to walk
+     */
+    private void processTreeParallel(String rootpath, VaultInstance vaultInstance) 
+     throws Exception
+    {
+        // Readers and writers block separately, so the pool has room for both.
+        // The semaphores limit the requests in flight to each vault.
+        int workers = _parms.workers;
+        var threadNum = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2 * workers, r -> {
+            var t = new Thread(r, "TransferSecrets-" + threadNum.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        System.out.println((vaultInstance == VaultInstance.source ? "Transferring " : "Pruning ") +
+                           rootpath + " with " + workers + " workers" +
+                           (_writeLimiter == null ? "." : 
+                               " at no more than " + _parms.writeRate + " writes per second."));
+        
+        // Walk the tree and wait for every path to be processed.
+        var walk = new ParallelWalk(executor, workers, vaultInstance);
+        try {
+            walk.submit(rootpath);
+            walk.done.await();
+        }
+        finally {executor.shutdownNow();}
+        
+        // Fail the transfer on the same errors that stop the serial walk.
+        if (walk.failure.get() != null) throw walk.failure.get();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* listPath:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** List a path in the source or target vault.
+     * 
+     * @param vaultInstance the vault to list
+     * @param curpath the path to list
+     * @return the keys at the path, null if the path is a secret, or an empty 
+     *         list if the listing failed
+     */
+    private List<String> listPath(VaultInstance vaultInstance, String curpath) throws Exception
     {
         // Increment listing counter.
-        _numListings++;
+        _numListings.incrementAndGet();
         
         // Make the request to list the curpath.
+        String baseUrl = getUrl(vaultInstance);
         HttpRequest request;
         HttpResponse<String> resp;
         try {
             request = HttpRequest.newBuilder()
-                .uri(new URI(_parms.surl + "v1/secret/metadata/" + curpath))
-                .headers("X-Vault-Token", _parms.stok, "Accept", "application/json", 
+                .uri(new URI(baseUrl + "v1/secret/metadata/" + curpath))
+                .headers("X-Vault-Token", getToken(vaultInstance), "Accept", "application/json", 
                          "Content-Type", "application/json")
                 .method("LIST", BodyPublishers.noBody())
                 .build();
             resp = _httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         } catch (Exception e) {
             // Record read failure and display error message.
-            recordFailedRead(_parms.surl + "v1/secret/metadata/" + curpath);
+            recordFailedRead(baseUrl + "v1/secret/metadata/" + curpath);
             System.out.println(e.getClass().getSimpleName() + ": " + e.getMessage());
-            return;
+            return Collections.emptyList();
         }
         
         // Check return code.
         int rc = resp.statusCode();
-        if (rc == 404) {
+        if (rc == 404 && curpath.equals(TAPIS_SECRET_ROOT)) {
+            // The root is never a secret.  A missing source root means the 
+            // source could not be read, which must not look like an empty tree.
+            if (vaultInstance == VaultInstance.source) {
+                recordFailedRead(baseUrl + "v1/secret/metadata/" + curpath);
+                System.out.println("No secrets found at " + request.uri().toString() + 
+                                   " in source vault.");
+            }
+            return Collections.emptyList();
+        }
+        else if (rc == 404) {
             // We probably discovered a secret (i.e., leaf node).
-            copySecret(curpath);
-            return;
+            return null;
         }
         else if (rc >= 300) {
             // Looks like an error.
-            recordFailedRead(_parms.surl + "v1/secret/metadata/" + curpath);
+            recordFailedRead(baseUrl + "v1/secret/metadata/" + curpath);
             System.out.println("Received http status code " + rc + " on LIST request to " + 
-                               "source vault: " + request.uri().toString() + ".");
-            return;
+                               vaultInstance.name() + " vault: " + request.uri().toString() + ".");
+            return Collections.emptyList();
         } else {
             // Intermediate node. Parse the response body that looks something like this:
             // {"data": {"keys": ["foo", "foo/"]}}
@@ -167,13 +336,10 @@ public class TransferSecrets
             var data    = jsonObj.get("data").getAsJsonObject();
             var keys    = data.get("keys").getAsJsonArray();
             int numKeys = keys.size();
-            for (int i = 0; i < numKeys; i++) {         
-               String key = keys.get(i).getAsString();
-               processSourceTree(curpath + key);
-            }
+            var list    = new ArrayList<String>(numKeys);
+            for (int i = 0; i < numKeys; i++) list.add(keys.get(i).getAsString());
+            return list;
         }
-        
-        return;
     }
     
     /* ---------------------------------------------------------------------- */
@@ -181,18 +347,111 @@ public class TransferSecrets
     /* ---------------------------------------------------------------------- */
     private void copySecret(String curpath)
     {
+        // Skip secrets copied by a previous run or unchanged since last copied.
+        if (isCopied(curpath)) return;
+        if (_parms.delta && !isChanged(curpath)) return;
+        
         // Get the secret from the source vault.
         var secretText = readSecret(curpath);
         if (secretText == null) return;
         
         // Write the secret to the target vault.
         writeSecret(curpath, secretText);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* isCopied:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether a source secret was copied by a previous run according
+     * to the checkpoint file.  Source paths are also collected here for pruning.
+     * 
+     * @param curpath the source secret path
+     * @return true if the secret should be skipped
+     */
+    private boolean isCopied(String curpath)
+    {
+        if (_sourcePaths != null) _sourcePaths.add(curpath);
+        if (!_copiedPaths.contains(curpath)) return false;
+        _numSkipped.incrementAndGet();
+        return true;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* isChanged:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Compare a secret's source and target metadata to determine whether it
+     * needs to be copied.  A secret is copied if it's not in the target or if 
+     * it was updated in the source after the target was last written.  The 
+     * secret is also copied if the target's metadata cannot be read.
+     * 
+     * @param curpath the source secret path
+     * @return true if the secret should be copied
+     */
+    private boolean isChanged(String curpath)
+    {
+        // Skip secrets whose source metadata can't be read.
+        SecretMetadata source, target;
+        try {source = readMetadata(VaultInstance.source, curpath);}
+            catch (Exception e) {
+                recordFailedRead(_parms.surl + "v1/secret/metadata/" + curpath);
+                System.out.println(e.getClass().getSimpleName() + ": " + e.getMessage());
+                return false;
+            }
+        if (source == null) return false;
+        try {target = readMetadata(VaultInstance.target, curpath);}
+            catch (Exception e) {
+                recordFailedRead(_parms.turl + "v1/secret/metadata/" + curpath);
+                System.out.println(e.getClass().getSimpleName() + ": " + e.getMessage());
+                synchronized (_changedPaths) {_changedPaths.add(curpath);}
+                return true;
+            }
         
-        // Accumulate the secrets written.
-        if (_numReads % 500 == 0) 
-            System.out.println("->Listings = " + _numListings 
-                               + ",\tReads = "  + _numReads 
-                               + ",\tWrites = " + _successWrites.size());
+        // Classify the secret.
+        if (target == null) {
+            synchronized (_newPaths) {_newPaths.add(curpath);}
+            return true;
+        }
+        if (source.updatedTime().isAfter(target.updatedTime())) {
+            synchronized (_changedPaths) {_changedPaths.add(curpath);}
+            return true;
+        }
+        _numUnchanged.incrementAndGet();
+        return false;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* readMetadata:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Read a secret's KV metadata.
+     * 
+     * @param vaultInstance the vault to read
+     * @param secretPath the secret path
+     * @return the metadata or null if the secret doesn't exist
+     * @throws Exception if the metadata could not be read
+     */
+    private SecretMetadata readMetadata(VaultInstance vaultInstance, String secretPath) 
+     throws Exception
+    {
+        // Make the request.
+        var request = HttpRequest.newBuilder()
+            .uri(new URI(getUrl(vaultInstance) + "v1/secret/metadata/" + secretPath))
+            .headers("X-Vault-Token", getToken(vaultInstance), "Accept", "application/json", 
+                     "Content-Type", "application/json")
+            .build();
+        var resp = _httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        
+        // Check return code.
+        int rc = resp.statusCode();
+        if (rc == 404) return null;
+        if (rc >= 300) 
+            throw new RuntimeException("Received http status code " + rc + " on metadata request to " + 
+                                       vaultInstance.name() + " vault: " + request.uri().toString() + ".");
+        
+        // The metadata looks like:  "data": {"current_version": 3, "updated_time": "2018-03-22T02:36:43.986212308Z", ...}
+        var jsonObj = TapisGsonUtils.getGson().fromJson(resp.body(), JsonObject.class);
+        var data = jsonObj.get("data").getAsJsonObject();
+        return new SecretMetadata(data.get("current_version").getAsInt(),
+                                  Instant.parse(data.get("updated_time").getAsString()));
     }
     
     /* ---------------------------------------------------------------------- */
@@ -200,8 +459,12 @@ public class TransferSecrets
     /* ---------------------------------------------------------------------- */
     private String readSecret(String secretPath)
     {
-        // Increment listing counter.
-        _numReads++;
+        // Increment listing counter and periodically report progress.
+        int numReads = _numReads.incrementAndGet();
+        if (numReads % PROGRESS_READS == 0) 
+            System.out.println("->Listings = " + _numListings 
+                               + ",\tReads = "  + numReads 
+                               + ",\tWrites = " + getSuccessWriteCount());
         
         // Make the request.
         HttpRequest request;
@@ -261,11 +524,12 @@ public class TransferSecrets
             
             // Assume that the write would have worked.
             if (_parms.dryRun) {
-                _successWrites.add(request.uri().toString());
+                recordSuccessWrite(request.uri().toString());
                 return;
             }
             
-            // Write to target.
+            // Write to target at no more than the allowed rate.
+            if (_writeLimiter != null) _writeLimiter.acquire();
             resp = _httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         } catch (Exception e) {
             // Record failure and output error message.
@@ -281,10 +545,107 @@ public class TransferSecrets
             recordFailedWrite(uri.toString());
             System.out.println("Received http status code " + rc + " on WRITE request to " + 
                                "target vault: " + request.uri().toString() + ".");
+            return;
         } 
         
-        // Update the success list.
-        _successWrites.add(uri.toString());
+        // Update the success list and the checkpoint.
+        recordSuccessWrite(uri.toString());
+        recordCheckpoint(secretPath);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* pruneTarget:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Delete all versions of the target secrets that are not in the source.  
+     * Nothing is deleted if any source path could not be read, since the secrets
+     * under it would appear to be missing from the source.  Nothing is deleted
+     * if the source has no secrets either, since pruning would empty the target.
+     */
+    private void pruneTarget() throws Exception
+    {
+        synchronized (_failedReads) {
+            if (!_failedReads.isEmpty()) {
+                System.out.println("Target secrets were not pruned because " + _failedReads.size() +
+                                   " source paths could not be read.");
+                return;
+            }
+        }
+        if (_sourcePaths.isEmpty()) {
+            System.out.println("Target secrets were not pruned because no source secrets were found.");
+            return;
+        }
+        if (_parms.workers > 1) processTreeParallel(TAPIS_SECRET_ROOT, VaultInstance.target);
+          else processTargetTree(TAPIS_SECRET_ROOT);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* pruneSecret:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Delete a target secret if it's not in the source.
+     * 
+     * @param secretPath the target secret path
+     */
+    private void pruneSecret(String secretPath)
+    {
+        // Only prune secrets not found in the source.
+        if (_sourcePaths.contains(secretPath)) return;
+        
+        // Make the request.
+        HttpRequest request;
+        HttpResponse<String> resp;
+        try {
+            request = HttpRequest.newBuilder()
+                .uri(new URI(_parms.turl + "v1/secret/metadata/" + secretPath))
+                .headers("X-Vault-Token", _parms.ttok, "Accept", "application/json", 
+                         "Content-Type", "application/json")
+                .DELETE()
+                .build();
+            
+            // Assume that the delete would have worked.
+            if (_parms.dryRun) {
+                synchronized (_prunedPaths) {_prunedPaths.add(secretPath);}
+                return;
+            }
+            
+            // Delete from target at no more than the allowed rate.
+            if (_writeLimiter != null) _writeLimiter.acquire();
+            resp = _httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            // Record failure and output error message.
+            recordFailedWrite(_parms.turl + "v1/secret/metadata/" + secretPath);
+            System.out.println(e.getClass().getSimpleName() + ": " + e.getMessage());
+            return;
+        }
+        
+        // Check return code.
+        int rc = resp.statusCode();
+        if (rc >= 300) {
+            recordFailedWrite(request.uri().toString());
+            System.out.println("Received http status code " + rc + " on DELETE request to " + 
+                               "target vault: " + request.uri().toString() + ".");
+            return;
+        } 
+        synchronized (_prunedPaths) {_prunedPaths.add(secretPath);}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* recordSuccessWrite:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Add a target write success record.
+     * 
+     * @param path the complete path written
+     */
+    private void recordSuccessWrite(String path)
+    {
+        synchronized (_successWrites) {_successWrites.add(path);}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getSuccessWriteCount:                                                  */
+    /* ---------------------------------------------------------------------- */
+    private int getSuccessWriteCount()
+    {
+        synchronized (_successWrites) {return _successWrites.size();}
     }
     
     /* ---------------------------------------------------------------------- */
@@ -296,10 +657,10 @@ public class TransferSecrets
      */
     private void recordFailedRead(String path)
     {
-        try {
-            URI uri = new URI(path);
-            _failedReads.add(uri.toString());
-        } catch (Exception e1) {_failedReads.add(path);}
+        String s;
+        try {s = new URI(path).toString();}
+            catch (Exception e1) {s = path;}
+        synchronized (_failedReads) {_failedReads.add(s);}
     }
     
     /* ---------------------------------------------------------------------- */
@@ -311,10 +672,86 @@ public class TransferSecrets
      */
     private void recordFailedWrite(String path)
     {
-        try {
-            URI uri = new URI(path);
-            _failedWrites.add(uri.toString());
-        } catch (Exception e1) {_failedWrites.add(path);}
+        String s;
+        try {s = new URI(path).toString();}
+            catch (Exception e1) {s = path;}
+        synchronized (_failedWrites) {_failedWrites.add(s);}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* openCheckpoint:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Load the paths recorded in the checkpoint file, if there is one, and 
+     * open the file to record more.  Dry runs don't record paths.
+     */
+    private void openCheckpoint() throws IOException
+    {
+        if (_parms.checkpointFile == null) return;
+        Path file = Path.of(_parms.checkpointFile);
+        if (Files.exists(file)) {
+            // A partially written last line never matches a path, so that 
+            // secret is simply copied again.
+            try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+                lines.filter(line -> !line.isEmpty()).forEach(_copiedPaths::add);
+            }
+            System.out.println("Resuming transfer with " + _copiedPaths.size() + 
+                               " secrets already copied according to " + file + ".");
+        }
+        if (!_parms.dryRun)
+            _checkpoint = Files.newBufferedWriter(file, StandardCharsets.UTF_8, 
+                                                  StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* recordCheckpoint:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Append a copied path to the checkpoint file.  Each path is flushed as it's
+     * recorded so that no more than the secrets being copied are lost if the 
+     * transfer is killed.
+     * 
+     * @param secretPath the source path of the secret copied
+     */
+    private void recordCheckpoint(String secretPath)
+    {
+        if (_checkpoint == null) return;
+        synchronized (_checkpoint) {
+            try {
+                _checkpoint.write(secretPath);
+                _checkpoint.newLine();
+                _checkpoint.flush();
+            } catch (IOException e) {
+                System.out.println("Unable to record " + secretPath + " in the checkpoint file: " +
+                                   e.getMessage());
+            }
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* closeCheckpoint:                                                       */
+    /* ---------------------------------------------------------------------- */
+    private void closeCheckpoint()
+    {
+        if (_checkpoint == null) return;
+        try {_checkpoint.close();}
+            catch (IOException e) {
+                System.out.println("Unable to close the checkpoint file: " + e.getMessage());
+            }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getUrl:                                                                */
+    /* ---------------------------------------------------------------------- */
+    private String getUrl(VaultInstance vaultInstance)
+    {
+        return vaultInstance == VaultInstance.source ? _parms.surl : _parms.turl;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getToken:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private String getToken(VaultInstance vaultInstance)
+    {
+        return vaultInstance == VaultInstance.source ? _parms.stok : _parms.ttok;
     }
     
     /* ---------------------------------------------------------------------- */
@@ -373,10 +810,15 @@ public class TransferSecrets
     /* ---------------------------------------------------------------------- */
     /* writeResults:                                                          */
     /* ---------------------------------------------------------------------- */
-    private void writeResults()
+    private void writeResults(long elapsedMillis)
     {
         System.out.println("\n-------------------------------------------------");
         System.out.println("Attempted listings = " + _numListings + ", attempted reads = " + _numReads);
+        if (_numSkipped.get() > 0) 
+            System.out.println("Secrets skipped because they were already copied: " + _numSkipped);
+        System.out.println(String.format("Elapsed seconds = %.1f, secrets written per second = %.1f",
+                                         elapsedMillis / 1000.0, 
+                                         _successWrites.size() * 1000.0 / Math.max(elapsedMillis, 1)));
         if (_parms.dryRun) System.out.println("DRY RUN - secrets that would be copied: " + _successWrites.size() + "\n");
           else System.out.println("Total secrets copied to target Vault: " + _successWrites.size() + "\n");
         if (!_successWrites.isEmpty()) {
@@ -397,5 +839,139 @@ public class TransferSecrets
             var it = _failedReads.iterator();
             while (it.hasNext()) System.out.println("  " + it.next());
         }
+        
+        // Summarize the differences found in delta mode.
+        if (!_parms.delta) return;
+        System.out.println("\n-------------------------------------------------");
+        System.out.println("Delta: new = " + _newPaths.size() + ", changed = " + _changedPaths.size() +
+                           ", unchanged = " + _numUnchanged + 
+                           (_parms.prune ? ", pruned = " + _prunedPaths.size() : "") + 
+                           (_parms.dryRun ? " (DRY RUN)" : "") + "\n");
+        for (var path : _newPaths) System.out.println("  + " + path);
+        for (var path : _changedPaths) System.out.println("  ~ " + path);
+        for (var path : _prunedPaths) System.out.println("  - " + path);
+    }
+
+    /* ********************************************************************** */
+    /*                             Nested Classes                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* ParallelWalk:                                                          */
+    /* ---------------------------------------------------------------------- */
+    // The state of one parallel transfer.
+    private final class ParallelWalk
+    {
+        private final ExecutorService executor;
+        private final VaultInstance   vaultInstance;
+        
+        // Requests in flight by stage and secrets held between stages.
+        private final Semaphore       readPermits;
+        private final Semaphore       writePermits;
+        private final Semaphore       copyPermits;
+        
+        // Paths submitted but not yet processed, the walk is done at zero.
+        private final AtomicInteger   pending = new AtomicInteger();
+        private final CountDownLatch  done    = new CountDownLatch(1);
+        
+        // The first error that stops the walk.
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        
+        private ParallelWalk(ExecutorService executor, int workers, VaultInstance vaultInstance)
+        {
+            this.executor     = executor;
+            this.vaultInstance = vaultInstance;
+            this.readPermits  = new Semaphore(workers);
+            this.writePermits = new Semaphore(workers);
+            this.copyPermits  = new Semaphore(2 * workers);
+        }
+        
+        // Process a path on a worker.
+        private void submit(String curpath)
+        {
+            pending.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    if (failure.get() == null) process(curpath);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failure.compareAndSet(null, e);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    if (pending.decrementAndGet() == 0) done.countDown();
+                }
+            });
+        }
+        
+        // List the path and either process its secret or submit its children.
+        private void process(String curpath) throws Exception
+        {
+            List<String> keys;
+            readPermits.acquire();
+            try {keys = listPath(vaultInstance, curpath);}
+            finally {readPermits.release();}
+            
+            // Intermediate node.
+            if (keys != null) {
+                for (String key : keys) submit(curpath + key);
+                return;
+            }
+            
+            // Prune target secrets.
+            if (vaultInstance == VaultInstance.target) {
+                writePermits.acquire();
+                try {pruneSecret(curpath);}
+                finally {writePermits.release();}
+                return;
+            }
+            
+            // Skip secrets copied by a previous run.
+            if (isCopied(curpath)) return;
+            
+            // Read and write the secret in separate stages.
+            copyPermits.acquire();
+            try {
+                String secretText;
+                readPermits.acquire();
+                try {
+                    // Skip secrets unchanged since last copied.
+                    if (_parms.delta && !isChanged(curpath)) return;
+                    secretText = readSecret(curpath);
+                }
+                finally {readPermits.release();}
+                if (secretText == null) return;
+                
+                writePermits.acquire();
+                try {writeSecret(curpath, secretText);}
+                finally {writePermits.release();}
+            }
+            finally {copyPermits.release();}
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* RateLimiter:                                                           */
+    /* ---------------------------------------------------------------------- */
+    // Spaces calls evenly so that no more than the given number are allowed 
+    // per second.
+    private static final class RateLimiter
+    {
+        private final long intervalNanos;
+        private long       nextNanos = System.nanoTime();
+        
+        private RateLimiter(int perSecond) {intervalNanos = TimeUnit.SECONDS.toNanos(1) / perSecond;}
+        
+        // Wait for this caller's turn.
+        private void acquire() throws InterruptedException
+        {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long turn = Math.max(nextNanos, now);
+                nextNanos = turn + intervalNanos;
+                waitNanos = turn - now;
+            }
+            if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
     }
 }
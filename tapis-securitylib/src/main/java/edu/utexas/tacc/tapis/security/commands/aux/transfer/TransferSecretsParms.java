@@ -12,6 +12,12 @@ import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 
 public class TransferSecretsParms 
 {
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Parallel transfer limits.
+    public static final int MAX_WORKERS = 256;
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
@@ -35,6 +41,26 @@ public class TransferSecretsParms
             usage = "read source secrets but don't write to target")
     public boolean dryRun = false;
     
+    @Option(name = "-delta", required = false, aliases = {"--delta"}, 
+            usage = "only copy secrets that are new or updated since last copied")
+    public boolean delta = false;
+    
+    @Option(name = "-prune", required = false, aliases = {"--prune"}, 
+            usage = "with -delta, delete target secrets that are not in the source")
+    public boolean prune = false;
+    
+    @Option(name = "-workers", required = false, aliases = {"--workers"}, 
+            usage = "number of concurrent source reads and target writes")
+    public int workers = 1;
+    
+    @Option(name = "-rate", required = false, aliases = {"--rate"}, 
+            usage = "maximum target writes per second, 0 for no limit")
+    public int writeRate = 0;
+    
+    @Option(name = "-checkpoint", required = false, aliases = {"--checkpoint"}, 
+            usage = "file of copied paths used to resume an interrupted transfer")
+    public String checkpointFile;
+    
     @Option(name = "-help", aliases = {"--help"}, 
             usage = "display help information")
     public boolean help;
@@ -110,7 +136,11 @@ public class TransferSecretsParms
              "\nsecrets to the target Vault." +
              "\n\nProvide the base URLs for the source and target Vaults.  The urls must " + 
              "\ninclude the protocol, host and port, but no more.  An example would be:" +
-             "\n\n      https://tapis-vault-stage.tacc.utexas.edu:8200\n";
+             "\n\n      https://tapis-vault-stage.tacc.utexas.edu:8200\n" +
+             "\nEach secret copied is recorded in the checkpoint file, if one is given." +
+             "\nRerunning with the same checkpoint file skips the secrets it lists.\n" +
+             "\nWith -delta, a secret is copied only if it doesn't exist in the target or" +
+             "\nwas updated in the source after it was last written to the target.\n";
          System.out.println(s);
          System.exit(0);
         }
@@ -135,5 +165,15 @@ public class TransferSecretsParms
         if (StringUtils.isBlank(turl)) 
             throw new RuntimeException("Missing required argument: -turl");
         else if (!turl.endsWith("/")) turl += "/";
+        
+        // Check the limits.
+        if (workers < 1 || workers > MAX_WORKERS) 
+            throw new TapisException("The -workers parameter must be between 1 and " + MAX_WORKERS + ".");
+        if (writeRate < 0)
+            throw new TapisException("The -rate parameter cannot be negative.");
+        if (prune && !delta)
+            throw new TapisException("The -prune parameter requires the -delta parameter.");
+        if (checkpointFile != null && StringUtils.isBlank(checkpointFile))
+            throw new TapisException("The -checkpoint parameter cannot be blank.");
     }
 }
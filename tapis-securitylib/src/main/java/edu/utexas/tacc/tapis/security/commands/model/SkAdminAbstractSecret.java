@@ -19,6 +19,14 @@ public abstract class SkAdminAbstractSecret
     public String  kubeSecretName;
     public String  kubeSecretKey;
     
+    // Planning state, which is never part of the json input.  When planned is
+    // set, currentSecretMap holds the secret's key/value pairs in vault (null if
+    // the secret doesn't exist) and plannedWrite indicates whether the secret 
+    // needs to be written.
+    public transient boolean            planned;
+    public transient boolean            plannedWrite;
+    public transient Map<String,String> currentSecretMap;
+    
     // Get either the client generated or securitylib SecretType.
     public abstract edu.utexas.tacc.tapis.security.client.model.SecretType getClientSecretType();
     public abstract SecretType getSecretType();
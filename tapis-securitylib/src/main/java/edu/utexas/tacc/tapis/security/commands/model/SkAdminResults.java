@@ -1,8 +1,10 @@
 package edu.utexas.tacc.tapis.security.commands.model;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,18 +28,25 @@ public final class SkAdminResults
     /*                                 Fields                                 */
     /* ********************************************************************** */
     // Singleton instance.
-    private static SkAdminResults _instance;
+    private static volatile SkAdminResults _instance;
+    
+    // Outcomes recorded on a thread that is running a buffered task.
+    private static final ThreadLocal<List<Consumer<SkAdminResults>>> _buffer = new ThreadLocal<>();
     
     // Summary outcome information.
     private int secretsCreated;
     private int secretsUpdated;
     private int secretsSkipped;
+    private int secretsUnchanged;
+    private int secretsPlanned;
     private int secretsFailed;
     
     // Kubernetes deployment outcomes.
     private int secretsDeployments;
     private int secretsDeploymentsSkipped;
     private int secretsDeploymentsFailed;
+    private int secretsDeploymentsUnchanged;
+    private int secretsDeploymentsPlanned;
     private int secretsDeploymentKeys;
     private int secretsDeploymentKeysSkipped;
     private int secretsDeploymentKeysFailed;
@@ -71,26 +80,65 @@ public final class SkAdminResults
     /* ---------------------------------------------------------------------- */
     /* getInstance:                                                           */
     /* ---------------------------------------------------------------------- */
-    /** No need for synchronization since SkAdmin is a singled threaded program.
+    /** Secrets are processed on multiple threads, so all methods that access
+     * the results are synchronized.
      * 
      * @return the singleton instance of this class
      */
     public static SkAdminResults getInstance()
     {
-        if (_instance == null) _instance = new SkAdminResults();
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (SkAdminResults.class) {
+                if (_instance == null) _instance = new SkAdminResults();
+            }
+        }
         return _instance;
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* runBuffered:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Run a task and return the outcomes it recorded instead of recording 
+     * them.  Concurrent tasks use this so that their outcomes can be applied 
+     * in task order rather than in the order in which the tasks finish.
+     * 
+     * @param task the task to run on the current thread
+     * @return the outcomes to be passed to apply()
+     */
+    public static List<Consumer<SkAdminResults>> runBuffered(Runnable task)
+    {
+        var buffer = new ArrayList<Consumer<SkAdminResults>>();
+        _buffer.set(buffer);
+        try {task.run();}
+            finally {_buffer.remove();}
+        return buffer;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* apply:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Record the outcomes returned by runBuffered().
+     * 
+     * @param buffer the outcomes of a buffered task
+     */
+    public synchronized void apply(List<Consumer<SkAdminResults>> buffer)
+    {
+        for (var outcome : buffer) outcome.accept(this);
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* addInputFile:                                                          */
     /* ---------------------------------------------------------------------- */
-    public void addInputFile(String filename){inputFiles.add(filename);}
+    public synchronized void addInputFile(String filename){inputFiles.add(filename);}
     
     /* ---------------------------------------------------------------------- */
     /* recordSuccess:                                                         */
     /* ---------------------------------------------------------------------- */
-    public void recordSuccess(Op op, SecretType type, String message)
+    public synchronized void recordSuccess(Op op, SecretType type, String message)
     {
+        if (defer(r -> r.recordSuccess(op, type, message))) return;
+        
         // Tally the outcome.
         switch (op) {
             case create: 
@@ -113,8 +161,10 @@ public final class SkAdminResults
     /* ---------------------------------------------------------------------- */
     /* recordSkipped:                                                         */
     /* ---------------------------------------------------------------------- */
-    public void recordSkipped(Op op, SecretType type, String message)
+    public synchronized void recordSkipped(Op op, SecretType type, String message)
     {
+        if (defer(r -> r.recordSkipped(op, type, message))) return;
+        
         // Tally the outcome.
         secretsSkipped++;
         
@@ -122,11 +172,41 @@ public final class SkAdminResults
         addMessage(type, message);
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* recordUnchanged:                                                       */
+    /* ---------------------------------------------------------------------- */
+    public synchronized void recordUnchanged(Op op, SecretType type, String message)
+    {
+        if (defer(r -> r.recordUnchanged(op, type, message))) return;
+        
+        // Tally the outcome.
+        secretsUnchanged++;
+        
+        // Record the message.
+        addMessage(type, message);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* recordPlanned:                                                         */
+    /* ---------------------------------------------------------------------- */
+    public synchronized void recordPlanned(Op op, SecretType type, String message)
+    {
+        if (defer(r -> r.recordPlanned(op, type, message))) return;
+        
+        // Tally the outcome.
+        secretsPlanned++;
+        
+        // Record the message.
+        addMessage(type, message);
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* recordFailure:                                                         */
     /* ---------------------------------------------------------------------- */
-    public void recordFailure(Op op, SecretType type, String message)
+    public synchronized void recordFailure(Op op, SecretType type, String message)
     {
+        if (defer(r -> r.recordFailure(op, type, message))) return;
+        
         // Tally the outcome.
         secretsFailed++;
         
@@ -137,8 +217,10 @@ public final class SkAdminResults
     /* ---------------------------------------------------------------------- */
     /* recordDeploySuccess:                                                   */
     /* ---------------------------------------------------------------------- */
-    public void recordDeploySuccess(int keyCount, String message)
+    public synchronized void recordDeploySuccess(int keyCount, String message)
     {
+        if (defer(r -> r.recordDeploySuccess(keyCount, message))) return;
+        
         // Tally the outcome.
         secretsDeployments++;
         secretsDeploymentKeys += keyCount;
@@ -150,8 +232,10 @@ public final class SkAdminResults
     /* ---------------------------------------------------------------------- */
     /* recordDeploySkipped:                                                   */
     /* ---------------------------------------------------------------------- */
-    public void recordDeploySkipped(String message)
+    public synchronized void recordDeploySkipped(String message)
     {
+        if (defer(r -> r.recordDeploySkipped(message))) return;
+        
         // Tally the outcome.
         secretsDeploymentsSkipped++;
         secretsDeploymentKeysSkipped++;
@@ -160,6 +244,34 @@ public final class SkAdminResults
         deployMsgs.add(message);
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* recordDeployUnchanged:                                                 */
+    /* ---------------------------------------------------------------------- */
+    public synchronized void recordDeployUnchanged(String message)
+    {
+        if (defer(r -> r.recordDeployUnchanged(message))) return;
+        
+        // Tally the outcome.
+        secretsDeploymentsUnchanged++;
+        
+        // Record the message.
+        deployMsgs.add(message);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* recordDeployPlanned:                                                   */
+    /* ---------------------------------------------------------------------- */
+    public synchronized void recordDeployPlanned(String message)
+    {
+        if (defer(r -> r.recordDeployPlanned(message))) return;
+        
+        // Tally the outcome.
+        secretsDeploymentsPlanned++;
+        
+        // Record the message.
+        deployMsgs.add(message);
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* recordDeployFailure:                                                   */
     /* ---------------------------------------------------------------------- */
@@ -171,8 +283,10 @@ public final class SkAdminResults
      * @param op
      * @param message
      */
-    public void recordDeployFailure(int keyCount, String message)
+    public synchronized void recordDeployFailure(int keyCount, String message)
     {
+        if (defer(r -> r.recordDeployFailure(keyCount, message))) return;
+        
         // Tally the outcome.
         secretsDeploymentsFailed++;
         secretsDeploymentKeysFailed += keyCount;
@@ -184,17 +298,17 @@ public final class SkAdminResults
     /* ---------------------------------------------------------------------- */
     /* incrementKeyPairsGenerated:                                            */
     /* ---------------------------------------------------------------------- */
-    public void incrementKeyPairsGenerated()  {keyPairsGenerated++;}
+    public synchronized void incrementKeyPairsGenerated()  {keyPairsGenerated++;}
     
     /* ---------------------------------------------------------------------- */
     /* incrementPasswordsGenerated:                                           */
     /* ---------------------------------------------------------------------- */
-    public void incrementPasswordsGenerated() {passwordsGenerated++;}
+    public synchronized void incrementPasswordsGenerated() {passwordsGenerated++;}
     
     /* ---------------------------------------------------------------------- */
     /* toJson:                                                                */
     /* ---------------------------------------------------------------------- */
-    public String toJson()
+    public synchronized String toJson()
     {
         return TapisGsonUtils.getGson(true).toJson(this);
     }
@@ -202,7 +316,7 @@ public final class SkAdminResults
     /* ---------------------------------------------------------------------- */
     /* toYaml:                                                                */
     /* ---------------------------------------------------------------------- */
-    public String toYaml()
+    public synchronized String toYaml()
     {
         // Set output options.
         DumperOptions options = new DumperOptions();
@@ -220,7 +334,7 @@ public final class SkAdminResults
     /* ---------------------------------------------------------------------- */
     /* toText:                                                                */
     /* ---------------------------------------------------------------------- */
-    public String toText()
+    public synchronized String toText()
     {
         // Hand build the output.
         var buf = new StringBuilder(1024);
@@ -239,6 +353,12 @@ public final class SkAdminResults
         buf.append("Secrets skipped:               ");
         buf.append(secretsSkipped);
         buf.append("\n");
+        buf.append("Secrets unchanged:             ");
+        buf.append(secretsUnchanged);
+        buf.append("\n");
+        buf.append("Secrets planned:               ");
+        buf.append(secretsPlanned);
+        buf.append("\n");
         buf.append("Secrets failed:                ");
         buf.append(secretsFailed);
         buf.append("\n\n");
@@ -259,6 +379,12 @@ public final class SkAdminResults
         buf.append("\n");
         buf.append("Secrets deploymentKeysFailed:  ");
         buf.append(secretsDeploymentKeysFailed);
+        buf.append("\n");
+        buf.append("Secrets deploymentsUnchanged:  ");
+        buf.append(secretsDeploymentsUnchanged);
+        buf.append("\n");
+        buf.append("Secrets deploymentsPlanned:    ");
+        buf.append(secretsDeploymentsPlanned);
         buf.append("\n\n");
         buf.append("Keypairs generated:            ");
         buf.append(keyPairsGenerated);
@@ -295,7 +421,22 @@ public final class SkAdminResults
     /*                            Private Methods                             */
     /* ********************************************************************** */
     /* ---------------------------------------------------------------------- */
-    /* getInstance:                                                           */
+    /* defer:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Buffer an outcome if the current thread is running a buffered task.
+     * 
+     * @return true if the outcome was buffered
+     */
+    private static boolean defer(Consumer<SkAdminResults> outcome)
+    {
+        var buffer = _buffer.get();
+        if (buffer == null) return false;
+        buffer.add(outcome);
+        return true;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* addMessage:                                                            */
     /* ---------------------------------------------------------------------- */
     private void addMessage(SecretType type, String message)
     {
@@ -1,8 +1,18 @@
 package edu.utexas.tacc.tapis.security.commands.processors;
 
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -15,6 +25,7 @@ import edu.utexas.tacc.tapis.security.commands.SkAdminParameters;
 import edu.utexas.tacc.tapis.security.commands.model.ISkAdminDeployRecorder;
 import edu.utexas.tacc.tapis.security.commands.model.SkAdminAbstractSecret;
 import edu.utexas.tacc.tapis.security.commands.model.SkAdminResults;
+import edu.utexas.tacc.tapis.security.secrets.SecretPathMapper;
 import edu.utexas.tacc.tapis.security.secrets.SecretType;
 import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
@@ -40,6 +51,7 @@ public abstract class SkAdminAbstractProcessor<T extends SkAdminAbstractSecret>
     
     // We're only interested in the latest version of any secret.
     protected static final Integer DEFAULT_SECRET_VERSION = 0;
+    
    
     /* ********************************************************************** */
     /*                                 Enums                                  */
@@ -86,6 +98,62 @@ public abstract class SkAdminAbstractProcessor<T extends SkAdminAbstractSecret>
     /* ********************************************************************** */
     /*                             Public Methods                             */
     /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* plan:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Read the current vault state of all secrets concurrently and decide 
+     * which secrets need to be written.  The create and update methods then 
+     * skip secrets that already have their input values, and the deploy method
+     * uses the values that vault will have after any writes without reading 
+     * vault again.  Secrets that cannot be read are marked as failed.
+     * 
+     * @throws TapisRuntimeException if interrupted
+     */
+    public void plan()
+    {
+        // Is there work?
+        if (_secrets == null || _secrets.isEmpty()) return;
+        Op op = _parms.create ? Op.create : _parms.update ? Op.update : Op.deploy;
+        
+        // Issue all reads.
+        var reads = new ArrayList<Future<Map<String,String>>>(_secrets.size());
+        ExecutorService executor = newExecutor(_secrets.size(), _parms.workers);
+        try {
+            for (T secret : _secrets) 
+                reads.add(secret.failed ? null : executor.submit(() -> readSecretMap(secret)));
+            
+            // Plan each secret in input order.
+            for (int i = 0; i < _secrets.size(); i++) {
+                if (reads.get(i) == null) continue;
+                T secret = _secrets.get(i);
+                Map<String,String> current;
+                try {current = reads.get(i).get();}
+                catch (ExecutionException e) {
+                    // Save the error condition for this secret, which is not
+                    // processed any further.
+                    secret.failed = true;
+                    _results.recordFailure(op, secret.getClientSecretType(), 
+                        makeFailureMessage(op, secret, e.getCause().getMessage()));
+                    continue;
+                }
+                catch (InterruptedException e) {
+                    // Don't write anything without a complete plan.
+                    Thread.currentThread().interrupt();
+                    throw new TapisRuntimeException("SkAdmin was interrupted while planning secrets.", e);
+                }
+                
+                // Secrets that exist are never written by create and are
+                // only written by update when their values differ.
+                secret.planned = true;
+                secret.currentSecretMap = current;
+                if (_parms.create) secret.plannedWrite = current == null;
+                  else if (_parms.update) 
+                      secret.plannedWrite = current == null || !current.equals(secret.getSecretMap());
+            }
+        }
+        finally {executor.shutdownNow();}
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* create:                                                                */
     /* ---------------------------------------------------------------------- */
@@ -93,7 +161,10 @@ public abstract class SkAdminAbstractProcessor<T extends SkAdminAbstractSecret>
     {
         // Is there work?
         if (_secrets == null || _secrets.isEmpty()) return;
-        for (T secret : _secrets) if (!secret.failed) create(secret);
+        forEachSecret(secret -> {
+            if (secret.planned) applyPlan(secret, Op.create);
+              else create(secret);
+        });
     }
     
     /* ---------------------------------------------------------------------- */
@@ -103,7 +174,10 @@ public abstract class SkAdminAbstractProcessor<T extends SkAdminAbstractSecret>
     {
         // Is there work?
         if (_secrets == null || _secrets.isEmpty()) return;
-        for (var secret : _secrets) if (!secret.failed) update(secret, Op.update);
+        forEachSecret(secret -> {
+            if (secret.planned) applyPlan(secret, Op.update);
+              else update(secret, Op.update);
+        });
     }
     
     /* ---------------------------------------------------------------------- */
@@ -113,7 +187,25 @@ public abstract class SkAdminAbstractProcessor<T extends SkAdminAbstractSecret>
     {
         // Is there work?
         if (_secrets == null || _secrets.isEmpty()) return;
-        for (var secret : _secrets) if (!secret.failed) deploy(secret, recorder);
+        if (_parms.workers == 1) {
+            for (var secret : _secrets) if (!secret.failed) deploy(secret, recorder);
+            return;
+        }
+        
+        // Buffer each secret's deployment records and hand them to the 
+        // recorder in input order, which is the order in which later
+        // records for the same kubernetes key replace earlier ones.
+        var records = new IdentityHashMap<T,List<String[]>>();
+        for (var secret : _secrets) if (!secret.failed) records.put(secret, new ArrayList<>(1));
+        forEachSecret(secret -> {
+            List<String[]> list = records.get(secret);
+            deploy(secret, (name, key, value) -> list.add(new String[] {name, key, value}));
+        });
+        for (var secret : _secrets) {
+            List<String[]> list = records.get(secret);
+            if (list != null) 
+                for (var record : list) recorder.addDeployRecord(record[0], record[1], record[2]);
+        }
     }    
     
     /* ---------------------------------------------------------------------- */
@@ -142,6 +234,14 @@ public abstract class SkAdminAbstractProcessor<T extends SkAdminAbstractSecret>
     /* ---------------------------------------------------------------------- */
     protected abstract void deploy(T secret, ISkAdminDeployRecorder recorder);
     
+    /* ---------------------------------------------------------------------- */
+    /* readSecretMap:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Return the secret's key/value pairs in vault or null if the secret 
+     * doesn't exist. 
+     */
+    protected abstract Map<String,String> readSecretMap(T secret) throws Exception;
+    
     /* ---------------------------------------------------------------------- */
     /* makeFailureMessage:                                                    */
     /* ---------------------------------------------------------------------- */
@@ -162,9 +262,167 @@ public abstract class SkAdminAbstractProcessor<T extends SkAdminAbstractSecret>
     /* ---------------------------------------------------------------------- */
     protected abstract String makeSkippedDeployMessage(T secret);
     
+    /* ---------------------------------------------------------------------- */
+    /* makeUnchangedMessage:                                                  */
+    /* ---------------------------------------------------------------------- */
+    protected abstract String makeUnchangedMessage(Op op, T secret);
+    
+    /* ---------------------------------------------------------------------- */
+    /* makePlanMessage:                                                       */
+    /* ---------------------------------------------------------------------- */
+    protected abstract String makePlanMessage(Op op, T secret);
+    
+    /* ********************************************************************** */
+    /*                          Protected Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getDeploySecretMap:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Return the key/value pairs that the secret has in vault after any 
+     * planned write.  Vault is only read if the secret wasn't planned.
+     * 
+     * @param secret the secret to be deployed
+     * @return the secret's key/value pairs or null if the secret doesn't exist
+     * @throws Exception on read error
+     */
+    protected Map<String,String> getDeploySecretMap(T secret) throws Exception
+    {
+        // Use the plan when there is one.
+        if (!secret.planned) return readSecretMap(secret);
+        if (!secret.plannedWrite) return secret.currentSecretMap;
+        
+        // The input values are written.
+        var map = new HashMap<String,String>();
+        for (var entry : secret.getSecretMap().entrySet())
+            map.put(entry.getKey(), entry.getValue() == null ? null : entry.getValue().toString());
+        return map;
+    }
+    
     /* ********************************************************************** */
     /*                           Private Methods                              */
     /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* applyPlan:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Write a planned secret only if its value needs to change.  When the 
+     * plan parameter is set the change is recorded but not made.
+     */
+    private void applyPlan(T secret, Op op)
+    {
+        var type = secret.getClientSecretType();
+        if (!secret.plannedWrite) {
+            if (op == Op.create) _results.recordSkipped(op, type, makeSkippedMessage(op, secret));
+              else _results.recordUnchanged(op, type, makeUnchangedMessage(op, secret));
+        }
+        else if (_parms.plan) 
+            _results.recordPlanned(op, type, 
+                makePlanMessage(secret.currentSecretMap == null ? Op.create : Op.update, secret));
+        else update(secret, op);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* forEachSecret:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Apply an action to each secret that hasn't failed.  Secrets that map to
+     * the same vault path are processed one after the other in input order,
+     * so the outcome is the same as when all secrets are processed serially.
+     * 
+     * @param action the per-secret processing
+     */
+    private void forEachSecret(Consumer<T> action)
+    {
+        // Group the secrets by vault path.
+        var groups = new LinkedHashMap<String,List<T>>();
+        for (int i = 0; i < _secrets.size(); i++) {
+            T secret = _secrets.get(i);
+            if (secret.failed) continue;
+            groups.computeIfAbsent(getPathKey(secret, i), k -> new ArrayList<>(1)).add(secret);
+        }
+        
+        // Each group is a task.
+        var tasks = new ArrayList<Runnable>(groups.size());
+        for (var group : groups.values()) tasks.add(() -> group.forEach(action));
+        runTasks(tasks, _parms.workers);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getPathKey:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Return the secret's vault path.  Secrets whose paths can't be resolved
+     * get a unique key and fail when they are processed.
+     */
+    private String getPathKey(T secret, int index)
+    {
+        try {
+            return new SecretPathMapper(secret.getSecretPathParms())
+                        .getSecretPath(secret.tenant, secret.user);
+        }
+        catch (Exception e) {return "#" + index;}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* runTasks:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Run tasks on up to the specified number of threads and wait for them
+     * to finish.  A single worker runs the tasks in order on the calling 
+     * thread.  Tasks record their own outcomes, which are applied to the 
+     * results in task order, so only unexpected runtime exceptions are 
+     * propagated.  As in serial processing, the outcomes of the tasks after 
+     * one that throws are not recorded.
+     * 
+     * @param tasks the tasks to run
+     * @param workers the maximum number of concurrent tasks
+     * @throws TapisRuntimeException if interrupted
+     */
+    static void runTasks(List<Runnable> tasks, int workers)
+    {
+        // Is there work?
+        if (tasks.isEmpty()) return;
+        if (workers <= 1 || tasks.size() == 1) {
+            for (var task : tasks) task.run();
+            return;
+        }
+        
+        // Run the tasks concurrently.
+        var futures = new ArrayList<Future<List<Consumer<SkAdminResults>>>>(tasks.size());
+        ExecutorService executor = newExecutor(tasks.size(), workers);
+        try {
+            for (var task : tasks) futures.add(executor.submit(() -> SkAdminResults.runBuffered(task)));
+            for (var future : futures) _results.apply(future.get());
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new TapisRuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TapisRuntimeException("SkAdmin was interrupted while processing secrets.", e);
+        }
+        finally {executor.shutdownNow();}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* newExecutor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Create a pool of daemon threads to issue concurrent vault or kubernetes
+     * requests.
+     * 
+     * @param tasks the number of tasks to be run
+     * @param workers the maximum number of threads
+     * @return the executor
+     */
+    static ExecutorService newExecutor(int tasks, int workers)
+    {
+        var threadNum = new AtomicInteger();
+        int threads = Math.max(1, Math.min(tasks, workers));
+        return Executors.newFixedThreadPool(threads, r -> {
+                   var t = new Thread(r, "SkAdminWorker-" + threadNum.incrementAndGet());
+                   t.setDaemon(true);
+                   return t;
+               });
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* initSkClient:                                                          */
     /* ---------------------------------------------------------------------- */
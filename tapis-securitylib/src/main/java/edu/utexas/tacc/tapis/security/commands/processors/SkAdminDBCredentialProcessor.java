@@ -2,6 +2,7 @@ package edu.utexas.tacc.tapis.security.commands.processors;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -133,9 +134,9 @@ public class SkAdminDBCredentialProcessor
             return;
         }    
         
-        // See if the secret already exists.
-        SkSecret skSecret = null;
-        try {skSecret = readSecret(secret);} 
+        // Get the secret's current or planned key/value pairs.
+        Map<String,String> secretMap = null;
+        try {secretMap = getDeploySecretMap(secret);} 
         catch (Exception e) {
             // Save the error condition for this secret.
             _results.recordFailure(Op.deploy, SecretType.DBCredential, 
@@ -144,7 +145,7 @@ public class SkAdminDBCredentialProcessor
         }
         
         // This shouldn't happen.
-        if (skSecret == null || skSecret.getSecretMap().isEmpty()) {
+        if (secretMap == null || secretMap.isEmpty()) {
             String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
             _results.recordFailure(Op.deploy, SecretType.DBCredential, 
                                    makeFailureMessage(Op.deploy, secret, msg));
@@ -152,7 +153,7 @@ public class SkAdminDBCredentialProcessor
         }
         
         // Validate the specified secret key's value.
-        String value = skSecret.getSecretMap().get(DEFAULT_KEY_NAME);
+        String value = secretMap.get(DEFAULT_KEY_NAME);
         if (StringUtils.isBlank(value)) {
             String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
             _results.recordFailure(Op.deploy, SecretType.DBCredential, 
@@ -214,6 +215,45 @@ public class SkAdminDBCredentialProcessor
                "\": No target Kubernetes secret specified.";
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* readSecretMap:                                                         */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected Map<String,String> readSecretMap(SkAdminDBCredential secret)
+     throws Exception
+    {
+        // Not found means the secret doesn't exist.
+        try {return readSecret(secret).getSecretMap();}
+        catch (TapisClientException e) {
+            if (e.getCode() == 404) return null;
+            throw e;
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makeUnchangedMessage:                                                  */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected String makeUnchangedMessage(Op op, SkAdminDBCredential secret)
+    {
+        return " SKIPPED " + op.name() + " for secret \"" + secret.secretName +
+               "\" for service \"" + secret.dbservice + "\" on dbhost \"" + secret.dbhost +
+               "\" in db \"" + secret.dbname + "\" for dbuser \"" + secret.user +
+               "\": Unchanged.";
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makePlanMessage:                                                       */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected String makePlanMessage(Op op, SkAdminDBCredential secret)
+    {
+        return " PLANNED " + op.name() + " of secret \"" + secret.secretName +
+                "\" for service \"" + secret.dbservice + "\" on dbhost \"" + secret.dbhost +
+                "\" in db \"" + secret.dbname + "\" for dbuser \"" + secret.user +
+                "\".";
+    }
+
     /* ********************************************************************** */
     /*                            Private Methods                             */
     /* ********************************************************************** */
@@ -1,6 +1,7 @@
 package edu.utexas.tacc.tapis.security.commands.processors;
 
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -50,6 +51,18 @@ public class SkAdminJwtPublicProcessor
         super(secrets, parms);
     }
     
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* plan:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Public keys are never written and can come from signing secrets that
+     * are written in the same run, so they are always read when deployed.
+     */
+    @Override
+    public void plan() {}
+    
     /* ********************************************************************** */
     /*                           Protected Methods                            */
     /* ********************************************************************** */
@@ -77,9 +90,9 @@ public class SkAdminJwtPublicProcessor
         // If necessary try to read the public key from SK.
         if (StringUtils.isBlank(value)) 
         {
-            // See if the secret already exists.
-            SkSecret skSecret = null;
-            try {skSecret = readSecret(secret);} 
+            // Get the secret's current or planned key/value pairs.
+            Map<String,String> secretMap = null;
+            try {secretMap = getDeploySecretMap(secret);} 
             catch (Exception e) {
                 // Save the error condition for this secret.
                 _results.recordFailure(Op.deploy, SecretType.JWTSigning, 
@@ -88,7 +101,7 @@ public class SkAdminJwtPublicProcessor
             }
         
             // This shouldn't happen.
-            if (skSecret == null || skSecret.getSecretMap().isEmpty()) {
+            if (secretMap == null || secretMap.isEmpty()) {
                 String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
                 _results.recordFailure(Op.deploy, SecretType.JWTSigning, 
                                        makeFailureMessage(Op.deploy, secret, msg));
@@ -96,7 +109,7 @@ public class SkAdminJwtPublicProcessor
             }
         
             // Validate the specified secret key's value.
-            value = skSecret.getSecretMap().get(DEFAULT_PUBLIC_KEY_NAME);
+            value = secretMap.get(DEFAULT_PUBLIC_KEY_NAME);
             if (StringUtils.isBlank(value)) {
                 String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
                 _results.recordFailure(Op.deploy, SecretType.JWTSigning, 
@@ -133,6 +146,27 @@ public class SkAdminJwtPublicProcessor
 
     @Override
     protected String makeSkippedDeployMessage(SkAdminJwtPublic secret) {return null;}
+
+    @Override
+    protected String makeUnchangedMessage(Op op, SkAdminJwtPublic secret) {return null;}
+
+    @Override
+    protected String makePlanMessage(Op op, SkAdminJwtPublic secret) {return null;}
+    
+    /* ---------------------------------------------------------------------- */
+    /* readSecretMap:                                                         */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected Map<String,String> readSecretMap(SkAdminJwtPublic secret)
+     throws Exception
+    {
+        // Not found means the secret doesn't exist.
+        try {return readSecret(secret).getSecretMap();}
+        catch (TapisClientException e) {
+            if (e.getCode() == 404) return null;
+            throw e;
+        }
+    }
     
     /* ********************************************************************** */
     /*                            Private Methods                             */
@@ -2,6 +2,7 @@ package edu.utexas.tacc.tapis.security.commands.processors;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -136,9 +137,9 @@ public class SkAdminJwtSigningProcessor
             return;
         }    
         
-        // See if the secret already exists.
-        SkSecret skSecret = null;
-        try {skSecret = readSecret(secret);} 
+        // Get the secret's current or planned key/value pairs.
+        Map<String,String> secretMap = null;
+        try {secretMap = getDeploySecretMap(secret);} 
         catch (Exception e) {
             // Save the error condition for this secret.
             _results.recordFailure(Op.deploy, SecretType.JWTSigning, 
@@ -147,7 +148,7 @@ public class SkAdminJwtSigningProcessor
         }
         
         // This shouldn't happen.
-        if (skSecret == null || skSecret.getSecretMap().isEmpty()) {
+        if (secretMap == null || secretMap.isEmpty()) {
             String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
             _results.recordFailure(Op.deploy, SecretType.JWTSigning, 
                                    makeFailureMessage(Op.deploy, secret, msg));
@@ -155,7 +156,7 @@ public class SkAdminJwtSigningProcessor
         }
         
         // Validate the specified secret key's value.
-        String value = skSecret.getSecretMap().get(DEFAULT_PRIVATE_KEY_NAME);
+        String value = secretMap.get(DEFAULT_PRIVATE_KEY_NAME);
         if (StringUtils.isBlank(value)) {
             String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
             _results.recordFailure(Op.deploy, SecretType.JWTSigning, 
@@ -212,6 +213,42 @@ public class SkAdminJwtSigningProcessor
                "\": No target Kubernetes secret specified.";
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* readSecretMap:                                                         */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected Map<String,String> readSecretMap(SkAdminJwtSigning secret)
+     throws Exception
+    {
+        // Not found means the secret doesn't exist.
+        try {return readSecret(secret).getSecretMap();}
+        catch (TapisClientException e) {
+            if (e.getCode() == 404) return null;
+            throw e;
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makeUnchangedMessage:                                                  */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected String makeUnchangedMessage(Op op, SkAdminJwtSigning secret)
+    {
+        return " SKIPPED " + op.name() + " for JWT secret \"" + secret.secretName +
+               "\" in tenant \"" + secret.tenant + 
+               "\": Unchanged.";
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makePlanMessage:                                                       */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected String makePlanMessage(Op op, SkAdminJwtSigning secret)
+    {
+        return " PLANNED " + op.name() + " of JWT secret \"" + secret.secretName +
+               "\" in tenant \"" + secret.tenant + "\".";
+    }
+
     /* ********************************************************************** */
     /*                            Private Methods                             */
     /* ********************************************************************** */
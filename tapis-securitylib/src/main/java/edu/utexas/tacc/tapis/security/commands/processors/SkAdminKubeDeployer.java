@@ -1,15 +1,25 @@
 package edu.utexas.tacc.tapis.security.commands.processors;
 
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.JsonObject;
+
 import edu.utexas.tacc.tapis.security.commands.SkAdminParameters;
 import edu.utexas.tacc.tapis.security.commands.model.SkAdminResults;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import io.kubernetes.client.custom.V1Patch;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
@@ -19,6 +29,7 @@ import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import io.kubernetes.client.openapi.models.V1Secret;
 import io.kubernetes.client.openapi.models.V1Status;
 import io.kubernetes.client.util.Config;
+import io.kubernetes.client.util.PatchUtils;
 
 public final class SkAdminKubeDeployer 
 {
@@ -27,6 +38,9 @@ public final class SkAdminKubeDeployer
     /* ********************************************************************** */
     // Tracing.
     private static final Logger _log = LoggerFactory.getLogger(SkAdminKubeDeployer.class);
+    
+    // The field manager recorded by kubernetes for in-place updates.
+    private static final String FIELD_MANAGER = "skadmin";
 
     /* ********************************************************************** */
     /*                                 Fields                                 */
@@ -38,6 +52,9 @@ public final class SkAdminKubeDeployer
     // Kube API object.
     private CoreV1Api _coreApi;
     
+    // The names of the secrets that currently exist, known only after planning.
+    private HashSet<String> _existingSecrets;
+    
     // Create the singleton instance for all processors to use.
     protected static final SkAdminResults _results = SkAdminResults.getInstance();
     
@@ -71,8 +88,29 @@ public final class SkAdminKubeDeployer
         // Connect to kubernetes.
         if (!connect()) return;
         
-        // Perform merge operation if one is requested.
-        if (_parms.deployMerge) mergeExistingSecrets();
+        // When computing differences, drop the secrets that are already
+        // deployed and stop if only a plan was requested.
+        if (_parms.diff) {
+            planSecrets();
+            if (_parms.plan || _kubeSecretMap.isEmpty()) {
+                close();
+                return;
+            }
+        }
+        
+        // Update secrets in place when requested.  Only the secrets that
+        // can't be updated in place are left to be deleted and recreated.
+        if (_parms.kubePatch) {
+            patchSecrets();
+            if (_kubeSecretMap.isEmpty()) {
+                close();
+                return;
+            }
+        }
+        
+        // Perform merge operation if one is requested.  Planning has 
+        // already merged the existing key/value pairs.
+        if (_parms.deployMerge && !_parms.diff) mergeExistingSecrets();
         
         // Always remove existing secrets.
         removeExistingSecrets();
@@ -138,10 +176,12 @@ public final class SkAdminKubeDeployer
     private void mergeExistingSecrets()
     {
         // List of failed merges that must not be processed beyond this method.
-        var failedList = new ArrayList<String>();
+        var failedList = Collections.synchronizedList(new ArrayList<String>());
         
-        // Try to merge the values from each existing secret.
-        for (var entry : _kubeSecretMap.entrySet()) 
+        // Try to merge the values from each existing secret.  Each task
+        // only changes its own secret's new map.
+        var tasks = new ArrayList<Runnable>(_kubeSecretMap.size());
+        for (var entry : _kubeSecretMap.entrySet()) tasks.add(() -> 
         {
             // ------- Read the current secret.
             V1Secret secret = null;
@@ -151,7 +191,7 @@ public final class SkAdminKubeDeployer
             }
             catch (ApiException e) {
                 // It's ok if there's nothing to merge.
-                if (e.getCode() == 404) continue;
+                if (e.getCode() == 404) return;
                 
                 // Some other API problem occurred. Record the failure and stage
                 // the secret for removal from the deployment map.
@@ -160,7 +200,7 @@ public final class SkAdminKubeDeployer
                 _results.recordDeployFailure(entry.getValue().size(),
                     makeFailureMessage(entry.getKey(), entry.getValue().size(), msg));
                 failedList.add(entry.getKey());
-                continue;
+                return;
             }
             catch (Exception e) {
                 String msg = MsgUtils.getMsg("SK_ADMIN_KUBE_READ_SECRET", entry.getKey(),
@@ -168,13 +208,13 @@ public final class SkAdminKubeDeployer
                 _results.recordDeployFailure(entry.getValue().size(),
                     makeFailureMessage(entry.getKey(), entry.getValue().size(), msg));
                 failedList.add(entry.getKey());
-                continue;
+                return;
             }
             
             // ------- Merge non-conflicting key/values.
             // Get the existing secret's key/value pairs.
             Map<String,byte[]> existingMap = secret.getData();
-            if (existingMap == null || existingMap.isEmpty()) continue;
+            if (existingMap == null || existingMap.isEmpty()) return;
             
             // Preserve all key/value pairs that are not in the existing map 
             // by adding them to the new map.  The existingMap's values are 
@@ -185,12 +225,206 @@ public final class SkAdminKubeDeployer
                 if (newMap.containsKey(existingEntry.getKey())) continue;
                 newMap.put(existingEntry.getKey(), new String(existingEntry.getValue()));
             }
-        }
+        });
+        SkAdminAbstractProcessor.runTasks(tasks, _parms.workers);
         
         // ------- Remove any failed merges from deployment.
         for (var secretName : failedList) _kubeSecretMap.remove(secretName);
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* planSecrets:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Read all secrets from kubernetes concurrently and compare them with the
+     * secrets to be deployed.  Merge deployments first add the existing
+     * key/value pairs to each secret's new map as in mergeExistingSecrets.
+     * Secrets whose content would not change are removed from deployment, as
+     * are secrets that can't be read.
+     */
+    private void planSecrets()
+    {
+        // List of secrets that must not be processed beyond this method.
+        var removeList = new ArrayList<String>();
+        _existingSecrets = new HashSet<>();
+        
+        // Issue all reads.
+        var reads = new HashMap<String,Future<V1Secret>>(1 + _kubeSecretMap.size() * 2);
+        ExecutorService executor = SkAdminAbstractProcessor.newExecutor(_kubeSecretMap.size(), 
+                                                                        _parms.workers);
+        try {
+            for (var secretName : _kubeSecretMap.keySet())
+                reads.put(secretName, executor.submit(() -> readSecret(secretName)));
+            
+            for (var entry : _kubeSecretMap.entrySet()) 
+            {
+                // ------- Get the current secret.
+                V1Secret secret = null;
+                try {secret = reads.get(entry.getKey()).get();}
+                catch (Exception e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    String detail = cause instanceof ApiException ? 
+                        "(http "+ ((ApiException)cause).getCode() + ") " + cause.getMessage() :
+                        cause.getMessage();
+                    String msg = MsgUtils.getMsg("SK_ADMIN_KUBE_READ_SECRET", entry.getKey(),
+                                                 _parms.kubeNS, detail);
+                    _results.recordDeployFailure(entry.getValue().size(),
+                        makeFailureMessage(entry.getKey(), entry.getValue().size(), msg));
+                    removeList.add(entry.getKey());
+                    continue;
+                }
+                
+                // ------- New secrets are always written.
+                Map<String,String> newMap = entry.getValue();
+                if (secret == null) {
+                    if (_parms.plan) 
+                        _results.recordDeployPlanned(makePlanMessage(entry.getKey(), newMap, null));
+                    continue;
+                }
+                _existingSecrets.add(entry.getKey());
+                
+                // ------- Compare with the existing key/value pairs.
+                // The existing values are presented as strings, as in 
+                // mergeExistingSecrets.
+                var existingMap = new HashMap<String,String>();
+                if (secret.getData() != null)
+                    for (var existingEntry : secret.getData().entrySet())
+                        existingMap.put(existingEntry.getKey(), new String(existingEntry.getValue()));
+                if (_parms.deployMerge)
+                    for (var existingEntry : existingMap.entrySet()) {
+                        if (newMap.containsKey(existingEntry.getKey())) continue;
+                        newMap.put(existingEntry.getKey(), existingEntry.getValue());
+                    }
+                
+                // Skip secrets that already have the new content.
+                if (newMap.equals(existingMap)) {
+                    _results.recordDeployUnchanged(makeUnchangedMessage(entry.getKey(), newMap.size()));
+                    removeList.add(entry.getKey());
+                }
+                else if (_parms.plan) 
+                    _results.recordDeployPlanned(makePlanMessage(entry.getKey(), newMap, existingMap));
+            }
+        }
+        finally {executor.shutdownNow();}
+        
+        // ------- Remove failed and unchanged secrets from deployment.
+        for (var secretName : removeList) _kubeSecretMap.remove(secretName);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* patchSecrets:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Update each secret in place with a single request.  Merge deployments
+     * send a strategic merge patch containing the new key/value pairs, which
+     * leaves the secret's other keys unchanged.  Replace deployments overwrite
+     * the whole secret.  Secrets that don't exist are created.  Since nothing
+     * is deleted, pods never see a secret go missing and no pause is needed.
+     * 
+     * Secrets that can't be updated in place, such as when the API server 
+     * rejects the request, are left in the deployment map so that they are
+     * deleted and recreated.  All other secrets are removed from the map.
+     */
+    private void patchSecrets()
+    {
+        // List of secrets that have been deployed or have failed.
+        var doneList = Collections.synchronizedList(new ArrayList<String>());
+        
+        // Update each secret.
+        var tasks = new ArrayList<Runnable>(_kubeSecretMap.size());
+        for (var entry : _kubeSecretMap.entrySet()) tasks.add(() -> 
+        {
+            // ------- Update the secret if it might exist.
+            // Planning tells us which secrets exist.
+            String secretName = entry.getKey();
+            Map<String,String> newMap = entry.getValue();
+            V1Secret updated = null;
+            if (_existingSecrets == null || _existingSecrets.contains(secretName)) {
+                try {
+                    if (_parms.deployMerge) updated = patchSecret(secretName, newMap);
+                      else updated = _coreApi.replaceNamespacedSecret(secretName, _parms.kubeNS, 
+                                         makeSecret(secretName, newMap), null, null, FIELD_MANAGER);
+                }
+                catch (ApiException e) {
+                    // Recreate the secret if it exists but can't be updated.
+                    if (e.getCode() != 404) {
+                        _log.warn(MsgUtils.getMsg("SK_ADMIN_KUBE_WRITE_SECRET", secretName,
+                                  _parms.kubeNS, "(http "+ e.getCode() + ") " + e.getMessage()) +
+                                  " The secret will be deleted and recreated.");
+                        return;
+                    }
+                }
+                catch (Exception e) {
+                    _log.warn(MsgUtils.getMsg("SK_ADMIN_KUBE_WRITE_SECRET", secretName,
+                              _parms.kubeNS, e.getMessage()) + 
+                              " The secret will be deleted and recreated.");
+                    return;
+                }
+            }
+            doneList.add(secretName);
+            
+            // ------- Create new secrets.
+            if (updated == null) {
+                createSecret(secretName, newMap);
+                return;
+            }
+            
+            // Success.  Merged secrets can have more keys than we sent.
+            int keyCount = updated.getData() == null ? newMap.size() : updated.getData().size();
+            _results.recordDeploySuccess(keyCount, makeSuccessMessage(secretName, keyCount));
+        });
+        SkAdminAbstractProcessor.runTasks(tasks, _parms.workers);
+        
+        // ------- Remove deployed and failed secrets from further processing.
+        for (var secretName : doneList) _kubeSecretMap.remove(secretName);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* patchSecret:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Add or replace the new key/value pairs in an existing secret.
+     * 
+     * @param secretName the kubernetes secret name
+     * @param newMap the values by key
+     * @return the updated secret
+     * @throws ApiException on error, including 404 if the secret doesn't exist
+     */
+    private V1Secret patchSecret(String secretName, Map<String,String> newMap) 
+     throws ApiException
+    {
+        // The data field holds base64 text, which the client only produces
+        // for secret objects.  Encode the values the same way as makeSecret.
+        var encoder = Base64.getEncoder();
+        var data = new JsonObject();
+        for (var entry : newMap.entrySet()) 
+            data.addProperty(entry.getKey(), encoder.encodeToString(entry.getValue().getBytes()));
+        var body = new JsonObject();
+        body.add("data", data);
+        
+        // The generated client can't choose the patch content type by itself.
+        var patch = new V1Patch(body.toString());
+        return PatchUtils.patch(V1Secret.class, 
+                   () -> _coreApi.patchNamespacedSecretCall(secretName, _parms.kubeNS, patch, 
+                                                            null, null, FIELD_MANAGER, null, null),
+                   V1Patch.PATCH_FORMAT_STRATEGIC_MERGE_PATCH, _coreApi.getApiClient());
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* readSecret:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Read a secret from kubernetes.
+     * 
+     * @param secretName the kubernetes secret name
+     * @return the secret or null if it doesn't exist
+     * @throws ApiException on error
+     */
+    private V1Secret readSecret(String secretName) throws ApiException
+    {
+        try {return _coreApi.readNamespacedSecret(secretName, _parms.kubeNS, null, null, null);}
+        catch (ApiException e) {
+            if (e.getCode() == 404) return null;
+            throw e;
+        }
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* removeExistingSecrets:                                                 */
     /* ---------------------------------------------------------------------- */
@@ -210,20 +444,26 @@ public final class SkAdminKubeDeployer
         // Remove each secret that currently exists if possible.
         // This is a best effort deal, we ignore all failures 
         // especially secret not found.
-        for (var entry : _kubeSecretMap.entrySet()) 
+        var tasks = new ArrayList<Runnable>(_kubeSecretMap.size());
+        for (var secretName : _kubeSecretMap.keySet()) 
         {
-            V1Status v1Status = null;
-            try {
-                v1Status = _coreApi.deleteNamespacedSecret(entry.getKey(), _parms.kubeNS, 
-                                                null, null, 0, null, "Foreground", opts);
-            }
-            catch (Exception e) {} 
+            // Planning tells us which secrets don't need to be deleted.
+            if (_existingSecrets != null && !_existingSecrets.contains(secretName)) continue;
+            tasks.add(() -> {
+                V1Status v1Status = null;
+                try {
+                    v1Status = _coreApi.deleteNamespacedSecret(secretName, _parms.kubeNS, 
+                                                    null, null, 0, null, "Foreground", opts);
+                }
+                catch (Exception e) {} 
+            });
         }
+        SkAdminAbstractProcessor.runTasks(tasks, _parms.workers);
         
         // Kubernetes seems to do some asynchronous processing when deleting secrets.
         // The pause here seems avoid http 409 (conflict) errors that seems to be
         // timing related.
-        try {Thread.sleep(10000);} catch (Exception e) {}
+        if (!tasks.isEmpty()) try {Thread.sleep(10000);} catch (Exception e) {}
     }
     
     /* ---------------------------------------------------------------------- */
@@ -235,53 +475,78 @@ public final class SkAdminKubeDeployer
      */
     private void writeSecrets()
     {
+        var tasks = new ArrayList<Runnable>(_kubeSecretMap.size());
         for (var entry : _kubeSecretMap.entrySet()) 
-        {
-            // Create the metadata.
-            V1ObjectMeta meta = new V1ObjectMeta();
-            meta.setName(entry.getKey());
-            meta.setNamespace(_parms.kubeNS);
-            
-            // The map values are required to already be base64 encoded, 
-            // but we now need them to be presented in byte arrays.
-            var entryMap = entry.getValue();
-            HashMap<String,byte[]> dataMap = new HashMap<>(1 + entryMap.size() * 2);
-            for (var kvEntry : entryMap.entrySet()) 
-                dataMap.put(kvEntry.getKey(), kvEntry.getValue().getBytes());
-            
-            // Create a secret.  Opaque is the default type.
-            V1Secret secret = new V1Secret();
-            secret.setApiVersion("v1");
-            secret.setKind("Secret");
-            secret.setData(dataMap);
-            secret.setMetadata(meta);
-
-            // Write the secret.
-            V1Secret newSecret = null;
-            try {
-                newSecret = _coreApi.createNamespacedSecret(_parms.kubeNS, secret, 
-                                                            null, null, null);
-            }
-            catch (ApiException e) {
-                String msg = MsgUtils.getMsg("SK_ADMIN_KUBE_WRITE_SECRET", entry.getKey(),
-                              _parms.kubeNS, "(http "+ e.getCode() + ") " + e.getMessage());
-                _results.recordDeployFailure(entry.getValue().size(),
-                    makeFailureMessage(entry.getKey(), entry.getValue().size(), msg));
-                continue;
-            }
-            catch (Exception e) {
-                String msg = MsgUtils.getMsg("SK_ADMIN_KUBE_WRITE_SECRET", entry.getKey(),
-                                             _parms.kubeNS, e.getMessage());
-                _results.recordDeployFailure(entry.getValue().size(),
-                    makeFailureMessage(entry.getKey(), entry.getValue().size(), msg));
-                continue;
-            }
-            
-            // Success.
-            int keyCount = dataMap.size();
-            _results.recordDeploySuccess(keyCount, 
-                                         makeSuccessMessage(entry.getKey(), keyCount));
+            tasks.add(() -> createSecret(entry.getKey(), entry.getValue()));
+        SkAdminAbstractProcessor.runTasks(tasks, _parms.workers);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* createSecret:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Create a secret in kubernetes and record the outcome.
+     * 
+     * @param secretName the kubernetes secret name
+     * @param entryMap the base64 encoded values by key
+     */
+    private void createSecret(String secretName, Map<String,String> entryMap)
+    {
+        // Write the secret.
+        V1Secret newSecret = null;
+        try {
+            newSecret = _coreApi.createNamespacedSecret(_parms.kubeNS, 
+                                                        makeSecret(secretName, entryMap), 
+                                                        null, null, null);
+        }
+        catch (ApiException e) {
+            String msg = MsgUtils.getMsg("SK_ADMIN_KUBE_WRITE_SECRET", secretName,
+                          _parms.kubeNS, "(http "+ e.getCode() + ") " + e.getMessage());
+            _results.recordDeployFailure(entryMap.size(),
+                makeFailureMessage(secretName, entryMap.size(), msg));
+            return;
+        }
+        catch (Exception e) {
+            String msg = MsgUtils.getMsg("SK_ADMIN_KUBE_WRITE_SECRET", secretName,
+                                         _parms.kubeNS, e.getMessage());
+            _results.recordDeployFailure(entryMap.size(),
+                makeFailureMessage(secretName, entryMap.size(), msg));
+            return;
         }
+        
+        // Success.
+        int keyCount = entryMap.size();
+        _results.recordDeploySuccess(keyCount, makeSuccessMessage(secretName, keyCount));
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makeSecret:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Create a secret object from the secret's base64 encoded values.
+     * 
+     * @param secretName the kubernetes secret name
+     * @param entryMap the base64 encoded values by key
+     * @return the secret
+     */
+    private V1Secret makeSecret(String secretName, Map<String,String> entryMap)
+    {
+        // Create the metadata.
+        V1ObjectMeta meta = new V1ObjectMeta();
+        meta.setName(secretName);
+        meta.setNamespace(_parms.kubeNS);
+        
+        // The map values are required to already be base64 encoded, 
+        // but we now need them to be presented in byte arrays.
+        HashMap<String,byte[]> dataMap = new HashMap<>(1 + entryMap.size() * 2);
+        for (var kvEntry : entryMap.entrySet()) 
+            dataMap.put(kvEntry.getKey(), kvEntry.getValue().getBytes());
+        
+        // Create a secret.  Opaque is the default type.
+        V1Secret secret = new V1Secret();
+        secret.setApiVersion("v1");
+        secret.setKind("Secret");
+        secret.setData(dataMap);
+        secret.setMetadata(meta);
+        return secret;
     }
     
     /* ---------------------------------------------------------------------- */
@@ -312,4 +577,35 @@ public final class SkAdminKubeDeployer
         return " SUCCESSFUL deployment of secret \"" + secretName + "\" with " + 
                keyCount + " key(s) to Kubernetes.";
     }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makeUnchangedMessage:                                                  */
+    /* ---------------------------------------------------------------------- */
+    private String makeUnchangedMessage(String secretName, int keyCount)
+    {
+        return " SKIPPED deployment of secret \"" + secretName + "\" with " + 
+               keyCount + " key(s) to Kubernetes: Unchanged.";
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makePlanMessage:                                                       */
+    /* ---------------------------------------------------------------------- */
+    private String makePlanMessage(String secretName, Map<String,String> newMap,
+                                   Map<String,String> existingMap)
+    {
+        // Summarize the key changes.
+        String changes;
+        if (existingMap == null) changes = "New secret.";
+        else {
+            int added = 0, changed = 0, removed = 0;
+            for (var entry : newMap.entrySet()) 
+                if (!existingMap.containsKey(entry.getKey())) added++;
+                  else if (!Objects.equals(entry.getValue(), existingMap.get(entry.getKey()))) changed++;
+            for (var key : existingMap.keySet()) if (!newMap.containsKey(key)) removed++;
+            changes = added + " key(s) added, " + changed + " changed, " + removed + " removed.";
+        }
+        
+        return " PLANNED deployment of secret \"" + secretName + "\" with " + 
+               newMap.size() + " key(s) to Kubernetes: " + changes;
+    }
 }
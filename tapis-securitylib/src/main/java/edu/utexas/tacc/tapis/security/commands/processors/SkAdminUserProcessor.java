@@ -2,6 +2,7 @@ package edu.utexas.tacc.tapis.security.commands.processors;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -127,9 +128,9 @@ public class SkAdminUserProcessor
             return;
         }   
         
-        // See if the secret already exists.
-        SkSecret skSecret = null;
-        try {skSecret = readSecret(secret);} 
+        // Get the secret's current or planned key/value pairs.
+        Map<String,String> secretMap = null;
+        try {secretMap = getDeploySecretMap(secret);} 
         catch (Exception e) {
             // Save the error condition for this secret.
             _results.recordFailure(Op.deploy, SecretType.User, 
@@ -138,7 +139,7 @@ public class SkAdminUserProcessor
         }
         
         // This shouldn't happen.
-        if (skSecret == null || skSecret.getSecretMap().isEmpty()) {
+        if (secretMap == null || secretMap.isEmpty()) {
             String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
             _results.recordFailure(Op.deploy, SecretType.User, 
                                    makeFailureMessage(Op.deploy, secret, msg));
@@ -146,7 +147,7 @@ public class SkAdminUserProcessor
         }
         
         // Validate the specified secret key's value.
-        String value = skSecret.getSecretMap().get(secret.key);
+        String value = secretMap.get(secret.key);
         if (StringUtils.isBlank(value)) {
             String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
             _results.recordFailure(Op.deploy, SecretType.User, 
@@ -207,6 +208,44 @@ public class SkAdminUserProcessor
                "\": No target Kubernetes secret specified.";
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* readSecretMap:                                                         */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected Map<String,String> readSecretMap(SkAdminUser secret)
+     throws Exception
+    {
+        // Not found means the secret doesn't exist.
+        try {return readSecret(secret).getSecretMap();}
+        catch (TapisClientException e) {
+            if (e.getCode() == 404) return null;
+            throw e;
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makeUnchangedMessage:                                                  */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected String makeUnchangedMessage(Op op, SkAdminUser secret)
+    {
+        return " SKIPPED " + op.name() + " for secret \"" + secret.secretName +
+               "\" with key \"" + secret.key +
+               "\" for user \"" + secret.user + "\" in tenant \"" + secret.tenant + 
+               "\": Unchanged.";
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makePlanMessage:                                                       */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected String makePlanMessage(Op op, SkAdminUser secret)
+    {
+        return " PLANNED " + op.name() + " of secret \"" + secret.secretName +
+               "\" with key \"" + secret.key +
+               "\" for user \"" + secret.user + "\" in tenant \"" + secret.tenant + "\".";
+    }
+
     /* ********************************************************************** */
     /*                            Private Methods                             */
     /* ********************************************************************** */
@@ -1,6 +1,7 @@
 package edu.utexas.tacc.tapis.security.commands.processors;
 
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -129,9 +130,9 @@ public final class SkAdminVaultDBCredentialProcessor
             return;
         }    
         
-        // See if the secret already exists.
-        SkSecret skSecret = null;
-        try {skSecret = readSecret(secret);} 
+        // Get the secret's current or planned key/value pairs.
+        Map<String,String> secretMap = null;
+        try {secretMap = getDeploySecretMap(secret);} 
         catch (Exception e) {
             // Save the error condition for this secret.
             _results.recordFailure(Op.deploy, secret.getClientSecretType(), 
@@ -140,7 +141,7 @@ public final class SkAdminVaultDBCredentialProcessor
         }
         
         // This shouldn't happen.
-        if (skSecret == null || skSecret.secretMap.isEmpty()) {
+        if (secretMap == null || secretMap.isEmpty()) {
             String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
             _results.recordFailure(Op.deploy, secret.getClientSecretType(), 
                                    makeFailureMessage(Op.deploy, secret, msg));
@@ -148,7 +149,7 @@ public final class SkAdminVaultDBCredentialProcessor
         }
         
         // Validate the specified secret key's value.
-        String value = skSecret.secretMap.get(DEFAULT_KEY_NAME);
+        String value = secretMap.get(DEFAULT_KEY_NAME);
         if (StringUtils.isBlank(value)) {
             String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
             _results.recordFailure(Op.deploy, secret.getClientSecretType(), 
@@ -160,6 +161,21 @@ public final class SkAdminVaultDBCredentialProcessor
         recorder.addDeployRecord(secret.kubeSecretName, secret.kubeSecretKey, value);
     }    
 
+    /* ---------------------------------------------------------------------- */
+    /* readSecretMap:                                                         */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected Map<String,String> readSecretMap(SkAdminDBCredential secret)
+     throws Exception
+    {
+        // Not found means the secret doesn't exist.
+        try {return readSecret(secret).secretMap;}
+        catch (TapisImplException e) {
+            if (e.condition == Condition.NOT_FOUND) return null;
+            throw e;
+        }
+    }
+    
     /* ********************************************************************** */
     /*                            Private Methods                             */
     /* ********************************************************************** */
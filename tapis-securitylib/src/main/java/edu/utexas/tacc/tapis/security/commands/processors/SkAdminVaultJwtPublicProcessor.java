@@ -1,6 +1,7 @@
 package edu.utexas.tacc.tapis.security.commands.processors;
 
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -13,6 +14,7 @@ import edu.utexas.tacc.tapis.security.commands.model.ISkAdminDeployRecorder;
 import edu.utexas.tacc.tapis.security.commands.model.SkAdminJwtPublic;
 import edu.utexas.tacc.tapis.security.secrets.SecretPathMapper.SecretPathMapperParms;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 
 public final class SkAdminVaultJwtPublicProcessor
@@ -51,9 +53,9 @@ public final class SkAdminVaultJwtPublicProcessor
         // If necessary try to read the public key from Vault.
         if (StringUtils.isBlank(value)) 
         {
-            // See if the secret already exists.
-            SkSecret skSecret = null;
-            try {skSecret = readSecret(secret);} 
+            // Get the secret's current or planned key/value pairs.
+            Map<String,String> secretMap = null;
+            try {secretMap = getDeploySecretMap(secret);} 
             catch (Exception e) {
                 // Save the error condition for this secret.
                 _results.recordFailure(Op.deploy, secret.getClientSecretType(), 
@@ -62,7 +64,7 @@ public final class SkAdminVaultJwtPublicProcessor
             }
         
             // This shouldn't happen.
-            if (skSecret == null || skSecret.secretMap.isEmpty()) {
+            if (secretMap == null || secretMap.isEmpty()) {
                 String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
                 _results.recordFailure(Op.deploy, secret.getClientSecretType(), 
                                       makeFailureMessage(Op.deploy, secret, msg));
@@ -70,7 +72,7 @@ public final class SkAdminVaultJwtPublicProcessor
             }
         
             // Validate the specified secret key's value.
-            value = skSecret.secretMap.get(DEFAULT_PUBLIC_KEY_NAME);
+            value = secretMap.get(DEFAULT_PUBLIC_KEY_NAME);
             if (StringUtils.isBlank(value)) {
                 String msg = MsgUtils.getMsg("SK_ADMIN_NO_SECRET_FOUND");
                 _results.recordFailure(Op.deploy, secret.getClientSecretType(), 
@@ -85,6 +87,21 @@ public final class SkAdminVaultJwtPublicProcessor
               value);
     }    
 
+    /* ---------------------------------------------------------------------- */
+    /* readSecretMap:                                                         */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected Map<String,String> readSecretMap(SkAdminJwtPublic secret)
+     throws Exception
+    {
+        // Not found means the secret doesn't exist.
+        try {return readSecret(secret).secretMap;}
+        catch (TapisImplException e) {
+            if (e.condition == Condition.NOT_FOUND) return null;
+            throw e;
+        }
+    }
+    
     /* ********************************************************************** */
     /*                            Private Methods                             */
     /* ********************************************************************** */
@@ -77,6 +77,59 @@ public final class RuntimeParameters
     private static final int MIN_VAULT_TOKEN_THRESHOLD = 20;      // percent 
     private static final int MAX_VAULT_TOKEN_THRESHOLD = 80;      // percent
     
+    // SK-specific parameter names that are not defined in TapisEnv.EnvVar.  
+    // Each can also be set using an environment variable whose name is the 
+    // parameter name in uppercase with dots replaced by underscores.
+    public static final String SK_AUTHZ_CACHE_ENABLED     = "tapis.sk.authz.cache.enabled";
+    public static final String SK_AUTHZ_CACHE_TTL_SECONDS = "tapis.sk.authz.cache.ttl.seconds";
+    public static final String SK_AUTHZ_CHANGE_RETAINED   = "tapis.sk.authz.change.retained";
+    public static final String SK_SECRET_CACHE_ENABLED     = "tapis.sk.secret.cache.enabled";
+    public static final String SK_SECRET_CACHE_TTL_SECONDS = "tapis.sk.secret.cache.ttl.seconds";
+    public static final String SK_SECRET_CACHE_MAX_ENTRIES = "tapis.sk.secret.cache.max.entries";
+    public static final String SK_SERVICE_PWD_CACHE_ENABLED     = "tapis.sk.service.pwd.cache.enabled";
+    public static final String SK_SERVICE_PWD_CACHE_TTL_SECONDS = "tapis.sk.service.pwd.cache.ttl.seconds";
+    public static final String SK_JWT_KEY_CACHE_ENABLED       = "tapis.sk.jwt.key.cache.enabled";
+    public static final String SK_JWT_KEY_CACHE_CHECK_SECONDS = "tapis.sk.jwt.key.cache.check.seconds";
+    public static final String SK_VAULT_CLIENT_POOLED         = "tapis.sk.vault.client.pooled";
+    public static final String SK_VAULT_CLIENT_MAX_CONCURRENT = "tapis.sk.vault.client.max.concurrent";
+    public static final String SK_VAULT_CLIENT_HTTP2          = "tapis.sk.vault.client.http2";
+    public static final String SK_VAULT_BULKHEAD_MAX_CONCURRENT  = "tapis.sk.vault.bulkhead.max.concurrent";
+    public static final String SK_VAULT_BULKHEAD_MAX_QUEUED      = "tapis.sk.vault.bulkhead.max.queued";
+    public static final String SK_VAULT_BULKHEAD_TIMEOUT_SECONDS = "tapis.sk.vault.bulkhead.timeout.seconds";
+    public static final String SK_METRICS_ENABLED = "tapis.sk.metrics.enabled";
+    
+    // Authorization cache defaults.
+    private static final int DEFAULT_AUTHZ_CACHE_TTL_SECONDS = 300;
+    private static final int MIN_AUTHZ_CACHE_TTL_SECONDS = 1;
+    private static final int DEFAULT_AUTHZ_CHANGE_RETAINED = 100000;
+    private static final int MIN_AUTHZ_CHANGE_RETAINED = 1000;
+    
+    // Secret cache defaults.
+    private static final int DEFAULT_SECRET_CACHE_TTL_SECONDS = 30;
+    private static final int MIN_SECRET_CACHE_TTL_SECONDS = 1;
+    private static final int DEFAULT_SECRET_CACHE_MAX_ENTRIES = 10000;
+    private static final int MIN_SECRET_CACHE_MAX_ENTRIES = 1;
+    
+    // Service password cache defaults.
+    private static final int DEFAULT_SERVICE_PWD_CACHE_TTL_SECONDS = 300;
+    private static final int MIN_SERVICE_PWD_CACHE_TTL_SECONDS = 1;
+    
+    // JWT public key cache defaults.
+    private static final int DEFAULT_JWT_KEY_CACHE_CHECK_SECONDS = 10;
+    private static final int MIN_JWT_KEY_CACHE_CHECK_SECONDS = 0;
+    
+    // Pooled vault client defaults.
+    private static final int DEFAULT_VAULT_CLIENT_MAX_CONCURRENT = 32;
+    private static final int MIN_VAULT_CLIENT_MAX_CONCURRENT = 1;
+    
+    // Vault request bulkhead defaults.
+    private static final int DEFAULT_VAULT_BULKHEAD_MAX_CONCURRENT = 64;
+    private static final int MIN_VAULT_BULKHEAD_MAX_CONCURRENT = 1;
+    private static final int DEFAULT_VAULT_BULKHEAD_MAX_QUEUED = 256;
+    private static final int MIN_VAULT_BULKHEAD_MAX_QUEUED = 0;
+    private static final int DEFAULT_VAULT_BULKHEAD_TIMEOUT_SECONDS = 60;
+    private static final int MIN_VAULT_BULKHEAD_TIMEOUT_SECONDS = 1;
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
@@ -139,6 +192,37 @@ public final class RuntimeParameters
 	private int     vaultRenewThreshold;  // point at which token renewal begins,
 	                                      //   expressed as percent of expiration time
 	
+	// Authorization cache parameters.
+	private boolean authzCacheEnabled;    // cache user roles and permissions
+	private int     authzCacheTtlSeconds; // maximum age of a cache entry
+	private int     authzChangeRetained;  // change log versions kept per tenant
+	
+	// Secret cache parameters.
+	private boolean secretCacheEnabled;    // cache system secrets read from vault
+	private int     secretCacheTtlSeconds; // maximum age of a cache entry
+	private int     secretCacheMaxEntries; // maximum number of cached secret versions
+	
+	// Service password validation cache parameters.
+	private boolean servicePwdCacheEnabled;    // validate service passwords from memory
+	private int     servicePwdCacheTtlSeconds; // maximum age of a cache entry
+	
+	// JWT public key cache parameters.
+	private boolean jwtKeyCacheEnabled;      // serve jwt public keys from memory
+	private int     jwtKeyCacheCheckSeconds; // time between key version checks
+	
+	// Pooled vault client parameters.
+	private boolean vaultClientPooled;        // use the keep-alive http client
+	private int     vaultClientMaxConcurrent; // maximum vault calls in flight
+	private boolean vaultClientHttp2;         // prefer HTTP/2
+	
+	// Vault request bulkhead parameters.
+	private int     vaultBulkheadMaxConcurrent;  // vault requests processed at once
+	private int     vaultBulkheadMaxQueued;      // vault requests waiting to be processed
+	private int     vaultBulkheadTimeoutSeconds; // maximum time a vault request waits to start
+	
+	// Metrics parameters.
+	private boolean metricsEnabled; // record timers and publish them on /metrics
+	
 	/* ********************************************************************** */
 	/*                              Constructors                              */
 	/* ********************************************************************** */
@@ -613,6 +697,368 @@ public final class RuntimeParameters
     // TODO: we'll probably need to adjust this when mutual auth is actually used.
     parm = inputProperties.getProperty(EnvVar.TAPIS_SK_VAULT_SK_KEY_PEM_FILE.getEnvName());
     if (StringUtils.isBlank(parm)) setVaultSkKeyPemFile(parm);
+    
+    // --------------------- Authz Cache Parameters -------------------
+    // The authorization cache is off by default.
+    parm = getSkProperty(inputProperties, SK_AUTHZ_CACHE_ENABLED);
+    if (StringUtils.isBlank(parm)) setAuthzCacheEnabled(false);
+      else {
+        try {setAuthzCacheEnabled(Boolean.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_SECURITY,
+                                         "authzCacheEnabled",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
+    
+    // Cache entries are refreshed at least this often even if no 
+    // invalidation notification is received.
+    parm = getSkProperty(inputProperties, SK_AUTHZ_CACHE_TTL_SECONDS);
+    if (StringUtils.isBlank(parm)) setAuthzCacheTtlSeconds(DEFAULT_AUTHZ_CACHE_TTL_SECONDS);
+      else 
+          try {
+              int ttl = Integer.valueOf(parm);
+              if (ttl < MIN_AUTHZ_CACHE_TTL_SECONDS) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_AUTHZ_CACHE_TTL_SECONDS, ttl,
+                                               MIN_AUTHZ_CACHE_TTL_SECONDS);
+                   throw new IllegalArgumentException(msg);
+              }
+              setAuthzCacheTtlSeconds(ttl);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "authzCacheTtlSeconds",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // The change log keeps this many of each tenant's most recent versions.
+    // Clients that fall further behind have to reload their caches.
+    parm = getSkProperty(inputProperties, SK_AUTHZ_CHANGE_RETAINED);
+    if (StringUtils.isBlank(parm)) setAuthzChangeRetained(DEFAULT_AUTHZ_CHANGE_RETAINED);
+      else 
+          try {
+              int retained = Integer.valueOf(parm);
+              if (retained < MIN_AUTHZ_CHANGE_RETAINED) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_AUTHZ_CHANGE_RETAINED, retained,
+                                               MIN_AUTHZ_CHANGE_RETAINED);
+                   throw new IllegalArgumentException(msg);
+              }
+              setAuthzChangeRetained(retained);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "authzChangeRetained",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // --------------------- Secret Cache Parameters ------------------
+    // The secret cache is off by default.
+    parm = getSkProperty(inputProperties, SK_SECRET_CACHE_ENABLED);
+    if (StringUtils.isBlank(parm)) setSecretCacheEnabled(false);
+      else {
+        try {setSecretCacheEnabled(Boolean.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_SECURITY,
+                                         "secretCacheEnabled",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
+    
+    // Cached secrets are reread from vault at least this often.  Writes on
+    // other SK instances are only seen after this interval.
+    parm = getSkProperty(inputProperties, SK_SECRET_CACHE_TTL_SECONDS);
+    if (StringUtils.isBlank(parm)) setSecretCacheTtlSeconds(DEFAULT_SECRET_CACHE_TTL_SECONDS);
+      else 
+          try {
+              int ttl = Integer.valueOf(parm);
+              if (ttl < MIN_SECRET_CACHE_TTL_SECONDS) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_SECRET_CACHE_TTL_SECONDS, ttl,
+                                               MIN_SECRET_CACHE_TTL_SECONDS);
+                   throw new IllegalArgumentException(msg);
+              }
+              setSecretCacheTtlSeconds(ttl);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "secretCacheTtlSeconds",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // Bound the memory used by the secret cache.
+    parm = getSkProperty(inputProperties, SK_SECRET_CACHE_MAX_ENTRIES);
+    if (StringUtils.isBlank(parm)) setSecretCacheMaxEntries(DEFAULT_SECRET_CACHE_MAX_ENTRIES);
+      else 
+          try {
+              int max = Integer.valueOf(parm);
+              if (max < MIN_SECRET_CACHE_MAX_ENTRIES) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_SECRET_CACHE_MAX_ENTRIES, max,
+                                               MIN_SECRET_CACHE_MAX_ENTRIES);
+                   throw new IllegalArgumentException(msg);
+              }
+              setSecretCacheMaxEntries(max);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "secretCacheMaxEntries",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // ----------------- Service Password Cache Parameters ------------
+    // The service password validation cache is off by default.
+    parm = getSkProperty(inputProperties, SK_SERVICE_PWD_CACHE_ENABLED);
+    if (StringUtils.isBlank(parm)) setServicePwdCacheEnabled(false);
+      else {
+        try {setServicePwdCacheEnabled(Boolean.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_SECURITY,
+                                         "servicePwdCacheEnabled",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
+    
+    // Password hashes are reread from vault at least this often.
+    parm = getSkProperty(inputProperties, SK_SERVICE_PWD_CACHE_TTL_SECONDS);
+    if (StringUtils.isBlank(parm)) setServicePwdCacheTtlSeconds(DEFAULT_SERVICE_PWD_CACHE_TTL_SECONDS);
+      else 
+          try {
+              int ttl = Integer.valueOf(parm);
+              if (ttl < MIN_SERVICE_PWD_CACHE_TTL_SECONDS) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_SERVICE_PWD_CACHE_TTL_SECONDS, ttl,
+                                               MIN_SERVICE_PWD_CACHE_TTL_SECONDS);
+                   throw new IllegalArgumentException(msg);
+              }
+              setServicePwdCacheTtlSeconds(ttl);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "servicePwdCacheTtlSeconds",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // ----------------- JWT Public Key Cache Parameters --------------
+    // The jwt public key cache is on by default.
+    parm = getSkProperty(inputProperties, SK_JWT_KEY_CACHE_ENABLED);
+    if (StringUtils.isBlank(parm)) setJwtKeyCacheEnabled(true);
+      else {
+        try {setJwtKeyCacheEnabled(Boolean.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_SECURITY,
+                                         "jwtKeyCacheEnabled",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
+    
+    // Key versions are checked in vault at most this often, 0 checks on every request.
+    parm = getSkProperty(inputProperties, SK_JWT_KEY_CACHE_CHECK_SECONDS);
+    if (StringUtils.isBlank(parm)) setJwtKeyCacheCheckSeconds(DEFAULT_JWT_KEY_CACHE_CHECK_SECONDS);
+      else 
+          try {
+              int seconds = Integer.valueOf(parm);
+              if (seconds < MIN_JWT_KEY_CACHE_CHECK_SECONDS) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_JWT_KEY_CACHE_CHECK_SECONDS, seconds,
+                                               MIN_JWT_KEY_CACHE_CHECK_SECONDS);
+                   throw new IllegalArgumentException(msg);
+              }
+              setJwtKeyCacheCheckSeconds(seconds);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "jwtKeyCacheCheckSeconds",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // ----------------- Pooled Vault Client Parameters ---------------
+    // The vault driver's per-call connections are used by default.
+    parm = getSkProperty(inputProperties, SK_VAULT_CLIENT_POOLED);
+    if (StringUtils.isBlank(parm)) setVaultClientPooled(false);
+      else {
+        try {setVaultClientPooled(Boolean.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_SECURITY,
+                                         "vaultClientPooled",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
+    
+    // Bounds both concurrent vault calls and pooled connections.
+    parm = getSkProperty(inputProperties, SK_VAULT_CLIENT_MAX_CONCURRENT);
+    if (StringUtils.isBlank(parm)) setVaultClientMaxConcurrent(DEFAULT_VAULT_CLIENT_MAX_CONCURRENT);
+      else 
+          try {
+              int max = Integer.valueOf(parm);
+              if (max < MIN_VAULT_CLIENT_MAX_CONCURRENT) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_VAULT_CLIENT_MAX_CONCURRENT, max,
+                                               MIN_VAULT_CLIENT_MAX_CONCURRENT);
+                   throw new IllegalArgumentException(msg);
+              }
+              setVaultClientMaxConcurrent(max);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "vaultClientMaxConcurrent",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // HTTP/2 requires vault to be configured with TLS.
+    parm = getSkProperty(inputProperties, SK_VAULT_CLIENT_HTTP2);
+    if (StringUtils.isBlank(parm)) setVaultClientHttp2(false);
+      else {
+        try {setVaultClientHttp2(Boolean.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_SECURITY,
+                                         "vaultClientHttp2",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
+    
+    // ----------------- Vault Request Bulkhead Parameters ------------
+    // Vault requests beyond the concurrent and queued limits are rejected.
+    parm = getSkProperty(inputProperties, SK_VAULT_BULKHEAD_MAX_CONCURRENT);
+    if (StringUtils.isBlank(parm)) setVaultBulkheadMaxConcurrent(DEFAULT_VAULT_BULKHEAD_MAX_CONCURRENT);
+      else 
+          try {
+              int value = Integer.valueOf(parm);
+              if (value < MIN_VAULT_BULKHEAD_MAX_CONCURRENT) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_VAULT_BULKHEAD_MAX_CONCURRENT, value,
+                                               MIN_VAULT_BULKHEAD_MAX_CONCURRENT);
+                   throw new IllegalArgumentException(msg);
+              }
+              setVaultBulkheadMaxConcurrent(value);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "vaultBulkheadMaxConcurrent",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // Requests wait here when all concurrent slots are in use.
+    parm = getSkProperty(inputProperties, SK_VAULT_BULKHEAD_MAX_QUEUED);
+    if (StringUtils.isBlank(parm)) setVaultBulkheadMaxQueued(DEFAULT_VAULT_BULKHEAD_MAX_QUEUED);
+      else 
+          try {
+              int value = Integer.valueOf(parm);
+              if (value < MIN_VAULT_BULKHEAD_MAX_QUEUED) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_VAULT_BULKHEAD_MAX_QUEUED, value,
+                                               MIN_VAULT_BULKHEAD_MAX_QUEUED);
+                   throw new IllegalArgumentException(msg);
+              }
+              setVaultBulkheadMaxQueued(value);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "vaultBulkheadMaxQueued",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // Suspended requests are answered with an error after this time.
+    parm = getSkProperty(inputProperties, SK_VAULT_BULKHEAD_TIMEOUT_SECONDS);
+    if (StringUtils.isBlank(parm)) setVaultBulkheadTimeoutSeconds(DEFAULT_VAULT_BULKHEAD_TIMEOUT_SECONDS);
+      else 
+          try {
+              int value = Integer.valueOf(parm);
+              if (value < MIN_VAULT_BULKHEAD_TIMEOUT_SECONDS) {
+                  String msg = MsgUtils.getMsg("TAPIS_PARAMETER_LESS_THAN_MIN",
+                                               SK_VAULT_BULKHEAD_TIMEOUT_SECONDS, value,
+                                               MIN_VAULT_BULKHEAD_TIMEOUT_SECONDS);
+                   throw new IllegalArgumentException(msg);
+              }
+              setVaultBulkheadTimeoutSeconds(value);
+          }
+          catch (Exception e) {
+              // Stop on bad input.
+              String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                           TapisConstants.SERVICE_NAME_SECURITY,
+                                           "vaultBulkheadTimeoutSeconds",
+                                           e.getMessage());
+              _log.error(msg, e);
+              throw new TapisRuntimeException(msg, e);
+          }
+    
+    // --------------------- Metrics Parameters -----------------------
+    // Metrics are recorded by default.
+    parm = getSkProperty(inputProperties, SK_METRICS_ENABLED);
+    if (StringUtils.isBlank(parm)) setMetricsEnabled(true);
+      else {
+        try {setMetricsEnabled(Boolean.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_SECURITY,
+                                         "metricsEnabled",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
    }
 	
     /* ---------------------------------------------------------------------- */
@@ -691,6 +1137,44 @@ public final class RuntimeParameters
         buf.append(this.getVaultRenewSeconds());
         buf.append("\ntapis.sk.vault.token.renewal.threshold: ");
         buf.append(this.getVaultRenewThreshold());
+        buf.append("\n" + SK_VAULT_CLIENT_POOLED + ": ");
+        buf.append(this.isVaultClientPooled());
+        buf.append("\n" + SK_VAULT_CLIENT_MAX_CONCURRENT + ": ");
+        buf.append(this.getVaultClientMaxConcurrent());
+        buf.append("\n" + SK_VAULT_CLIENT_HTTP2 + ": ");
+        buf.append(this.isVaultClientHttp2());
+        buf.append("\n" + SK_VAULT_BULKHEAD_MAX_CONCURRENT + ": ");
+        buf.append(this.getVaultBulkheadMaxConcurrent());
+        buf.append("\n" + SK_VAULT_BULKHEAD_MAX_QUEUED + ": ");
+        buf.append(this.getVaultBulkheadMaxQueued());
+        buf.append("\n" + SK_VAULT_BULKHEAD_TIMEOUT_SECONDS + ": ");
+        buf.append(this.getVaultBulkheadTimeoutSeconds());
+        buf.append("\n" + SK_METRICS_ENABLED + ": ");
+        buf.append(this.isMetricsEnabled());
+        
+        buf.append("\n------- Authz Cache Configuration -----------------");
+        buf.append("\n" + SK_AUTHZ_CACHE_ENABLED + ": ");
+        buf.append(this.isAuthzCacheEnabled());
+        buf.append("\n" + SK_AUTHZ_CACHE_TTL_SECONDS + ": ");
+        buf.append(this.getAuthzCacheTtlSeconds());
+        buf.append("\n" + SK_AUTHZ_CHANGE_RETAINED + ": ");
+        buf.append(this.getAuthzChangeRetained());
+        
+        buf.append("\n------- Secret Cache Configuration ----------------");
+        buf.append("\n" + SK_SECRET_CACHE_ENABLED + ": ");
+        buf.append(this.isSecretCacheEnabled());
+        buf.append("\n" + SK_SECRET_CACHE_TTL_SECONDS + ": ");
+        buf.append(this.getSecretCacheTtlSeconds());
+        buf.append("\n" + SK_SECRET_CACHE_MAX_ENTRIES + ": ");
+        buf.append(this.getSecretCacheMaxEntries());
+        buf.append("\n" + SK_SERVICE_PWD_CACHE_ENABLED + ": ");
+        buf.append(this.isServicePwdCacheEnabled());
+        buf.append("\n" + SK_SERVICE_PWD_CACHE_TTL_SECONDS + ": ");
+        buf.append(this.getServicePwdCacheTtlSeconds());
+        buf.append("\n" + SK_JWT_KEY_CACHE_ENABLED + ": ");
+        buf.append(this.isJwtKeyCacheEnabled());
+        buf.append("\n" + SK_JWT_KEY_CACHE_CHECK_SECONDS + ": ");
+        buf.append(this.getJwtKeyCacheCheckSeconds());
         
 	    buf.append("\n------- Email Configuration -----------------------");
 	    buf.append("\ntapis.mail.provider: ");
@@ -776,6 +1260,27 @@ public final class RuntimeParameters
 		return _instance;
 	}
 	
+    /* ---------------------------------------------------------------------- */
+    /* getSkProperty:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Get the value of an SK-specific parameter that is not defined in 
+     * TapisEnv.EnvVar.  The environment variable, if set, takes precedence
+     * over the input properties just as it does for standard parameters.
+     * The environment variable name is the parameter name in uppercase with
+     * dots replaced by underscores.
+     * 
+     * @param inputProperties the properties read by TapisInput
+     * @param name the dotted parameter name
+     * @return the parameter value or null
+     */
+    private static String getSkProperty(Properties inputProperties, String name)
+    {
+        String value = System.getenv(name.replace('.', '_').toUpperCase());
+        if (StringUtils.isBlank(value)) value = System.getProperty(name);
+        if (StringUtils.isBlank(value)) value = inputProperties.getProperty(name);
+        return value;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getNetworkAddresses:                                                   */
     /* ---------------------------------------------------------------------- */
@@ -1125,4 +1630,140 @@ public final class RuntimeParameters
     public void setTenantBaseUrl(String tenantBaseUrl) {
         this.tenantBaseUrl = tenantBaseUrl;
     }
+
+    public boolean isAuthzCacheEnabled() {
+        return authzCacheEnabled;
+    }
+
+    public void setAuthzCacheEnabled(boolean authzCacheEnabled) {
+        this.authzCacheEnabled = authzCacheEnabled;
+    }
+
+    public int getAuthzCacheTtlSeconds() {
+        return authzCacheTtlSeconds;
+    }
+
+    public void setAuthzCacheTtlSeconds(int authzCacheTtlSeconds) {
+        this.authzCacheTtlSeconds = authzCacheTtlSeconds;
+    }
+
+    public int getAuthzChangeRetained() {
+        return authzChangeRetained;
+    }
+
+    public void setAuthzChangeRetained(int authzChangeRetained) {
+        this.authzChangeRetained = authzChangeRetained;
+    }
+
+    public boolean isSecretCacheEnabled() {
+        return secretCacheEnabled;
+    }
+
+    public void setSecretCacheEnabled(boolean secretCacheEnabled) {
+        this.secretCacheEnabled = secretCacheEnabled;
+    }
+
+    public int getSecretCacheTtlSeconds() {
+        return secretCacheTtlSeconds;
+    }
+
+    public void setSecretCacheTtlSeconds(int secretCacheTtlSeconds) {
+        this.secretCacheTtlSeconds = secretCacheTtlSeconds;
+    }
+
+    public int getSecretCacheMaxEntries() {
+        return secretCacheMaxEntries;
+    }
+
+    public void setSecretCacheMaxEntries(int secretCacheMaxEntries) {
+        this.secretCacheMaxEntries = secretCacheMaxEntries;
+    }
+
+    public boolean isServicePwdCacheEnabled() {
+        return servicePwdCacheEnabled;
+    }
+
+    public void setServicePwdCacheEnabled(boolean servicePwdCacheEnabled) {
+        this.servicePwdCacheEnabled = servicePwdCacheEnabled;
+    }
+
+    public int getServicePwdCacheTtlSeconds() {
+        return servicePwdCacheTtlSeconds;
+    }
+
+    public void setServicePwdCacheTtlSeconds(int servicePwdCacheTtlSeconds) {
+        this.servicePwdCacheTtlSeconds = servicePwdCacheTtlSeconds;
+    }
+
+    public boolean isJwtKeyCacheEnabled() {
+        return jwtKeyCacheEnabled;
+    }
+
+    public void setJwtKeyCacheEnabled(boolean jwtKeyCacheEnabled) {
+        this.jwtKeyCacheEnabled = jwtKeyCacheEnabled;
+    }
+
+    public int getJwtKeyCacheCheckSeconds() {
+        return jwtKeyCacheCheckSeconds;
+    }
+
+    public void setJwtKeyCacheCheckSeconds(int jwtKeyCacheCheckSeconds) {
+        this.jwtKeyCacheCheckSeconds = jwtKeyCacheCheckSeconds;
+    }
+
+    public boolean isVaultClientPooled() {
+        return vaultClientPooled;
+    }
+
+    public void setVaultClientPooled(boolean vaultClientPooled) {
+        this.vaultClientPooled = vaultClientPooled;
+    }
+
+    public int getVaultClientMaxConcurrent() {
+        return vaultClientMaxConcurrent;
+    }
+
+    public void setVaultClientMaxConcurrent(int vaultClientMaxConcurrent) {
+        this.vaultClientMaxConcurrent = vaultClientMaxConcurrent;
+    }
+
+    public boolean isVaultClientHttp2() {
+        return vaultClientHttp2;
+    }
+
+    public void setVaultClientHttp2(boolean vaultClientHttp2) {
+        this.vaultClientHttp2 = vaultClientHttp2;
+    }
+
+    public int getVaultBulkheadMaxConcurrent() {
+        return vaultBulkheadMaxConcurrent;
+    }
+
+    public void setVaultBulkheadMaxConcurrent(int vaultBulkheadMaxConcurrent) {
+        this.vaultBulkheadMaxConcurrent = vaultBulkheadMaxConcurrent;
+    }
+
+    public int getVaultBulkheadMaxQueued() {
+        return vaultBulkheadMaxQueued;
+    }
+
+    public void setVaultBulkheadMaxQueued(int vaultBulkheadMaxQueued) {
+        this.vaultBulkheadMaxQueued = vaultBulkheadMaxQueued;
+    }
+
+    public int getVaultBulkheadTimeoutSeconds() {
+        return vaultBulkheadTimeoutSeconds;
+    }
+
+    public void setVaultBulkheadTimeoutSeconds(int vaultBulkheadTimeoutSeconds) {
+        this.vaultBulkheadTimeoutSeconds = vaultBulkheadTimeoutSeconds;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
 }
@@ -0,0 +1,217 @@
+package edu.utexas.tacc.tapis.security.metrics;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import edu.utexas.tacc.tapis.security.authz.dao.SkDataSourceProxy;
+import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+/** Time the statements executed through a datasource.  Each statement is
+ * identified by the name of the SqlStatements constant it was prepared from,
+ * so the published series are bounded by the number of constants.  Statements
+ * built by replacing a constant's :placeholder tokens are matched to the
+ * constant using the text around the placeholders.  Statements that match no
+ * constant are published as UNKNOWN.
+ *
+ * The datasource is wrapped by SkDataSourceProxy.  The statement name and its
+ * timer are looked up once when the statement is prepared, so each execution
+ * costs a proxy call and a timer recording.  Statements created without sql
+ * text aren't timed.
+ */
+public final class SkDbMetrics
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The name of statements that don't come from SqlStatements.
+    public static final String UNKNOWN_STATEMENT = "UNKNOWN";
+
+    // Placeholders are replaced before statements are prepared.  The look
+    // behind skips postgres :: casts.
+    private static final Pattern PLACEHOLDER = Pattern.compile("(?<!:):[a-zA-Z_]+");
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Statement text to constant name.
+    private static final HashMap<String,String> _names = new HashMap<>();
+
+    // The constants that contain placeholders.
+    private static final List<Template> _templates = new ArrayList<>();
+
+    // Timers and error counters by statement name, created on first use.
+    private static final ConcurrentHashMap<String,Timer>   _timers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String,Counter> _errors = new ConcurrentHashMap<>();
+
+    // Times the executions of each prepared statement.
+    private static final StatementTimer _interceptor = new StatementTimer();
+
+    static {
+        for (Constant constant : getStatementConstants()) {
+            _names.putIfAbsent(constant.sql, constant.name);
+            String[] parts = PLACEHOLDER.split(constant.sql, -1);
+            if (parts.length > 1) _templates.add(new Template(constant.name, parts));
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private SkDbMetrics() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* wrap:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Return a datasource whose prepared statements time their executions.
+     * The datasource's connection pool gauges are also published.  The
+     * service installs this method with SkAbstractDao.setDataSourceWrapper()
+     * when metrics are enabled.
+     *
+     * @param ds the datasource to wrap
+     * @return the timing datasource
+     */
+    public static DataSource wrap(DataSource ds)
+    {
+        SkMetrics.bindDataSource(ds);
+        return SkDataSourceProxy.wrap(ds, _interceptor);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getStatementName:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Get the name of the SqlStatements constant a statement was created from.
+     *
+     * @param sql the statement text
+     * @return the constant name or UNKNOWN
+     */
+    public static String getStatementName(String sql)
+    {
+        if (sql == null) return UNKNOWN_STATEMENT;
+        String name = _names.get(sql);
+        if (name != null) return name;
+        // A short template like SELECT_1 can match statements built from 
+        // longer ones, so use the match with the most literal text.
+        Template best = null;
+        for (var template : _templates)
+            if (template.matches(sql) && (best == null || template.length > best.length))
+                best = template;
+        return best == null ? UNKNOWN_STATEMENT : best.name;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getStatementConstants:                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Get the public static string constants defined in SqlStatements. */
+    private static List<Constant> getStatementConstants()
+    {
+        var constants = new ArrayList<Constant>();
+        for (var field : SqlStatements.class.getFields()) {
+            int mod = field.getModifiers();
+            if (!Modifier.isStatic(mod) || field.getType() != String.class) continue;
+            try {
+                var sql = (String) field.get(null);
+                if (sql != null) constants.add(new Constant(field.getName(), sql));
+            }
+            catch (IllegalAccessException e) {/* public fields are accessible */}
+        }
+        return constants;
+    }
+
+    /* ********************************************************************** */
+    /*                             Nested Types                               */
+    /* ********************************************************************** */
+    /** Time statement executions.  The state of each statement is its timer,
+     * or null if the statement has no sql text when it's created.
+     */
+    private static final class StatementTimer
+     implements SkDataSourceProxy.Interceptor<StatementTimer.Statement>
+    {
+        @Override
+        public Statement prepare(String sql)
+        {
+            if (sql == null) return null;
+            String name = getStatementName(sql);
+            Timer timer = _timers.computeIfAbsent(name, n ->
+                SkMetrics.timer(SkMetrics.DB_STATEMENT, "Database statement execution time",
+                                SkMetrics.DB_BUCKETS, "statement", n));
+            return new Statement(name, timer);
+        }
+
+        @Override
+        public Object execute(Statement stmt, SkDataSourceProxy.Call call) throws Throwable
+        {
+            if (stmt == null) return call.proceed();
+            long start = System.nanoTime();
+            try {return call.proceed();}
+              catch (Throwable e) {
+                  _errors.computeIfAbsent(stmt.name, n ->
+                      Counter.builder(SkMetrics.DB_STATEMENT_ERRORS)
+                             .description("Database statement executions that failed")
+                             .tag("statement", n)
+                             .register(SkMetrics.getRegistry())).increment();
+                  throw e;
+              }
+              finally {stmt.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);}
+        }
+
+        private static final class Statement
+        {
+            private final String name;
+            private final Timer  timer;
+            private Statement(String name, Timer timer) {this.name = name; this.timer = timer;}
+        }
+    }
+
+    private static final class Constant
+    {
+        private final String name;
+        private final String sql;
+        private Constant(String name, String sql) {this.name = name; this.sql = sql;}
+    }
+
+    /** A constant whose placeholders are replaced by arbitrary text. */
+    private static final class Template
+    {
+        private final String   name;
+        private final String[] parts;
+        private final int      length;
+
+        private Template(String name, String[] parts)
+        {
+            this.name = name;
+            this.parts = parts;
+            int len = 0;
+            for (var part : parts) len += part.length();
+            this.length = len;
+        }
+
+        // The text between placeholders must appear in order.
+        private boolean matches(String sql)
+        {
+            int last = parts.length - 1;
+            if (!sql.startsWith(parts[0]) || !sql.endsWith(parts[last])) return false;
+            int pos = parts[0].length();
+            for (int i = 1; i < last; i++) {
+                pos = sql.indexOf(parts[i], pos);
+                if (pos < 0) return false;
+                pos += parts[i].length();
+            }
+            return pos <= sql.length() - parts[last].length();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package edu.utexas.tacc.tapis.security.metrics;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import edu.utexas.tacc.tapis.security.secrets.SkPooledVaultClient;
+import edu.utexas.tacc.tapis.security.secrets.VaultManager;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/** The SK metrics registry, published in Prometheus text format on the
+ * /metrics endpoint.  Metrics are disabled until the application enables
+ * them, so tools and tests that use the daos and vault clients don't record
+ * anything.  Instrumented components decide whether to record when they are
+ * created, so metrics should be enabled before any dao or vault client is
+ * created.
+ *
+ * Timers publish a histogram with a small, fixed set of buckets rather than
+ * Micrometer's default percentile histogram.  This keeps both the recording
+ * cost and the number of published series low, and the buckets can still be
+ * aggregated across SK replicas to compute percentiles.
+ */
+public final class SkMetrics
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SkMetrics.class);
+
+    // The Prometheus text exposition format.
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // Metric names.
+    public static final String DB_STATEMENT        = "sk.db.statement";
+    public static final String DB_STATEMENT_ERRORS = "sk.db.statement.errors";
+    public static final String DB_CONNECTION_WAIT  = "sk.db.connection.wait";
+    public static final String DB_POOL_CONNECTIONS = "sk.db.pool.connections";
+    public static final String VAULT_CALL          = "sk.vault.call";
+    public static final String VAULT_POOL_CALLS    = "sk.vault.pool.calls";
+    public static final String VAULT_POOL_EVENTS   = "sk.vault.pool.events";
+    public static final String VAULT_TOKEN_TTL     = "sk.vault.token.ttl";
+    public static final String VAULT_TOKEN_EVENTS  = "sk.vault.token.events";
+    public static final String HTTP_REQUEST        = "sk.http.request";
+    public static final String BULKHEAD_REQUESTS   = "sk.bulkhead.requests";
+    public static final String BULKHEAD_EVENTS     = "sk.bulkhead.events";
+
+    // Histogram buckets for database calls, which are usually fast.
+    public static final Duration[] DB_BUCKETS =
+        millis(0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 1000);
+
+    // Histogram buckets for vault calls and http requests.
+    public static final Duration[] CALL_BUCKETS =
+        millis(1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 10000);
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The registry is created eagerly, but nothing is recorded unless enabled.
+    private static final PrometheusMeterRegistry _registry =
+        new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    // Set by the application.
+    private static volatile boolean _enabled;
+
+    // Time spent waiting for a pooled database connection.
+    private static final Timer _connectionWait =
+        timer(DB_CONNECTION_WAIT, "Time to acquire a database connection", DB_BUCKETS);
+
+    // Guard against binding the same pools or jvm metrics more than once.
+    private static boolean _jvmBound;
+    private static HikariDataSource _boundDataSource;
+    private static SkPooledVaultClient _boundVaultClient;
+    private static VaultManager _boundVaultManager;
+    private static final HashSet<String> _boundBulkheads = new HashSet<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private SkMetrics() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* setEnabled:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Enable or disable recording.  Enabling also publishes jvm metrics.
+     *
+     * @param enabled true to record metrics
+     */
+    public static synchronized void setEnabled(boolean enabled)
+    {
+        _enabled = enabled;
+        if (enabled && !_jvmBound) {
+            new JvmMemoryMetrics().bindTo(_registry);
+            new JvmGcMetrics().bindTo(_registry);
+            new JvmThreadMetrics().bindTo(_registry);
+            new ProcessorMetrics().bindTo(_registry);
+            _jvmBound = true;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* isEnabled:                                                             */
+    /* ---------------------------------------------------------------------- */
+    public static boolean isEnabled() {return _enabled;}
+
+    /* ---------------------------------------------------------------------- */
+    /* getRegistry:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static MeterRegistry getRegistry() {return _registry;}
+
+    /* ---------------------------------------------------------------------- */
+    /* scrape:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Return all metrics in Prometheus text format. */
+    public static String scrape() {return _registry.scrape();}
+
+    /* ---------------------------------------------------------------------- */
+    /* timer:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Get or create a timer with a histogram using the specified buckets.
+     * Callers should keep the timer rather than call this method for each
+     * recording.
+     *
+     * @param name the metric name
+     * @param description the metric description
+     * @param buckets the histogram bucket upper bounds
+     * @param tags tag names and values
+     * @return the timer
+     */
+    public static Timer timer(String name, String description, Duration[] buckets,
+                              String... tags)
+    {
+        return Timer.builder(name)
+                    .description(description)
+                    .tags(tags)
+                    .serviceLevelObjectives(buckets)
+                    .register(_registry);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordConnectionWait:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Record the time taken to get a database connection from the pool.
+     *
+     * @param nanos the elapsed time
+     */
+    public static void recordConnectionWait(long nanos)
+    {
+        if (_enabled) _connectionWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* bindDataSource:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Publish connection pool gauges if the datasource is, or wraps, a Hikari
+     * pool.  The gauges read the pool's current state when metrics are
+     * scraped.  Only the first pool is published.
+     *
+     * @param ds the dao datasource
+     */
+    public static synchronized void bindDataSource(DataSource ds)
+    {
+        if (!_enabled || _boundDataSource != null || ds == null) return;
+
+        HikariDataSource hikari;
+        try {
+            if (!ds.isWrapperFor(HikariDataSource.class)) return;
+            hikari = ds.unwrap(HikariDataSource.class);
+        }
+        catch (Exception e) {
+            _log.warn("Unable to publish database connection pool metrics: " + e.getMessage());
+            return;
+        }
+
+        poolGauge(hikari, "active",  HikariPoolMXBean::getActiveConnections);
+        poolGauge(hikari, "idle",    HikariPoolMXBean::getIdleConnections);
+        poolGauge(hikari, "total",   HikariPoolMXBean::getTotalConnections);
+        poolGauge(hikari, "pending", HikariPoolMXBean::getThreadsAwaitingConnection);
+        Gauge.builder(DB_POOL_CONNECTIONS, hikari, HikariDataSource::getMaximumPoolSize)
+             .description("Database connection pool connections")
+             .tag("state", "max")
+             .register(_registry);
+        _boundDataSource = hikari;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* bindVaultClient:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Publish the pooled vault client's concurrency gauges and event counts.
+     * Only the first client is published.
+     *
+     * @param client the pooled vault client
+     */
+    public static synchronized void bindVaultClient(SkPooledVaultClient client)
+    {
+        if (!_enabled || _boundVaultClient != null || client == null) return;
+
+        String desc = "Pooled vault client calls";
+        Gauge.builder(VAULT_POOL_CALLS, client, SkPooledVaultClient::getInFlight)
+             .description(desc).tag("state", "inflight").register(_registry);
+        Gauge.builder(VAULT_POOL_CALLS, client, SkPooledVaultClient::getMaxConcurrent)
+             .description(desc).tag("state", "max").register(_registry);
+
+        desc = "Pooled vault client events";
+        vaultCounter(client, desc, "saturated", SkPooledVaultClient::getSaturatedCount);
+        vaultCounter(client, desc, "rejected",  SkPooledVaultClient::getRejectedCount);
+        vaultCounter(client, desc, "timeout",   SkPooledVaultClient::getTimeoutCount);
+        vaultCounter(client, desc, "failure",   SkPooledVaultClient::getFailureCount);
+        _boundVaultClient = client;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* bindVaultManager:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Publish the remaining lifetime of SK's vault token and the counts of 
+     * token renewals and re-logins.  The lifetime is -1 if there's no token or
+     * it never expires.  Only the first manager is published.
+     *
+     * @param manager the vault manager
+     */
+    public static synchronized void bindVaultManager(VaultManager manager)
+    {
+        if (!_enabled || _boundVaultManager != null || manager == null) return;
+
+        Gauge.builder(VAULT_TOKEN_TTL, manager, VaultManager::getTokenTtlRemainingSeconds)
+             .description("Seconds before the SK vault token expires")
+             .baseUnit("seconds")
+             .register(_registry);
+
+        String desc = "SK vault token events";
+        tokenCounter(manager, desc, "renewal",         VaultManager::getRenewalCount);
+        tokenCounter(manager, desc, "relogin",         VaultManager::getReloginCount);
+        tokenCounter(manager, desc, "relogin_failure", VaultManager::getReloginFailureCount);
+        _boundVaultManager = manager;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* bindBulkhead:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Publish a request bulkhead's gauges and event counts, tagged with the
+     * bulkhead's name.  Only the first bulkhead with each name is published.
+     *
+     * @param name the bulkhead name
+     * @param bulkhead the bulkhead
+     * @param gauges functions that read the current request counts by state
+     * @param counters functions that read the cumulative counts by event
+     */
+    public static synchronized <T> void bindBulkhead(String name, T bulkhead,
+                                                     Map<String,ToDoubleFunction<T>> gauges,
+                                                     Map<String,ToDoubleFunction<T>> counters)
+    {
+        if (!_enabled || bulkhead == null || !_boundBulkheads.add(name)) return;
+
+        for (var gauge : gauges.entrySet())
+            Gauge.builder(BULKHEAD_REQUESTS, bulkhead, gauge.getValue())
+                 .description("Bulkhead requests")
+                 .tag("bulkhead", name)
+                 .tag("state", gauge.getKey())
+                 .register(_registry);
+        for (var counter : counters.entrySet())
+            FunctionCounter.builder(BULKHEAD_EVENTS, bulkhead, counter.getValue())
+                           .description("Bulkhead request events")
+                           .tag("bulkhead", name)
+                           .tag("event", counter.getKey())
+                           .register(_registry);
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* poolGauge:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Publish a pool gauge that's NaN until the pool starts. */
+    private static void poolGauge(HikariDataSource hikari, String state,
+                                  ToDoubleFunction<HikariPoolMXBean> f)
+    {
+        Gauge.builder(DB_POOL_CONNECTIONS, hikari, ds -> {
+                 HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+                 return pool == null ? Double.NaN : f.applyAsDouble(pool);
+             })
+             .description("Database connection pool connections")
+             .tag("state", state)
+             .register(_registry);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* vaultCounter:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private static void vaultCounter(SkPooledVaultClient client, String desc, String event,
+                                     ToDoubleFunction<SkPooledVaultClient> f)
+    {
+        FunctionCounter.builder(VAULT_POOL_EVENTS, client, f)
+                       .description(desc)
+                       .tag("event", event)
+                       .register(_registry);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* tokenCounter:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private static void tokenCounter(VaultManager manager, String desc, String event,
+                                     ToDoubleFunction<VaultManager> f)
+    {
+        FunctionCounter.builder(VAULT_TOKEN_EVENTS, manager, f)
+                       .description(desc)
+                       .tag("event", event)
+                       .register(_registry);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* millis:                                                                */
+    /* ---------------------------------------------------------------------- */
+    private static Duration[] millis(double... millis)
+    {
+        var durations = new Duration[millis.length];
+        for (int i = 0; i < millis.length; i++)
+            durations[i] = Duration.ofNanos((long) (millis[i] * 1000000));
+        return durations;
+    }
+}
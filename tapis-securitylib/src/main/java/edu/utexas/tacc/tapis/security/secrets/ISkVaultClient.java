@@ -0,0 +1,37 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.Map;
+
+import com.bettercloud.vault.VaultException;
+import com.bettercloud.vault.rest.RestResponse;
+
+/** The vault operations used by VaultImpl on the KV version 2 secrets engine.
+ * Paths are logical secret paths that begin with the engine's mount point; 
+ * implementations insert the data, metadata, delete, undelete or destroy 
+ * qualifier as required.  Vault's response is always returned, including 
+ * error responses, so callers can examine the status code and body.
+ */
+public interface ISkVaultClient 
+{
+    /** Read a secret version, 0 for latest. */
+    RestResponse read(String path, int version) throws VaultException;
+    
+    /** Write a new version of a secret. */
+    RestResponse write(String path, Map<String,Object> secretMap) throws VaultException;
+    
+    /** Soft delete secret versions. */
+    RestResponse delete(String path, int[] versions) throws VaultException;
+    
+    /** Reverse the soft deletion of secret versions. */
+    RestResponse unDelete(String path, int[] versions) throws VaultException;
+    
+    /** Permanently destroy secret versions. */
+    RestResponse destroy(String path, int[] versions) throws VaultException;
+    
+    /** Read a secret's metadata or, if the path ends with a slash, list the
+     * keys under it. */
+    RestResponse list(String path) throws VaultException;
+    
+    /** Delete a secret's metadata and all its versions. */
+    RestResponse deleteMetadata(String path) throws VaultException;
+}
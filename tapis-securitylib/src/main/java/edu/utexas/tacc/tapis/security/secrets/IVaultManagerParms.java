@@ -18,4 +18,9 @@ public interface IVaultManagerParms
     public String  getVaultSkKeyPemFile();
     public int     getVaultRenewSeconds();
     public int     getVaultRenewThreshold();
+    
+    // Pooled client settings default to the driver's per-call connections.
+    public default boolean isVaultClientPooled() {return false;}
+    public default int     getVaultClientMaxConcurrent() {return 32;}
+    public default boolean isVaultClientHttp2() {return false;}
 }
@@ -0,0 +1,174 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Collect one page of the flattened, lexicographically ordered key set of a
+ * vault subtree while the subtree is being listed concurrently.
+ *
+ * A page contains the keys that sort after the cursor, which is the opaque
+ * encoding of the last key of the previous page.  Only the smallest limit+1
+ * keys offered are retained, so memory is bounded by the page size no matter
+ * how large the subtree is.  The extra key reveals whether another page exists.
+ *
+ * Keys are relative to the subtree root and directories end with a slash.
+ * Every key under a directory starts with the directory's key, which allows
+ * whole directories to be skipped without listing them when their keys would
+ * all sort before the cursor or after the largest key retained in a full page.
+ *
+ * This class is thread-safe.
+ */
+public final class SecretListPager
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SecretListPager.class);
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Page definition.
+    private final int    _limit;
+    private final String _after;
+
+    // The smallest keys offered, at most limit+1.
+    private final TreeSet<String> _keys = new TreeSet<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Create a pager for the page that follows the cursor.
+     *
+     * @param limit the maximum number of keys in the page
+     * @param cursor the previous page's cursor or null for the first page
+     * @throws TapisImplException on an invalid limit or cursor
+     */
+    public SecretListPager(int limit, String cursor)
+     throws TapisImplException
+    {
+        if (limit < 1) {
+            String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "SecretListPager",
+                                         "limit", limit);
+            _log.error(msg);
+            throw new TapisImplException(msg, Condition.BAD_REQUEST);
+        }
+        _limit = limit;
+        _after = decodeCursor(cursor);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* offer:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Add a key to the page if it belongs there.
+     *
+     * @param key a key relative to the subtree root
+     */
+    public void offer(String key)
+    {
+        if (_after != null && key.compareTo(_after) <= 0) return;
+        synchronized (_keys) {
+            if (_keys.size() > _limit) {
+                if (key.compareTo(_keys.last()) >= 0) return;
+                _keys.pollLast();
+            }
+            _keys.add(key);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* canSkipDirectory:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether none of a directory's descendants can be in the page.
+     *
+     * @param dirKey a directory key relative to the subtree root
+     * @return true if the directory need not be listed
+     */
+    public boolean canSkipDirectory(String dirKey)
+    {
+        // All descendants sort before the cursor if the directory does and
+        // the cursor is not itself one of its descendants.
+        if (_after != null && dirKey.compareTo(_after) < 0 && !_after.startsWith(dirKey))
+            return true;
+
+        // All descendants sort after a full page.
+        synchronized (_keys) {
+            return _keys.size() > _limit && dirKey.compareTo(_keys.last()) > 0;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getKeys:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Return the page's keys in order. */
+    public List<String> getKeys()
+    {
+        var list = new ArrayList<String>(_limit);
+        synchronized (_keys) {
+            for (String key : _keys) {
+                if (list.size() == _limit) break;
+                list.add(key);
+            }
+        }
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getNextCursor:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Return the cursor of the next page or null if this is the last page. */
+    public String getNextCursor()
+    {
+        synchronized (_keys) {
+            if (_keys.size() <= _limit) return null;
+            return encodeCursor(_keys.lower(_keys.last()));
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* encodeCursor:                                                          */
+    /* ---------------------------------------------------------------------- */
+    public static String encodeCursor(String key)
+    {
+        return Base64.getUrlEncoder().withoutPadding().
+                 encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* decodeCursor:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Return the key encoded in a cursor or null if there is no cursor.
+     *
+     * @throws TapisImplException if the cursor is malformed
+     */
+    public static String decodeCursor(String cursor)
+     throws TapisImplException
+    {
+        if (StringUtils.isBlank(cursor)) return null;
+        try {return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "SecretListPager",
+                                             "cursor", cursor);
+                _log.error(msg);
+                throw new TapisImplException(msg, Condition.BAD_REQUEST);
+            }
+    }
+}
@@ -151,6 +151,45 @@ public final class SecretPathMapper
         return secretPath;
     } 
     
+    /* ---------------------------------------------------------------------- */
+    /* getSystemSubtreePath:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Construct the vault directory that contains all the secrets of a system
+     * or, if the system user is set, all of that user's secrets on the system.
+     * The directory path ends with a slash.
+     * 
+     * <pre>
+     *  /tapis/tenant/<tenantId>/system/<systemId>/
+     *  /tapis/tenant/<tenantId>/system/<systemId>/user/<user>/
+     * </pre>
+     * 
+     * Each path component must be a single, non-relative name so that the 
+     * directory can never escape the system's subtree.
+     * 
+     * @param tenant the request tenant
+     * @return the Vault secret engine directory path
+     * @throws TapisImplException missing or invalid parameters
+     */
+    public String getSystemSubtreePath(String tenant)
+     throws TapisImplException
+    {
+        // Only system secrets are organized by subtree.
+        if (_parms.secretType != SecretType.System) {
+            String msg = MsgUtils.getMsg("SK_VAULT_INVALID_SECRET_TYPE", 
+                                         _parms.secretType.name(), "[" + SecretType.System.name() + "]");
+            _log.error(msg);
+            throw new TapisImplException(msg, Condition.BAD_REQUEST);
+        }
+        
+        // Validate each path component.
+        checkPathComponent(tenant, "tenant");
+        checkPathComponent(_parms.getSysId(), "sysId");
+        String path = "secret/tapis/tenant/" + tenant + "/system/" + _parms.getSysId() + "/";
+        if (StringUtils.isBlank(_parms.getSysUser())) return path;
+        checkPathComponent(_parms.getSysUser(), "sysUser");
+        return path + "user/" + _parms.getSysUser() + "/";
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getUserPath:                                                           */
     /* ---------------------------------------------------------------------- */
@@ -284,6 +323,25 @@ public final class SecretPathMapper
         }
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* checkPathComponent:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Reject blank, multi-segment and relative path components. */
+    private void checkPathComponent(String value, String name)
+     throws TapisImplException
+    {
+        if (StringUtils.isBlank(value)) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "getSystemSubtreePath", name);
+            _log.error(msg);
+            throw new TapisImplException(msg, Condition.BAD_REQUEST);
+        }
+        if (value.contains("/") || value.equals(".") || value.equals("..")) {
+            String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "getSystemSubtreePath", name, value);
+            _log.error(msg);
+            throw new TapisImplException(msg, Condition.BAD_REQUEST);
+        }
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getJWTSigningPath:                                                     */
     /* ---------------------------------------------------------------------- */
@@ -0,0 +1,64 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.Map;
+
+import com.bettercloud.vault.VaultException;
+import com.bettercloud.vault.api.Logical;
+import com.bettercloud.vault.rest.RestResponse;
+
+/** Issue vault calls using the vault driver's logical api.  Each call uses 
+ * the driver's per-request connection handling.
+ */
+public final class SkDriverVaultClient
+ implements ISkVaultClient
+{
+    // The manager that owns the driver.
+    private final VaultManager _vaultManager;
+    
+    public SkDriverVaultClient(VaultManager vaultManager) {_vaultManager = vaultManager;}
+
+    @Override
+    public RestResponse read(String path, int version) throws VaultException 
+    {
+        return logical().read(path, Boolean.TRUE, version).getRestResponse();
+    }
+
+    @Override
+    public RestResponse write(String path, Map<String,Object> secretMap) throws VaultException 
+    {
+        return logical().write(path, secretMap).getRestResponse();
+    }
+
+    @Override
+    public RestResponse delete(String path, int[] versions) throws VaultException 
+    {
+        return logical().delete(path, versions).getRestResponse();
+    }
+
+    @Override
+    public RestResponse unDelete(String path, int[] versions) throws VaultException 
+    {
+        return logical().unDelete(path, versions).getRestResponse();
+    }
+
+    @Override
+    public RestResponse destroy(String path, int[] versions) throws VaultException 
+    {
+        return logical().destroy(path, versions).getRestResponse();
+    }
+
+    @Override
+    public RestResponse list(String path) throws VaultException 
+    {
+        return logical().list(path).getRestResponse();
+    }
+
+    @Override
+    public RestResponse deleteMetadata(String path) throws VaultException 
+    {
+        return logical().delete(path).getRestResponse();
+    }
+    
+    // Get the current driver on each call.
+    private Logical logical() {return _vaultManager.getVault().logical();}
+}
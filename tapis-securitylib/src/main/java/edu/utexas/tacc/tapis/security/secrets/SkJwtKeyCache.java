@@ -0,0 +1,229 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkJwtPublicKey;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+
+/** Serve the public keys of JWT signing secrets from memory.  Public keys are
+ * needed every time a Tapis token is verified, so they are requested far more
+ * often than they change.
+ *
+ * Entries are keyed by the signing secret's resolved vault path and hold the
+ * public key along with the vault version it came from.  Once an entry is
+ * older than the check interval, the secret's metadata is read from vault and
+ * the key is reread only if the current version has changed.  The metadata
+ * read is much cheaper than reading the key and never returns secret data.
+ * Only one thread per secret checks vault at a time.  The others continue
+ * to use the current entry, so a slow vault never holds up key requests once
+ * a key has been loaded.  A failed check also leaves the entry in use so that
+ * tokens can still be verified during vault outages.
+ *
+ * Private keys are never cached.  VaultImpl invalidates a path whenever it
+ * changes the secret; changes made through other SK instances are detected
+ * on the next version check.
+ */
+public final class SkJwtKeyCache
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SkJwtKeyCache.class);
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance of this class.
+    private static volatile SkJwtKeyCache _instance;
+
+    // Configuration.
+    private final boolean _enabled;
+    private final long    _checkIntervalMillis;
+
+    // Public keys by signing secret path.
+    private final ConcurrentHashMap<String,Entry> _entries = new ConcurrentHashMap<>();
+
+    // Incremented on every invalidation.
+    private final AtomicLong _generation = new AtomicLong();
+
+    // Metrics.
+    private final AtomicLong _hits          = new AtomicLong();
+    private final AtomicLong _versionChecks = new AtomicLong();
+    private final AtomicLong _loads         = new AtomicLong();
+    private final AtomicLong _checkFailures = new AtomicLong();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public SkJwtKeyCache(boolean enabled, int checkIntervalSeconds)
+    {
+        _enabled = enabled;
+        _checkIntervalMillis = checkIntervalSeconds * 1000L;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static SkJwtKeyCache getInstance()
+    {
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (SkJwtKeyCache.class) {
+                if (_instance == null) {
+                    // Utilities that run without the service's configuration
+                    // always read keys from vault.
+                    var parms = SkRuntimeParms.getInstanceOrNull("the JWT key cache");
+                    if (parms == null) _instance = new SkJwtKeyCache(false, 0);
+                    else _instance = new SkJwtKeyCache(parms.isJwtKeyCacheEnabled(),
+                                                       parms.getJwtKeyCacheCheckSeconds());
+                }
+            }
+        }
+        return _instance;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* get:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Return the current public key of a signing secret.
+     *
+     * @param secretPath the resolved vault path of the signing secret
+     * @param loader reads the secret's current version and public key
+     * @return the public key
+     * @throws TapisImplException if the key cannot be read
+     */
+    public SkJwtPublicKey get(String secretPath, KeyLoader loader)
+     throws TapisImplException
+    {
+        // Always go to vault when disabled.
+        if (!_enabled) return loader.load();
+
+        // Use a recently checked entry.
+        var entry = _entries.computeIfAbsent(secretPath, k -> new Entry());
+        SkJwtPublicKey key = entry.key;
+        if (key != null && !isCheckDue(entry)) {
+            _hits.incrementAndGet();
+            return key;
+        }
+
+        // Only one thread checks vault.  Other threads use the current
+        // key if there is one and otherwise wait for it to be loaded.
+        if (key == null) entry.lock.lock();
+          else if (!entry.lock.tryLock()) {
+              _hits.incrementAndGet();
+              return key;
+          }
+        try {
+            // Another thread may have refreshed the entry while we waited.
+            key = entry.key;
+            if (key != null && !isCheckDue(entry)) {
+                _hits.incrementAndGet();
+                return key;
+            }
+
+            // Keep the key if its version is still current.
+            long generation = _generation.get();
+            long now = System.currentTimeMillis();
+            if (key != null) {
+                _versionChecks.incrementAndGet();
+                int currentVersion;
+                try {currentVersion = loader.getCurrentVersion();}
+                    catch (Exception e) {
+                        _checkFailures.incrementAndGet();
+                        _log.warn("Unable to check the version of JWT signing secret " +
+                                  secretPath + ", using version " + key.version + ": " +
+                                  e.getMessage());
+                        return key;
+                    }
+                if (currentVersion == key.version) {
+                    entry.checkedAt = now;
+                    return key;
+                }
+            }
+
+            // Read the latest key.  Don't cache a key that may have been
+            // overwritten during the read.
+            _loads.incrementAndGet();
+            try {key = loader.load();}
+                catch (Exception e) {
+                    // Don't retain entries for secrets that can't be read.
+                    if (entry.key == null) _entries.remove(secretPath, entry);
+                    throw e;
+                }
+            if (_generation.get() == generation) {
+                entry.key = key;
+                entry.checkedAt = now;
+            }
+            return key;
+        }
+        finally {entry.lock.unlock();}
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* invalidate:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Discard the entry for a path after any vault operation that may have
+     * changed it.
+     *
+     * @param secretPath the resolved vault path
+     */
+    public void invalidate(String secretPath)
+    {
+        if (!_enabled) return;
+        _generation.incrementAndGet();
+        _entries.remove(secretPath);
+    }
+
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public boolean isEnabled() {return _enabled;}
+    public int getSize() {return _entries.size();}
+    public long getHitCount() {return _hits.get();}
+    public long getVersionCheckCount() {return _versionChecks.get();}
+    public long getLoadCount() {return _loads.get();}
+    public long getCheckFailureCount() {return _checkFailures.get();}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* isCheckDue:                                                            */
+    /* ---------------------------------------------------------------------- */
+    private boolean isCheckDue(Entry entry)
+    {
+        return System.currentTimeMillis() - entry.checkedAt >= _checkIntervalMillis;
+    }
+
+    /* ********************************************************************** */
+    /*                              Nested Classes                            */
+    /* ********************************************************************** */
+    /** Reads a signing secret from vault. */
+    public interface KeyLoader
+    {
+        /** Return the secret's current version, which is 0 if it doesn't exist. */
+        int getCurrentVersion() throws TapisImplException;
+
+        /** Return the public key of the secret's latest version. */
+        SkJwtPublicKey load() throws TapisImplException;
+    }
+
+    private static final class Entry
+    {
+        private final ReentrantLock     lock = new ReentrantLock();
+        private volatile SkJwtPublicKey key;
+        private volatile long           checkedAt;
+    }
+}
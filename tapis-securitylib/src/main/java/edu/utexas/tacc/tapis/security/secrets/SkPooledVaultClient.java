@@ -0,0 +1,302 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.bettercloud.vault.VaultException;
+import com.bettercloud.vault.rest.RestResponse;
+import com.google.gson.JsonObject;
+
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+
+/** Issue vault KV version 2 calls over a shared java.net.http client.  The
+ * client keeps connections alive and reuses them across calls, avoiding the
+ * connection and TLS setup that otherwise dominates latency under bursty
+ * traffic.  HTTP/2 can be enabled to multiplex calls over fewer connections.
+ *
+ * The number of calls in flight is bounded, which also bounds the number of
+ * HTTP/1.1 connections the pool opens.  Each call has a deadline that covers
+ * both waiting for a permit and the HTTP exchange; calls that cannot start
+ * before their deadline fail without contacting vault.
+ *
+ * The vault token is obtained from the supplier on every call so token
+ * renewal and replacement take effect immediately.
+ */
+public final class SkPooledVaultClient
+ implements ISkVaultClient
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Vault api values.
+    private static final String API_PREFIX   = "/v1/";
+    private static final String TOKEN_HEADER = "X-Vault-Token";
+    private static final String JSON_TYPE    = "application/json";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Configuration.
+    private final String           _address;
+    private final Supplier<String> _tokenSupplier;
+    private final long             _callTimeoutNanos;
+    private final int              _maxConcurrent;
+
+    // The shared client and its concurrency limit.
+    private final HttpClient _httpClient;
+    private final Semaphore  _permits;
+
+    // Metrics.
+    private final AtomicInteger _inFlight    = new AtomicInteger();
+    private volatile int        _maxInFlight;
+    private final AtomicLong    _calls       = new AtomicLong();
+    private final AtomicLong    _saturated   = new AtomicLong();
+    private final AtomicLong    _rejected    = new AtomicLong();
+    private final AtomicLong    _timeouts    = new AtomicLong();
+    private final AtomicLong    _failures    = new AtomicLong();
+    private final AtomicLong    _waitNanos   = new AtomicLong();
+    private final AtomicLong    _callNanos   = new AtomicLong();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Create a client.
+     *
+     * @param address the vault server address, such as http://vault:8200
+     * @param tokenSupplier provides the current vault token
+     * @param maxConcurrent the maximum number of calls in flight
+     * @param http2 true to prefer HTTP/2
+     * @param sslVerify false to accept any server certificate
+     * @param openTimeoutMillis the connection timeout
+     * @param callTimeoutMillis the deadline for each call
+     * @throws VaultException if the ssl context cannot be created
+     */
+    public SkPooledVaultClient(String address, Supplier<String> tokenSupplier,
+                               int maxConcurrent, boolean http2, boolean sslVerify,
+                               long openTimeoutMillis, long callTimeoutMillis)
+     throws VaultException
+    {
+        _address          = StringUtils.removeEnd(address, "/");
+        _tokenSupplier    = tokenSupplier;
+        _maxConcurrent    = maxConcurrent;
+        _callTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(callTimeoutMillis);
+        _permits          = new Semaphore(maxConcurrent, true);
+
+        // Build the shared client.
+        var builder = HttpClient.newBuilder().
+                        version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1).
+                        connectTimeout(Duration.ofMillis(openTimeoutMillis)).
+                        followRedirects(HttpClient.Redirect.NEVER);
+        if (!sslVerify) builder.sslContext(getTrustAllContext());
+        _httpClient = builder.build();
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    @Override
+    public RestResponse read(String path, int version) throws VaultException
+    {
+        String query = version > 0 ? "?version=" + version : "";
+        return send("GET", qualify(path, "data") + query, null);
+    }
+
+    @Override
+    public RestResponse write(String path, Map<String,Object> secretMap) throws VaultException
+    {
+        var body = new JsonObject();
+        body.add("data", TapisGsonUtils.getGson().toJsonTree(secretMap));
+        return send("POST", qualify(path, "data"), body.toString());
+    }
+
+    @Override
+    public RestResponse delete(String path, int[] versions) throws VaultException
+    {
+        return send("POST", qualify(path, "delete"), versionsBody(versions));
+    }
+
+    @Override
+    public RestResponse unDelete(String path, int[] versions) throws VaultException
+    {
+        return send("POST", qualify(path, "undelete"), versionsBody(versions));
+    }
+
+    @Override
+    public RestResponse destroy(String path, int[] versions) throws VaultException
+    {
+        return send("POST", qualify(path, "destroy"), versionsBody(versions));
+    }
+
+    @Override
+    public RestResponse list(String path) throws VaultException
+    {
+        String query = path.endsWith("/") ? "?list=true" : "";
+        return send("GET", qualify(path, "metadata") + query, null);
+    }
+
+    @Override
+    public RestResponse deleteMetadata(String path) throws VaultException
+    {
+        return send("DELETE", qualify(path, "metadata"), null);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getStatistics:                                                         */
+    /* ---------------------------------------------------------------------- */
+    public String getStatistics()
+    {
+        long calls = getCallCount();
+        return String.format("maxConcurrent=%d inFlight=%d maxInFlight=%d calls=%d saturated=%d "
+                             + "rejected=%d timeouts=%d failures=%d avgWaitMs=%.2f avgCallMs=%.2f",
+                             _maxConcurrent, getInFlight(), getMaxInFlight(), calls,
+                             getSaturatedCount(), getRejectedCount(), getTimeoutCount(),
+                             getFailureCount(),
+                             calls == 0 ? 0.0 : _waitNanos.get() / (calls * 1000000.0),
+                             calls == 0 ? 0.0 : _callNanos.get() / (calls * 1000000.0));
+    }
+
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public int getMaxConcurrent() {return _maxConcurrent;}
+    public int getInFlight() {return _inFlight.get();}
+    public int getMaxInFlight() {return _maxInFlight;}
+    public long getCallCount() {return _calls.get();}
+    public long getSaturatedCount() {return _saturated.get();}
+    public long getRejectedCount() {return _rejected.get();}
+    public long getTimeoutCount() {return _timeouts.get();}
+    public long getFailureCount() {return _failures.get();}
+
+    /** The fraction of permits currently in use. */
+    public double getSaturation() {return (double) getInFlight() / _maxConcurrent;}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* send:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    private RestResponse send(String method, String path, String jsonBody)
+     throws VaultException
+    {
+        // Wait for a permit without exceeding the deadline.
+        long start = System.nanoTime();
+        long deadline = start + _callTimeoutNanos;
+        try {
+            if (!_permits.tryAcquire()) {
+                _saturated.incrementAndGet();
+                if (!_permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    _rejected.incrementAndGet();
+                    throw new VaultException("Vault client saturated: no connection available within " +
+                                             TimeUnit.NANOSECONDS.toMillis(_callTimeoutNanos) +
+                                             " ms for " + method + " " + path);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VaultException(e);
+        }
+
+        // Issue the call with the remaining time.
+        int inFlight = _inFlight.incrementAndGet();
+        if (inFlight > _maxInFlight) _maxInFlight = inFlight;
+        long sendStart = System.nanoTime();
+        _waitNanos.addAndGet(sendStart - start);
+        try {
+            var publisher = jsonBody == null ? HttpRequest.BodyPublishers.noBody() :
+                                               HttpRequest.BodyPublishers.ofString(jsonBody);
+            var request = HttpRequest.newBuilder(URI.create(_address + API_PREFIX + path)).
+                            timeout(Duration.ofNanos(Math.max(1, deadline - sendStart))).
+                            header(TOKEN_HEADER, StringUtils.defaultString(_tokenSupplier.get())).
+                            header("Content-Type", JSON_TYPE).
+                            method(method, publisher).
+                            build();
+            var response = _httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            String mimeType = response.headers().firstValue("Content-Type").orElse(null);
+            return new RestResponse(response.statusCode(), mimeType, response.body());
+        }
+        catch (HttpTimeoutException e) {
+            _timeouts.incrementAndGet();
+            throw new VaultException(e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            _failures.incrementAndGet();
+            throw new VaultException(e);
+        }
+        catch (Exception e) {
+            _failures.incrementAndGet();
+            throw new VaultException(e);
+        }
+        finally {
+            _inFlight.decrementAndGet();
+            _permits.release();
+            _calls.incrementAndGet();
+            _callNanos.addAndGet(System.nanoTime() - sendStart);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* qualify:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Insert the KV version 2 qualifier after the mount point, so that
+     * secret/tapis/x becomes secret/data/tapis/x.
+     */
+    private static String qualify(String path, String qualifier)
+    {
+        int slash = path.indexOf('/');
+        if (slash < 0) return path + "/" + qualifier;
+        return path.substring(0, slash) + "/" + qualifier + path.substring(slash);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* versionsBody:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private static String versionsBody(int[] versions)
+    {
+        var body = new JsonObject();
+        body.add("versions", TapisGsonUtils.getGson().toJsonTree(versions));
+        return body.toString();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getTrustAllContext:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Match the driver's behavior when certificate verification is off. */
+    private static SSLContext getTrustAllContext() throws VaultException
+    {
+        var trustAll = new X509TrustManager() {
+            @Override public void checkClientTrusted(X509Certificate[] chain, String authType) {}
+            @Override public void checkServerTrusted(X509Certificate[] chain, String authType) {}
+            @Override public X509Certificate[] getAcceptedIssuers() {return new X509Certificate[0];}
+        };
+        try {
+            var context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[] {trustAll}, new SecureRandom());
+            return context;
+        } catch (Exception e) {
+            throw new VaultException(e);
+        }
+    }
+}
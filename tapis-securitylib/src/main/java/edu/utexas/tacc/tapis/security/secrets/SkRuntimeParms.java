@@ -0,0 +1,50 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
+
+/** Access to the service's runtime parameters from code that also runs
+ * outside the service.  SkAdmin and other utilities use VaultImpl without
+ * the database environment that RuntimeParameters requires, so the secret
+ * caches fall back to their disabled configurations when the parameters
+ * cannot be loaded.
+ */
+final class SkRuntimeParms
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SkRuntimeParms.class);
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private SkRuntimeParms() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstanceOrNull:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Get the runtime parameters or null if they cannot be loaded in this
+     * process.  RuntimeParameters is initialized when its class is loaded,
+     * so a failure surfaces as a linkage error on first and later access.
+     *
+     * @param user the component that requested the parameters, for logging
+     * @return the parameters or null
+     */
+    static RuntimeParameters getInstanceOrNull(String user)
+    {
+        try {return RuntimeParameters.getInstance();}
+        catch (TapisRuntimeException | LinkageError e) {
+            _log.warn("Runtime parameters unavailable, " + user + " is disabled: "
+                      + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkSecret;
+import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+
+/** A short-lived, read-through cache of secrets read from vault.  Entries are
+ * keyed by the fully resolved vault path and the requested version, where
+ * version 0 means the latest version.
+ *
+ * Secret values are never held in plaintext by the cache.  Each entry is
+ * serialized, encrypted with AES-GCM under a key generated when the cache is
+ * created and never persisted, and copied to direct (off-heap) memory.  The
+ * entry's key is bound to the ciphertext as associated data.  The memory is
+ * overwritten with zeros when the entry is evicted, expired or invalidated.
+ * Callers receive a newly decrypted SkSecret on every hit.
+ *
+ * VaultImpl invalidates a path after every operation that changes it.  Reads
+ * race with invalidations, so callers capture the generation before reading
+ * from vault and the put is discarded if an invalidation happened in the
+ * meantime.  Changes made through other SK instances are only seen when
+ * entries expire, so the ttl should be kept short.
+ */
+public final class SkSecretCache
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SkSecretCache.class);
+
+    // Encryption parameters.
+    private static final String KEY_ALGORITHM    = "AES";
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int    KEY_BITS = 256;
+    private static final int    IV_BYTES = 12;
+    private static final int    TAG_BITS = 128;
+
+    // Background maintenance.
+    private static final String SWEEPER_THREAD_NAME = "SkSecretCacheSweeper";
+    private static final long   MAX_SWEEP_SECONDS   = 60;
+    private static final long   STATS_LOG_MILLIS    = 5 * 60 * 1000;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance of this class.
+    private static volatile SkSecretCache _instance;
+
+    // Configuration.
+    private final boolean _enabled;
+    private final long    _ttlMillis;
+    private final int     _maxEntries;
+
+    // Per-process encryption key.
+    private final SecretKey    _key;
+    private final SecureRandom _random = new SecureRandom();
+
+    // Cached entries by secret path and version.
+    private final ConcurrentHashMap<String,ConcurrentHashMap<Integer,Entry>> _paths =
+        new ConcurrentHashMap<>();
+    private final AtomicInteger _size = new AtomicInteger();
+
+    // Incremented on every invalidation.
+    private final AtomicLong _generation = new AtomicLong();
+
+    // Expires entries and logs statistics when enabled.
+    private final ScheduledExecutorService _sweeper;
+    private volatile long _lastStatsLogMillis = System.currentTimeMillis();
+
+    // Cache metrics.
+    private final AtomicLong _hits          = new AtomicLong();
+    private final AtomicLong _misses        = new AtomicLong();
+    private final AtomicLong _puts          = new AtomicLong();
+    private final AtomicLong _rejects       = new AtomicLong();
+    private final AtomicLong _evictions     = new AtomicLong();
+    private final AtomicLong _invalidations = new AtomicLong();
+
+    // Vault read metrics, recorded whether or not caching is enabled.
+    private final AtomicLong _vaultReads     = new AtomicLong();
+    private final AtomicLong _vaultReadNanos = new AtomicLong();
+    private volatile long    _vaultReadMaxNanos;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public SkSecretCache(boolean enabled, int ttlSeconds, int maxEntries)
+    {
+        _enabled    = enabled;
+        _ttlMillis  = ttlSeconds * 1000L;
+        _maxEntries = maxEntries;
+
+        // Nothing else to do when disabled.
+        if (!enabled) {
+            _key = null;
+            _sweeper = null;
+            return;
+        }
+
+        // Generate the key that protects all cached secrets.
+        try {
+            var keyGen = KeyGenerator.getInstance(KEY_ALGORITHM);
+            keyGen.init(KEY_BITS, _random);
+            _key = keyGen.generateKey();
+        }
+        catch (Exception e) {
+            String msg = "Unable to generate secret cache key: " + e.getMessage();
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+        }
+
+        // Periodically discard expired entries so that they don't linger.
+        _sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, SWEEPER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.min(ttlSeconds, MAX_SWEEP_SECONDS);
+        _sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.SECONDS);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static SkSecretCache getInstance()
+    {
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (SkSecretCache.class) {
+                if (_instance == null) {
+                    // Utilities that run without the service's configuration
+                    // get a disabled cache.
+                    var parms = SkRuntimeParms.getInstanceOrNull("the secret cache");
+                    if (parms == null) _instance = new SkSecretCache(false, 0, 0);
+                    else _instance = new SkSecretCache(parms.isSecretCacheEnabled(),
+                                                       parms.getSecretCacheTtlSeconds(),
+                                                       parms.getSecretCacheMaxEntries());
+                }
+            }
+        }
+        return _instance;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getGeneration:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Capture the generation before reading a secret from vault. */
+    public long getGeneration() {return _generation.get();}
+
+    /* ---------------------------------------------------------------------- */
+    /* get:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Return a decrypted copy of the cached secret or null.
+     *
+     * @param secretPath the resolved vault path
+     * @param version the requested version, 0 for latest
+     * @return the secret or null
+     */
+    public SkSecret get(String secretPath, int version)
+    {
+        if (!_enabled) return null;
+
+        // Look up an unexpired entry.
+        var versions = _paths.get(secretPath);
+        var entry = versions == null ? null : versions.get(version);
+        if (entry != null && entry.expiresAt < System.currentTimeMillis()) {
+            remove(secretPath, version, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            _misses.incrementAndGet();
+            return null;
+        }
+
+        // Decryption fails if the entry was zeroized after we found it.
+        SkSecret secret = decrypt(secretPath, version, entry);
+        if (secret == null) _misses.incrementAndGet();
+          else _hits.incrementAndGet();
+        return secret;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* put:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Cache a secret read from vault unless the path was invalidated after
+     * the generation was captured.
+     *
+     * @param secretPath the resolved vault path
+     * @param version the requested version, 0 for latest
+     * @param secret the secret read from vault
+     * @param generation the generation captured before the vault read
+     */
+    public void put(String secretPath, int version, SkSecret secret, long generation)
+    {
+        if (!_enabled || secret == null || _generation.get() != generation) return;
+
+        // Make room if necessary.
+        if (_size.get() >= _maxEntries) {
+            sweep();
+            if (_size.get() >= _maxEntries) {_rejects.incrementAndGet(); return;}
+        }
+
+        // Encrypt outside of any lock.
+        var entry = encrypt(secretPath, version, secret);
+        if (entry == null) return;
+
+        // Insert atomically with respect to invalidation of the path.
+        _paths.compute(secretPath, (k, versions) -> {
+            if (_generation.get() != generation) {entry.zeroize(); return versions;}
+            if (versions == null) versions = new ConcurrentHashMap<>();
+            var old = versions.put(version, entry);
+            if (old == null) _size.incrementAndGet();
+              else old.zeroize();
+            return versions;
+        });
+        _puts.incrementAndGet();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* invalidate:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Discard all cached versions of a secret.  Call this after any vault
+     * operation that may have changed the secret, whether or not it succeeded.
+     *
+     * @param secretPath the resolved vault path
+     */
+    public void invalidate(String secretPath)
+    {
+        if (!_enabled) return;
+        _generation.incrementAndGet();
+        _invalidations.incrementAndGet();
+        var versions = _paths.remove(secretPath);
+        if (versions != null) zeroize(versions);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* clear:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Discard all cached secrets. */
+    public void clear()
+    {
+        if (!_enabled) return;
+        _generation.incrementAndGet();
+        for (var path : _paths.keySet()) {
+            var versions = _paths.remove(path);
+            if (versions != null) zeroize(versions);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordVaultRead:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Record the elapsed time of a vault secret read. */
+    public void recordVaultRead(long elapsedNanos)
+    {
+        _vaultReads.incrementAndGet();
+        _vaultReadNanos.addAndGet(elapsedNanos);
+        if (elapsedNanos > _vaultReadMaxNanos) _vaultReadMaxNanos = elapsedNanos;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getHitRate:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** The fraction of lookups served from the cache. */
+    public double getHitRate()
+    {
+        long hits = _hits.get();
+        long total = hits + _misses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getVaultReadAvgMillis:                                                 */
+    /* ---------------------------------------------------------------------- */
+    public double getVaultReadAvgMillis()
+    {
+        long reads = _vaultReads.get();
+        return reads == 0 ? 0.0 : _vaultReadNanos.get() / (reads * 1000000.0);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getStatistics:                                                         */
+    /* ---------------------------------------------------------------------- */
+    public String getStatistics()
+    {
+        return String.format("entries=%d hits=%d misses=%d hitRate=%.3f puts=%d rejects=%d "
+                             + "evictions=%d invalidations=%d vaultReads=%d "
+                             + "vaultReadAvgMs=%.2f vaultReadMaxMs=%.2f",
+                             getSize(), getHitCount(), getMissCount(), getHitRate(),
+                             getPutCount(), getRejectCount(), getEvictionCount(),
+                             getInvalidationCount(), getVaultReadCount(),
+                             getVaultReadAvgMillis(), _vaultReadMaxNanos / 1000000.0);
+    }
+
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public boolean isEnabled() {return _enabled;}
+    public int getSize() {return _size.get();}
+    public long getHitCount() {return _hits.get();}
+    public long getMissCount() {return _misses.get();}
+    public long getPutCount() {return _puts.get();}
+    public long getRejectCount() {return _rejects.get();}
+    public long getEvictionCount() {return _evictions.get();}
+    public long getInvalidationCount() {return _invalidations.get();}
+    public long getVaultReadCount() {return _vaultReads.get();}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* encrypt:                                                               */
+    /* ---------------------------------------------------------------------- */
+    private Entry encrypt(String secretPath, int version, SkSecret secret)
+    {
+        byte[] plain = null;
+        byte[] cipherText = null;
+        try {
+            // Serialize and encrypt the secret.
+            plain = TapisGsonUtils.getGson().toJson(secret).getBytes(StandardCharsets.UTF_8);
+            byte[] iv = new byte[IV_BYTES];
+            _random.nextBytes(iv);
+            var cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, _key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(getAssociatedData(secretPath, version));
+            cipherText = cipher.doFinal(plain);
+
+            // Move the iv and ciphertext off heap.
+            var buf = ByteBuffer.allocateDirect(IV_BYTES + cipherText.length);
+            buf.put(iv);
+            buf.put(cipherText);
+            return new Entry(buf, System.currentTimeMillis() + _ttlMillis);
+        }
+        catch (Exception e) {
+            _log.error("Unable to cache secret " + secretPath + ": " + e.getMessage(), e);
+            return null;
+        }
+        finally {
+            if (plain != null) Arrays.fill(plain, (byte) 0);
+            if (cipherText != null) Arrays.fill(cipherText, (byte) 0);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* decrypt:                                                               */
+    /* ---------------------------------------------------------------------- */
+    private SkSecret decrypt(String secretPath, int version, Entry entry)
+    {
+        byte[] blob  = new byte[entry.data.capacity()];
+        byte[] plain = null;
+        try {
+            // Copy the entry on heap only for the duration of the decryption.
+            var dup = entry.data.duplicate();
+            dup.clear();
+            dup.get(blob);
+            var cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, _key, new GCMParameterSpec(TAG_BITS, blob, 0, IV_BYTES));
+            cipher.updateAAD(getAssociatedData(secretPath, version));
+            plain = cipher.doFinal(blob, IV_BYTES, blob.length - IV_BYTES);
+            return TapisGsonUtils.getGson().fromJson(new String(plain, StandardCharsets.UTF_8),
+                                                     SkSecret.class);
+        }
+        catch (Exception e) {
+            // Expected if the entry was zeroized concurrently.
+            if (_log.isDebugEnabled())
+                _log.debug("Unable to decrypt cached secret " + secretPath + ": " + e.getMessage());
+            return null;
+        }
+        finally {
+            Arrays.fill(blob, (byte) 0);
+            if (plain != null) Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getAssociatedData:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Bind each ciphertext to its cache key. */
+    private byte[] getAssociatedData(String secretPath, int version)
+    {
+        return (secretPath + "#" + version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* remove:                                                                */
+    /* ---------------------------------------------------------------------- */
+    private void remove(String secretPath, int version, Entry entry)
+    {
+        _paths.computeIfPresent(secretPath, (k, versions) -> {
+            if (versions.remove(version, entry)) {
+                entry.zeroize();
+                _size.decrementAndGet();
+                _evictions.incrementAndGet();
+            }
+            return versions.isEmpty() ? null : versions;
+        });
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* zeroize:                                                               */
+    /* ---------------------------------------------------------------------- */
+    private void zeroize(ConcurrentHashMap<Integer,Entry> versions)
+    {
+        for (var entry : versions.values()) {
+            entry.zeroize();
+            _size.decrementAndGet();
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* sweep:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Remove expired entries and periodically log statistics. */
+    private void sweep()
+    {
+        try {
+            long now = System.currentTimeMillis();
+            for (var pathEntry : _paths.entrySet())
+                for (var versionEntry : pathEntry.getValue().entrySet())
+                    if (versionEntry.getValue().expiresAt < now)
+                        remove(pathEntry.getKey(), versionEntry.getKey(), versionEntry.getValue());
+
+            // Report on a fixed schedule.
+            if (now - _lastStatsLogMillis >= STATS_LOG_MILLIS) {
+                _lastStatsLogMillis = now;
+                _log.info("Secret cache statistics: " + getStatistics());
+            }
+        }
+        catch (Exception e) {
+            _log.error("Secret cache sweep failed: " + e.getMessage(), e);
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                              Nested Classes                            */
+    /* ********************************************************************** */
+    private static final class Entry
+    {
+        private final ByteBuffer data;
+        private final long       expiresAt;
+
+        private Entry(ByteBuffer data, long expiresAt)
+        {
+            this.data = data;
+            this.expiresAt = expiresAt;
+        }
+
+        // Overwrite the off-heap copy.
+        private void zeroize()
+        {
+            for (int i = 0; i < data.capacity(); i++) data.put(i, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
+
+/** Validate service passwords without a vault round trip on every call.
+ *
+ * For each resolved service password path the cache keeps only an HMAC of
+ * the current password computed with a random key that exists only in this
+ * process, so the cache never holds a password and its contents are useless
+ * outside of it.  Candidate passwords are HMAC'd with the same key and
+ * compared in constant time.
+ *
+ * A cache miss or a mismatch always consults vault through the caller's
+ * loader, so a password that was just rotated is accepted immediately and
+ * a stale entry can never cause a valid password to be rejected.  Entries
+ * are refreshed in the background once they pass a fraction of their ttl,
+ * which keeps frequently used entries warm.  VaultImpl invalidates a path
+ * whenever it changes the secret; changes made through other SK instances
+ * are detected through the mismatch fallback or expiration.
+ */
+public final class SkServicePwdCache
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SkServicePwdCache.class);
+
+    // HMAC parameters.
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int    HMAC_KEY_BYTES = 32;
+
+    // Entries are refreshed in the background after this fraction of their ttl.
+    private static final double REFRESH_AHEAD_FRACTION = 0.75;
+
+    // Background refresh threads.
+    private static final String REFRESH_THREAD_PREFIX = "SkPwdRefresh-";
+    private static final int    REFRESH_THREADS = 2;
+    private static final int    REFRESH_QUEUE_SIZE = 256;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance of this class.
+    private static volatile SkServicePwdCache _instance;
+
+    // Configuration.
+    private final boolean _enabled;
+    private final long    _ttlMillis;
+    private final long    _refreshAfterMillis;
+
+    // Per-process HMAC key.
+    private final SecretKeySpec _key;
+
+    // HMACs of current passwords by secret path.
+    private final ConcurrentHashMap<String,Entry> _entries = new ConcurrentHashMap<>();
+
+    // Incremented on every invalidation.
+    private final AtomicLong _generation = new AtomicLong();
+
+    // Runs refresh-ahead reads.
+    private final ExecutorService _refresher;
+
+    // Metrics.
+    private final AtomicLong _hits            = new AtomicLong();
+    private final AtomicLong _misses          = new AtomicLong();
+    private final AtomicLong _mismatches      = new AtomicLong();
+    private final AtomicLong _refreshes       = new AtomicLong();
+    private final AtomicLong _refreshFailures = new AtomicLong();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public SkServicePwdCache(boolean enabled, int ttlSeconds)
+    {
+        _enabled   = enabled;
+        _ttlMillis = ttlSeconds * 1000L;
+        _refreshAfterMillis = (long) (_ttlMillis * REFRESH_AHEAD_FRACTION);
+
+        // Nothing else to do when disabled.
+        if (!enabled) {
+            _key = null;
+            _refresher = null;
+            return;
+        }
+
+        // Generate the key used to protect all cached passwords.
+        byte[] keyBytes = new byte[HMAC_KEY_BYTES];
+        new SecureRandom().nextBytes(keyBytes);
+        _key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+
+        // Refreshes are best effort, so a full queue drops them.
+        var threadNum = new AtomicInteger();
+        _refresher = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS,
+                                            0L, TimeUnit.MILLISECONDS,
+                                            new LinkedBlockingQueue<>(REFRESH_QUEUE_SIZE),
+                                            r -> {
+                                                var t = new Thread(r, REFRESH_THREAD_PREFIX +
+                                                                   threadNum.incrementAndGet());
+                                                t.setDaemon(true);
+                                                return t;
+                                            });
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static SkServicePwdCache getInstance()
+    {
+        // Create the singleton instance if necessary.
+        if (_instance == null) {
+            synchronized (SkServicePwdCache.class) {
+                if (_instance == null) {
+                    // Utilities that run without the service's configuration
+                    // always validate against vault.
+                    var parms = SkRuntimeParms.getInstanceOrNull("the service password cache");
+                    if (parms == null) _instance = new SkServicePwdCache(false, 0);
+                    else _instance = new SkServicePwdCache(parms.isServicePwdCacheEnabled(),
+                                                           parms.getServicePwdCacheTtlSeconds());
+                }
+            }
+        }
+        return _instance;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* validate:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Return true if the password matches the current password for the path.
+     * The loader is called to read the current password from vault on a miss
+     * or mismatch.
+     *
+     * @param secretPath the resolved vault path of the service password
+     * @param password the candidate password
+     * @param loader reads the current password, which may be null
+     * @return true if the password is valid, false otherwise
+     * @throws TapisImplException if the loader fails
+     */
+    public boolean validate(String secretPath, String password, PasswordLoader loader)
+     throws TapisImplException
+    {
+        // Always go to vault when disabled.
+        if (!_enabled) {
+            String current = loader.load();
+            return current != null &&
+                   MessageDigest.isEqual(current.getBytes(StandardCharsets.UTF_8),
+                                         password.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Check the cached hmac.
+        byte[] candidate = hmac(password);
+        long now = System.currentTimeMillis();
+        var entry = _entries.get(secretPath);
+        if (entry != null && entry.expiresAt > now) {
+            if (MessageDigest.isEqual(entry.hmac, candidate)) {
+                _hits.incrementAndGet();
+                if (now >= entry.refreshAt) refreshAhead(secretPath, entry, loader);
+                return true;
+            }
+            _mismatches.incrementAndGet();
+        }
+        else _misses.incrementAndGet();
+
+        // Consult vault and remember the result.
+        byte[] current = load(secretPath, loader);
+        return current != null && MessageDigest.isEqual(current, candidate);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* invalidate:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Discard the entry for a path after any vault operation that may have
+     * changed it.
+     *
+     * @param secretPath the resolved vault path
+     */
+    public void invalidate(String secretPath)
+    {
+        if (!_enabled) return;
+        _generation.incrementAndGet();
+        _entries.remove(secretPath);
+    }
+
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public boolean isEnabled() {return _enabled;}
+    public int getSize() {return _entries.size();}
+    public long getHitCount() {return _hits.get();}
+    public long getMissCount() {return _misses.get();}
+    public long getMismatchCount() {return _mismatches.get();}
+    public long getRefreshCount() {return _refreshes.get();}
+    public long getRefreshFailureCount() {return _refreshFailures.get();}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* load:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Read the current password, cache its hmac and return the hmac or null
+     * if there is no current password.
+     */
+    private byte[] load(String secretPath, PasswordLoader loader)
+     throws TapisImplException
+    {
+        long generation = _generation.get();
+        String current = loader.load();
+        if (current == null) {
+            _entries.remove(secretPath);
+            return null;
+        }
+
+        // Don't cache a value that may have been overwritten during the read.
+        byte[] currentHmac = hmac(current);
+        if (_generation.get() == generation) {
+            long now = System.currentTimeMillis();
+            _entries.put(secretPath, new Entry(currentHmac, now + _refreshAfterMillis,
+                                               now + _ttlMillis));
+            if (_generation.get() != generation) _entries.remove(secretPath);
+        }
+        return currentHmac;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* refreshAhead:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Reload an entry in the background.  Only one refresh per entry is
+     * attempted, and a failed refresh leaves the entry to expire normally.
+     */
+    private void refreshAhead(String secretPath, Entry entry, PasswordLoader loader)
+    {
+        if (!entry.refreshing.compareAndSet(false, true)) return;
+        try {
+            _refresher.execute(() -> {
+                try {load(secretPath, loader); _refreshes.incrementAndGet();}
+                    catch (Exception e) {
+                        _refreshFailures.incrementAndGet();
+                        _log.warn("Unable to refresh service password " + secretPath +
+                                  ": " + e.getMessage());
+                    }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // Let the next hit try again.
+            entry.refreshing.set(false);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* hmac:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    private byte[] hmac(String value)
+    {
+        try {
+            var mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(_key);
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (Exception e) {
+            // Every JRE provides HmacSHA256.
+            String msg = "Unable to compute " + HMAC_ALGORITHM + ": " + e.getMessage();
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                              Nested Classes                            */
+    /* ********************************************************************** */
+    /** Reads the current password from vault, returning null if none exists. */
+    @FunctionalInterface
+    public interface PasswordLoader
+    {
+        String load() throws TapisImplException;
+    }
+
+    private static final class Entry
+    {
+        private final byte[]        hmac;
+        private final long          refreshAt;
+        private final long          expiresAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(byte[] hmac, long refreshAt, long expiresAt)
+        {
+            this.hmac = hmac;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.bettercloud.vault.VaultException;
+import com.bettercloud.vault.rest.RestResponse;
+
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
+import io.micrometer.core.instrument.Timer;
+
+/** Time the calls made through another vault client.  Calls are published by
+ * operation and by outcome, which is the class of vault's http status code
+ * or "error" when the call throws an exception.
+ */
+public final class SkTimedVaultClient
+ implements ISkVaultClient
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Call outcomes indexed by status code / 100 - 2, with any other status
+    // or an exception counted as an error.
+    private static final String[] OUTCOMES = {"2xx", "3xx", "4xx", "5xx", "error"};
+    private static final int ERROR = OUTCOMES.length - 1;
+
+    // Operation indexes.
+    private static final String[] OPERATIONS =
+        {"read", "write", "delete", "undelete", "destroy", "list", "deleteMetadata"};
+    private static final int READ = 0, WRITE = 1, DELETE = 2, UNDELETE = 3, DESTROY = 4,
+                             LIST = 5, DELETE_METADATA = 6;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The client that makes the calls.
+    private final ISkVaultClient _client;
+
+    // Timers indexed by operation and outcome.
+    private final Timer[][] _timers = new Timer[OPERATIONS.length][OUTCOMES.length];
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    public SkTimedVaultClient(ISkVaultClient client)
+    {
+        _client = client;
+        for (int op = 0; op < OPERATIONS.length; op++)
+            for (int outcome = 0; outcome < OUTCOMES.length; outcome++)
+                _timers[op][outcome] = SkMetrics.timer(SkMetrics.VAULT_CALL, "Vault call time",
+                                                       SkMetrics.CALL_BUCKETS,
+                                                       "operation", OPERATIONS[op],
+                                                       "outcome", OUTCOMES[outcome]);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    @Override
+    public RestResponse read(String path, int version) throws VaultException
+    {
+        long start = System.nanoTime();
+        try {return record(READ, start, _client.read(path, version));}
+            catch (VaultException | RuntimeException e) {recordError(READ, start); throw e;}
+    }
+
+    @Override
+    public RestResponse write(String path, Map<String,Object> secretMap) throws VaultException
+    {
+        long start = System.nanoTime();
+        try {return record(WRITE, start, _client.write(path, secretMap));}
+            catch (VaultException | RuntimeException e) {recordError(WRITE, start); throw e;}
+    }
+
+    @Override
+    public RestResponse delete(String path, int[] versions) throws VaultException
+    {
+        long start = System.nanoTime();
+        try {return record(DELETE, start, _client.delete(path, versions));}
+            catch (VaultException | RuntimeException e) {recordError(DELETE, start); throw e;}
+    }
+
+    @Override
+    public RestResponse unDelete(String path, int[] versions) throws VaultException
+    {
+        long start = System.nanoTime();
+        try {return record(UNDELETE, start, _client.unDelete(path, versions));}
+            catch (VaultException | RuntimeException e) {recordError(UNDELETE, start); throw e;}
+    }
+
+    @Override
+    public RestResponse destroy(String path, int[] versions) throws VaultException
+    {
+        long start = System.nanoTime();
+        try {return record(DESTROY, start, _client.destroy(path, versions));}
+            catch (VaultException | RuntimeException e) {recordError(DESTROY, start); throw e;}
+    }
+
+    @Override
+    public RestResponse list(String path) throws VaultException
+    {
+        long start = System.nanoTime();
+        try {return record(LIST, start, _client.list(path));}
+            catch (VaultException | RuntimeException e) {recordError(LIST, start); throw e;}
+    }
+
+    @Override
+    public RestResponse deleteMetadata(String path) throws VaultException
+    {
+        long start = System.nanoTime();
+        try {return record(DELETE_METADATA, start, _client.deleteMetadata(path));}
+            catch (VaultException | RuntimeException e) {recordError(DELETE_METADATA, start); throw e;}
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* record:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Record a call that returned a response. */
+    private RestResponse record(int op, long start, RestResponse resp)
+    {
+        int outcome = resp == null ? ERROR : resp.getStatus() / 100 - 2;
+        if (outcome < 0 || outcome >= ERROR) outcome = ERROR;
+        _timers[op][outcome].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return resp;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordError:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Record a call that threw an exception. */
+    private void recordError(int op, long start)
+    {
+        _timers[op][ERROR].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
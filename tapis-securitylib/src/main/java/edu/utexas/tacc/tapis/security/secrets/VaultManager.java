@@ -1,6 +1,8 @@
 package edu.utexas.tacc.tapis.security.secrets;
 
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -11,6 +13,7 @@ import com.bettercloud.vault.VaultConfig;
 import com.bettercloud.vault.VaultException;
 import com.bettercloud.vault.response.AuthResponse;
 
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
 import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.utils.CallSiteToggle;
@@ -35,6 +38,10 @@ public final class VaultManager
     private static final String RENEW_THREAD_NAME = "SkTokRenewalThread";
     private static final int MAX_RENEWAL_ATTEMPTS = 10;
     
+    // Re-login backoff limits.
+    private static final long RELOGIN_INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long RELOGIN_MAX_BACKOFF_MILLIS     = 120000;
+    
     // HTTP status codes.
     private static final int HTTP_FORBIDDEN = 403;
     
@@ -52,22 +59,29 @@ public final class VaultManager
     // Save the parms object.
     private static IVaultManagerParms _parms;
     
-    // SK's vault token authentication response that contains its token.
-    private AuthResponse _tokenAuth;
-    
-    // The configuration used to communicate with vault. 
-    private VaultConfig  _vaultConfig;
+    // The current vault configuration, instance and token, which are
+    // replaced together whenever SK logs in again.
+    private volatile VaultSession _session;
     
-    // Reusable vault instance.
-    private Vault        _vault;
+    // The client used for secrets engine calls.
+    private ISkVaultClient _vaultClient;
     
     // Start off health and change if something goes wrong.
     private volatile boolean _healthy = true;
     
+    // The thread that keeps the token alive.
+    private TokenRenewalThread _renewalThread;
+    
+    // Token metrics.
+    private final AtomicLong _renewals        = new AtomicLong();
+    private final AtomicLong _relogins        = new AtomicLong();
+    private final AtomicLong _reloginFailures = new AtomicLong();
+    
     /* ********************************************************************** */
     /*                              Constructors                              */
     /* ********************************************************************** */
-    private VaultManager(IVaultManagerParms parms)
+    /** Package access allows tests to create instances that use a local vault. */
+    VaultManager(IVaultManagerParms parms)
      throws TapisRuntimeException
     {
         // Save the parms object before initialization.
@@ -153,26 +167,56 @@ public final class VaultManager
     /* ---------------------------------------------------------------------- */
     public String getSkToken() 
     {
-        if (_tokenAuth == null) return null;
-        return _tokenAuth.getAuthClientToken();
+        var session = _session;
+        if (session == null || session.tokenAuth == null) return null;
+        return session.tokenAuth.getAuthClientToken();
     }
     
     /* ---------------------------------------------------------------------- */
     /* getVault:                                                              */
     /* ---------------------------------------------------------------------- */
-    public Vault getVault(){return _vault;}
+    public Vault getVault()
+    {
+        var session = _session;
+        return session == null ? null : session.vault;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getTokenTtlRemainingSeconds:                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Return the number of seconds before the current token's lease expires,
+     * which is 0 once it has expired and -1 if there is no token or the token
+     * never expires.
+     */
+    public long getTokenTtlRemainingSeconds()
+    {
+        var session = _session;
+        if (session == null || session.tokenAuth == null) return -1;
+        long leaseSeconds = session.tokenAuth.getAuthLeaseDuration();
+        if (leaseSeconds <= 0) return -1;
+        long elapsedSeconds = (System.currentTimeMillis() - session.leaseStartMillis) / 1000;
+        return Math.max(0, leaseSeconds - elapsedSeconds);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getVaultClient:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Return the client used for secrets engine calls.  The client is either
+     * the pooled http client or a thin wrapper around the vault driver.
+     */
+    public ISkVaultClient getVaultClient(){return _vaultClient;}
     
     /* ---------------------------------------------------------------------- */
     /* isReady:                                                               */
     /* ---------------------------------------------------------------------- */
     /** Return true only if we have disabled secrets or, if secrets are enabled,
-     * are healthy and we have an token. We use the existence of _tokenAuth
-     * as a substitute for actually checking the _vaultConfig for a token 
-     * because it's cheaper and essentially as accurate. 
+     * are healthy and we have an token. We use the existence of the session's
+     * token response as a substitute for actually checking its configuration
+     * for a token because it's cheaper and essentially as accurate. 
      * */
     public boolean isReady()
     {
-        return _parms.isVaultDisabled() || (_healthy && (_tokenAuth != null));
+        return _parms.isVaultDisabled() || (_healthy && (getSkToken() != null));
     }
     
     /* ---------------------------------------------------------------------- */
@@ -183,6 +227,14 @@ public final class VaultManager
      */
     public boolean isHealthy(){return _parms.isVaultDisabled() || _healthy;}
     
+    /* ********************************************************************** */
+    /*                               Accessors                                */
+    /* ********************************************************************** */
+    public long getRenewalCount() {return _renewals.get();}
+    public long getReloginCount() {return _relogins.get();}
+    public long getReloginFailureCount() {return _reloginFailures.get();}
+    public int getVaultClientMaxConcurrent() {return _parms.getVaultClientMaxConcurrent();}
+    
     /* ********************************************************************** */
     /*                            Private Methods                             */
     /* ********************************************************************** */
@@ -201,25 +253,52 @@ public final class VaultManager
     private void initInstance()
      throws TapisRuntimeException
     {
-        // Use our custom loader to cut off any automatic environment loading by the driver.
-        var loader = new VaultNoOpLoader();
-        
         // -------------------------- Vault Disabled --------------------------
         // Handle the simple case in which vault disabled.
         if (_parms.isVaultDisabled()) {
-            try {_vaultConfig = new VaultConfig().
-                                    environmentLoader(loader).
-                                    address(DUMMY_VAULT_ADDR).
-                                    build();}
+            VaultConfig vaultConfig;
+            try {vaultConfig = new VaultConfig().
+                                   environmentLoader(new VaultNoOpLoader()).
+                                   address(DUMMY_VAULT_ADDR).
+                                   build();}
             catch (VaultException e) {
                 String msg = MsgUtils.getMsg("SK_VAULT_CONFIG_ERROR", e.getMessage());
                 _log.error(msg, e);
                 throw new TapisRuntimeException(msg, e);
             }
+            _session = new VaultSession(vaultConfig, null, null);
+            _vaultClient = new SkDriverVaultClient(this);
             return;
         }
         
         // --------------------------- Vault Enabled ----------------------------
+        // Acquire the SK token.
+        _session = login();
+        
+        // Create the client used for secrets engine calls.
+        _vaultClient = createVaultClient();
+        if (SkMetrics.isEnabled()) _vaultClient = new SkTimedVaultClient(_vaultClient);
+        SkMetrics.bindVaultManager(this);
+        
+        // Start the token renewal thread.
+        if (!_parms.isVaultRenewalDisabled()) startTokenRenewalThread();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* login:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Configure a new vault instance and log in using the role and secret ids.
+     * The new session is returned without being installed.
+     * 
+     * @return the new session
+     * @throws TapisRuntimeException on error
+     */
+    private VaultSession login()
+     throws TapisRuntimeException
+    {
+        // Use our custom loader to cut off any automatic environment loading by the driver.
+        var loader = new VaultNoOpLoader();
+        
         // Determine if we are using SSL communication to the vault server.
         SkSslConfig sslConfig;
         try {
@@ -236,8 +315,9 @@ public final class VaultManager
         }
         
         // Initialize the vault configuration using the inputed parms.
+        VaultConfig vaultConfig;
         try {
-            _vaultConfig = new VaultConfig().
+            vaultConfig = new VaultConfig().
                             environmentLoader(loader).
                             address(_parms.getVaultAddress()).
                             engineVersion(DEFAULT_SECRETS_ENGINE_VERSION).
@@ -254,9 +334,11 @@ public final class VaultManager
         
         // Login using the role and secret ids, saving the auth response.
         // The auth response contains token information useful for renewal.
+        Vault vault;
+        AuthResponse tokenAuth;
         try {
-            _vault = new Vault(_vaultConfig);
-            _tokenAuth = _vault.auth().loginByAppRole(_parms.getVaultRoleId(), _parms.getVaultSecretId());
+            vault = new Vault(vaultConfig);
+            tokenAuth = vault.auth().loginByAppRole(_parms.getVaultRoleId(), _parms.getVaultSecretId());
             _lastAppLoginSucceeded.toggleOn();
         } catch (Exception e) {
             String msg = MsgUtils.getMsg("SK_VAULT_APPROLE_LOGIN_FAILED", e.getMessage());
@@ -265,14 +347,43 @@ public final class VaultManager
         }
         
         // Add the token to the configuration.
-        _vaultConfig.token(_tokenAuth.getAuthClientToken());
+        vaultConfig.token(tokenAuth.getAuthClientToken());
         
         // Print an informational blurb.
-        String policies = StringUtils.join(_tokenAuth.getAuthPolicies(), ", ");
-        _log.info(MsgUtils.getMsg("SK_VAULT_APPROLE_TOKEN_ACQUIRED", _tokenAuth.isAuthRenewable(), _tokenAuth.getAuthLeaseDuration(), policies));
+        String policies = StringUtils.join(tokenAuth.getAuthPolicies(), ", ");
+        _log.info(MsgUtils.getMsg("SK_VAULT_APPROLE_TOKEN_ACQUIRED", tokenAuth.isAuthRenewable(), tokenAuth.getAuthLeaseDuration(), policies));
+        
+        return new VaultSession(vaultConfig, vault, tokenAuth);
+    }
     
-        // Start the token renewal thread.
-        if (!_parms.isVaultRenewalDisabled()) startTokenRenewalThread();
+    /* ---------------------------------------------------------------------- */
+    /* createVaultClient:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Create the pooled client if configured, otherwise use the driver.  The
+     * pooled client reads the current token on each call, so it sees renewed
+     * tokens without being recreated.  Timeouts are configured in seconds.
+     */
+    private ISkVaultClient createVaultClient()
+     throws TapisRuntimeException
+    {
+        if (!_parms.isVaultClientPooled()) return new SkDriverVaultClient(this);
+        
+        try {
+            long openMillis = _parms.getVaultOpenTimeout() * 1000L;
+            long callMillis = openMillis + _parms.getVaultReadTimeout() * 1000L;
+            var client = new SkPooledVaultClient(_parms.getVaultAddress(), this::getSkToken,
+                                                 _parms.getVaultClientMaxConcurrent(),
+                                                 _parms.isVaultClientHttp2(),
+                                                 _parms.isVaultSslVerify(),
+                                                 openMillis, callMillis);
+            _log.info("Using pooled vault client: " + client.getStatistics());
+            SkMetrics.bindVaultClient(client);
+            return client;
+        } catch (Exception e) {
+            String msg = MsgUtils.getMsg("SK_VAULT_CONFIG_ERROR", e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+        }
     }
     
     /* ---------------------------------------------------------------------- */
@@ -282,10 +393,19 @@ public final class VaultManager
     {
         // Create and start the daemon thread only AFTER token is first acquired.
         var threadGroup = new ThreadGroup(THREADGROUP_NAME);
-        var renewalThread = new TokenRenewalThread(threadGroup, RENEW_THREAD_NAME);
-        renewalThread.setDaemon(true);
-        renewalThread.setUncaughtExceptionHandler(this);
-        renewalThread.start();
+        _renewalThread = new TokenRenewalThread(threadGroup, RENEW_THREAD_NAME);
+        _renewalThread.setDaemon(true);
+        _renewalThread.setUncaughtExceptionHandler(this);
+        _renewalThread.start();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* stopTokenRenewalThread:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Stop token renewal, which only tests need to do. */
+    void stopTokenRenewalThread()
+    {
+        if (_renewalThread != null) _renewalThread.interrupt();
     }
 
     /* ---------------------------------------------------------------------- */
@@ -308,8 +428,11 @@ public final class VaultManager
     /*                         TokenRenewalThread Class                       */
     /* ********************************************************************** */
     /** This inner class will renew the SK token as indicated by the applicable
-     * input parameters.  The enclosing class's token response field is atomically
-     * updated upon successful token renewal.
+     * input parameters.  The enclosing class's session is atomically replaced
+     * upon successful token renewal.  When the token cannot be renewed, SK logs
+     * in again with its role and secret ids and swaps in the new session, so
+     * requests in flight complete with the old token and new requests use the
+     * new one.
      */
     private final class TokenRenewalThread
      extends Thread
@@ -330,7 +453,7 @@ public final class VaultManager
         {
             // No token renew is needed if our token has root 
             // privileges since it never expires.
-            List<String> policies = _tokenAuth.getAuthPolicies();
+            List<String> policies = _session.tokenAuth.getAuthPolicies();
             if (policies != null && policies.contains("root")) return;
             
             // Get the ttl that we request on token renewal.
@@ -348,17 +471,19 @@ public final class VaultManager
                                     Thread.currentThread().getName(), MAX_RENEWAL_ATTEMPTS);
                     _log.error(msg);
 
-                    // Advertise our problem and terminate thread.
-                    _healthy = false;
-                    return;
+                    // Replace the token or terminate thread if interrupted.
+                    if (!relogin()) return;
+                    attempt = 1;
+                    continue;
                 }
                 
                 // Calculate the initial and subsequent sleep time in seconds.
                 // Note that on attempt 1 the token has been just been acquired 
                 // or renewed, so we need to recalculate durations.
+                final VaultSession session = _session;
                 if (attempt == 1) {
-                    initialSleepSecs = calculateInitialSleepSeconds();
-                    retrySleepSecs   = calculateRetrySleepSeconds(initialSleepSecs);
+                    initialSleepSecs = calculateInitialSleepSeconds(session);
+                    retrySleepSecs   = calculateRetrySleepSeconds(session, initialSleepSecs);
                 }
                 
                 // Get the number of seconds to wait before the next renewal attempt.
@@ -367,7 +492,7 @@ public final class VaultManager
                     String msg = MsgUtils.getMsg("SK_VAULT_RENEWAL_THREAD_SLEEP",
                                                  Thread.currentThread().getName(), 
                                                  attempt, MAX_RENEWAL_ATTEMPTS,
-                                                 sleepSecs, _tokenAuth.getAuthLeaseDuration());
+                                                 sleepSecs, session.tokenAuth.getAuthLeaseDuration());
                     _log.debug(msg);
                 }
                 
@@ -381,18 +506,20 @@ public final class VaultManager
                 }
                 
                 // Let's renew the token.
-                try {_tokenAuth = _vault.auth().renewSelf(renewSeconds);}
+                AuthResponse tokenAuth;
+                try {tokenAuth = session.vault.auth().renewSelf(renewSeconds);}
                 catch (VaultException e) {
                     // When a token expires, we get a Forbidden status code back
-                    // from Vault. We cannot recover from an expired token, so there's
-                    // nothing left to do other than indicate that we are broken.
+                    // from Vault. We cannot recover the expired token, so we log
+                    // in again to get a new one.
                     if (e.getHttpStatusCode() == HTTP_FORBIDDEN) {
                         String msg = MsgUtils.getMsg("SK_VAULT_INVALID_TOKEN", e.getMessage());
                         _log.error(msg, e);
        
-                        // Advertise our problem and terminate thread.
-                        _healthy = false;
-                        return;
+                        // Replace the token or terminate thread if interrupted.
+                        if (!relogin()) return;
+                        attempt = 1;
+                        continue;
                     }
                     
                     // Some sort of vault error, we'll keep trying.
@@ -412,11 +539,15 @@ public final class VaultManager
                 }
                 
                 // ---------------------- Token Renewed ----------------------
+                // Install the new lease unless a re-login replaced the session.
                 // Reset the attempt number back to 1. This forces sleep times
                 // to be recalculated using the latest lease information.
+                if (_session == session)
+                    _session = new VaultSession(session.vaultConfig, session.vault, tokenAuth);
+                _renewals.incrementAndGet();
                 if (_log.isInfoEnabled()) {
                     String msg = MsgUtils.getMsg("SK_VAULT_TOKEN_RENEWED",
-                                                 _tokenAuth.getAuthLeaseDuration(),
+                                                 tokenAuth.getAuthLeaseDuration(),
                                                  attempt, MAX_RENEWAL_ATTEMPTS);
                     _log.info(msg);
                 }
@@ -424,6 +555,48 @@ public final class VaultManager
             }
         }
         
+        /* ---------------------------------------------------------------------- */
+        /* relogin:                                                               */
+        /* ---------------------------------------------------------------------- */
+        /** Log in again until a new token is acquired, backing off exponentially
+         * between failed attempts.  The current session stays in use until it 
+         * is replaced.  SK is marked unhealthy only while its token is expired 
+         * and no new one can be acquired, and healthy again once one is.
+         * 
+         * @return true when a new session is installed, false if interrupted
+         */
+        private boolean relogin()
+        {
+            long backoffMillis = RELOGIN_INITIAL_BACKOFF_MILLIS;
+            while (true) {
+                // Try to acquire a new token and swap it in.
+                try {
+                    _session = login();
+                    _relogins.incrementAndGet();
+                    _healthy = true;
+                    _log.info("Vault token replaced by re-login " + _relogins.get() + 
+                              " after " + _reloginFailures.get() + " total re-login failures.");
+                    return true;
+                }
+                catch (Exception e) {
+                    _reloginFailures.incrementAndGet();
+                    if (getTokenTtlRemainingSeconds() == 0) _healthy = false;
+                    _log.warn("Vault re-login failed, retrying in " + backoffMillis + " ms: " + 
+                              e.getMessage());
+                }
+                
+                // Wait with jitter before trying again.
+                try {Thread.sleep(backoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis / 4 + 1));}
+                catch (InterruptedException e) {
+                    String msg = MsgUtils.getMsg("SK_VAULT_RENEWAL_THREAD_INTERRUPTED",
+                                                 Thread.currentThread().getName(), e.getMessage());
+                    _log.warn(msg);
+                    return false;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, RELOGIN_MAX_BACKOFF_MILLIS);
+            }
+        }
+        
         /* ---------------------------------------------------------------------- */
         /* calculateInitialSleepSeconds:                                          */
         /* ---------------------------------------------------------------------- */
@@ -432,11 +605,12 @@ public final class VaultManager
          * creation response, multiple it by the threshold and then divide by 100.
          * Overflow is unlikely given the use of longs.
          * 
+         * @param session the session whose token will be renewed
          * @return the seconds to sleep
          */
-        private long calculateInitialSleepSeconds() 
+        private long calculateInitialSleepSeconds(VaultSession session) 
         {
-            return (_tokenAuth.getAuthLeaseDuration() * _parms.getVaultRenewThreshold()) / 100L;
+            return (session.tokenAuth.getAuthLeaseDuration() * _parms.getVaultRenewThreshold()) / 100L;
         }
         
         /* ---------------------------------------------------------------------- */
@@ -448,12 +622,34 @@ public final class VaultManager
          * number of possible retries (we ignore processing overhead time, so the
          * token may be expired by the time last attempt is made). 
          * 
+         * @param session the session whose token will be renewed
          * @param initialSleepSecs the number of seconds before the 1st renewal attempt
          * @return the time to sleep on renewal attempts after the 1st attempt
          */
-        private long calculateRetrySleepSeconds(long initialSleepSecs)
+        private long calculateRetrySleepSeconds(VaultSession session, long initialSleepSecs)
+        {
+            return (session.tokenAuth.getAuthLeaseDuration() - initialSleepSecs) / MAX_RENEWAL_ATTEMPTS;
+        }
+    }
+    
+    /* ********************************************************************** */
+    /*                           VaultSession Class                           */
+    /* ********************************************************************** */
+    /** An immutable snapshot of the vault configuration, the vault instance 
+     * configured with SK's token and the token's authentication response. 
+     */
+    private static final class VaultSession
+    {
+        private final VaultConfig  vaultConfig;
+        private final Vault        vault;
+        private final AuthResponse tokenAuth;
+        private final long         leaseStartMillis = System.currentTimeMillis();
+        
+        private VaultSession(VaultConfig vaultConfig, Vault vault, AuthResponse tokenAuth)
         {
-            return (_tokenAuth.getAuthLeaseDuration() - initialSleepSecs) / MAX_RENEWAL_ATTEMPTS;
+            this.vaultConfig = vaultConfig;
+            this.vault       = vault;
+            this.tokenAuth   = tokenAuth;
         }
     }
  }
@@ -0,0 +1,223 @@
+package edu.utexas.tacc.tapis.security.authz.cache;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.authz.cache.SkAuthzChange.ChangeType;
+import edu.utexas.tacc.tapis.security.authz.dao.SkAbstractDao;
+import edu.utexas.tacc.tapis.security.config.RuntimeParameters;
+
+/** Exercise cross-replica cache invalidation.  The integration test simulates
+ * two SK replicas by running two independent buses against the same database.
+ */
+public class SkInvalidationBusTest 
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    private static final String tenant = "testtenant";
+    private static final String user   = "testuser";
+    private static final long   WAIT_MILLIS = 15000;
+    
+    /* ********************************************************************** */
+    /*                              Test Methods                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* codecTest:                                                             */
+    /* ---------------------------------------------------------------------- */
+    @Test(groups={"unit"})
+    public void codecTest()
+    {
+        // Round trip a user change whose name contains the separator.
+        var change = SkAuthzChange.forUser(ChangeType.USER_ROLE, tenant, "a|b");
+        change.setVersion(7);
+        change = SkAuthzChange.decode(change.encode("orig", 42));
+        Assert.assertEquals(change.getType(), ChangeType.USER_ROLE);
+        Assert.assertEquals(change.getTenant(), tenant);
+        Assert.assertEquals(change.getUser(), "a|b");
+        Assert.assertEquals(change.getOrigin(), "orig");
+        Assert.assertEquals(change.getSentMillis(), 42);
+        Assert.assertEquals(change.getVersion(), 7);
+        
+        // Tenant-wide changes have no user.
+        change = SkAuthzChange.decode(SkAuthzChange.forTenant(ChangeType.ROLE_TREE, tenant).encode("o", 1));
+        Assert.assertNull(change.getUser());
+        
+        // Garbage always flushes.
+        Assert.assertEquals(SkAuthzChange.decode("junk").getType(), ChangeType.FLUSH);
+        Assert.assertEquals(SkAuthzChange.decode("9|o|1|1|ROLE|t|u").getType(), ChangeType.FLUSH);
+        Assert.assertEquals(SkAuthzChange.decode("1|o|1|1|NOPE|t|u").getType(), ChangeType.FLUSH);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* cacheTest:                                                             */
+    /* ---------------------------------------------------------------------- */
+    @Test(groups={"unit"})
+    public void cacheTest()
+    {
+        var cache = new SkUserAuthzCache(true, 60, () -> true);
+        
+        // Basic put and get.
+        long gen = cache.getGeneration(tenant);
+        cache.putPermissions(tenant, user, List.of("a:b"), gen);
+        cache.putPermissions(tenant, "other", List.of("c:d"), gen);
+        Assert.assertEquals(cache.getPermissions(tenant, user), List.of("a:b"));
+        
+        // Targeted invalidation leaves other users alone.
+        cache.invalidate(SkAuthzChange.forUser(ChangeType.USER_ROLE, tenant, user));
+        Assert.assertNull(cache.getPermissions(tenant, user));
+        Assert.assertNotNull(cache.getPermissions(tenant, "other"));
+        
+        // Share changes do not affect role data.
+        cache.invalidate(SkAuthzChange.forTenant(ChangeType.SHARE, tenant));
+        Assert.assertNotNull(cache.getPermissions(tenant, "other"));
+        
+        // Tenant-wide invalidation.
+        cache.invalidate(SkAuthzChange.forTenant(ChangeType.ROLE_PERMISSION, tenant));
+        Assert.assertNull(cache.getPermissions(tenant, "other"));
+        
+        // A load that started before an invalidation is discarded.
+        gen = cache.getGeneration(tenant);
+        cache.invalidate(SkAuthzChange.forUser(ChangeType.USER_ROLE, tenant, user));
+        cache.putRoleNames(tenant, user, List.of("role1"), gen);
+        Assert.assertNull(cache.getRoleNames(tenant, user));
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* disconnectedCacheTest:                                                 */
+    /* ---------------------------------------------------------------------- */
+    @Test(groups={"unit"})
+    public void disconnectedCacheTest()
+    {
+        var connected = new AtomicBoolean(true);
+        var cache = new SkUserAuthzCache(true, 60, connected::get);
+        long gen = cache.getGeneration(tenant);
+        cache.putPermissions(tenant, user, List.of("a:b"), gen);
+        
+        // Nothing is served or accepted while changes can be missed.
+        connected.set(false);
+        Assert.assertNull(cache.getPermissions(tenant, user));
+        cache.putRoleNames(tenant, user, List.of("role1"), cache.getGeneration(tenant));
+        connected.set(true);
+        Assert.assertNull(cache.getRoleNames(tenant, user));
+        
+        // The bus flushes when it reconnects.
+        cache.flushAll();
+        Assert.assertNull(cache.getPermissions(tenant, user));
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* versionCacheTest:                                                      */
+    /* ---------------------------------------------------------------------- */
+    @Test(groups={"unit"})
+    public void versionCacheTest()
+    {
+        // Versions are never trusted without a connected bus.
+        var cache = new SkAuthzVersionCache(new SkInvalidationBus(null, null, null));
+        cache.putVersion(tenant, 3, cache.getGeneration());
+        Assert.assertNull(cache.getVersion(tenant));
+        Assert.assertEquals(cache.getMissCount(), 1);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* multiInstanceTest:                                                     */
+    /* ---------------------------------------------------------------------- */
+    @Test(groups={"integration"})
+    public void multiInstanceTest() throws Exception
+    {
+        // Disable vault so we only use the db.
+        System.setProperty("tapis.sk.vault.disable", "true");
+        var parms = RuntimeParameters.getInstance();
+        
+        // Two replicas listening on the same database.
+        var busA = new SkInvalidationBus(parms.getJdbcURL(), parms.getDbUser(), parms.getDbPassword());
+        var busB = new SkInvalidationBus(parms.getJdbcURL(), parms.getDbUser(), parms.getDbPassword());
+        var recA = new RecordingListener();
+        var recB = new RecordingListener();
+        busA.addListener(recA);
+        busB.addListener(recB);
+        var versionsB = new SkAuthzVersionCache(busB);
+        busB.addListener(versionsB);
+        busA.start();
+        busB.start();
+        try {
+            waitFor(() -> busA.isConnected() && busB.isConnected());
+            Assert.assertEquals(recB.flushes.get(), 1, "Connecting should flush once");
+            
+            // Notifications are only delivered on commit.
+            try (Connection conn = SkAbstractDao.getDataSource().getConnection()) {
+                conn.setAutoCommit(false);
+                busA.publish(conn, SkAuthzChange.forUser(ChangeType.USER_ROLE, tenant, user));
+                conn.rollback();
+                
+                var change = SkAuthzChange.forUser(ChangeType.USER_ROLE, tenant, user);
+                change.setVersion(5);
+                busA.publish(conn, change);
+                Thread.sleep(250);
+                Assert.assertTrue(recB.changes.isEmpty(), "Uncommitted change delivered");
+                conn.commit();
+            }
+            
+            // Only the remote replica applies the change.
+            waitFor(() -> !recB.changes.isEmpty());
+            Thread.sleep(250);
+            Assert.assertEquals(recB.changes.size(), 1, "Rolled back change delivered");
+            Assert.assertEquals(recB.changes.get(0).getUser(), user);
+            Assert.assertTrue(recA.changes.isEmpty(), "Publisher should ignore its own change");
+            Assert.assertEquals(versionsB.getVersion(tenant), Long.valueOf(5));
+            System.out.println("Coherence lag (ms): " + busB.getLastLagMillis());
+            
+            // Kill replica B's listener session and verify it flushes on reconnect.
+            int flushes = recB.flushes.get();
+            long connects = busB.getConnectCount();
+            try (Connection conn = SkAbstractDao.getDataSource().getConnection();
+                 Statement stmt = conn.createStatement()) 
+            {
+                stmt.execute("SELECT pg_terminate_backend(" + busB.getListenerBackendPid() + ")");
+                if (!conn.getAutoCommit()) conn.commit();
+            }
+            waitFor(() -> busB.getConnectCount() > connects && busB.isConnected());
+            Assert.assertTrue(recB.flushes.get() > flushes, "Reconnect should flush");
+            Assert.assertNull(versionsB.getVersion(tenant), "Reconnect should forget versions");
+            System.out.println("Full flushes after reconnect: " + busB.getFullFlushCount());
+        }
+        finally {
+            busA.stop();
+            busB.stop();
+        }
+    }
+    
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) Assert.fail("Timed out waiting for condition");
+            Thread.sleep(50);
+        }
+    }
+    
+    /* ********************************************************************** */
+    /*                            RecordingListener                           */
+    /* ********************************************************************** */
+    private static final class RecordingListener implements ISkInvalidationListener
+    {
+        private final List<SkAuthzChange> changes = new CopyOnWriteArrayList<>();
+        private final AtomicInteger flushes = new AtomicInteger();
+        
+        @Override
+        public void invalidate(SkAuthzChange change) {changes.add(change);}
+        @Override
+        public void flushAll() {flushes.incrementAndGet();}
+    }
+}
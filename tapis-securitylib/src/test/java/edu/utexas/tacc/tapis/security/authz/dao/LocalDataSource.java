@@ -0,0 +1,52 @@
+package edu.utexas.tacc.tapis.security.authz.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/** A datasource without a database used to exercise datasource wrappers.
+ * Its connections do nothing and hand out a single prepared statement from
+ * both prepareStatement() and createStatement().  The statement's execute()
+ * returns true, executeUpdate() throws an SQLException and its other methods
+ * do nothing.
+ */
+public final class LocalDataSource
+{
+    private LocalDataSource() {}
+
+    /** Create a datasource.
+     *
+     * @return the new datasource
+     */
+    public static DataSource create()
+    {
+        var stmt = proxy(PreparedStatement.class, (p, m, a) -> {
+            if (m.getName().equals("executeUpdate")) throw new SQLException("fail");
+            return m.getName().equals("execute") ? Boolean.TRUE : defaultValue(m.getReturnType());
+        });
+        var conn = proxy(Connection.class, (p, m, a) ->
+            m.getName().equals("prepareStatement") || m.getName().equals("createStatement") ?
+                stmt : defaultValue(m.getReturnType()));
+        return proxy(DataSource.class, (p, m, a) ->
+            m.getName().equals("getConnection") ? conn : defaultValue(m.getReturnType()));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(LocalDataSource.class.getClassLoader(),
+                                                new Class<?>[] {type}, handler));
+    }
+
+    // Proxies can't return null from methods with primitive results.
+    private static Object defaultValue(Class<?> type)
+    {
+        if (type == boolean.class) return Boolean.FALSE;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+}
@@ -0,0 +1,180 @@
+package edu.utexas.tacc.tapis.security.authz.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkShare;
+import edu.utexas.tacc.tapis.security.authz.model.SkShareOutcome;
+import edu.utexas.tacc.tapis.security.authz.model.SkShareOutcome.Outcome;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+
+/** Exercise the set-based bulk share and unshare statements against the
+ * database.  The inputs overlap existing shares and contain duplicates so
+ * that each outcome is reported exactly once per distinct share.
+ */
+@Test(groups={"integration"})
+public class SkShareDaoBulkTest
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The shares referenced in this test.
+    private static final String tenant       = "testtenant";
+    private static final String grantor      = "testuser";
+    private static final String resourceType = "bulkTestResource";
+    private static final String privilege    = "READ";
+    private static final String creator      = "SkShareDaoBulkTest";
+    private static final String otherCreator = "SkShareDaoBulkTestOther";
+
+    /* ********************************************************************** */
+    /*                            Set Up / Tear Down                          */
+    /* ********************************************************************** */
+    @BeforeClass
+    public void setup() throws TapisException {deleteAll();}
+
+    @AfterClass
+    public void teardown() throws TapisException {deleteAll();}
+
+    /* ********************************************************************** */
+    /*                              Test Methods                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* shareOverlapTest:                                                      */
+    /* ---------------------------------------------------------------------- */
+    @Test
+    public void shareOverlapTest() throws TapisException
+    {
+        // Create one share individually.
+        var dao = new SkShareDao();
+        var existing = makeShare("grantee1", "res1", null);
+        existing.setCreatedBy(creator);
+        existing.setCreatedByTenant(tenant);
+        Assert.assertEquals(dao.shareResource(existing), 1);
+
+        // The bulk input repeats the existing share and duplicates a new one.
+        var input = new ArrayList<SkShare>();
+        input.add(makeShare("grantee1", "res1", null));
+        input.add(makeShare("grantee2", "res1", null));
+        input.add(makeShare("grantee2", "res1", null));
+        input.add(makeShare("grantee1", "res2", "sub"));
+        input.add(makeShare("grantee1", "res1", null));
+        var outcomes = dao.shareResources(input, creator, tenant);
+
+        // One outcome per distinct share in input order.
+        Assert.assertEquals(outcomes.size(), 3);
+        checkOutcome(outcomes.get(0), "grantee1", "res1", Outcome.EXISTED);
+        checkOutcome(outcomes.get(1), "grantee2", "res1", Outcome.CREATED);
+        checkOutcome(outcomes.get(2), "grantee1", "res2", Outcome.CREATED);
+        Assert.assertEquals(outcomes.get(2).getShare().getResourceId2(), "sub");
+
+        // Every outcome carries the database record.
+        for (var outcome : outcomes) {
+            Assert.assertTrue(outcome.getShare().getId() > 0);
+            Assert.assertEquals(outcome.getShare().getCreatedBy(), creator);
+        }
+
+        // Repeating the request creates nothing.
+        outcomes = dao.shareResources(input, creator, tenant);
+        Assert.assertEquals(outcomes.size(), 3);
+        for (var outcome : outcomes) Assert.assertEquals(outcome.getOutcome(), Outcome.EXISTED);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* deleteOverlapTest:                                                     */
+    /* ---------------------------------------------------------------------- */
+    @Test(dependsOnMethods = {"shareOverlapTest"})
+    public void deleteOverlapTest() throws TapisException
+    {
+        // Only shares created by the deleting service are removed.
+        var dao = new SkShareDao();
+        var input = List.of(makeShare("grantee2", "res1", null));
+        var outcomes = dao.deleteShares(input, otherCreator, tenant);
+        Assert.assertEquals(outcomes.size(), 1);
+        checkOutcome(outcomes.get(0), "grantee2", "res1", Outcome.NOT_FOUND);
+
+        // Delete a mix of existing, duplicated and missing shares.
+        input = List.of(makeShare("grantee2", "res1", null),
+                        makeShare("grantee3", "res1", null),
+                        makeShare("grantee2", "res1", null),
+                        makeShare("grantee1", "res2", "sub"));
+        outcomes = dao.deleteShares(input, creator, tenant);
+        Assert.assertEquals(outcomes.size(), 3);
+        checkOutcome(outcomes.get(0), "grantee2", "res1", Outcome.DELETED);
+        checkOutcome(outcomes.get(1), "grantee3", "res1", Outcome.NOT_FOUND);
+        checkOutcome(outcomes.get(2), "grantee1", "res2", Outcome.DELETED);
+        Assert.assertTrue(outcomes.get(0).getShare().getId() > 0);
+        Assert.assertEquals(outcomes.get(1).getShare().getId(), 0);
+
+        // Deleting again finds nothing.
+        outcomes = dao.deleteShares(input, creator, tenant);
+        for (var outcome : outcomes) Assert.assertEquals(outcome.getOutcome(), Outcome.NOT_FOUND);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* invalidInputTest:                                                      */
+    /* ---------------------------------------------------------------------- */
+    @Test
+    public void invalidInputTest() throws TapisException
+    {
+        // A single bad share rejects the whole batch.
+        var dao = new SkShareDao();
+        var input = new ArrayList<SkShare>();
+        input.add(makeShare("grantee1", "res3", null));
+        input.add(makeShare("grantee1", null, null));
+        Assert.assertThrows(TapisException.class, () -> dao.shareResources(input, creator, tenant));
+        Assert.assertThrows(TapisException.class, () -> dao.deleteShares(input, creator, tenant));
+        Assert.assertThrows(TapisException.class, () -> dao.shareResources(List.of(), creator, tenant));
+        Assert.assertThrows(TapisException.class,
+                            () -> dao.shareResources(List.of(makeShare("grantee1", "res3", null)),
+                                                     null, tenant));
+    }
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* makeShare:                                                             */
+    /* ---------------------------------------------------------------------- */
+    private SkShare makeShare(String grantee, String resourceId1, String resourceId2)
+    {
+        var skshare = new SkShare();
+        skshare.setTenant(tenant);
+        skshare.setGrantor(grantor);
+        skshare.setGrantee(grantee);
+        skshare.setResourceType(resourceType);
+        skshare.setResourceId1(resourceId1);
+        skshare.setResourceId2(resourceId2);
+        skshare.setPrivilege(privilege);
+        return skshare;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* checkOutcome:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private void checkOutcome(SkShareOutcome outcome, String grantee, String resourceId1,
+                              Outcome expected)
+    {
+        Assert.assertEquals(outcome.getOutcome(), expected);
+        Assert.assertEquals(outcome.getShare().getGrantee(), grantee);
+        Assert.assertEquals(outcome.getShare().getResourceId1(), resourceId1);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* deleteAll:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Delete the shares created by prior runs of this test. */
+    private void deleteAll() throws TapisException
+    {
+        var shares = new ArrayList<SkShare>();
+        for (var grantee : List.of("grantee1", "grantee2", "grantee3"))
+            for (var resourceId1 : List.of("res1", "res3"))
+                shares.add(makeShare(grantee, resourceId1, null));
+        shares.add(makeShare("grantee1", "res2", "sub"));
+        new SkShareDao().deleteShares(shares, creator, tenant);
+    }
+}
@@ -0,0 +1,184 @@
+package edu.utexas.tacc.tapis.security.authz.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkAccessResult.AccessSource;
+import edu.utexas.tacc.tapis.security.authz.model.SkAccessSelector;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
+
+@Test(groups= {"unit"})
+public class AccessImplTest
+{
+    @Test(enabled=true)
+    public void validationTest()
+    {
+        var impl = new AccessImpl(2, new TestLookups(true, true, true));
+
+        // Tenant, user and at least one source are required.
+        Assert.assertThrows(TapisImplException.class, () -> impl.checkAccess(null));
+        var sel = makeSelector(true, false);
+        sel.setTenant(null);
+        checkBadRequest(impl, sel);
+        sel = makeSelector(false, false);
+        checkBadRequest(impl, sel);
+
+        // Share fields are all or nothing, except for resourceId2.
+        sel = makeSelector(true, false);
+        sel.setResourceType("tapis/system");
+        checkBadRequest(impl, sel);
+        sel = makeSelector(false, true);
+        sel.setPrivilege(null);
+        checkBadRequest(impl, sel);
+        sel = makeSelector(false, true);
+        sel.setResourceId2(null);
+        Assert.assertTrue(sel.hasShareSource());
+    }
+
+    @Test(enabled=true)
+    public void singleSourceTest() throws TapisImplException
+    {
+        // Only the specified source is consulted.
+        var lookups = new TestLookups(true, true, false);
+        var impl = new AccessImpl(2, lookups);
+        Assert.assertEquals(impl.checkAccess(makeSelector(true, false)).getSource(), AccessSource.PERMISSION);
+        Assert.assertEquals(lookups.shareCalls.get(), 0);
+        Assert.assertEquals(impl.checkAccess(makeSelector(false, true)).getSource(), AccessSource.SHARE);
+        Assert.assertEquals(lookups.permCalls.get(), 1);
+
+        // Denials are reported as such.
+        impl = new AccessImpl(2, new TestLookups(false, false, false));
+        var result = impl.checkAccess(makeSelector(true, false));
+        Assert.assertFalse(result.isAuthorized());
+        Assert.assertEquals(result.getSource(), AccessSource.NONE);
+    }
+
+    @Test(enabled=true)
+    public void bothSourcesTest() throws TapisImplException
+    {
+        // A share grant is reported before the permission lookup completes.
+        var impl = new AccessImpl(2, new TestLookups(true, true, false));
+        Assert.assertEquals(impl.checkAccess(makeSelector(true, true)).getSource(), AccessSource.SHARE);
+        impl = new AccessImpl(2, new TestLookups(true, false, false));
+        Assert.assertEquals(impl.checkAccess(makeSelector(true, true)).getSource(), AccessSource.PERMISSION);
+        impl = new AccessImpl(2, new TestLookups(false, false, false));
+        Assert.assertEquals(impl.checkAccess(makeSelector(true, true)).getSource(), AccessSource.NONE);
+    }
+
+    @Test(enabled=true)
+    public void adminTest() throws TapisImplException
+    {
+        // The administrator role is only consulted when requested and no
+        // other source grants access.
+        var lookups = new TestLookups(false, false, true);
+        var impl = new AccessImpl(2, lookups);
+        var sel = makeSelector(true, true);
+        Assert.assertEquals(impl.checkAccess(sel).getSource(), AccessSource.NONE);
+        sel.setOrAdmin(true);
+        var result = impl.checkAccess(sel);
+        Assert.assertTrue(result.isAuthorized());
+        Assert.assertEquals(result.getSource(), AccessSource.ADMIN);
+        Assert.assertEquals(lookups.adminCalls.get(), 1);
+
+        lookups = new TestLookups(true, false, true);
+        impl = new AccessImpl(2, lookups);
+        Assert.assertEquals(impl.checkAccess(sel).getSource(), AccessSource.PERMISSION);
+        Assert.assertEquals(lookups.adminCalls.get(), 0);
+    }
+
+    @Test(enabled=true)
+    public void errorTest() throws TapisImplException
+    {
+        // An error from one source is hidden when the other grants access.
+        var lookups = new TestLookups(true, false, false);
+        lookups.shareError = true;
+        var impl = new AccessImpl(2, lookups);
+        Assert.assertEquals(impl.checkAccess(makeSelector(true, true)).getSource(), AccessSource.PERMISSION);
+        lookups = new TestLookups(false, true, false);
+        lookups.permError = true;
+        impl = new AccessImpl(2, lookups);
+        Assert.assertEquals(impl.checkAccess(makeSelector(true, true)).getSource(), AccessSource.SHARE);
+
+        // Otherwise the error is surfaced unchanged.
+        lookups = new TestLookups(false, false, false);
+        lookups.shareError = true;
+        var impl2 = new AccessImpl(2, lookups);
+        var e = Assert.assertThrows(TapisImplException.class, () -> impl2.checkAccess(makeSelector(true, true)));
+        Assert.assertEquals(e.getMessage(), "share");
+        lookups = new TestLookups(false, false, false);
+        lookups.permError = true;
+        var impl3 = new AccessImpl(2, lookups);
+        e = Assert.assertThrows(TapisImplException.class, () -> impl3.checkAccess(makeSelector(true, true)));
+        Assert.assertEquals(e.getMessage(), "perm");
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeSelector:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private SkAccessSelector makeSelector(boolean perm, boolean share)
+    {
+        var sel = new SkAccessSelector();
+        sel.setTenant("dev");
+        sel.setUser("bud");
+        if (perm) sel.setPermSpec("system:dev:read:sys1");
+        if (share) {
+            sel.setResourceType("tapis/system");
+            sel.setResourceId1("sys1");
+            sel.setResourceId2("/home");
+            sel.setPrivilege("READ");
+        }
+        return sel;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* checkBadRequest:                                                       */
+    /* ---------------------------------------------------------------------- */
+    private void checkBadRequest(AccessImpl impl, SkAccessSelector sel)
+    {
+        var e = Assert.assertThrows(TapisImplException.class, () -> impl.checkAccess(sel));
+        Assert.assertEquals(e.condition, Condition.BAD_REQUEST);
+    }
+
+    /* ********************************************************************** */
+    /*                            TestLookups Class                           */
+    /* ********************************************************************** */
+    /** Lookups with fixed answers that count their calls. */
+    private static final class TestLookups
+     implements AccessImpl.Lookups
+    {
+        private final boolean permitted, shared, admin;
+        private boolean permError, shareError;
+        private final AtomicInteger permCalls  = new AtomicInteger();
+        private final AtomicInteger shareCalls = new AtomicInteger();
+        private final AtomicInteger adminCalls = new AtomicInteger();
+
+        private TestLookups(boolean permitted, boolean shared, boolean admin)
+        {this.permitted = permitted; this.shared = shared; this.admin = admin;}
+
+        @Override
+        public boolean isPermitted(SkAccessSelector sel) throws TapisImplException
+        {
+            permCalls.incrementAndGet();
+            if (permError) throw new TapisImplException("perm", Condition.INTERNAL_SERVER_ERROR);
+            return permitted;
+        }
+
+        @Override
+        public boolean isShared(SkAccessSelector sel) throws TapisImplException
+        {
+            shareCalls.incrementAndGet();
+            if (shareError) throw new TapisImplException("share", Condition.INTERNAL_SERVER_ERROR);
+            return shared;
+        }
+
+        @Override
+        public boolean isAdmin(SkAccessSelector sel) throws TapisImplException
+        {
+            adminCalls.incrementAndGet();
+            return admin;
+        }
+    }
+}
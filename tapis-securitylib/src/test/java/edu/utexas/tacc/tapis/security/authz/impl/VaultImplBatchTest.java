@@ -0,0 +1,158 @@
+package edu.utexas.tacc.tapis.security.authz.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkSecretBatchItem;
+import edu.utexas.tacc.tapis.security.secrets.IVaultManagerParms;
+import edu.utexas.tacc.tapis.security.secrets.LocalVaultServer;
+import edu.utexas.tacc.tapis.security.secrets.SecretPathMapper.SecretPathMapperParms;
+import edu.utexas.tacc.tapis.security.secrets.SecretType;
+import edu.utexas.tacc.tapis.security.secrets.VaultManager;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
+
+/** Exercise VaultImpl.secretReadBatch() against the local vault stand-in.  The
+ * vault manager is a process-wide singleton, so it is initialized here once
+ * and points at a server that is closed when the class completes.
+ */
+@Test(groups= {"unit"})
+public class VaultImplBatchTest
+{
+    private static final String tenant   = "dev";
+    private static final String user     = "bud";
+    private static final String roleId   = "sk-role";
+    private static final String secretId = "sk-secret";
+
+    private LocalVaultServer _server;
+
+    @BeforeClass
+    public void setup() throws Exception
+    {
+        _server = new LocalVaultServer(0);
+        _server.addAppRole(roleId, secretId);
+        VaultManager.getInstance(new Parms(_server.getAddress()));
+
+        // Two versions of one secret.
+        var impl = VaultImpl.getInstance();
+        for (String value : List.of("v1", "v2")) {
+            var secretMap = new HashMap<String,Object>();
+            secretMap.put("key", value);
+            impl.secretWrite(tenant, user, makeParms("s1"), secretMap);
+        }
+    }
+
+    @AfterClass
+    public void teardown() {if (_server != null) _server.close();}
+
+    @Test(enabled=true)
+    public void readTest() throws TapisImplException
+    {
+        // Mix reads that succeed, fail in vault and failed before the call.
+        var items = new ArrayList<SkSecretBatchItem>();
+        var parmsList = new ArrayList<SecretPathMapperParms>();
+        addItem(items, parmsList, "s1", 0, null);
+        addItem(items, parmsList, "missing", 0, null);
+        addItem(items, parmsList, "s1", 0, Condition.UNAUTHORIZED.name());
+        addItem(items, parmsList, "s1", 1, null);
+        addItem(items, parmsList, "s1", 9, null);
+        var result = VaultImpl.getInstance().secretReadBatch(tenant, user, items, parmsList);
+
+        // Each item keeps its position and records its own outcome.
+        Assert.assertEquals(result.items.size(), 5);
+        Assert.assertEquals(result.succeeded, 2);
+        Assert.assertEquals(result.failed, 3);
+        for (int i = 0; i < result.items.size(); i++)
+            Assert.assertEquals(result.items.get(i).index, i);
+        Assert.assertEquals(result.items.get(0).status, SkSecretBatchItem.STATUS_OK);
+        Assert.assertEquals(result.items.get(0).secret.secretMap.get("key"), "v2");
+        Assert.assertEquals(result.items.get(1).status, Condition.NOT_FOUND.name());
+        Assert.assertNotNull(result.items.get(1).message);
+        Assert.assertNull(result.items.get(1).secret);
+        Assert.assertEquals(result.items.get(3).status, SkSecretBatchItem.STATUS_OK);
+        Assert.assertEquals(result.items.get(3).secret.secretMap.get("key"), "v1");
+        Assert.assertEquals(result.items.get(4).status, Condition.NOT_FOUND.name());
+
+        // Items that already failed are not read.
+        Assert.assertEquals(result.items.get(2).status, Condition.UNAUTHORIZED.name());
+        Assert.assertNull(result.items.get(2).secret);
+    }
+
+    @Test(enabled=true)
+    public void invalidTest() throws TapisImplException
+    {
+        // A system secret without a system id fails only its own item.
+        var items = new ArrayList<SkSecretBatchItem>();
+        var parmsList = new ArrayList<SecretPathMapperParms>();
+        addItem(items, parmsList, "s1", 0, null);
+        addItem(items, parmsList, "s2", 0, null);
+        parmsList.set(1, new SecretPathMapperParms(SecretType.System));
+        var result = VaultImpl.getInstance().secretReadBatch(tenant, user, items, parmsList);
+        Assert.assertEquals(result.succeeded, 1);
+        Assert.assertEquals(result.items.get(1).status, Condition.BAD_REQUEST.name());
+
+        // The item and parameter lists must correspond.
+        var impl = VaultImpl.getInstance();
+        Assert.assertThrows(TapisImplException.class,
+                            () -> impl.secretReadBatch(tenant, user, null, parmsList));
+        Assert.assertThrows(TapisImplException.class,
+                            () -> impl.secretReadBatch(tenant, user, items, parmsList.subList(0, 1)));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* addItem:                                                               */
+    /* ---------------------------------------------------------------------- */
+    private void addItem(List<SkSecretBatchItem> items, List<SecretPathMapperParms> parmsList,
+                         String secretName, int version, String status)
+    {
+        var item = new SkSecretBatchItem();
+        item.index      = items.size();
+        item.secretType = SecretType.User.getUrlText();
+        item.secretName = secretName;
+        item.version    = version;
+        item.status     = status;
+        items.add(item);
+        parmsList.add(makeParms(secretName));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeParms:                                                             */
+    /* ---------------------------------------------------------------------- */
+    private SecretPathMapperParms makeParms(String secretName)
+    {
+        var parms = new SecretPathMapperParms(SecretType.User);
+        parms.setSecretName(secretName);
+        return parms;
+    }
+
+    /* ********************************************************************** */
+    /*                               Parms Class                              */
+    /* ********************************************************************** */
+    private static final class Parms
+     implements IVaultManagerParms
+    {
+        private final String _address;
+        private Parms(String address) {_address = address;}
+
+        @Override public boolean isVaultDisabled() {return false;}
+        @Override public boolean isVaultRenewalDisabled() {return true;}
+        @Override public String  getVaultAddress() {return _address;}
+        @Override public String  getVaultRoleId() {return roleId;}
+        @Override public String  getVaultSecretId() {return secretId;}
+        @Override public int     getVaultOpenTimeout() {return 5;}
+        @Override public int     getVaultReadTimeout() {return 10;}
+        @Override public boolean isVaultSslVerify() {return false;}
+        @Override public String  getVaultSslCertFile() {return null;}
+        @Override public String  getVaultSkKeyPemFile() {return null;}
+        @Override public int     getVaultRenewSeconds() {return 3600;}
+        @Override public int     getVaultRenewThreshold() {return 50;}
+        @Override public boolean isVaultClientPooled() {return true;}
+        @Override public int     getVaultClientMaxConcurrent() {return 4;}
+    }
+}
@@ -0,0 +1,249 @@
+package edu.utexas.tacc.tapis.security.commands;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/** A minimal in-memory stand-in for the kubernetes core v1 secrets API used
+ * to exercise SkAdminKubeDeployer without a cluster.  Only the calls issued by
+ * the deployer are supported and TLS is not available.  An optional latency is
+ * added to each call to simulate a remote API server.
+ *
+ * Secret data values are sent and returned as base64 text and stored decoded,
+ * as a real API server does, so values that aren't valid base64 are rejected
+ * with 400 Bad Request.  Patch requests can be rejected to simulate API 
+ * servers that don't accept them.
+ */
+public final class LocalKubeServer
+ implements AutoCloseable
+{
+    // The secrets API prefix.
+    private static final String PREFIX = "/api/v1/namespaces/";
+
+    // The server and its request threads.
+    private final HttpServer      _server;
+    private final ExecutorService _executor;
+    private final long            _latencyMillis;
+
+    // Secret data by namespace/name.
+    private final ConcurrentHashMap<String,TreeMap<String,String>> _secrets = new ConcurrentHashMap<>();
+
+    // Request counts by method.
+    private final ConcurrentHashMap<String,AtomicInteger> _requests = new ConcurrentHashMap<>();
+    private volatile boolean _rejectPatch;
+
+    /** Start a server on an ephemeral port. */
+    public LocalKubeServer(long latencyMillis) throws IOException
+    {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        _latencyMillis = latencyMillis;
+        _executor = Executors.newCachedThreadPool(r -> {
+            var t = new Thread(r, "LocalKube");
+            t.setDaemon(true);
+            return t;
+        });
+        _server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        _server.setExecutor(_executor);
+        _server.createContext(PREFIX, this::handle);
+        _server.start();
+    }
+
+    public String getAddress() {return "http://127.0.0.1:" + _server.getAddress().getPort();}
+
+    /** Respond to every patch request with 415 Unsupported Media Type. */
+    public void setRejectPatch(boolean rejectPatch) {_rejectPatch = rejectPatch;}
+
+    /** Return the number of requests received with the http method. */
+    public int getRequestCount(String method)
+    {
+        var count = _requests.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    /** Return a copy of a secret's decoded values or null if it doesn't exist. */
+    public Map<String,String> getSecret(String namespace, String name)
+    {
+        var data = _secrets.get(namespace + "/" + name);
+        if (data == null) return null;
+        synchronized (data) {return new TreeMap<>(data);}
+    }
+
+    /** Create or replace a secret with decoded values. */
+    public void putSecret(String namespace, String name, Map<String,String> data)
+    {
+        _secrets.put(namespace + "/" + name, new TreeMap<>(data));
+    }
+
+    @Override
+    public void close()
+    {
+        _server.stop(0);
+        _executor.shutdownNow();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* handle:                                                                */
+    /* ---------------------------------------------------------------------- */
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try {
+            if (_latencyMillis > 0) Thread.sleep(_latencyMillis);
+            String method = exchange.getRequestMethod();
+            _requests.computeIfAbsent(method, k -> new AtomicInteger()).incrementAndGet();
+
+            // Split /api/v1/namespaces/<ns>/secrets[/<name>].
+            String[] parts = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+            if (parts.length < 2 || !parts[1].equals("secrets"))
+                {status(exchange, 404, "NotFound", "Unknown resource."); return;}
+            String namespace = parts[0];
+            JsonObject body = null;
+            byte[] bytes = exchange.getRequestBody().readAllBytes();
+            if (bytes.length > 0)
+                body = JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject();
+
+            // Creation is the only collection call.
+            if (parts.length == 2) {
+                if (method.equals("POST")) create(exchange, namespace, body);
+                  else status(exchange, 405, "MethodNotAllowed", method);
+                return;
+            }
+            String key = namespace + "/" + parts[2];
+            switch (method) {
+                case "GET":    read(exchange, namespace, parts[2]); break;
+                case "PUT":    replace(exchange, namespace, parts[2], body); break;
+                case "PATCH":  patch(exchange, namespace, parts[2], body); break;
+                case "DELETE":
+                    if (_secrets.remove(key) == null) notFound(exchange, parts[2]);
+                      else status(exchange, 200, null, null);
+                    break;
+                default: status(exchange, 405, "MethodNotAllowed", method);
+            }
+        }
+        catch (InterruptedException e) {Thread.currentThread().interrupt();}
+        catch (IllegalArgumentException e) {status(exchange, 400, "BadRequest", "illegal base64 data");}
+        catch (Exception e) {status(exchange, 500, "InternalError", String.valueOf(e.getMessage()));}
+        finally {exchange.close();}
+    }
+
+    private void read(HttpExchange exchange, String namespace, String name) throws IOException
+    {
+        var data = getSecret(namespace, name);
+        if (data == null) notFound(exchange, name);
+          else respond(exchange, 200, toSecret(namespace, name, data));
+    }
+
+    private void create(HttpExchange exchange, String namespace, JsonObject body) throws IOException
+    {
+        String name = body.getAsJsonObject("metadata").get("name").getAsString();
+        var data = getData(body);
+        if (_secrets.putIfAbsent(namespace + "/" + name, data) != null)
+            {status(exchange, 409, "AlreadyExists", "secrets \"" + name + "\" already exists"); return;}
+        respond(exchange, 201, toSecret(namespace, name, data));
+    }
+
+    private void replace(HttpExchange exchange, String namespace, String name, JsonObject body)
+     throws IOException
+    {
+        var data = getData(body);
+        if (_secrets.replace(namespace + "/" + name, data) == null) notFound(exchange, name);
+          else respond(exchange, 200, toSecret(namespace, name, data));
+    }
+
+    private void patch(HttpExchange exchange, String namespace, String name, JsonObject body)
+     throws IOException
+    {
+        // Strategic merge and json merge patches treat the data map alike.
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (_rejectPatch || contentType == null || !contentType.contains("merge-patch+json"))
+            {status(exchange, 415, "UnsupportedMediaType", String.valueOf(contentType)); return;}
+        var data = _secrets.get(namespace + "/" + name);
+        if (data == null) {notFound(exchange, name); return;}
+
+        // Null values remove keys.  The whole patch is decoded before
+        // it's applied.
+        var patch = new TreeMap<String,String>();
+        var json = body.getAsJsonObject("data");
+        if (json != null)
+            for (var entry : json.entrySet())
+                patch.put(entry.getKey(), entry.getValue().isJsonNull() ? null : 
+                                          decode(entry.getValue().getAsString()));
+        TreeMap<String,String> copy;
+        synchronized (data) {
+            for (var entry : patch.entrySet())
+                if (entry.getValue() == null) data.remove(entry.getKey());
+                  else data.put(entry.getKey(), entry.getValue());
+            copy = new TreeMap<>(data);
+        }
+        respond(exchange, 200, toSecret(namespace, name, copy));
+    }
+
+    private static TreeMap<String,String> getData(JsonObject secret)
+    {
+        var data = new TreeMap<String,String>();
+        var json = secret.getAsJsonObject("data");
+        if (json != null) 
+            for (var entry : json.entrySet()) data.put(entry.getKey(), decode(entry.getValue().getAsString()));
+        return data;
+    }
+
+    // Invalid base64 throws IllegalArgumentException.
+    private static String decode(String base64)
+    {
+        return new String(Base64.getDecoder().decode(base64), StandardCharsets.UTF_8);
+    }
+
+    private static JsonObject toSecret(String namespace, String name, Map<String,String> data)
+    {
+        var meta = new JsonObject();
+        meta.addProperty("name", name);
+        meta.addProperty("namespace", namespace);
+        var json = new JsonObject();
+        var encoder = Base64.getEncoder();
+        for (var entry : data.entrySet()) 
+            json.addProperty(entry.getKey(), encoder.encodeToString(entry.getValue().getBytes(StandardCharsets.UTF_8)));
+        var secret = new JsonObject();
+        secret.addProperty("apiVersion", "v1");
+        secret.addProperty("kind", "Secret");
+        secret.add("metadata", meta);
+        secret.add("data", json);
+        secret.addProperty("type", "Opaque");
+        return secret;
+    }
+
+    private void notFound(HttpExchange exchange, String name) throws IOException
+    {
+        status(exchange, 404, "NotFound", "secrets \"" + name + "\" not found");
+    }
+
+    private void status(HttpExchange exchange, int code, String reason, String message) throws IOException
+    {
+        var status = new JsonObject();
+        status.addProperty("apiVersion", "v1");
+        status.addProperty("kind", "Status");
+        status.addProperty("status", code < 300 ? "Success" : "Failure");
+        if (message != null) status.addProperty("message", message);
+        if (reason != null) status.addProperty("reason", reason);
+        status.addProperty("code", code);
+        respond(exchange, code, status);
+    }
+
+    private void respond(HttpExchange exchange, int code, JsonObject json) throws IOException
+    {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
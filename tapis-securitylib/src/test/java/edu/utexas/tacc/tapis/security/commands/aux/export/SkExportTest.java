@@ -0,0 +1,136 @@
+package edu.utexas.tacc.tapis.security.commands.aux.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.TreeSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.secrets.LocalVaultServer;
+import edu.utexas.tacc.tapis.security.secrets.SkPooledVaultClient;
+
+@Test(groups= {"unit"})
+public class SkExportTest
+{
+    @Test(enabled=true)
+    public void parallelTest() throws Exception
+    {
+        try (var server = new LocalVaultServer(1)) {
+            // Populate a tree of several secret types.
+            var client = new SkPooledVaultClient(server.getAddress(), () -> "token", 8,
+                                                 false, true, 5000, 20000);
+            for (int t = 0; t < 4; t++) {
+                String tenant = "secret/tapis/tenant/t" + t + "/";
+                write(client, tenant + "jwtkey/keys", "privateKey", "prv" + t, "publicKey", "pub" + t);
+                for (int i = 0; i < 5; i++) {
+                    write(client, tenant + "service/svc" + i + "/kv/password", "password", "pwd" + i);
+                    write(client, tenant + "user/u" + i + "/kv/secret" + i, "a", "b" + i, "c.d", "e");
+                    write(client, tenant + "system/sys" + i + "/user/u" + i + "/sshkey/S1",
+                          "privateKey", "sprv" + i, "publicKey", "spub" + i);
+                }
+            }
+            
+            // The parallel walk writes exactly what the serial walk does.
+            for (String format : new String[] {"JSON", "ENV"}) {
+                String serial = export(server, format, 1);
+                Assert.assertTrue(serial.contains("pwd4"));
+                Assert.assertEquals(export(server, format, 8), serial, format);
+            }
+        }
+    }
+    
+    @Test(enabled=true)
+    public void streamingTest() throws Exception
+    {
+        try (var server = new LocalVaultServer(0)) {
+            // 100,000 secrets of 1 KB each, generated as they are read.
+            server.addSyntheticUserSecrets("synth", 1000, 100, 1024);
+            
+            // Vault lists keys in lexicographic order.
+            var users = new TreeSet<String>();
+            for (int i = 0; i < 1000; i++) users.add(Integer.toString(i));
+            var secrets = new TreeSet<String>();
+            for (int j = 0; j < 100; j++) secrets.add(Integer.toString(j));
+            var expected = new DigestStream();
+            for (String i : users)
+                for (String j : secrets) {
+                    var line = new StringBuilder("USER_SYNTH_U").append(i).append("_S").append(j)
+                                 .append("_VALUE=").append(i).append('.').append(j);
+                    while (line.length() < 1024 + line.indexOf("=") + 1) line.append('x');
+                    expected.write(line.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+                }
+            expected.write('\n');
+            
+            // Every secret is written in depth-first order without buffering 
+            // more than the lookahead.
+            var parallel = new DigestStream();
+            var skExport = export(server, "ENV", 8, parallel);
+            Assert.assertEquals(parallel.lines, 100001);
+            Assert.assertEquals(parallel.getDigest(), expected.getDigest());
+            Assert.assertTrue(skExport.getMaxBufferedPaths() > 0);
+            Assert.assertTrue(skExport.getMaxBufferedPaths() <= 8 * 16 + 8, 
+                              "buffered " + skExport.getMaxBufferedPaths());
+        }
+    }
+    
+    private static void write(SkPooledVaultClient client, String path, String... kv) throws Exception
+    {
+        var secretMap = new HashMap<String,Object>();
+        for (int i = 0; i < kv.length; i += 2) secretMap.put(kv[i], kv[i + 1]);
+        Assert.assertEquals(client.write(path, secretMap).getStatus(), 200);
+    }
+    
+    private static String export(LocalVaultServer server, String format, int workers)
+     throws Exception
+    {
+        var buf = new ByteArrayOutputStream();
+        export(server, format, workers, buf);
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+    
+    private static synchronized SkExport export(LocalVaultServer server, String format, int workers,
+                                                OutputStream out)
+     throws Exception
+    {
+        var parms = new SkExportParameters(new String[] {"-vtok", "token", "-vurl", server.getAddress(),
+                                                         "-format", format, "-noskip",
+                                                         "-workers", Integer.toString(workers)});
+        var stdout = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        var skExport = new SkExport(parms);
+        try {skExport.export();}
+            finally {System.setOut(stdout);}
+        return skExport;
+    }
+    
+    // Digests and counts the lines of everything written without retaining it.
+    private static final class DigestStream extends OutputStream
+    {
+        private final MessageDigest md = newDigest();
+        private long lines;
+        
+        @Override
+        public void write(int b) {md.update((byte) b); if (b == '\n') lines++;}
+        
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            md.update(b, off, len);
+            for (int i = off; i < off + len; i++) if (b[i] == '\n') lines++;
+        }
+        
+        private String getDigest() {return HexFormat.of().formatHex(md.digest());}
+        
+        private static MessageDigest newDigest()
+        {
+            try {return MessageDigest.getInstance("SHA-256");}
+                catch (Exception e) {throw new IllegalStateException(e);}
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package edu.utexas.tacc.tapis.security.commands.aux.load;
+
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.authz.dao.LocalDataSource;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+
+@Test(groups= {"unit"})
+public class SkAuthzLoadTest
+{
+    @Test(enabled=true)
+    public void tenantTest() throws Exception
+    {
+        String[] args = {"-load", "-users", "50", "-roles", "40", "-depth", "4", "-fanout", "3"};
+        var tenant = new SkSyntheticTenant(new SkAuthzLoadParms(args));
+        
+        // The same seed always generates the same tenant.
+        var again = new SkSyntheticTenant(new SkAuthzLoadParms(args));
+        Assert.assertEquals(again.getRoles(), tenant.getRoles());
+        for (int i = 0; i < 50; i++) {
+            Assert.assertTrue(Arrays.equals(again.getUserRoles(i), tenant.getUserRoles(i)));
+            Assert.assertEquals(again.getEffectivePermissions(i), tenant.getEffectivePermissions(i));
+        }
+        Assert.assertEquals(again.getShares().size(), tenant.getShares().size());
+        
+        // Child roles always come from the next level down.
+        Assert.assertEquals(tenant.getRoles().size(), 40);
+        Assert.assertEquals(tenant.getLevelStart(0), 0);
+        Assert.assertEquals(tenant.getLevelStart(4), 40);
+        for (int level = 0; level < 4; level++)
+            for (int r = tenant.getLevelStart(level); r < tenant.getLevelStart(level + 1); r++)
+                for (int child : tenant.getChildren(r)) {
+                    Assert.assertTrue(child >= tenant.getLevelStart(level + 1));
+                    Assert.assertTrue(child < tenant.getLevelStart(level + 2));
+                }
+        
+        // A different seed generates a different tenant.
+        var other = new SkSyntheticTenant(new SkAuthzLoadParms(new String[] {"-load", "-seed", "2"}));
+        Assert.assertNotEquals(other.getEffectivePermissions(0), 
+                               new SkSyntheticTenant(new SkAuthzLoadParms(new String[] {"-load"})).getEffectivePermissions(0));
+    }
+    
+    @Test(enabled=true)
+    public void mixTest() throws Exception
+    {
+        var parms = new SkAuthzLoadParms(new String[] {"-load", "-mix", "isPermitted:60,hasRole:40"});
+        Assert.assertEquals(parms.mixPct.get(SkAuthzLoadParms.LoadOperation.isPermitted), Integer.valueOf(60));
+        Assert.assertNull(parms.mixPct.get(SkAuthzLoadParms.LoadOperation.hasPrivilege));
+        
+        for (String mix : new String[] {"isPermitted:60,hasRole:30", "isPermitted:105,hasRole:-5",
+                                        "isAllowed:100", "isPermitted"})
+            Assert.assertThrows(TapisException.class, 
+                                () -> new SkAuthzLoadParms(new String[] {"-load", "-mix", mix}));
+        Assert.assertThrows(TapisException.class, () -> new SkAuthzLoadParms(new String[] {"-users", "5"}));
+    }
+    
+    @Test(enabled=true)
+    public void counterTest() throws Exception
+    {
+        // Statement executions and commits are counted, other calls are not.
+        var counter = new SkDbCallCounter();
+        var counted = counter.wrap(LocalDataSource.create());
+        try (var c = counted.getConnection(); var s = c.prepareStatement("select 1")) {
+            Assert.assertTrue(s.execute());
+            s.executeQuery();
+            c.setAutoCommit(false);
+            c.commit();
+        }
+        Assert.assertEquals(counter.getThreadCount(), 3);
+        
+        // Other threads only add to the total.
+        var t = new Thread(() -> {
+            try (var c = counted.getConnection()) {c.rollback();} catch (Exception e) {}
+        });
+        t.start();
+        t.join();
+        Assert.assertEquals(counter.getThreadCount(), 3);
+        Assert.assertEquals(counter.getTotalCount(), 4);
+    }
+}
@@ -0,0 +1,168 @@
+package edu.utexas.tacc.tapis.security.commands.aux.transfer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.secrets.LocalVaultServer;
+import edu.utexas.tacc.tapis.security.secrets.SkPooledVaultClient;
+
+@Test(groups= {"unit"})
+public class TransferSecretsTest
+{
+    @Test(enabled=true)
+    public void resumeTest() throws Exception
+    {
+        var checkpoint = Files.createTempFile("TransferSecretsTest", ".txt");
+        try (var source = new LocalVaultServer(1); var target = new LocalVaultServer(1)) {
+            // Populate the source.
+            var sourceClient = newClient(source);
+            var paths = new ArrayList<String>();
+            for (int t = 0; t < 4; t++)
+                for (int i = 0; i < 10; i++) {
+                    String path = "tapis/tenant/t" + t + "/service/svc" + i + "/kv/password";
+                    var secretMap = new HashMap<String,Object>();
+                    secretMap.put("password", "pwd" + t + i);
+                    Assert.assertEquals(sourceClient.write("secret/" + path, secretMap).getStatus(), 200);
+                    paths.add(path);
+                }
+
+            // A previous run copied the first 5 secrets.
+            Files.write(checkpoint, paths.subList(0, 5), StandardCharsets.UTF_8);
+
+            // Only the remaining secrets are copied.
+            transfer(source, target, checkpoint, 4, 0);
+            var targetClient = newClient(target);
+            for (int i = 0; i < paths.size(); i++)
+                Assert.assertEquals(targetClient.read("secret/" + paths.get(i), 0).getStatus(),
+                                    i < 5 ? 404 : 200, paths.get(i));
+            List<String> recorded = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+            Assert.assertEquals(recorded.size(), paths.size());
+            Assert.assertEquals(new TreeSet<>(recorded), new TreeSet<>(paths));
+
+            // Rerunning copies nothing more.
+            transfer(source, target, checkpoint, 4, 0);
+            for (int i = 5; i < paths.size(); i++) {
+                var body = new String(targetClient.read("secret/" + paths.get(i), 0).getBody(),
+                                      StandardCharsets.UTF_8);
+                Assert.assertTrue(body.contains("\"version\":1"), body);
+            }
+            Assert.assertEquals(Files.readAllLines(checkpoint, StandardCharsets.UTF_8).size(), paths.size());
+        }
+        finally {Files.deleteIfExists(checkpoint);}
+    }
+
+    @Test(enabled=true)
+    public void rateTest() throws Exception
+    {
+        try (var source = new LocalVaultServer(0); var target = new LocalVaultServer(0)) {
+            var sourceClient = newClient(source);
+            for (int i = 0; i < 21; i++) {
+                var secretMap = new HashMap<String,Object>();
+                secretMap.put("password", "pwd" + i);
+                sourceClient.write("secret/tapis/tenant/t/service/svc" + i + "/kv/password", secretMap);
+            }
+
+            // 21 writes at 50 per second take at least 400 milliseconds.
+            long start = System.currentTimeMillis();
+            transfer(source, target, null, 8, 50);
+            Assert.assertTrue(System.currentTimeMillis() - start >= 400);
+            Assert.assertEquals(newClient(target).read("secret/tapis/tenant/t/service/svc20/kv/password", 0)
+                                  .getStatus(), 200);
+        }
+    }
+
+    @Test(enabled=true)
+    public void deltaTest() throws Exception
+    {
+        try (var source = new LocalVaultServer(0); var target = new LocalVaultServer(0)) {
+            // Copy 10 secrets.
+            var sourceClient = newClient(source);
+            var targetClient = newClient(target);
+            for (int i = 0; i < 10; i++) write(sourceClient, svcPath(i), "pwd" + i);
+            transfer(source, target, null, 1, 0);
+            
+            // Update 2 secrets, add 1 and leave 1 behind in the target.
+            Thread.sleep(5);
+            write(sourceClient, svcPath(0), "new0");
+            write(sourceClient, svcPath(1), "new1");
+            write(sourceClient, svcPath(10), "pwd10");
+            write(targetClient, svcPath(11), "old11");
+            
+            // Only the new and updated secrets are written, serially or in parallel.
+            for (int workers : new int[] {4, 1}) {
+                transfer(source, target, null, workers, 0, "-delta", "-prune");
+                for (int i = 0; i < 11; i++) 
+                    Assert.assertTrue(read(targetClient, svcPath(i)).contains("\"version\":" + (i < 2 ? 2 : 1)),
+                                      svcPath(i));
+                Assert.assertTrue(read(targetClient, svcPath(0)).contains("new0"));
+                Assert.assertEquals(targetClient.read(svcPath(11), 0).getStatus(), 404);
+            }
+        }
+    }
+
+    @Test(enabled=true)
+    public void pruneGuardTest() throws Exception
+    {
+        try (var source = new LocalVaultServer(0); var target = new LocalVaultServer(0)) {
+            // An empty or unreadable source never empties the target.
+            var targetClient = newClient(target);
+            write(targetClient, svcPath(0), "pwd0");
+            for (int workers : new int[] {4, 1}) {
+                transfer(source, target, null, workers, 0, "-delta", "-prune");
+                Assert.assertEquals(targetClient.read(svcPath(0), 0).getStatus(), 200);
+            }
+
+            // Target secrets are pruned once the source has secrets.
+            write(newClient(source), svcPath(1), "pwd1");
+            transfer(source, target, null, 1, 0, "-delta", "-prune");
+            Assert.assertEquals(targetClient.read(svcPath(0), 0).getStatus(), 404);
+            Assert.assertEquals(targetClient.read(svcPath(1), 0).getStatus(), 200);
+        }
+    }
+
+    private static String svcPath(int i) {return "secret/tapis/tenant/t/service/svc" + i + "/kv/password";}
+    
+    private static void write(SkPooledVaultClient client, String path, String password) throws Exception
+    {
+        var secretMap = new HashMap<String,Object>();
+        secretMap.put("password", password);
+        Assert.assertEquals(client.write(path, secretMap).getStatus(), 200);
+    }
+    
+    private static String read(SkPooledVaultClient client, String path) throws Exception
+    {
+        return new String(client.read(path, 0).getBody(), StandardCharsets.UTF_8);
+    }
+
+    private static SkPooledVaultClient newClient(LocalVaultServer server) throws Exception
+    {
+        return new SkPooledVaultClient(server.getAddress(), () -> "token", 8, false, true, 5000, 20000);
+    }
+
+    private static synchronized void transfer(LocalVaultServer source, LocalVaultServer target,
+                                              Path checkpoint, int workers, int rate, String... extra)
+     throws Exception
+    {
+        var args = new ArrayList<String>(List.of("-stok", "token", "-surl", source.getAddress(),
+                                                 "-ttok", "token", "-turl", target.getAddress(),
+                                                 "-workers", Integer.toString(workers),
+                                                 "-rate", Integer.toString(rate)));
+        if (checkpoint != null) {args.add("-checkpoint"); args.add(checkpoint.toString());}
+        args.addAll(List.of(extra));
+        var parms = new TransferSecretsParms(args.toArray(new String[0]));
+        var stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {new TransferSecrets(parms).transfer();}
+            finally {System.setOut(stdout);}
+    }
+}
@@ -0,0 +1,305 @@
+package edu.utexas.tacc.tapis.security.commands.processors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonObject;
+
+import edu.utexas.tacc.tapis.security.client.model.SecretType;
+import edu.utexas.tacc.tapis.security.commands.SkAdminParameters;
+import edu.utexas.tacc.tapis.security.commands.model.ISkAdminDeployRecorder;
+import edu.utexas.tacc.tapis.security.commands.model.SkAdminUser;
+import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+
+/** Exercise the processing shared by all SkAdmin processors against an
+ * in-memory vault.  The results singleton accumulates across tests, so
+ * outcomes are checked as differences in its counters.
+ */
+@Test(groups= {"unit"})
+public class SkAdminAbstractProcessorTest
+{
+    @Test(enabled=true)
+    public void diffTest() throws Exception
+    {
+        // One unchanged, one changed, one new and one unreadable secret.
+        var vault = new ConcurrentHashMap<String,Map<String,String>>();
+        vault.put("s0", Map.of("k", "v0"));
+        vault.put("s1", Map.of("k", "old"));
+        var secrets = List.of(makeSecret("s0", "v0"), makeSecret("s1", "new"),
+                              makeSecret("s2", "v2"), makeSecret("bad3", "v3"));
+        var processor = new TestProcessor(secrets, vault, "-u", "-diff", "-workers", "4");
+
+        // Every secret is read once and the unreadable one fails.
+        var before = getResults();
+        processor.plan();
+        Assert.assertEquals(processor.reads.get(), 4);
+        Assert.assertTrue(secrets.get(3).failed);
+        Assert.assertFalse(secrets.get(3).planned);
+        Assert.assertFalse(secrets.get(0).plannedWrite);
+        Assert.assertTrue(secrets.get(1).plannedWrite);
+        Assert.assertTrue(secrets.get(2).plannedWrite);
+
+        // Only differences are written and failed secrets are not retried.
+        processor.update();
+        Assert.assertEquals(processor.writes.get(), 2);
+        Assert.assertEquals(vault.get("s1"), Map.of("k", "new"));
+        Assert.assertEquals(vault.get("s2"), Map.of("k", "v2"));
+        Assert.assertFalse(vault.containsKey("bad3"));
+        var after = getResults();
+        Assert.assertEquals(delta(before, after, "secretsUpdated"), 2);
+        Assert.assertEquals(delta(before, after, "secretsUnchanged"), 1);
+        Assert.assertEquals(delta(before, after, "secretsFailed"), 1);
+
+        // Deployment uses the planned values without reading vault again.
+        var records = new ArrayList<String>();
+        processor.deploy((name, key, value) -> records.add(name + "/" + key + "=" + value));
+        Assert.assertEquals(records, List.of("kube/s0=v0", "kube/s1=new", "kube/s2=v2"));
+        Assert.assertEquals(processor.reads.get(), 4);
+    }
+
+    @Test(enabled=true)
+    public void planTest() throws Exception
+    {
+        // Creates skip existing secrets, updates report changed values.
+        var vault = new ConcurrentHashMap<String,Map<String,String>>();
+        vault.put("s0", Map.of("k", "v0"));
+        vault.put("s1", Map.of("k", "old"));
+        for (String op : new String[] {"-c", "-u"}) {
+            var secrets = List.of(makeSecret("s0", "v0"), makeSecret("s1", "new"),
+                                  makeSecret("s2", "v2"));
+            var processor = new TestProcessor(secrets, vault, op, "-plan");
+            var before = getResults();
+            processor.plan();
+            if (op.equals("-c")) processor.create(); else processor.update();
+
+            // Nothing is written.
+            var after = getResults();
+            Assert.assertEquals(processor.writes.get(), 0);
+            Assert.assertEquals(vault.get("s1"), Map.of("k", "old"));
+            Assert.assertFalse(vault.containsKey("s2"));
+            Assert.assertEquals(delta(before, after, "secretsCreated") +
+                                delta(before, after, "secretsUpdated"), 0);
+            if (op.equals("-c")) {
+                Assert.assertEquals(delta(before, after, "secretsPlanned"), 1);
+                Assert.assertEquals(delta(before, after, "secretsSkipped"), 2);
+            } else {
+                Assert.assertEquals(delta(before, after, "secretsPlanned"), 2);
+                Assert.assertEquals(delta(before, after, "secretsUnchanged"), 1);
+            }
+        }
+    }
+
+    @Test(enabled=true)
+    public void planInterruptTest() throws Exception
+    {
+        // An interrupted plan stops the run instead of writing unplanned secrets.
+        var vault = new ConcurrentHashMap<String,Map<String,String>>();
+        var secrets = List.of(makeSecret("slow0", "v0"), makeSecret("s1", "v1"));
+        var processor = new TestProcessor(secrets, vault, "-u", "-diff", "-workers", "2");
+        Thread.currentThread().interrupt();
+        try {
+            Assert.assertThrows(TapisRuntimeException.class, processor::plan);
+            Assert.assertTrue(Thread.currentThread().isInterrupted());
+        }
+        finally {Thread.interrupted();}
+        Assert.assertFalse(secrets.get(0).planned);
+    }
+
+    @Test(enabled=true)
+    public void runTasksTest() throws Exception
+    {
+        // Tasks run concurrently up to the worker limit.
+        var active = new AtomicInteger();
+        var maxActive = new AtomicInteger();
+        var tasks = new ArrayList<Runnable>();
+        for (int i = 0; i < 20; i++) {
+            String message = "runTasksTest " + i;
+            tasks.add(() -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                sleep(20);
+                active.decrementAndGet();
+                SkAdminAbstractProcessor._results.recordSkipped(SkAdminAbstractProcessor.Op.create, SecretType.User, message);
+            });
+        }
+        var before = getResults();
+        SkAdminAbstractProcessor.runTasks(tasks, 4);
+        Assert.assertEquals(delta(before, getResults(), "secretsSkipped"), 20);
+        Assert.assertTrue(maxActive.get() > 1 && maxActive.get() <= 4, "maxActive " + maxActive);
+
+        // Outcomes are recorded in task order, so a failure drops the outcomes
+        // of later tasks even when they finish first.
+        tasks.set(5, () -> {
+            sleep(100);
+            throw new IllegalStateException("task failed");
+        });
+        before = getResults();
+        Assert.assertThrows(IllegalStateException.class, () -> SkAdminAbstractProcessor.runTasks(tasks, 4));
+        Assert.assertEquals(delta(before, getResults(), "secretsSkipped"), 5);
+    }
+
+    @Test(enabled=true)
+    public void forEachSecretTest() throws Exception
+    {
+        // Secrets with the same path are written in input order even when
+        // the first write is the slowest.
+        var vault = new ConcurrentHashMap<String,Map<String,String>>();
+        vault.put("s1", Map.of("k", "v1"));
+        var secrets = new ArrayList<SkAdminUser>();
+        secrets.add(makeSecret("same", "slow-a"));
+        for (int i = 0; i < 8; i++) secrets.add(makeSecret("s" + i, "v" + i));
+        secrets.add(makeSecret("same", "b"));
+        secrets.add(makeSecret("same", "c"));
+        var processor = new TestProcessor(secrets, vault, "-u", "-workers", "4");
+        var before = getResults();
+        processor.update();
+        Assert.assertEquals(processor.written.get("same"), List.of("slow-a", "b", "c"));
+        Assert.assertEquals(vault.get("same"), Map.of("k", "c"));
+
+        // The outcome of every secret is recorded.
+        var after = getResults();
+        Assert.assertEquals(processor.writes.get(), secrets.size());
+        Assert.assertEquals(delta(before, after, "secretsUpdated"), secrets.size());
+        Assert.assertEquals(delta(before, after, "secretsFailed"), 0);
+
+        // Creates skip the secrets that now exist.
+        secrets.add(makeSecret("new", "v"));
+        processor = new TestProcessor(secrets, vault, "-c", "-workers", "4");
+        before = getResults();
+        processor.create();
+        after = getResults();
+        Assert.assertEquals(delta(before, after, "secretsCreated"), 1);
+        Assert.assertEquals(delta(before, after, "secretsSkipped"), secrets.size() - 1);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeSecret:                                                            */
+    /* ---------------------------------------------------------------------- */
+    private static SkAdminUser makeSecret(String secretName, String value)
+    {
+        var secret = new SkAdminUser();
+        secret.tenant         = "dev";
+        secret.user           = "bud";
+        secret.secretName     = secretName;
+        secret.key            = "k";
+        secret.value          = value;
+        secret.kubeSecretName = "kube";
+        secret.kubeSecretKey  = secretName;
+        return secret;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* sleep:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    private static void sleep(long millis)
+    {
+        try {Thread.sleep(millis);}
+            catch (InterruptedException e) {Thread.currentThread().interrupt();}
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getResults:                                                            */
+    /* ---------------------------------------------------------------------- */
+    private static JsonObject getResults()
+    {
+        return TapisGsonUtils.getGson().fromJson(SkAdminAbstractProcessor._results.toJson(),
+                                                 JsonObject.class);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* delta:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    private static int delta(JsonObject before, JsonObject after, String counter)
+    {
+        return after.get(counter).getAsInt() - before.get(counter).getAsInt();
+    }
+
+    /* ********************************************************************** */
+    /*                          TestProcessor Class                           */
+    /* ********************************************************************** */
+    /** A user secret processor whose vault is a map.  Secrets whose names
+     * start with "bad" can't be read and those that start with "slow" are read
+     * only after the processor is shut down.  Values that start with "slow" 
+     * take longer to write.
+     */
+    private static final class TestProcessor
+     extends SkAdminUserProcessor
+    {
+        private final Map<String,Map<String,String>> _vault;
+        private final CountDownLatch _slow = new CountDownLatch(1);
+        private final AtomicInteger  reads  = new AtomicInteger();
+        private final AtomicInteger  writes = new AtomicInteger();
+        private final Map<String,List<String>> written = new ConcurrentHashMap<>();
+
+        private TestProcessor(List<SkAdminUser> secrets, Map<String,Map<String,String>> vault,
+                              String... args)
+         throws Exception
+        {
+            super(secrets, makeParms(args));
+            _vault = vault;
+        }
+
+        private static SkAdminParameters makeParms(String... args) throws Exception
+        {
+            var list = new ArrayList<String>(List.of("-i", "unused", "-b", "http://unused",
+                                                     "-vr", "r", "-vs", "s"));
+            list.addAll(List.of(args));
+            return new SkAdminParameters(list.toArray(new String[0]));
+        }
+
+        @Override
+        protected void create(SkAdminUser secret)
+        {
+            if (_vault.containsKey(secret.secretName))
+                _results.recordSkipped(Op.create, secret.getClientSecretType(),
+                                       makeSkippedMessage(Op.create, secret));
+              else update(secret, Op.create);
+        }
+
+        @Override
+        protected void update(SkAdminUser secret, Op msgOp)
+        {
+            writes.incrementAndGet();
+            if (secret.value.startsWith("slow")) sleep(50);
+            written.computeIfAbsent(secret.secretName, k -> Collections.synchronizedList(new ArrayList<>()))
+                   .add(secret.value);
+            _vault.put(secret.secretName, Map.of(secret.key, secret.value));
+            _results.recordSuccess(msgOp, secret.getClientSecretType(),
+                                   makeSuccessMessage(msgOp, secret));
+        }
+
+        @Override
+        protected void deploy(SkAdminUser secret, ISkAdminDeployRecorder recorder)
+        {
+            try {
+                var secretMap = getDeploySecretMap(secret);
+                recorder.addDeployRecord(secret.kubeSecretName, secret.kubeSecretKey,
+                                         secretMap.get(secret.key));
+            }
+            catch (Exception e) {
+                _results.recordFailure(Op.deploy, secret.getClientSecretType(),
+                                       makeFailureMessage(Op.deploy, secret, e.getMessage()));
+            }
+        }
+
+        @Override
+        protected Map<String,String> readSecretMap(SkAdminUser secret) throws Exception
+        {
+            reads.incrementAndGet();
+            if (secret.secretName.startsWith("bad")) throw new Exception("read failed");
+            if (secret.secretName.startsWith("slow")) _slow.await(10, TimeUnit.SECONDS);
+            var map = _vault.get(secret.secretName);
+            return map == null ? null : new HashMap<>(map);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package edu.utexas.tacc.tapis.security.commands.processors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonObject;
+
+import edu.utexas.tacc.tapis.security.commands.LocalKubeServer;
+import edu.utexas.tacc.tapis.security.commands.SkAdminParameters;
+import edu.utexas.tacc.tapis.security.commands.model.SkAdminResults;
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+
+@Test(groups= {"unit"})
+public class SkAdminKubeDeployerTest
+{
+    private static final String NS = "tapis";
+
+    @Test(enabled=true)
+    public void patchMergeTest() throws Exception
+    {
+        try (var server = new LocalKubeServer(0)) {
+            server.putSecret(NS, "s1", Map.of("a", "a", "b", "b"));
+
+            // Existing secrets keep their other keys and new secrets are created.
+            deploy(server, "-dm", Map.of("s1", Map.of("b", "B", "c", "C"),
+                                         "s2", Map.of("x", "x")));
+            Assert.assertEquals(server.getSecret(NS, "s1"), Map.of("a", "a", "b", "B", "c", "C"));
+            Assert.assertEquals(server.getSecret(NS, "s2"), Map.of("x", "x"));
+            Assert.assertEquals(server.getRequestCount("PATCH"), 2);
+            Assert.assertEquals(server.getRequestCount("POST"), 1);
+            Assert.assertEquals(server.getRequestCount("DELETE"), 0);
+            Assert.assertEquals(server.getRequestCount("GET"), 0);
+        }
+    }
+
+    @Test(enabled=true)
+    public void patchReplaceTest() throws Exception
+    {
+        try (var server = new LocalKubeServer(0)) {
+            server.putSecret(NS, "s1", Map.of("a", "a", "b", "b"));
+
+            // Existing secrets lose their other keys.
+            deploy(server, "-dr", Map.of("s1", Map.of("b", "B")));
+            Assert.assertEquals(server.getSecret(NS, "s1"), Map.of("b", "B"));
+            Assert.assertEquals(server.getRequestCount("PUT"), 1);
+            Assert.assertEquals(server.getRequestCount("DELETE"), 0);
+        }
+    }
+
+    @Test(enabled=true)
+    public void patchDiffTest() throws Exception
+    {
+        try (var server = new LocalKubeServer(0)) {
+            server.putSecret(NS, "s1", Map.of("a", "a", "b", "b"));
+            server.putSecret(NS, "s2", Map.of("x", "x"));
+
+            // Only the changed secret is written and new secrets aren't patched first.
+            deploy(server, "-dm", Map.of("s1", Map.of("b", "b"), "s2", Map.of("x", "X"),
+                                         "s3", Map.of("y", "y")), "-diff");
+            Assert.assertEquals(server.getSecret(NS, "s2"), Map.of("x", "X"));
+            Assert.assertEquals(server.getSecret(NS, "s3"), Map.of("y", "y"));
+            Assert.assertEquals(server.getRequestCount("GET"), 3);
+            Assert.assertEquals(server.getRequestCount("PATCH"), 1);
+            Assert.assertEquals(server.getRequestCount("POST"), 1);
+        }
+    }
+
+    @Test(enabled=true)
+    public void patchEncodingTest() throws Exception
+    {
+        try (var server = new LocalKubeServer(0)) {
+            server.putSecret(NS, "s1", Map.of("a", "a"));
+
+            // A password that is also valid base64 is deployed as is, 
+            // whether the secret is patched or created.
+            String password = "Pass1234abcd";
+            deploy(server, "-dm", Map.of("s1", Map.of("password", password),
+                                         "s2", Map.of("password", password)));
+            Assert.assertEquals(server.getRequestCount("PATCH"), 2);
+            Assert.assertEquals(server.getRequestCount("POST"), 1);
+            Assert.assertEquals(server.getSecret(NS, "s1"), Map.of("a", "a", "password", password));
+            Assert.assertEquals(server.getSecret(NS, "s2"), Map.of("password", password));
+
+            // Reading the secrets back finds nothing to change.
+            var before = getResults();
+            deploy(server, "-dm", Map.of("s1", Map.of("password", password),
+                                         "s2", Map.of("password", password)), "-diff");
+            Assert.assertEquals(delta(before, getResults(), "secretsDeploymentsUnchanged"), 2);
+            Assert.assertEquals(server.getRequestCount("PATCH"), 2);
+        }
+    }
+
+    @Test(enabled=true)
+    public void concurrentTest() throws Exception
+    {
+        try (var server = new LocalKubeServer(20)) {
+            // Half the secrets exist and one of those already has its content.
+            var secrets = new HashMap<String,Map<String,String>>();
+            for (int i = 0; i < 12; i++) {
+                secrets.put("s" + i, Map.of("k", "v"));
+                if (i % 2 == 0) server.putSecret(NS, "s" + i, Map.of("k", i == 0 ? "v" : "old"));
+            }
+
+            // Planning reads and in-place writes run on several workers.
+            var before = getResults();
+            deploy(server, "-dm", secrets, "-kp", "-diff", "-workers", "4");
+            var after = getResults();
+            for (int i = 0; i < 12; i++) Assert.assertEquals(server.getSecret(NS, "s" + i), Map.of("k", "v"));
+            Assert.assertEquals(server.getRequestCount("GET"), 12);
+            Assert.assertEquals(server.getRequestCount("PATCH"), 5);
+            Assert.assertEquals(server.getRequestCount("POST"), 6);
+            Assert.assertEquals(server.getRequestCount("DELETE"), 0);
+            Assert.assertEquals(delta(before, after, "secretsDeploymentsUnchanged"), 1);
+            Assert.assertEquals(delta(before, after, "secretsDeployments"), 11);
+            Assert.assertEquals(delta(before, after, "secretsDeploymentsFailed"), 0);
+
+            // New secrets are written on several workers.
+            secrets.clear();
+            for (int i = 12; i < 20; i++) secrets.put("s" + i, Map.of("k", "v"));
+            before = getResults();
+            deploy(server, "-dr", secrets, "-diff", "-workers", "4");
+            after = getResults();
+            for (int i = 12; i < 20; i++) Assert.assertEquals(server.getSecret(NS, "s" + i), Map.of("k", "v"));
+            Assert.assertEquals(server.getRequestCount("POST"), 14);
+            Assert.assertEquals(server.getRequestCount("DELETE"), 0);
+            Assert.assertEquals(delta(before, after, "secretsDeployments"), 8);
+        }
+    }
+
+    private static JsonObject getResults()
+    {
+        return TapisGsonUtils.getGson().fromJson(SkAdminResults.getInstance().toJson(), JsonObject.class);
+    }
+
+    private static int delta(JsonObject before, JsonObject after, String counter)
+    {
+        return after.get(counter).getAsInt() - before.get(counter).getAsInt();
+    }
+
+    private static void deploy(LocalKubeServer server, String mode, Map<String,Map<String,String>> secrets,
+                               String... extra)
+     throws Exception
+    {
+        var args = new ArrayList<String>(List.of("-i", "unused", "-b", "http://unused", "-vr", "r", "-vs", "s",
+                                                 mode, "-kp", "-kt", "PATH", "-ku", server.getAddress(),
+                                                 "-kn", NS));
+        args.addAll(List.of(extra));
+        var kubeSecretMap = new HashMap<String,HashMap<String,String>>();
+        for (var entry : secrets.entrySet()) kubeSecretMap.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        new SkAdminKubeDeployer(kubeSecretMap, new SkAdminParameters(args.toArray(new String[0]))).deploy();
+    }
+}
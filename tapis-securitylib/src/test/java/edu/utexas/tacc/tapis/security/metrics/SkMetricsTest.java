@@ -0,0 +1,121 @@
+package edu.utexas.tacc.tapis.security.metrics;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.bettercloud.vault.VaultException;
+import com.bettercloud.vault.rest.RestResponse;
+
+import edu.utexas.tacc.tapis.security.authz.dao.LocalDataSource;
+import edu.utexas.tacc.tapis.security.authz.dao.sql.SqlStatements;
+import edu.utexas.tacc.tapis.security.secrets.ISkVaultClient;
+import edu.utexas.tacc.tapis.security.secrets.SkTimedVaultClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+@Test(groups= {"unit"})
+public class SkMetricsTest
+{
+    @Test(enabled=true)
+    public void statementNameTest()
+    {
+        // Constants are matched exactly or around their placeholders.
+        Assert.assertEquals(SkDbMetrics.getStatementName(SqlStatements.ROLE_SELECT_BY_NAME),
+                            "ROLE_SELECT_BY_NAME");
+        Assert.assertEquals(SkDbMetrics.getStatementName(SqlStatements.SELECT_1.replace(":table", "sk_role")),
+                            "SELECT_1");
+        String sql = SqlStatements.USER_SELECT_USERS_WITH_ROLE.replace(":namelist", "'a', 'b'");
+        Assert.assertEquals(SkDbMetrics.getStatementName(sql), "USER_SELECT_USERS_WITH_ROLE");
+        sql = SqlStatements.SHARE_HAS_PRIVILEGE.replace(":grantees", "'bud', '~public'");
+        Assert.assertEquals(SkDbMetrics.getStatementName(sql), "SHARE_HAS_PRIVILEGE");
+
+        // Anything else is unknown.
+        Assert.assertEquals(SkDbMetrics.getStatementName("SELECT now()"), SkDbMetrics.UNKNOWN_STATEMENT);
+        Assert.assertEquals(SkDbMetrics.getStatementName(null), SkDbMetrics.UNKNOWN_STATEMENT);
+    }
+
+    @Test(enabled=true)
+    public void statementTimerTest() throws Exception
+    {
+        // Executions are timed, other statement calls are not.  The
+        // datasource's statements fail on executeUpdate.
+        long before = getTimer(SkMetrics.DB_STATEMENT, "statement", "ROLE_SELECT_BY_NAME");
+        try (var c = SkDbMetrics.wrap(LocalDataSource.create()).getConnection();
+             var s = c.prepareStatement(SqlStatements.ROLE_SELECT_BY_NAME))
+        {
+            s.setString(1, "tenant");
+            Assert.assertTrue(s.execute());
+            s.executeQuery();
+            Assert.assertThrows(SQLException.class, () -> s.executeUpdate());
+        }
+        Assert.assertEquals(getTimer(SkMetrics.DB_STATEMENT, "statement", "ROLE_SELECT_BY_NAME"), before + 3);
+        Counter errors = SkMetrics.getRegistry().find(SkMetrics.DB_STATEMENT_ERRORS)
+                                  .tag("statement", "ROLE_SELECT_BY_NAME").counter();
+        Assert.assertNotNull(errors);
+        Assert.assertTrue(errors.count() >= 1);
+    }
+
+    @Test(enabled=true)
+    public void vaultTimerTest() throws Exception
+    {
+        // A client whose reads return the requested status and whose lists fail.
+        var loader = getClass().getClassLoader();
+        var inner = (ISkVaultClient) Proxy.newProxyInstance(loader, new Class<?>[] {ISkVaultClient.class},
+            (p, m, a) -> {
+                if (m.getName().equals("list")) throw new VaultException("fail");
+                return new RestResponse((Integer) a[1], "application/json", new byte[0]);
+            });
+
+        var client = new SkTimedVaultClient(inner);
+        long ok = getTimer(SkMetrics.VAULT_CALL, "operation", "read", "outcome", "2xx");
+        long notFound = getTimer(SkMetrics.VAULT_CALL, "operation", "read", "outcome", "4xx");
+        long error = getTimer(SkMetrics.VAULT_CALL, "operation", "list", "outcome", "error");
+        Assert.assertEquals(client.read("secret/a", 200).getStatus(), 200);
+        client.read("secret/a", 204);
+        client.read("secret/a", 404);
+        Assert.assertThrows(VaultException.class, () -> client.list("secret/"));
+
+        Assert.assertEquals(getTimer(SkMetrics.VAULT_CALL, "operation", "read", "outcome", "2xx"), ok + 2);
+        Assert.assertEquals(getTimer(SkMetrics.VAULT_CALL, "operation", "read", "outcome", "4xx"), notFound + 1);
+        Assert.assertEquals(getTimer(SkMetrics.VAULT_CALL, "operation", "list", "outcome", "error"), error + 1);
+    }
+
+    @Test(enabled=true)
+    public void bulkheadTest()
+    {
+        // Gauges and counters read the bulkhead when scraped.
+        var active = new AtomicInteger(3);
+        var rejected = new AtomicLong(5);
+        SkMetrics.setEnabled(true);
+        try {
+            SkMetrics.bindBulkhead("testbulkhead", active, Map.of("active", AtomicInteger::get),
+                                   Map.of("rejected", a -> rejected.get()));
+            SkMetrics.bindBulkhead("testbulkhead", new AtomicInteger(9), Map.of("active", AtomicInteger::get),
+                                   Map.of());
+        }
+        finally {SkMetrics.setEnabled(false);}
+        active.set(4);
+        rejected.incrementAndGet();
+        var registry = SkMetrics.getRegistry();
+        Assert.assertEquals(registry.find(SkMetrics.BULKHEAD_REQUESTS)
+                                    .tags("bulkhead", "testbulkhead", "state", "active").gauge().value(), 4.0);
+        Assert.assertEquals(registry.find(SkMetrics.BULKHEAD_EVENTS)
+                                    .tags("bulkhead", "testbulkhead", "event", "rejected").functionCounter().count(), 6.0);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getTimer:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Get a timer's count, 0 if it doesn't exist. */
+    private long getTimer(String name, String... tags)
+    {
+        Timer timer = SkMetrics.getRegistry().find(name).tags(tags).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,374 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/** A minimal in-memory stand-in for vault's KV version 2 secrets engine used
+ * to exercise vault clients without a vault server.  Only the calls issued
+ * by ISkVaultClient and SkExport are supported and TLS is not available.  An optional
+ * latency is added to each call to simulate a remote server.
+ *
+ * Large trees of read-only user secrets can be added synthetically.  Their
+ * listings and values are generated on each request rather than stored.
+ *
+ * Tokens are not checked until an AppRole is added.  After that, tokens are
+ * issued by AppRole login, can be renewed until they expire and are required
+ * on every secrets engine call.
+ */
+public final class LocalVaultServer
+ implements AutoCloseable
+{
+    // The server and its request threads.
+    private final HttpServer      _server;
+    private final ExecutorService _executor;
+    private final long            _latencyMillis;
+
+    // Secret versions by path without qualifier, index 0 is version 1.
+    private final ConcurrentHashMap<String,ArrayList<Version>> _secrets = new ConcurrentHashMap<>();
+
+    // AppRole secret ids by role id and token expiration times by token.
+    private final ConcurrentHashMap<String,String> _appRoles = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String,Long>   _tokens   = new ConcurrentHashMap<>();
+    private final AtomicInteger _logins = new AtomicInteger();
+    private volatile long _tokenTtlSeconds = 3600;
+
+    // Synthetic user secret trees by tenant.
+    private static final Pattern SYNTHETIC_PATH = Pattern.compile("u(\\d+)/kv/s(\\d+)");
+    private final ConcurrentHashMap<String,int[]> _synthetic = new ConcurrentHashMap<>();
+
+    /** Start a server on an ephemeral port. */
+    public LocalVaultServer(long latencyMillis) throws IOException
+    {
+        // Avoid nagle delays on kept-alive connections, which would swamp
+        // any difference between clients.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        _latencyMillis = latencyMillis;
+        _executor = Executors.newCachedThreadPool(r -> {
+            var t = new Thread(r, "LocalVault");
+            t.setDaemon(true);
+            return t;
+        });
+        _server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        _server.setExecutor(_executor);
+        _server.createContext("/v1/", this::handle);
+        _server.start();
+    }
+
+    public String getAddress() {return "http://127.0.0.1:" + _server.getAddress().getPort();}
+
+    /** Require tokens issued by logging in with the role and secret ids. */
+    public void addAppRole(String roleId, String secretId) {_appRoles.put(roleId, secretId);}
+
+    /** Set the lease duration of tokens issued or renewed from now on. */
+    public void setTokenTtlSeconds(long seconds) {_tokenTtlSeconds = seconds;}
+
+    /** Expire every token issued so far. */
+    public void expireTokens() {_tokens.replaceAll((k, v) -> 0L);}
+
+    public int getLoginCount() {return _logins.get();}
+
+    /** Serve secret/tapis/tenant/{tenant}/user/u{i}/kv/s{j} for every user i and
+     * secret j.  Each secret has one key named value, whose value is the path's
+     * numbers padded to the given length.
+     */
+    public void addSyntheticUserSecrets(String tenant, int users, int secretsPerUser, int valueLength)
+    {
+        _synthetic.put(tenant, new int[] {users, secretsPerUser, valueLength});
+    }
+
+    @Override
+    public void close()
+    {
+        _server.stop(0);
+        _executor.shutdownNow();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* handle:                                                                */
+    /* ---------------------------------------------------------------------- */
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try {
+            if (_latencyMillis > 0) Thread.sleep(_latencyMillis);
+
+            // Split /v1/<mount>/<qualifier>/<path>.
+            String[] parts = exchange.getRequestURI().getPath().substring(4).split("/", 3);
+            if (parts.length == 2 && parts[0].equals("sys") && parts[1].equals("health")) 
+                {health(exchange); return;}
+            if (parts.length < 3) {respond(exchange, 404, null); return;}
+            String path = parts[0] + "/" + parts[2];
+            String query = exchange.getRequestURI().getQuery();
+            String method = exchange.getRequestMethod();
+            JsonObject body = null;
+            byte[] bytes = exchange.getRequestBody().readAllBytes();
+            if (bytes.length > 0)
+                body = JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject();
+
+            // Handle authentication, then require a valid token if auth is on.
+            if (parts[0].equals("auth")) {authenticate(exchange, parts[1] + "/" + parts[2], body); return;}
+            if (!_appRoles.isEmpty() && !isValid(exchange.getRequestHeaders().getFirst("X-Vault-Token")))
+                {respond(exchange, 403, null); return;}
+
+            switch (parts[1] + " " + method) {
+                case "data GET":       read(exchange, path, query); break;
+                case "data POST":      write(exchange, path, body); break;
+                case "delete POST":    mark(exchange, path, body, true); break;
+                case "undelete POST":  mark(exchange, path, body, false); break;
+                case "destroy POST":   destroy(exchange, path, body); break;
+                case "metadata GET":   metadata(exchange, path, query); break;
+                case "metadata LIST":  metadata(exchange, path, "list=true"); break;
+                case "metadata DELETE":
+                    _secrets.remove(path);
+                    respond(exchange, 204, null);
+                    break;
+                default: respond(exchange, 405, null);
+            }
+        }
+        catch (InterruptedException e) {Thread.currentThread().interrupt();}
+        catch (Exception e) {respond(exchange, 500, null);}
+        finally {exchange.close();}
+    }
+
+    private void authenticate(HttpExchange exchange, String route, JsonObject body) throws IOException
+    {
+        String token;
+        switch (route) {
+            case "approle/login":
+                String roleId = body == null ? null : body.get("role_id").getAsString();
+                String secretId = roleId == null ? null : _appRoles.get(roleId);
+                if (secretId == null || !secretId.equals(body.get("secret_id").getAsString()))
+                    {respond(exchange, 400, null); return;}
+                token = "s." + UUID.randomUUID();
+                _logins.incrementAndGet();
+                break;
+            case "token/renew-self":
+                token = exchange.getRequestHeaders().getFirst("X-Vault-Token");
+                if (!isValid(token)) {respond(exchange, 403, null); return;}
+                break;
+            default: respond(exchange, 404, null); return;
+        }
+        _tokens.put(token, System.currentTimeMillis() + _tokenTtlSeconds * 1000);
+
+        // Auth responses are not wrapped in a data envelope.
+        var policies = new JsonArray();
+        policies.add("default");
+        var auth = new JsonObject();
+        auth.addProperty("client_token", token);
+        auth.addProperty("accessor", UUID.randomUUID().toString());
+        auth.add("policies", policies);
+        auth.add("token_policies", policies);
+        auth.add("metadata", new JsonObject());
+        auth.addProperty("lease_duration", _tokenTtlSeconds);
+        auth.addProperty("renewable", true);
+        var response = new JsonObject();
+        response.add("auth", auth);
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void health(HttpExchange exchange) throws IOException
+    {
+        var health = new JsonObject();
+        health.addProperty("initialized", true);
+        health.addProperty("sealed", false);
+        health.addProperty("version", "local");
+        byte[] bytes = health.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private boolean isValid(String token)
+    {
+        Long expires = token == null ? null : _tokens.get(token);
+        return expires != null && expires > System.currentTimeMillis();
+    }
+
+    private void read(HttpExchange exchange, String path, String query) throws IOException
+    {
+        // Generate synthetic secrets.
+        for (var e : _synthetic.entrySet()) {
+            String base = syntheticBase(e.getKey());
+            if (!path.startsWith(base)) continue;
+            Matcher m = SYNTHETIC_PATH.matcher(path.substring(base.length()));
+            int[] dims = e.getValue();
+            if (!m.matches() || Integer.parseInt(m.group(1)) >= dims[0] ||
+                Integer.parseInt(m.group(2)) >= dims[1]) break;
+            var value = new StringBuilder(dims[2]).append(m.group(1)).append('.').append(m.group(2));
+            while (value.length() < dims[2]) value.append('x');
+            var secret = new JsonObject();
+            secret.addProperty("value", value.toString());
+            var data = new JsonObject();
+            data.add("data", secret);
+            data.add("metadata", new Version(secret).toMetadata(1));
+            respond(exchange, 200, data);
+            return;
+        }
+
+        var versions = _secrets.get(path);
+        if (versions == null) {respond(exchange, 404, null); return;}
+        synchronized (versions) {
+            int v = query != null && query.startsWith("version=") ?
+                        Integer.parseInt(query.substring(8)) : versions.size();
+            if (v < 1 || v > versions.size()) {respond(exchange, 404, null); return;}
+            var version = versions.get(v - 1);
+            if (version.data == null || version.deleted) {respond(exchange, 404, null); return;}
+            var data = new JsonObject();
+            data.add("data", version.data);
+            data.add("metadata", version.toMetadata(v));
+            respond(exchange, 200, data);
+        }
+    }
+
+    private void write(HttpExchange exchange, String path, JsonObject body) throws IOException
+    {
+        var versions = _secrets.computeIfAbsent(path, k -> new ArrayList<>());
+        synchronized (versions) {
+            versions.add(new Version(body.getAsJsonObject("data")));
+            respond(exchange, 200, versions.get(versions.size() - 1).toMetadata(versions.size()));
+        }
+    }
+
+    private void mark(HttpExchange exchange, String path, JsonObject body, boolean deleted) throws IOException
+    {
+        var versions = _secrets.get(path);
+        if (versions != null)
+            synchronized (versions) {
+                for (JsonElement e : body.getAsJsonArray("versions"))
+                    if (e.getAsInt() >= 1 && e.getAsInt() <= versions.size())
+                        versions.get(e.getAsInt() - 1).deleted = deleted;
+            }
+        respond(exchange, 204, null);
+    }
+
+    private void destroy(HttpExchange exchange, String path, JsonObject body) throws IOException
+    {
+        var versions = _secrets.get(path);
+        if (versions != null)
+            synchronized (versions) {
+                for (JsonElement e : body.getAsJsonArray("versions"))
+                    if (e.getAsInt() >= 1 && e.getAsInt() <= versions.size())
+                        versions.get(e.getAsInt() - 1).data = null;
+            }
+        respond(exchange, 204, null);
+    }
+
+    private void metadata(HttpExchange exchange, String path, String query) throws IOException
+    {
+        // List the immediate children of a directory.
+        if ("list=true".equals(query)) {
+            var keys = new JsonArray();
+            var prefix = path.endsWith("/") ? path : path + "/";
+            var children = new TreeMap<String,Boolean>();
+            for (String p : _secrets.keySet())
+                if (p.startsWith(prefix)) {
+                    String rest = p.substring(prefix.length());
+                    int slash = rest.indexOf('/');
+                    children.put(slash < 0 ? rest : rest.substring(0, slash + 1), Boolean.TRUE);
+                }
+            for (var e : _synthetic.entrySet()) addSyntheticChildren(e.getKey(), e.getValue(), prefix, children);
+            if (children.isEmpty()) {respond(exchange, 404, null); return;}
+            children.keySet().forEach(keys::add);
+            var data = new JsonObject();
+            data.add("keys", keys);
+            respond(exchange, 200, data);
+            return;
+        }
+
+        // Return a secret's metadata.
+        var versions = _secrets.get(path);
+        if (versions == null) {respond(exchange, 404, null); return;}
+        synchronized (versions) {
+            var all = new JsonObject();
+            for (int i = 0; i < versions.size(); i++)
+                all.add(Integer.toString(i + 1), versions.get(i).toMetadata(i + 1));
+            var data = new JsonObject();
+            data.addProperty("current_version", versions.size());
+            data.addProperty("oldest_version", 0);
+            data.addProperty("max_versions", 0);
+            data.addProperty("cas_required", false);
+            data.addProperty("created_time", versions.get(0).created);
+            data.addProperty("updated_time", versions.get(versions.size() - 1).created);
+            data.add("versions", all);
+            respond(exchange, 200, data);
+        }
+    }
+
+    private static String syntheticBase(String tenant) {return "secret/tapis/tenant/" + tenant + "/user/";}
+
+    private static void addSyntheticChildren(String tenant, int[] dims, String prefix,
+                                             TreeMap<String,Boolean> children)
+    {
+        String base = syntheticBase(tenant);
+        if (base.startsWith(prefix) && !base.equals(prefix)) {
+            String rest = base.substring(prefix.length());
+            children.put(rest.substring(0, rest.indexOf('/') + 1), Boolean.TRUE);
+        }
+        else if (base.equals(prefix))
+            for (int i = 0; i < dims[0]; i++) children.put("u" + i + "/", Boolean.TRUE);
+        else if (prefix.startsWith(base)) {
+            String rest = prefix.substring(base.length());
+            if (rest.matches("u\\d+/") && Integer.parseInt(rest.substring(1, rest.length() - 1)) < dims[0])
+                children.put("kv/", Boolean.TRUE);
+            else if (rest.matches("u\\d+/kv/") && Integer.parseInt(rest.substring(1, rest.indexOf('/'))) < dims[0])
+                for (int j = 0; j < dims[1]; j++) children.put("s" + j, Boolean.TRUE);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonObject data) throws IOException
+    {
+        if (data == null) {
+            var errors = new JsonObject();
+            errors.add("errors", new JsonArray());
+            byte[] bytes = status == 204 ? new byte[0] : errors.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, status == 204 ? -1 : bytes.length);
+            if (bytes.length > 0) exchange.getResponseBody().write(bytes);
+            return;
+        }
+        var envelope = new JsonObject();
+        envelope.add("data", data);
+        byte[] bytes = envelope.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static final class Version
+    {
+        private JsonObject   data;
+        private boolean      deleted;
+        private final String created = Instant.now().toString();
+
+        private Version(JsonObject data) {this.data = data;}
+
+        private JsonObject toMetadata(int version)
+        {
+            var meta = new JsonObject();
+            meta.addProperty("version", version);
+            meta.addProperty("created_time", created);
+            meta.addProperty("deletion_time", deleted ? created : "");
+            meta.addProperty("destroyed", data == null);
+            return meta;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+
+@Test(groups= {"unit"})
+public class SecretListPagerTest
+{
+    // A tree of secret keys relative to its root.
+    private static final String[] secrets = {
+        "user/alice/sshkey/S1", "user/alice/password/S1", "user/alice/password/S2",
+        "user/bob/sshkey/S1", "user/bob/accesskey/S1", "cert/S1", "top",
+        "user/carol/token/S1", "user/carol/token/S2", "user/carol/token/S3"};
+
+    @Test(enabled=true)
+    public void pageTest() throws TapisImplException
+    {
+        // Every page size returns every key exactly once and in order.
+        var expected = new ArrayList<>(new TreeSet<>(List.of(secrets)));
+        for (int limit = 1; limit <= secrets.length + 1; limit++) {
+            var all = new ArrayList<String>();
+            String cursor = null;
+            do {
+                var pager = new SecretListPager(limit, cursor);
+                walk(pager, 0);
+                var keys = pager.getKeys();
+                Assert.assertTrue(keys.size() <= limit);
+                all.addAll(keys);
+                cursor = pager.getNextCursor();
+            } while (cursor != null);
+            Assert.assertEquals(all, expected, "limit " + limit);
+        }
+    }
+
+    @Test(enabled=true)
+    public void depthTest() throws TapisImplException
+    {
+        // Directories at the depth limit are returned as keys.
+        var pager = new SecretListPager(10, null);
+        walk(pager, 2);
+        Assert.assertEquals(pager.getKeys(), List.of("cert/S1", "top", "user/alice/", "user/bob/",
+                                                     "user/carol/"));
+        Assert.assertNull(pager.getNextCursor());
+    }
+
+    @Test(enabled=true)
+    public void skipTest() throws TapisImplException
+    {
+        // Directories wholly before the cursor or after a full page are skipped.
+        var pager = new SecretListPager(1, SecretListPager.encodeCursor("user/bob/sshkey/S1"));
+        Assert.assertTrue(pager.canSkipDirectory("user/alice/"));
+        Assert.assertFalse(pager.canSkipDirectory("user/"));
+        Assert.assertFalse(pager.canSkipDirectory("user/bob/"));
+        pager.offer("user/carol/token/S1");
+        pager.offer("user/carol/token/S2");
+        Assert.assertTrue(pager.canSkipDirectory("user/dave/"));
+        Assert.assertFalse(pager.canSkipDirectory("user/carol/"));
+    }
+
+    @Test(enabled=true)
+    public void badCursorTest()
+    {
+        try {
+            new SecretListPager(10, "not*base64");
+            Assert.fail("Expected an invalid cursor");
+        }
+        catch (TapisImplException e) {}
+    }
+
+    /** List the tree one level at a time as VaultImpl does. */
+    private static void walk(SecretListPager pager, int depth)
+    {
+        List<String> level = List.of("");
+        for (int d = 1; (depth == 0 || d <= depth) && !level.isEmpty(); d++) {
+            var next = new ArrayList<String>();
+            for (String dir : level) {
+                if (pager.canSkipDirectory(dir)) continue;
+                for (String key : list(dir)) {
+                    String relKey = dir + key;
+                    if ((depth == 0 || d < depth) && key.endsWith("/")) {
+                        if (!pager.canSkipDirectory(relKey)) next.add(relKey);
+                    }
+                    else pager.offer(relKey);
+                }
+            }
+            level = next;
+        }
+    }
+
+    /** Return the immediate children of a directory. */
+    private static TreeSet<String> list(String dir)
+    {
+        var children = new TreeSet<String>();
+        for (String s : secrets)
+            if (s.startsWith(dir)) {
+                String rest = s.substring(dir.length());
+                int slash = rest.indexOf('/');
+                children.add(slash < 0 ? rest : rest.substring(0, slash + 1));
+            }
+        return children;
+    }
+}
@@ -0,0 +1,49 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.secrets.SecretPathMapper.SecretPathMapperParms;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+
+@Test(groups= {"unit"})
+public class SecretPathMapperTest
+{
+    @Test(enabled=true)
+    public void systemSubtreePathTest() throws TapisImplException
+    {
+        // The whole system.
+        var parms = new SecretPathMapperParms(SecretType.System);
+        parms.setSysId("sys1");
+        Assert.assertEquals(new SecretPathMapper(parms).getSystemSubtreePath("dev"),
+                            "secret/tapis/tenant/dev/system/sys1/");
+
+        // One user on the system.
+        parms.setSysUser("bud");
+        Assert.assertEquals(new SecretPathMapper(parms).getSystemSubtreePath("dev"),
+                            "secret/tapis/tenant/dev/system/sys1/user/bud/");
+    }
+
+    @Test(enabled=true)
+    public void systemSubtreeScopeTest() throws TapisImplException
+    {
+        // Components that could escape the system's subtree are rejected.
+        String[][] cases = {{"dev", ""}, {"dev", "sys1/user"}, {"dev", ".."}, {"dev/x", "sys1"}, {null, "sys1"}};
+        for (String[] c : cases) {
+            var parms = new SecretPathMapperParms(SecretType.System);
+            parms.setSysId(c[1]);
+            try {
+                new SecretPathMapper(parms).getSystemSubtreePath(c[0]);
+                Assert.fail("Expected rejection of tenant " + c[0] + " and sysId " + c[1]);
+            } catch (TapisImplException e) {}
+        }
+
+        // Only system secrets have subtrees.
+        var parms = new SecretPathMapperParms(SecretType.User);
+        parms.setSysId("sys1");
+        try {
+            new SecretPathMapper(parms).getSystemSubtreePath("dev");
+            Assert.fail("Expected rejection of user secret type");
+        } catch (TapisImplException e) {}
+    }
+}
@@ -0,0 +1,102 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.authz.model.SkJwtPublicKey;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
+
+@Test(groups= {"unit"})
+public class SkJwtKeyCacheTest
+{
+    private static final String path = "secret/tapis/tenant/dev/jwtkey/keys";
+
+    @Test(enabled=true)
+    public void versionTest() throws Exception
+    {
+        // Check the version on every request.
+        var cache = new SkJwtKeyCache(true, 0);
+        var vault = new FakeVault();
+
+        // The first call loads the key, the next only checks its version.
+        Assert.assertEquals(cache.get(path, vault).publicKey, "key1");
+        Assert.assertEquals(cache.get(path, vault).publicKey, "key1");
+        Assert.assertEquals(vault.loads.get(), 1);
+        Assert.assertEquals(vault.checks.get(), 1);
+
+        // A new version is loaded.
+        vault.version = 2;
+        Assert.assertEquals(cache.get(path, vault).publicKey, "key2");
+        Assert.assertEquals(vault.loads.get(), 2);
+
+        // Failed checks keep the current key.
+        vault.fail = true;
+        Assert.assertEquals(cache.get(path, vault).version, 2);
+        Assert.assertEquals(cache.getCheckFailureCount(), 1);
+        vault.fail = false;
+
+        // Deleted keys are not served.
+        vault.version = 0;
+        Assert.assertThrows(TapisImplException.class, () -> cache.get(path, vault));
+    }
+
+    @Test(enabled=true)
+    public void intervalTest() throws Exception
+    {
+        // Recently checked keys are served without calling vault.
+        var cache = new SkJwtKeyCache(true, 60);
+        var vault = new FakeVault();
+        for (int i = 0; i < 5; i++) Assert.assertEquals(cache.get(path, vault).version, 1);
+        Assert.assertEquals(vault.loads.get(), 1);
+        Assert.assertEquals(vault.checks.get(), 0);
+        Assert.assertEquals(cache.getHitCount(), 4);
+
+        // Invalidation forces a reload.
+        vault.version = 2;
+        cache.invalidate(path);
+        Assert.assertEquals(cache.get(path, vault).version, 2);
+        Assert.assertEquals(vault.loads.get(), 2);
+    }
+
+    @Test(enabled=true)
+    public void disabledTest() throws Exception
+    {
+        var cache = new SkJwtKeyCache(false, 60);
+        var vault = new FakeVault();
+        cache.get(path, vault);
+        cache.get(path, vault);
+        Assert.assertEquals(vault.loads.get(), 2);
+        Assert.assertEquals(cache.getSize(), 0);
+    }
+
+    private static final class FakeVault
+     implements SkJwtKeyCache.KeyLoader
+    {
+        private volatile int     version = 1;
+        private volatile boolean fail;
+        private final AtomicInteger checks = new AtomicInteger();
+        private final AtomicInteger loads  = new AtomicInteger();
+
+        @Override
+        public int getCurrentVersion() throws TapisImplException
+        {
+            checks.incrementAndGet();
+            if (fail) throw new TapisImplException("vault down", Condition.INTERNAL_SERVER_ERROR);
+            return version;
+        }
+
+        @Override
+        public SkJwtPublicKey load() throws TapisImplException
+        {
+            loads.incrementAndGet();
+            if (version == 0) throw new TapisImplException("not found", Condition.NOT_FOUND);
+            var key = new SkJwtPublicKey();
+            key.version = version;
+            key.publicKey = "key" + version;
+            return key;
+        }
+    }
+}
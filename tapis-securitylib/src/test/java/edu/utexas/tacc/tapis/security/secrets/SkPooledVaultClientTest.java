@@ -0,0 +1,108 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.bettercloud.vault.VaultException;
+import com.google.gson.JsonParser;
+
+@Test(groups= {"unit"})
+public class SkPooledVaultClientTest
+{
+    private static final String path = "secret/tapis/tenant/dev/service/files/kv/password";
+
+    @Test(enabled=true)
+    public void crudTest() throws Exception
+    {
+        try (var server = new LocalVaultServer(0)) {
+            var client = new SkPooledVaultClient(server.getAddress(), () -> "token", 4,
+                                                 false, true, 1000, 5000);
+
+            // Write two versions.
+            var secretMap = new HashMap<String,Object>();
+            secretMap.put("password", "v1");
+            Assert.assertEquals(client.write(path, secretMap).getStatus(), 200);
+            secretMap.put("password", "v2");
+            Assert.assertEquals(client.write(path, secretMap).getStatus(), 200);
+
+            // Read latest and a specific version.
+            Assert.assertEquals(getPassword(client.read(path, 0).getBody()), "v2");
+            Assert.assertEquals(getPassword(client.read(path, 1).getBody()), "v1");
+
+            // Metadata and listing.
+            var meta = JsonParser.parseString(body(client.list(path).getBody())).getAsJsonObject();
+            Assert.assertEquals(meta.getAsJsonObject("data").get("current_version").getAsInt(), 2);
+            var list = JsonParser.parseString(body(client.list("secret/tapis/tenant/dev/").getBody()));
+            Assert.assertEquals(list.getAsJsonObject().getAsJsonObject("data").getAsJsonArray("keys").
+                                  get(0).getAsString(), "service/");
+
+            // Soft delete, undelete and destroy.
+            client.delete(path, new int[] {2});
+            Assert.assertEquals(client.read(path, 2).getStatus(), 404);
+            client.unDelete(path, new int[] {2});
+            Assert.assertEquals(client.read(path, 2).getStatus(), 200);
+            client.destroy(path, new int[] {1});
+            Assert.assertEquals(client.read(path, 1).getStatus(), 404);
+            client.deleteMetadata(path);
+            Assert.assertEquals(client.list(path).getStatus(), 404);
+
+            Assert.assertEquals(client.getCallCount(), 14);
+            Assert.assertEquals(client.getInFlight(), 0);
+        }
+    }
+
+    @Test(enabled=true)
+    public void concurrencyLimitTest() throws Exception
+    {
+        try (var server = new LocalVaultServer(20)) {
+            var client = new SkPooledVaultClient(server.getAddress(), () -> "token", 2,
+                                                 false, true, 1000, 5000);
+            var executor = Executors.newFixedThreadPool(8);
+            try {
+                var futures = new ArrayList<Future<Integer>>();
+                for (int i = 0; i < 16; i++) {
+                    Callable<Integer> call = () -> client.read(path, 0).getStatus();
+                    futures.add(executor.submit(call));
+                }
+                for (var f : futures) Assert.assertEquals(f.get().intValue(), 404);
+            }
+            finally {executor.shutdownNow();}
+
+            // The limit held and some calls had to wait.
+            Assert.assertTrue(client.getMaxInFlight() <= 2, client.getStatistics());
+            Assert.assertTrue(client.getSaturatedCount() > 0, client.getStatistics());
+            Assert.assertEquals(client.getRejectedCount(), 0);
+        }
+    }
+
+    @Test(enabled=true)
+    public void deadlineTest() throws Exception
+    {
+        try (var server = new LocalVaultServer(500)) {
+            var client = new SkPooledVaultClient(server.getAddress(), () -> "token", 1,
+                                                 false, true, 1000, 100);
+            try {
+                client.read(path, 0);
+                Assert.fail("Expected the call to time out");
+            }
+            catch (VaultException e) {}
+            Assert.assertEquals(client.getTimeoutCount(), 1);
+            Assert.assertEquals(client.getInFlight(), 0);
+        }
+    }
+
+    private static String body(byte[] bytes) {return new String(bytes, StandardCharsets.UTF_8);}
+
+    private static String getPassword(byte[] bytes)
+    {
+        return JsonParser.parseString(body(bytes)).getAsJsonObject().getAsJsonObject("data").
+                 getAsJsonObject("data").get("password").getAsString();
+    }
+}
@@ -0,0 +1,48 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.secrets.SkSecretGenerator.KeyAlgorithm;
+
+@Test(groups= {"unit"})
+public class SkSecretGeneratorTest
+{
+    @Test(enabled=true)
+    public void directiveTest()
+    {
+        Assert.assertEquals(SkSecretGenerator.getKeyAlgorithm("<generate-secret>"), KeyAlgorithm.RSA);
+        Assert.assertEquals(SkSecretGenerator.getKeyAlgorithm("<generate-ec-secret>"), KeyAlgorithm.EC);
+        Assert.assertNull(SkSecretGenerator.getKeyAlgorithm("secret"));
+        Assert.assertNull(SkSecretGenerator.getKeyAlgorithm(null));
+    }
+
+    @Test(enabled=true)
+    public void keyPairsTest() throws Exception
+    {
+        // Key pairs are returned in request order whether or not a pool is used.
+        var algorithms = List.of(KeyAlgorithm.EC, KeyAlgorithm.RSA, KeyAlgorithm.EC, KeyAlgorithm.EC);
+        for (int threads : new int[] {1, 4}) {
+            var keyPairs = SkSecretGenerator.generateKeyPairs(algorithms, threads);
+            Assert.assertEquals(keyPairs.size(), algorithms.size());
+            for (int i = 0; i < algorithms.size(); i++) {
+                Assert.assertEquals(keyPairs.get(i).getPublic().getAlgorithm(), algorithms.get(i).getJcaName());
+                Assert.assertEquals(keyPairs.get(i).getPrivate().getAlgorithm(), algorithms.get(i).getJcaName());
+            }
+        }
+
+        String pem = SkSecretGenerator.generatePublicPemKey(SkSecretGenerator.generateKeyPair(KeyAlgorithm.EC).getPublic());
+        Assert.assertTrue(pem.startsWith("-----BEGIN PUBLIC KEY-----\n"), pem);
+        Assert.assertTrue(pem.endsWith("\n-----END PUBLIC KEY-----"), pem);
+    }
+
+    @Test(enabled=true)
+    public void passwordTest()
+    {
+        String password = SkSecretGenerator.generatePassword(16);
+        Assert.assertTrue(password.matches("[0-9A-Za-z]+"), password);
+        Assert.assertNotEquals(SkSecretGenerator.generatePassword(16), password);
+    }
+}
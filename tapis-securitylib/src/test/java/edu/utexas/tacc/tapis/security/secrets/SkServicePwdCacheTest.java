@@ -0,0 +1,59 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups= {"unit"})
+public class SkServicePwdCacheTest
+{
+    private static final String path = "secret/tapis/tenant/admin/service/files/kv/password";
+
+    @Test(enabled=true)
+    public void validateTest() throws Exception
+    {
+        var cache = new SkServicePwdCache(true, 60);
+        var loads = new AtomicInteger();
+        var vaultPwd = new String[] {"pwd1"};
+        SkServicePwdCache.PasswordLoader loader = () -> {loads.incrementAndGet(); return vaultPwd[0];};
+
+        // The first call reads vault, the next is served from memory.
+        Assert.assertTrue(cache.validate(path, "pwd1", loader));
+        Assert.assertTrue(cache.validate(path, "pwd1", loader));
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertEquals(cache.getHitCount(), 1);
+
+        // Wrong passwords are always checked against vault.
+        Assert.assertFalse(cache.validate(path, "bad", loader));
+        Assert.assertEquals(loads.get(), 2);
+
+        // A password rotated elsewhere is accepted on first use.
+        vaultPwd[0] = "pwd2";
+        Assert.assertTrue(cache.validate(path, "pwd2", loader));
+        Assert.assertFalse(cache.validate(path, "pwd1", loader));
+        
+        // Invalidation forces a reread.
+        int before = loads.get();
+        cache.invalidate(path);
+        Assert.assertTrue(cache.validate(path, "pwd2", loader));
+        Assert.assertEquals(loads.get(), before + 1);
+        
+        // Missing passwords never validate.
+        vaultPwd[0] = null;
+        cache.invalidate(path);
+        Assert.assertFalse(cache.validate(path, "pwd2", loader));
+    }
+
+    @Test(enabled=true)
+    public void disabledTest() throws Exception
+    {
+        var cache = new SkServicePwdCache(false, 60);
+        var loads = new AtomicInteger();
+        SkServicePwdCache.PasswordLoader loader = () -> {loads.incrementAndGet(); return "pwd";};
+        Assert.assertTrue(cache.validate(path, "pwd", loader));
+        Assert.assertTrue(cache.validate(path, "pwd", loader));
+        Assert.assertFalse(cache.validate(path, "pw", loader));
+        Assert.assertEquals(loads.get(), 3);
+    }
+}
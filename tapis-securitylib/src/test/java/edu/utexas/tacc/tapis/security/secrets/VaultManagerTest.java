@@ -0,0 +1,97 @@
+package edu.utexas.tacc.tapis.security.secrets;
+
+import java.util.HashMap;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.security.metrics.SkMetrics;
+
+@Test(groups= {"unit"})
+public class VaultManagerTest
+{
+    private static final String path = "secret/tapis/tenant/dev/service/files/kv/password";
+    private static final String roleId   = "sk-role";
+    private static final String secretId = "sk-secret";
+
+    @Test(enabled=true)
+    public void reloginTest() throws Exception
+    {
+        try (var server = new LocalVaultServer(0)) {
+            server.addAppRole(roleId, secretId);
+            // Renewal is attempted halfway through each token's lease, so
+            // short leases keep the re-login below to about a second.
+            server.setTokenTtlSeconds(2);
+            var manager = new VaultManager(new Parms(server.getAddress()));
+            try {
+                var client = manager.getVaultClient();
+                var secretMap = new HashMap<String,Object>();
+                secretMap.put("password", "v1");
+                Assert.assertEquals(client.write(path, secretMap).getStatus(), 200);
+                String firstToken = manager.getSkToken();
+
+                // Expire the token so that renewal fails and SK logs in again.
+                server.expireTokens();
+                Assert.assertEquals(client.read(path, 0).getStatus(), 403);
+                long deadline = System.currentTimeMillis() + 5000;
+                while (manager.getReloginCount() == 0 && System.currentTimeMillis() < deadline)
+                    Thread.sleep(50);
+
+                // Requests use the new token.
+                Assert.assertTrue(manager.getReloginCount() >= 1, "no re-login");
+                Assert.assertNotEquals(manager.getSkToken(), firstToken);
+                Assert.assertEquals(client.read(path, 0).getStatus(), 200);
+                Assert.assertTrue(manager.isHealthy());
+                Assert.assertTrue(manager.isReady());
+                Assert.assertEquals(server.getLoginCount(), 1 + (int) manager.getReloginCount());
+            }
+            finally {manager.stopTokenRenewalThread();}
+        }
+    }
+
+    @Test(enabled=true)
+    public void metricsTest() throws Exception
+    {
+        try (var server = new LocalVaultServer(0)) {
+            server.addAppRole(roleId, secretId);
+            server.setTokenTtlSeconds(60);
+
+            // The token lifetime and event counts are published.
+            SkMetrics.setEnabled(true);
+            VaultManager manager;
+            try {manager = new VaultManager(new Parms(server.getAddress()));}
+                finally {SkMetrics.setEnabled(false);}
+            try {
+                var registry = SkMetrics.getRegistry();
+                double ttl = registry.find(SkMetrics.VAULT_TOKEN_TTL).gauge().value();
+                Assert.assertTrue(ttl > 0 && ttl <= 60, "ttl " + ttl);
+                Assert.assertEquals(registry.find(SkMetrics.VAULT_TOKEN_EVENTS).tag("event", "relogin")
+                                            .functionCounter().count(), (double) manager.getReloginCount());
+                Assert.assertNotNull(registry.find(SkMetrics.VAULT_TOKEN_EVENTS).tag("event", "renewal")
+                                             .functionCounter());
+            }
+            finally {manager.stopTokenRenewalThread();}
+        }
+    }
+
+    private static final class Parms
+     implements IVaultManagerParms
+    {
+        private final String _address;
+        private Parms(String address) {_address = address;}
+
+        @Override public boolean isVaultDisabled() {return false;}
+        @Override public boolean isVaultRenewalDisabled() {return false;}
+        @Override public String  getVaultAddress() {return _address;}
+        @Override public String  getVaultRoleId() {return roleId;}
+        @Override public String  getVaultSecretId() {return secretId;}
+        @Override public int     getVaultOpenTimeout() {return 5;}
+        @Override public int     getVaultReadTimeout() {return 10;}
+        @Override public boolean isVaultSslVerify() {return false;}
+        @Override public String  getVaultSslCertFile() {return null;}
+        @Override public String  getVaultSkKeyPemFile() {return null;}
+        @Override public int     getVaultRenewSeconds() {return 2;}
+        @Override public int     getVaultRenewThreshold() {return 50;}
+        @Override public boolean isVaultClientPooled() {return true;}
+    }
+}
@@ -0,0 +1,54 @@
+-- This file adds the per-tenant authorization change log used by clients
+-- that maintain incremental caches of SK authorization data.
+--
+-- TIMEZONE Convention
+----------------------
+-- All tables in this application conform to the same timezone usage rule:
+--
+--      All dates, times and timestamps are stored as UTC WITHOUT TIMEZONE information.
+--
+-- All temporal values written to the database are required to be UTC, all temporal
+-- values read from the database can be assumed to be UTC.
+
+-- ----------------------------------------------------------------------------------------
+--                                   sk_authz_version
+-- ----------------------------------------------------------------------------------------
+-- One row per tenant holding the tenant's current authorization version.  Writers 
+-- increment the version in the same transaction as the authorization change, so the
+-- row lock orders concurrent writers and versions become visible in commit order.
+CREATE TABLE sk_authz_version
+(
+  tenant    character varying(24) PRIMARY KEY,
+  version   int8 NOT NULL DEFAULT 0,
+  updated   timestamp without time zone NOT NULL DEFAULT (now() at time zone 'utc')
+);
+ALTER TABLE sk_authz_version OWNER TO tapis;
+
+COMMENT ON COLUMN sk_authz_version.tenant IS 'Tenant whose authorization data changed';
+COMMENT ON COLUMN sk_authz_version.version IS 'Monotonically increasing version of the tenant authorization data';
+COMMENT ON COLUMN sk_authz_version.updated IS 'UTC time of the last change';
+
+-- ----------------------------------------------------------------------------------------
+--                                   sk_authz_change
+-- ----------------------------------------------------------------------------------------
+-- Change log that is inserted into and selected from, but records are never updated.
+-- Old records can be deleted; clients whose version precedes the oldest retained record
+-- must reload their caches.
+CREATE TABLE sk_authz_change
+(
+  id          serial8 PRIMARY KEY,
+  tenant      character varying(24) NOT NULL,
+  version     int8 NOT NULL,
+  change_type character varying(24) NOT NULL,
+  user_name   character varying(60),
+  created     timestamp without time zone NOT NULL DEFAULT (now() at time zone 'utc')
+);
+ALTER TABLE sk_authz_change OWNER TO tapis;
+CREATE UNIQUE INDEX sk_authz_change_t_v_idx ON sk_authz_change (tenant, version);
+
+COMMENT ON COLUMN sk_authz_change.id IS 'Unique record id';
+COMMENT ON COLUMN sk_authz_change.tenant IS 'Tenant whose authorization data changed';
+COMMENT ON COLUMN sk_authz_change.version IS 'Tenant authorization version assigned to this change';
+COMMENT ON COLUMN sk_authz_change.change_type IS 'ROLE, ROLE_PERMISSION, ROLE_TREE, USER_ROLE or SHARE';
+COMMENT ON COLUMN sk_authz_change.user_name IS 'Affected user or null if any user may be affected';
+COMMENT ON COLUMN sk_authz_change.created IS 'UTC time the change was recorded';